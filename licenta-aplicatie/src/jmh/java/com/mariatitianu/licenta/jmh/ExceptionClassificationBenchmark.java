@@ -0,0 +1,47 @@
+package com.mariatitianu.licenta.jmh;
+
+import com.mariatitianu.licenta.exception.GlobalExceptionHandler;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GlobalExceptionHandler's message-based classification: root-cause walk, repeated
+ * toLowerCase/contains scans and the nested response maps.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExceptionClassificationBenchmark {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    private DataAccessException protectedTable;
+    private DataAccessException genericError;
+
+    @Setup
+    public void setUp() {
+        protectedTable = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("ERROR: pg_warden: DELETE on protected table products is not allowed"));
+        genericError = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("ERROR: duplicate key value violates unique constraint \"products_pkey\""));
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> protectedTable() {
+        return handler.handleDataAccessException(protectedTable);
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, Object>> genericError() {
+        return handler.handleDataAccessException(genericError);
+    }
+}
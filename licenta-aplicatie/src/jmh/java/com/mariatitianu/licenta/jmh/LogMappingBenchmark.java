@@ -0,0 +1,106 @@
+package com.mariatitianu.licenta.jmh;
+
+import com.mariatitianu.licenta.repository.LogRepository;
+import com.mariatitianu.licenta.service.LogService;
+import com.mariatitianu.licenta.service.OperationLogCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogService's raw-row to OperationLog mapping, fed from a stubbed
+ * LogRepository holding rows shaped like warden_all_queries() output (filters are SQL in the real one).
+ * With cached=true the same calls are answered from OperationLogCache's rings instead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LogMappingBenchmark {
+
+    @Param({"50", "1000"})
+    private int limit;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private OperationLogCache operationLogCache;
+    private LogService logService;
+
+    @Setup
+    public void setUp() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Map<String, Object> row = new HashMap<>();
+            boolean blocked = i % 3 == 0;
+            row.put("log_timestamp", "2025-06-01T12:00:" + String.format("%02d", i % 60) + "Z");
+            row.put("operation_type", blocked ? "DELETE" : "SELECT");
+            row.put("table_name", i % 2 == 0 ? "products" : "customer_payments");
+            row.put("user_name", "warden_admin_user");
+            row.put("session_pid", 1000 + i);
+            row.put("status", blocked ? "BLOCKED" : "ALLOWED");
+            row.put("blocked_reason", blocked ? "Table products is protected" : null);
+            row.put("query_text", blocked ? "DELETE FROM products WHERE id = " + i : "SELECT * FROM products");
+            row.put("log_position", (long) i + 1);
+            rows.add(row);
+        }
+
+        LogRepository logRepository = new LogRepository() {
+            @Override
+            public List<Map<String, Object>> getRecentOperations(int limit) {
+                return rows.subList(0, Math.min(limit, rows.size()));
+            }
+
+            @Override
+            public List<Map<String, Object>> getAllOperations() {
+                return rows;
+            }
+
+            // Stands in for the SQL filter, newest first; only the status filter is exercised here
+            @Override
+            public List<Map<String, Object>> findOperations(String status, String tableName, String userName,
+                                                            String operationType, String fromTime, String toTime,
+                                                            String afterTimestamp, Long afterPosition, int limit) {
+                List<Map<String, Object>> page = new ArrayList<>(limit);
+                for (int i = rows.size() - 1; i >= 0 && page.size() < limit; i--) {
+                    Map<String, Object> row = rows.get(i);
+                    if (status == null || status.equals(row.get("status"))) {
+                        page.add(row);
+                    }
+                }
+                return page;
+            }
+
+            @Override
+            public List<Map<String, Object>> findOperationsAfter(long afterPosition, int limit) {
+                int from = (int) Math.min(afterPosition, rows.size());
+                return rows.subList(from, Math.min(from + limit, rows.size()));
+            }
+        };
+
+        // Capacity 0 turns the cache off, so every call maps rows from the repository
+        operationLogCache = new OperationLogCache(logRepository, cached ? 1000 : 0, 1000, 60000);
+        logService = new LogService(logRepository, operationLogCache);
+    }
+
+    @TearDown
+    public void tearDown() {
+        operationLogCache.shutdown();
+    }
+
+    @Benchmark
+    public List<LogService.OperationLog> recentOperations() {
+        return logService.getRecentOperations(limit);
+    }
+
+    @Benchmark
+    public List<LogService.OperationLog> blockedOperations() {
+        return logService.getBlockedOperations(limit);
+    }
+}
@@ -0,0 +1,49 @@
+package com.mariatitianu.licenta.jmh;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mariatitianu.licenta.service.LogService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the OperationLog lists returned by the log endpoints.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OperationLogSerializationBenchmark {
+
+    @Param({"50", "1000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<LogService.OperationLog> logs;
+
+    @Setup
+    public void setUp() {
+        logs = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            boolean blocked = i % 3 == 0;
+            logs.add(new LogService.OperationLog(
+                    blocked ? "DELETE" : "SELECT",
+                    "products",
+                    "2025-06-01T12:00:00Z",
+                    "warden_admin_user",
+                    blocked ? "Table products is protected" : null,
+                    blocked ? "DELETE FROM products WHERE id = " + i : "SELECT * FROM products",
+                    (long) i + 1));
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(logs);
+    }
+}
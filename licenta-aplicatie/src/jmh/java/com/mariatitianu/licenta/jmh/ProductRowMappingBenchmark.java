@@ -0,0 +1,44 @@
+package com.mariatitianu.licenta.jmh;
+
+import com.mariatitianu.licenta.entity.Product;
+import com.mariatitianu.licenta.repository.jdbc.ProductJdbcRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ProductJdbcRepository#findAll()} over a stubbed ResultSet: cursor iteration plus
+ * mapRowToProduct's index-based reads, without any network or driver cost.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductRowMappingBenchmark {
+
+    private static final String[] COLUMNS = {"id", "name", "category", "price", "stock_quantity", "description"};
+
+    @Param({"1", "100", "1000"})
+    private int rows;
+
+    private ProductJdbcRepository repository;
+
+    @Setup
+    public void setUp() {
+        Object[][] data = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            data[i] = new Object[]{(long) i + 1, "Product " + i, "Electronics",
+                    new BigDecimal("19.99"), 10 + i, "Description of product " + i};
+        }
+        repository = new ProductJdbcRepository(StubJdbc.dataSource(COLUMNS, data));
+    }
+
+    @Benchmark
+    public List<Product> findAll() {
+        return repository.findAll();
+    }
+}
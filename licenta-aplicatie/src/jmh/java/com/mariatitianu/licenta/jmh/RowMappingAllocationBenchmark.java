@@ -0,0 +1,135 @@
+package com.mariatitianu.licenta.jmh;
+
+import com.mariatitianu.licenta.entity.Product;
+import com.mariatitianu.licenta.repository.LogExportRepository;
+import com.mariatitianu.licenta.repository.jdbc.LogJdbcRepository;
+import com.mariatitianu.licenta.repository.jdbc.ProductJdbcRepository;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Large product and log scans mapped the way the JDBC repositories used to (by column name per
+ * row, ColumnMapRowMapper for log rows) against RowMapping's index-resolved mapping and the
+ * export's reused row. Run with {@code -prof gc}: gc.alloc.rate.norm divided by {@code rows} is
+ * the allocation per row. The stub ResultSet is a dynamic proxy that allocates on every call
+ * in both variants, so compare the difference, not the absolute numbers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMappingAllocationBenchmark {
+
+    private static final String[] PRODUCT_COLUMNS = {"id", "name", "category", "price", "stock_quantity", "description"};
+    private static final String[] LOG_COLUMNS = {"log_timestamp", "operation_type", "table_name", "user_name",
+            "session_pid", "status", "blocked_reason", "query_text", "log_position"};
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private Object[][] productData;
+    private Object[][] logData;
+    private ProductJdbcRepository productRepository;
+    private LogJdbcRepository logRepository;
+
+    @Setup
+    public void setUp() {
+        productData = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            productData[i] = new Object[]{(long) i + 1, "Product " + i, "Electronics",
+                    new BigDecimal("19.99"), 10 + i, "Description of product " + i};
+        }
+        logData = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            boolean blocked = i % 3 == 0;
+            logData[i] = new Object[]{"2025-06-01T12:00:" + String.format("%02d", i % 60) + "Z",
+                    blocked ? "DELETE" : "SELECT", "products", "warden_admin_user", 1000 + i,
+                    blocked ? "BLOCKED" : "ALLOWED", blocked ? "Table products is protected" : null,
+                    blocked ? "DELETE FROM products WHERE id = " + i : "SELECT * FROM products", (long) i + 1};
+        }
+        productRepository = new ProductJdbcRepository(StubJdbc.dataSource(PRODUCT_COLUMNS, productData));
+        logRepository = new LogJdbcRepository(StubJdbc.dataSource(LOG_COLUMNS, logData));
+    }
+
+    // The mapping ProductJdbcRepository had before RowMapping
+    @Benchmark
+    public List<Product> productsByName() throws SQLException {
+        ResultSet rs = StubJdbc.resultSet(PRODUCT_COLUMNS, productData);
+        List<Product> products = new ArrayList<>();
+        while (rs.next()) {
+            Product product = new Product();
+            product.setId(rs.getLong("id"));
+            product.setName(rs.getString("name"));
+            product.setCategory(rs.getString("category"));
+            product.setDescription(rs.getString("description"));
+            product.setPrice(rs.getBigDecimal("price"));
+            product.setStockQuantity(rs.getInt("stock_quantity"));
+            products.add(product);
+        }
+        return products;
+    }
+
+    @Benchmark
+    public List<Product> productsByIndex() {
+        return productRepository.findAll();
+    }
+
+    // What NamedParameterJdbcTemplate.queryForList built per log row
+    @Benchmark
+    public List<Map<String, Object>> logRowsColumnMap() throws SQLException {
+        ResultSet rs = StubJdbc.resultSet(LOG_COLUMNS, logData);
+        ColumnMapRowMapper rowMapper = new ColumnMapRowMapper();
+        List<Map<String, Object>> results = new ArrayList<>();
+        int rowNum = 0;
+        while (rs.next()) {
+            results.add(rowMapper.mapRow(rs, rowNum++));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> logRowsIndexed() {
+        return logRepository.getRecentOperations(rows);
+    }
+
+    // The export's former by-name reads, straight off the cursor
+    @Benchmark
+    public void logExportByName(Blackhole blackhole) throws SQLException {
+        ResultSet rs = StubJdbc.resultSet(LOG_COLUMNS, logData);
+        while (rs.next()) {
+            blackhole.consume(rs.getLong("log_position"));
+            blackhole.consume(rs.getString("log_timestamp"));
+            blackhole.consume(rs.getString("operation_type"));
+            blackhole.consume(rs.getString("table_name"));
+            blackhole.consume(rs.getString("user_name"));
+            blackhole.consume(rs.getInt("session_pid"));
+            blackhole.consume(rs.getString("blocked_reason"));
+            blackhole.consume(rs.getString("query_text"));
+        }
+    }
+
+    @Benchmark
+    public void logExportReusedRow(Blackhole blackhole) throws SQLException {
+        LogExportRepository.forEachRow(StubJdbc.resultSet(LOG_COLUMNS, logData), row -> {
+            blackhole.consume(row.getPosition());
+            blackhole.consume(row.getOperationTime());
+            blackhole.consume(row.getOperationType());
+            blackhole.consume(row.getTableName());
+            blackhole.consume(row.getUserName());
+            blackhole.consume(row.getSessionPid());
+            blackhole.consume(row.getBlockedReason());
+            blackhole.consume(row.getQueryText());
+        });
+    }
+}
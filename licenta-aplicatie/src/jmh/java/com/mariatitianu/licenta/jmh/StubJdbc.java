@@ -0,0 +1,91 @@
+package com.mariatitianu.licenta.jmh;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory JDBC stand-ins so repository code can be benchmarked without a database.
+ * Only the calls the repositories actually make are implemented; anything else throws.
+ */
+final class StubJdbc {
+
+    private StubJdbc() {
+    }
+
+    /**
+     * A DataSource whose statements always return a fresh cursor over {@code rows}.
+     */
+    static DataSource dataSource(String[] columns, Object[][] rows) {
+        Statement statement = proxy(Statement.class, (method, args) -> switch (method) {
+            case "executeQuery" -> resultSet(columns, rows);
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        Connection connection = proxy(Connection.class, (method, args) -> switch (method) {
+            case "createStatement" -> statement;
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+        return proxy(DataSource.class, (method, args) -> switch (method) {
+            case "getConnection" -> connection;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static ResultSet resultSet(String[] columns, Object[][] rows) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            indexes.put(columns[i], i);
+        }
+        int[] cursor = {-1};
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (method, args) -> switch (method) {
+            case "getColumnCount" -> columns.length;
+            case "getColumnLabel", "getColumnName" -> columns[(Integer) args[0] - 1];
+            default -> throw new UnsupportedOperationException(method);
+        });
+
+        return proxy(ResultSet.class, (method, args) -> {
+            switch (method) {
+                case "next":
+                    return ++cursor[0] < rows.length;
+                case "close":
+                    return null;
+                case "getMetaData":
+                    return metaData;
+                case "findColumn":
+                    return indexes.get((String) args[0]) + 1;
+                default:
+                    break;
+            }
+            // Getters take a 1-based index or a column label
+            int column = args[0] instanceof Integer index ? index - 1 : indexes.get((String) args[0]);
+            Object value = rows[cursor[0]][column];
+            return switch (method) {
+                case "getLong" -> value == null ? 0L : ((Number) value).longValue();
+                case "getInt" -> value == null ? 0 : ((Number) value).intValue();
+                case "getString" -> (String) value;
+                case "getBigDecimal" -> (BigDecimal) value;
+                case "getObject" -> value;
+                default -> throw new UnsupportedOperationException(method);
+            };
+        });
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws Exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(StubJdbc.class.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> handler.invoke(method.getName(), args));
+    }
+}
@@ -0,0 +1,81 @@
+package com.mariatitianu.licenta.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Benchmark settings bound from {@code benchmark.*} in application.properties.
+ */
+@Component
+@ConfigurationProperties(prefix = "benchmark")
+@Data
+public class BenchmarkProperties {
+
+    // Named databases the comparison engine can run against, e.g. licenta_db and licenta_vanilla_db
+    private Map<String, Target> targets = new LinkedHashMap<>();
+
+    // Target the others are compared against when the request does not name one
+    private String baselineTarget = "licenta_vanilla_db";
+
+    // Build the application was built from, recorded in the run fingerprint
+    private String commit = "unknown";
+
+    private History history = new History();
+
+    private Warmup warmup = new Warmup();
+
+    private Export export = new Export();
+
+    private Fleet fleet = new Fleet();
+
+    @Data
+    public static class Target {
+        private String url;
+        private String username;
+        private String password;
+        private int maxPoolSize = 4;
+    }
+
+    @Data
+    public static class History {
+        private boolean enabled = true;
+        private String dir = "benchmark-history";
+        private int maxRuns = 500;
+        // Significant changes smaller than this are not reported as regressions
+        private double regressionThresholdPercent = 5.0;
+    }
+
+    @Data
+    public static class Export {
+        // Spill files of captured runs, one {start}-{runId} directory per run
+        private String dir = "benchmark-export";
+        private long intervalMs = 1000;
+        // Oldest finished captures are removed beyond this, raw samples take 25 bytes per operation
+        private int maxCaptures = 20;
+    }
+
+    @Data
+    public static class Fleet {
+        // Backend variants the coordinator fans out to: name -> base URL
+        private Map<String, String> backends = new LinkedHashMap<>();
+        private String baseline;
+        private int connectTimeoutSeconds = 5;
+        private int timeoutSeconds = 1800;
+    }
+
+    @Data
+    public static class Warmup {
+        // Iterations per sliding window; the last stableWindows windows are compared
+        private int windowSize = 50;
+        private int stableWindows = 4;
+        // Throughput and median latency of those windows must stay within this distance of their mean
+        private double tolerancePercent = 10.0;
+        private int minIterations = 200;
+        private int maxIterations = 20_000;
+        private int maxSeconds = 60;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mariatitianu.licenta.config;
+
+import com.mariatitianu.licenta.dto.SeedRequest;
+import com.mariatitianu.licenta.dto.SeedResult;
+import com.mariatitianu.licenta.service.DataSeederService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Command-line seeding: with {@code --seed-data} the application loads the synthetic tables
+ * and exits instead of serving requests. Settings are the {@link SeedRequest} fields under
+ * {@code seed.*}, e.g.
+ * <pre>
+ * ./mvnw spring-boot:run -Dspring-boot.run.profiles=jdbc -Dspring-boot.run.arguments="--spring.main.web-application-type=none --seed-data --seed.products=5000000 --seed.payments=2000000 --seed.truncate=true"
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DataSeederRunner implements ApplicationRunner {
+
+    private final DataSeederService dataSeederService;
+    private final Environment environment;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("seed-data")) {
+            return;
+        }
+
+        SeedRequest request = Binder.get(environment).bind("seed", SeedRequest.class).orElseGet(SeedRequest::new);
+        int exitCode = 0;
+        try {
+            SeedResult result = dataSeederService.seed(request);
+            result.getTables().forEach((table, stats) -> log.info("{}: {} rows (ids {}..{}), {} rows/s, {} MB",
+                    table, stats.getRows(), stats.getFirstId(), stats.getLastId(),
+                    Math.round(stats.getRowsPerSecond()), stats.getTableSizeBytes() / (1024 * 1024)));
+        } catch (RuntimeException e) {
+            log.error("Seeding failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
@@ -0,0 +1,26 @@
+package com.mariatitianu.licenta.config;
+
+import com.mariatitianu.licenta.service.benchmark.JdbcPhaseTimer;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application DataSource so benchmark operations can be split into JDBC phases
+ * (see {@link JdbcPhaseTimer}). Off unless {@code benchmark.phase-timing.enabled=true}, which the
+ * benchmark profile sets, so that other deployments do not route every JDBC call through the proxy.
+ */
+@Component
+@ConditionalOnProperty(name = "benchmark.phase-timing.enabled", havingValue = "true", matchIfMissing = false)
+public class JdbcPhaseTimingPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return JdbcPhaseTimer.wrap(dataSource);
+        }
+        return bean;
+    }
+}
@@ -1,13 +1,31 @@
 package com.mariatitianu.licenta.controller;
 
+import com.mariatitianu.licenta.dto.BenchmarkJobInfo;
+import com.mariatitianu.licenta.dto.ComparisonRequest;
+import com.mariatitianu.licenta.dto.FleetRequest;
+import com.mariatitianu.licenta.dto.HistogramMergeRequest;
 import com.mariatitianu.licenta.dto.MultiBenchmarkRequest;
 import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
+import com.mariatitianu.licenta.service.BenchmarkExportService;
+import com.mariatitianu.licenta.service.BenchmarkHistoryService;
+import com.mariatitianu.licenta.service.BenchmarkJobService;
 import com.mariatitianu.licenta.service.BenchmarkService;
+import com.mariatitianu.licenta.service.FleetBenchmarkService;
+import com.mariatitianu.licenta.service.OverheadComparisonService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/benchmark")
@@ -17,14 +35,21 @@ import org.springframework.web.bind.annotation.*;
 public class BenchmarkController {
     
     private final BenchmarkService benchmarkService;
+    private final BenchmarkJobService benchmarkJobService;
+    private final OverheadComparisonService overheadComparisonService;
+    private final BenchmarkHistoryService benchmarkHistoryService;
+    private final BenchmarkExportService benchmarkExportService;
+    private final FleetBenchmarkService fleetBenchmarkService;
     
     @PostMapping("/run")
     public ResponseEntity<MultiBenchmarkResult> runMultiBenchmark(@RequestBody MultiBenchmarkRequest request) {
-        log.info("Running multi-operation benchmark: operations={}, iterations={}",
-                request.getOperations(), request.getIterations());
+        log.info("Running multi-operation benchmark: operations={}, workload={}, iterations={}, clients={}, threadModel={}, durationSeconds={}, targetRate={}",
+                request.getOperations(), request.getWorkload(), request.getIterations(), request.getClients(),
+                request.getThreadModel(), request.getDurationSeconds(), request.getTargetRate());
         
         try {
             MultiBenchmarkResult result = benchmarkService.runMultiBenchmark(request);
+            benchmarkHistoryService.record(request, result);
             return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
             log.error("Invalid benchmark request: {}", e.getMessage());
@@ -35,6 +60,148 @@ public class BenchmarkController {
         }
     }
     
+    @PostMapping("/jobs")
+    public ResponseEntity<BenchmarkJobInfo> submitJob(@RequestBody MultiBenchmarkRequest request) {
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(benchmarkJobService.submit(request));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid benchmark request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/jobs")
+    public ResponseEntity<List<BenchmarkJobInfo>> listJobs() {
+        return ResponseEntity.ok(benchmarkJobService.listJobs());
+    }
+    
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<BenchmarkJobInfo> getJob(@PathVariable String jobId) {
+        return benchmarkJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<BenchmarkJobInfo> cancelJob(@PathVariable String jobId) {
+        return benchmarkJobService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJobProgress(@PathVariable String jobId) {
+        return benchmarkJobService.subscribe(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/histograms/merge")
+    public ResponseEntity<MultiBenchmarkResult.OperationResult> mergeHistograms(@RequestBody HistogramMergeRequest request) {
+        try {
+            return ResponseEntity.ok(benchmarkService.mergeHistograms(request.getHistograms()));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid histogram merge request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Streams the captured latencies of a run (requested with "capture": "INTERVALS" or "SAMPLES").
+     * data=samples: one row per operation, csv or jsonl; data=intervals: one row per tick, csv,
+     * jsonl or hlog (HdrHistogram log, readable by HistogramLogProcessor).
+     */
+    @GetMapping("/runs/{runId}/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String runId,
+                                                        @RequestParam(defaultValue = "intervals") String data,
+                                                        @RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(required = false) String operation) {
+        String dataType = data.toLowerCase(Locale.ROOT);
+        String outputFormat = format.toLowerCase(Locale.ROOT);
+        try {
+            benchmarkExportService.validateExport(runId, dataType, outputFormat);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid export request: {}", e.getMessage());
+            return benchmarkExportService.hasCapture(runId)
+                    ? ResponseEntity.badRequest().build()
+                    : ResponseEntity.notFound().build();
+        }
+
+        MediaType contentType = switch (outputFormat) {
+            case BenchmarkExportService.FORMAT_CSV -> MediaType.parseMediaType("text/csv");
+            case BenchmarkExportService.FORMAT_JSONL -> MediaType.parseMediaType("application/x-ndjson");
+            default -> MediaType.TEXT_PLAIN;
+        };
+        String fileName = runId + "-" + dataType + (operation != null ? "-" + operation : "") + "." + outputFormat;
+        StreamingResponseBody body = out -> benchmarkExportService.export(runId, dataType, outputFormat, operation, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName.replaceAll("[^A-Za-z0-9._-]", "_") + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/runs/{runId}/export/operations")
+    public ResponseEntity<List<String>> exportOperations(@PathVariable String runId) {
+        if (!benchmarkExportService.hasCapture(runId)) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(benchmarkExportService.listSampleOperations(runId));
+        } catch (IOException e) {
+            log.error("Could not list captured operations of run {}", runId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @GetMapping("/targets")
+    public ResponseEntity<List<String>> getTargets() {
+        return ResponseEntity.ok(overheadComparisonService.getTargets());
+    }
+    
+    /**
+     * Queues a job that runs the same workload on every benchmark target and reports the
+     * overhead against the baseline target. Returns 202 with the job; the comparison is in
+     * GET /jobs/{jobId} once it finishes.
+     */
+    @PostMapping("/compare")
+    public ResponseEntity<BenchmarkJobInfo> compare(@RequestBody ComparisonRequest request) {
+        log.info("Submitting overhead comparison: targets={}, baseline={}, operations={}, rounds={}, iterationsPerRound={}",
+                request.getTargets(), request.getBaselineTarget(), request.getOperations(),
+                request.getRounds(), request.getIterationsPerRound());
+        
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(benchmarkJobService.submitComparison(request));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid comparison request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/fleet/backends")
+    public ResponseEntity<Map<String, String>> getFleetBackends() {
+        return ResponseEntity.ok(fleetBenchmarkService.getBackends());
+    }
+
+    /**
+     * Queues a job that runs the same benchmark on every configured backend variant (or the
+     * named ones) and builds a matrix of throughput and percentiles per backend and operation,
+     * normalised against the baseline backend. Returns 202 with the job; the matrix is in
+     * GET /jobs/{jobId} once it finishes.
+     */
+    @PostMapping("/fleet")
+    public ResponseEntity<BenchmarkJobInfo> runFleet(@RequestBody FleetRequest request) {
+        log.info("Submitting fleet benchmark: backends={}, mode={}, baseline={}",
+                request.getBackends() != null ? request.getBackends() : "configured",
+                request.getMode(), request.getBaseline());
+
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(benchmarkJobService.submitFleet(request));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid fleet benchmark request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Benchmark service is ready");
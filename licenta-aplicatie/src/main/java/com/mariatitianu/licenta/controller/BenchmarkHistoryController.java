@@ -0,0 +1,98 @@
+package com.mariatitianu.licenta.controller;
+
+import com.mariatitianu.licenta.dto.BenchmarkRunRecord;
+import com.mariatitianu.licenta.dto.BenchmarkRunSummary;
+import com.mariatitianu.licenta.dto.RunComparison;
+import com.mariatitianu.licenta.dto.TrendPoint;
+import com.mariatitianu.licenta.service.BenchmarkHistoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/benchmark/history")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Slf4j
+public class BenchmarkHistoryController {
+
+    private final BenchmarkHistoryService historyService;
+
+    @GetMapping
+    public ResponseEntity<List<BenchmarkRunSummary>> listRuns() {
+        return ResponseEntity.ok(historyService.listRuns());
+    }
+
+    @GetMapping("/runs/{runId}")
+    public ResponseEntity<BenchmarkRunRecord> getRun(@PathVariable String runId) {
+        return historyService.getRun(runId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/runs/{runId}")
+    public ResponseEntity<Void> deleteRun(@PathVariable String runId) {
+        return historyService.deleteRun(runId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/compare")
+    public ResponseEntity<RunComparison> compare(@RequestParam String baseline,
+                                                 @RequestParam String candidate,
+                                                 @RequestParam(defaultValue = "0.95") double confidenceLevel) {
+        try {
+            return ResponseEntity.ok(historyService.compare(baseline, candidate, confidenceLevel));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid run comparison: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/baseline")
+    public ResponseEntity<BenchmarkRunSummary> getBaseline() {
+        return historyService.getPinnedBaseline()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/baseline/{runId}")
+    public ResponseEntity<BenchmarkRunSummary> pinBaseline(@PathVariable String runId) {
+        try {
+            return ResponseEntity.ok(historyService.pinBaseline(runId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @DeleteMapping("/baseline")
+    public ResponseEntity<Void> unpinBaseline() {
+        historyService.pinBaseline(null);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/runs/{runId}/regressions")
+    public ResponseEntity<RunComparison> checkRegressions(@PathVariable String runId,
+                                                          @RequestParam(defaultValue = "0.95") double confidenceLevel) {
+        try {
+            return ResponseEntity.ok(historyService.checkRegressions(runId, confidenceLevel));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid regression check: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    @GetMapping("/trend")
+    public ResponseEntity<List<TrendPoint>> trend(@RequestParam String operation,
+                                                  @RequestParam(required = false) String profile,
+                                                  @RequestParam(required = false) String databaseUser,
+                                                  @RequestParam(required = false) String databaseName) {
+        return ResponseEntity.ok(historyService.trend(operation, profile, databaseUser, databaseName));
+    }
+}
@@ -1,9 +1,23 @@
 package com.mariatitianu.licenta.controller;
 
+import com.mariatitianu.licenta.dto.HeavyHitterReport;
+import com.mariatitianu.licenta.dto.RollupSeries;
+import com.mariatitianu.licenta.service.LogArchiveService;
+import com.mariatitianu.licenta.service.LogExportService;
+import com.mariatitianu.licenta.service.LogIngestService;
 import com.mariatitianu.licenta.service.LogService;
+import com.mariatitianu.licenta.service.LogTailService;
+import com.mariatitianu.licenta.service.OperationHeavyHitterService;
+import com.mariatitianu.licenta.service.OperationLogCache;
+import com.mariatitianu.licenta.service.OperationRollupService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -15,6 +29,13 @@ import java.util.Map;
 public class LogController {
     
     private final LogService logService;
+    private final LogExportService logExportService;
+    private final LogTailService logTailService;
+    private final OperationLogCache operationLogCache;
+    private final OperationRollupService operationRollupService;
+    private final OperationHeavyHitterService operationHeavyHitterService;
+    private final LogIngestService logIngestService;
+    private final LogArchiveService logArchiveService;
     
     @GetMapping("/operations")
     public ResponseEntity<List<LogService.OperationLog>> getRecentOperations(
@@ -37,11 +58,13 @@ public class LogController {
         }
     }
     
+    /**
+     * Totals over the whole log, from the rollups, so they agree with /rollups.
+     */
     @GetMapping("/operations/summary")
-    public ResponseEntity<Map<String, Object>> getOperationsSummary(
-            @RequestParam(defaultValue = "100") int limit) {
+    public ResponseEntity<Map<String, Object>> getOperationsSummary() {
         try {
-            Map<String, Object> summary = logService.getOperationsSummary(limit);
+            Map<String, Object> summary = operationRollupService.getSummary();
             return ResponseEntity.ok(summary);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -70,6 +93,209 @@ public class LogController {
         }
     }
     
+    /**
+     * Filtered, cursor-paginated operations, e.g.
+     * /operations/search?status=BLOCKED&tableName=products&from=2025-06-01T00:00:00Z&limit=100,
+     * then &cursor={nextCursor} for the next page.
+     */
+    @GetMapping("/operations/search")
+    public ResponseEntity<LogService.LogPage> searchOperations(
+            LogService.LogFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(logService.searchOperations(filter, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * The whole log (or the part matching the filters) as CSV or NDJSON, streamed from a
+     * database cursor, e.g. /operations/export?format=ndjson&status=BLOCKED&gzip=true
+     */
+    @GetMapping("/operations/export")
+    public ResponseEntity<StreamingResponseBody> exportOperations(
+            LogService.LogFilter filter,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        String outputFormat = format.toLowerCase();
+        try {
+            logExportService.validate(outputFormat, filter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : LogExportService.FORMAT_CSV.equals(outputFormat)
+                        ? MediaType.parseMediaType("text/csv")
+                        : MediaType.parseMediaType("application/x-ndjson");
+        String fileName = "operations." + outputFormat + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> logExportService.export(filter, outputFormat, gzip, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+    
+    /**
+     * Live feed of new operations matching the filters, pushed as SSE "operations" events
+     * instead of polling; backlog sends that many recent entries first.
+     */
+    @GetMapping(value = "/operations/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOperations(
+            LogService.LogFilter filter,
+            @RequestParam(defaultValue = "0") int backlog,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        try {
+            SseEmitter emitter = logTailService.subscribe(filter, lastEventId, backlog);
+            // The frontend's nginx proxy would otherwise buffer the events
+            return ResponseEntity.ok().header("X-Accel-Buffering", "no").body(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Operation counts per minute, hour or day over a window, e.g.
+     * /rollups?granularity=hour&groupBy=status&tableName=products&from=2025-06-01T00:00:00Z
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<RollupSeries> getRollups(
+            LogService.LogFilter filter,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) String groupBy) {
+        try {
+            return ResponseEntity.ok(operationRollupService.getSeries(granularity, groupBy, filter));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * The users, tables and query fingerprints behind the most operations, over the whole log;
+     * approximate, with the error bounds of each dimension.
+     */
+    @GetMapping("/heavy-hitters")
+    public ResponseEntity<HeavyHitterReport> getHeavyHitters(@RequestParam(defaultValue = "10") int top) {
+        try {
+            return ResponseEntity.ok(operationHeavyHitterService.getReport(top));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * How often one key occurred in a dimension, e.g.
+     * /heavy-hitters/estimate?dimension=blockedUsers&key=app_user
+     */
+    @GetMapping("/heavy-hitters/estimate")
+    public ResponseEntity<HeavyHitterReport.Estimate> estimateHeavyHitter(@RequestParam String dimension,
+                                                                          @RequestParam String key) {
+        try {
+            return ResponseEntity.ok(operationHeavyHitterService.estimate(dimension, key));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(operationLogCache.getStats());
+    }
+    
+    /**
+     * Takes in new log entries now instead of on the next scheduled refresh; reload=true drops
+     * the cache and loads it again, e.g. after the log file was truncated.
+     */
+    @PostMapping("/cache/refresh")
+    public ResponseEntity<Map<String, Object>> refreshCache(@RequestParam(defaultValue = "false") boolean reload) {
+        if (!operationLogCache.isEnabled()) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            if (reload) {
+                operationLogCache.reload();
+            } else {
+                operationLogCache.refresh();
+            }
+            return ResponseEntity.ok(operationLogCache.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @GetMapping("/ingest")
+    public ResponseEntity<Map<String, Object>> getIngestStats() {
+        return ResponseEntity.ok(logIngestService.getStats());
+    }
+    
+    /**
+     * Moves new log entries into warden_operations now instead of on the next scheduled cycle.
+     */
+    @PostMapping("/ingest/run")
+    public ResponseEntity<Map<String, Object>> runIngest() {
+        if (!logIngestService.isEnabled()) {
+            return ResponseEntity.badRequest().body(logIngestService.getStats());
+        }
+        try {
+            logIngestService.ingest();
+            return ResponseEntity.ok(logIngestService.getStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(logIngestService.getStats());
+        }
+    }
+    
+    /**
+     * The rotated segments of the warden log with their index (position range, entry count, time
+     * range, sizes), whether each has been ingested, and the retention setting.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<Map<String, Object>> getArchive() {
+        try {
+            return ResponseEntity.ok(logArchiveService.getArchive());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @PostMapping("/archive/rotate")
+    public ResponseEntity<Map<String, Object>> rotateLog() {
+        try {
+            long rows = logArchiveService.rotate();
+            return ResponseEntity.ok(Map.of("archivedRows", rows));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Drops ingested segments older than {@code days}, or the configured retention without it.
+     */
+    @PostMapping("/archive/retention")
+    public ResponseEntity<Map<String, Object>> applyRetention(@RequestParam(required = false) Integer days) {
+        try {
+            return ResponseEntity.ok(logArchiveService.applyRetention(days));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @GetMapping("/operations/table/{tableName}")
     public ResponseEntity<List<LogService.OperationLog>> getOperationsByTable(
             @PathVariable String tableName,
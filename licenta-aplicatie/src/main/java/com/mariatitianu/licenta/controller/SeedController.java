@@ -0,0 +1,43 @@
+package com.mariatitianu.licenta.controller;
+
+import com.mariatitianu.licenta.dto.SeedRequest;
+import com.mariatitianu.licenta.dto.SeedResult;
+import com.mariatitianu.licenta.service.DataSeederService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/seed")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Slf4j
+public class SeedController {
+
+    private final DataSeederService dataSeederService;
+
+    /**
+     * Loads synthetic products and payments; runs synchronously and can take minutes for millions of rows.
+     */
+    @PostMapping
+    public ResponseEntity<SeedResult> seed(@RequestBody SeedRequest request) {
+        try {
+            return ResponseEntity.ok(dataSeederService.seed(request));
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid seed request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (DataSeederService.AlreadyRunningException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (RuntimeException e) {
+            log.error("Seeding failed", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Boolean> isRunning() {
+        return ResponseEntity.ok(dataSeederService.isRunning());
+    }
+}
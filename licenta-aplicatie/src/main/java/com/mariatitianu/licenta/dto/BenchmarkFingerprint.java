@@ -0,0 +1,14 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+@Data
+public class BenchmarkFingerprint {
+    private String profile;       // jpa or jdbc
+    private String databaseUser;
+    private String databaseName;  // licenta_db (pg_warden) or licenta_vanilla_db
+    private String serverPort;    // identifies the backend container
+    private String commit;
+    private String javaVersion;
+    private String host;
+}
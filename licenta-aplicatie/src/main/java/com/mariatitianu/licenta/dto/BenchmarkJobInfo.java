@@ -0,0 +1,23 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class BenchmarkJobInfo {
+    private String jobId;
+    private String status; // QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+    private List<String> operations;
+    private String currentOperation; // backend(s) currently running for fleet jobs
+    private boolean fleet;
+    private boolean comparison; // an overhead comparison across benchmark targets
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+    private BenchmarkProgressSnapshot latestSnapshot;
+    private MultiBenchmarkResult result;
+    private FleetResult fleetResult;
+    private ComparisonResult comparisonResult;
+}
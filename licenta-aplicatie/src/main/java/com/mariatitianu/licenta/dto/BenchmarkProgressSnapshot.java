@@ -0,0 +1,18 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+@Data
+public class BenchmarkProgressSnapshot {
+    private String jobId;
+    private String operation;       // operation running when the interval closed
+    private double elapsedMs;       // since the job started
+    private double intervalMs;
+    private long intervalOperations;
+    private long intervalFailures;
+    private double opsPerSecond;    // throughput within the interval
+    private double p50TimeMs;
+    private double p95TimeMs;
+    private double p99TimeMs;
+    private double maxTimeMs;
+}
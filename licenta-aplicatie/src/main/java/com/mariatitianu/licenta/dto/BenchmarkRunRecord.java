@@ -0,0 +1,13 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class BenchmarkRunRecord {
+    private String id;
+    private LocalDateTime createdAt;
+    private BenchmarkFingerprint fingerprint;
+    private MultiBenchmarkRequest request;
+    private MultiBenchmarkResult result;
+}
@@ -0,0 +1,17 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class BenchmarkRunSummary {
+    private String id;
+    private LocalDateTime createdAt;
+    private BenchmarkFingerprint fingerprint;
+    private List<String> operations;
+    private int iterations;
+    private int clients;
+    private double totalTimeMs;
+    private boolean baseline; // pinned as the regression baseline
+}
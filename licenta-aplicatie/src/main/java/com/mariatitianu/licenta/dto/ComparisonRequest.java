@@ -0,0 +1,14 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class ComparisonRequest {
+    private List<String> targets;          // benchmark target names; defaults to all configured targets
+    private String baselineTarget;         // defaults to benchmark.baseline-target
+    private List<String> operations;       // ["SELECT", "INSERT", "UPDATE", "DELETE"]
+    private int rounds = 10;               // interleaved rounds; each yields one paired sample per operation
+    private int iterationsPerRound = 100;
+    private double confidenceLevel = 0.95;
+}
@@ -0,0 +1,35 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class ComparisonResult {
+    private String baselineTarget;
+    private List<String> targets;
+    private int rounds;
+    private int iterationsPerRound;
+    private double confidenceLevel;
+    private double totalTimeMs;
+    private Map<String, Map<String, MultiBenchmarkResult.OperationResult>> targetResults; // target -> operation -> result
+    private List<OperationOverhead> overheads;
+    private Map<String, Double> averageOverheadPercent; // target -> mean of its per-operation overhead percentages
+    private Map<String, String> targetErrors;
+
+    @Data
+    public static class OperationOverhead {
+        private String operation;
+        private String target;
+        private double baselineMeanMs;
+        private double targetMeanMs;
+        private double overheadMs;          // target - baseline
+        private double overheadMsLow;       // confidence interval bounds
+        private double overheadMsHigh;
+        private double overheadPercent;
+        private double overheadPercentLow;
+        private double overheadPercentHigh;
+        private boolean significant;        // interval excludes zero
+        private int pairedRounds;
+    }
+}
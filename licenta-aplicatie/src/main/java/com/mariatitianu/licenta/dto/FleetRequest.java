@@ -0,0 +1,16 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class FleetRequest {
+    private List<String> backends;         // names from benchmark.fleet.backends; defaults to all of them
+    private MultiBenchmarkRequest benchmark; // sent unchanged to POST {url}/api/benchmark/run on every backend
+    private String mode = "STAGGERED";     // "PARALLEL" (all at once) or "STAGGERED" (one after another)
+    private int staggerSeconds = 5;        // STAGGERED: pause between backends so the shared database settles
+    private String baseline;               // backend the matrix is normalised against; defaults to benchmark.fleet.baseline
+    private Integer timeoutSeconds;        // per backend; defaults to benchmark.fleet.timeout-seconds
+    private boolean includeResults;        // also return every backend's full MultiBenchmarkResult
+}
@@ -0,0 +1,49 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class FleetResult {
+    private String mode;
+    private String baseline;
+    private double totalTimeMs;
+    private List<String> operations;
+    private Map<String, BackendRun> backends; // backend name -> how its run went
+    private List<MatrixCell> matrix;          // one cell per backend and operation
+
+    @Data
+    public static class BackendRun {
+        private String url;
+        private String status;        // "COMPLETED" or "FAILED"
+        private String error;
+        private double startOffsetMs; // relative to the start of the fleet run
+        private double durationMs;
+        private String runId;         // ID of the run in that backend's history
+        private MultiBenchmarkResult result;
+    }
+
+    @Data
+    public static class MatrixCell {
+        private String backend;
+        private String operation;
+        private String error;
+        private double opsPerSecond;  // aggregate throughput across the backend's clients
+        private double avgTimeMs;
+        private double p50TimeMs;
+        private double p95TimeMs;
+        private double p99TimeMs;
+        private double p999TimeMs;
+        private double maxTimeMs;
+        private int successCount;
+        private int blockedCount;
+        private int errorCount;
+
+        // Relative to the baseline backend's cell for the same operation (1.0 = same), null without one
+        private Double relativeOpsPerSecond;
+        private Double relativeP50;
+        private Double relativeP99;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class HeavyHitterReport {
+    private long logPosition;             // last log entry counted
+    private long totalOperations;
+    private long blockedOperations;
+    private int capacity;                 // Space-Saving counters per dimension
+    private double epsilon;               // count-min error as a fraction of the dimension's stream
+    private double delta;                 // probability of exceeding that error
+    private Map<String, Sketch> dimensions;
+
+    @Data
+    public static class Sketch {
+        private long streamLength;        // entries counted in this dimension
+        private long maxError;            // no count below is off by more; unlisted keys occurred at most this often
+        private long countMinError;       // epsilon * streamLength
+        private List<HeavyHitter> top;
+    }
+
+    @Data
+    public static class HeavyHitter {
+        private String key;
+        private long count;               // upper bound of the true count
+        private long minCount;            // lower bound of the true count
+        private boolean guaranteed;       // certainly in the true top list of this length
+    }
+
+    @Data
+    public static class Estimate {
+        private String dimension;
+        private String key;               // as counted, i.e. fingerprinted for query dimensions
+        private long lowerBound;          // Space-Saving, exact bounds
+        private long upperBound;
+        private long countMin;            // never below the true count
+        private long errorBound;          // countMin overcounts by more only with probability delta
+        private double confidence;        // 1 - delta
+    }
+}
@@ -0,0 +1,9 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class HistogramMergeRequest {
+    private List<String> histograms; // encodedHistogram values taken from MultiBenchmarkResult operation results
+}
@@ -0,0 +1,15 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+@Data
+public class LogSegment {
+    private String name;            // ops_<first position> for archived segments, live for the file still written
+    private long firstPosition;     // position of the entry before its first one
+    private long rowCount;
+    private String minTimestamp;    // null if it holds no entries
+    private String maxTimestamp;
+    private long rawBytes;
+    private Long compressedBytes;   // null for the live log
+    private boolean ingested;       // every entry is in warden_operations
+}
@@ -7,4 +7,20 @@ import java.util.List;
 public class MultiBenchmarkRequest {
     private int iterations = 100;
     private List<String> operations; // ["SELECT", "INSERT", "UPDATE", "DELETE"]
-}
\ No newline at end of file
+    private WorkloadSpec workload; // optional mixed workload, run as one interleaved stream after the operations
+    private int batchSize = 100; // rows per statement group for BATCH_*, MULTIROW_INSERT and COPY_INSERT
+    private String capture = "NONE"; // "NONE", "INTERVALS" or "SAMPLES" (raw samples and intervals), for /runs/{runId}/export
+    private Integer warmupIterations; // fixed warm-up length; when unset warm-up runs until latency and throughput settle
+
+    // Concurrency settings
+    private int clients = 1; // number of concurrent workers per operation
+    private String threadModel = "PLATFORM"; // "PLATFORM" or "VIRTUAL"
+    private Integer durationSeconds; // when set, workers run for this long instead of sharing the iteration budget
+
+    // Open-loop load: operations per second issued on a fixed schedule, latency measured from the intended start
+    private Double targetRate;
+
+    // PAYMENT_RANGE_SCAN and PAYMENT_AGGREGATE: window length and how strongly windows favour recent payments (0 = uniform)
+    private int paymentWindowDays = 7;
+    private double paymentRecencySkew = 0.9;
+}
@@ -1,14 +1,16 @@
 package com.mariatitianu.licenta.dto;
 
 import lombok.Data;
+import java.util.List;
 import java.util.Map;
 
 @Data
 public class MultiBenchmarkResult {
+    private String runId; // ID of the stored run in the benchmark history, if recorded
     private int totalIterations;
     private double totalTimeMs;
     private Map<String, OperationResult> operationResults;
-    
+
     @Data
     public static class OperationResult {
         private int iterations;
@@ -22,5 +24,108 @@ public class MultiBenchmarkResult {
         private double p50TimeMs;  // median
         private double p95TimeMs;
         private double p99TimeMs;
+        private double p999TimeMs;
+        private double p9999TimeMs;
+        private double minTimeMs;
+        private double maxTimeMs;
+        private double stdDevTimeMs;
+        private String encodedHistogram; // base64 compressed HdrHistogram of latencies in nanoseconds
+
+        // Concurrency details
+        private int clients;
+        private String threadModel;
+        private double wallTimeMs;              // elapsed time from first worker start to last worker finish
+        private double aggregateOpsPerSecond;   // completed operations across all workers / wall time
+        private List<WorkerResult> workerResults;
+
+        // Load model; in OPEN runs the percentiles above are service times and the corrected
+        // ones below are measured from the scheduled start, so they include queueing delay
+        private String loadModel;                 // "CLOSED" or "OPEN"
+        private Double targetRate;
+        private double correctedAvgTimeMs;
+        private double correctedP50TimeMs;
+        private double correctedP95TimeMs;
+        private double correctedP99TimeMs;
+        private double correctedP999TimeMs;
+        private double correctedMaxTimeMs;
+        private String correctedEncodedHistogram;
+        private double schedulerLagAvgMs;         // how far operation starts trailed the schedule
+        private double schedulerLagP99Ms;
+        private double schedulerLagMaxMs;
+        private long lateStarts;                  // operations that started more than one interval late
+
+        // Mixed workload details: the resolved mix and per-operation results within the stream
+        private String workload;
+        private Map<String, OperationResult> operationBreakdown;
+
+        // Bulk writes: latencies above are per batch, these normalize them per row and per statement
+        private int batchSize;
+        private long rowsWritten;
+        private long statementsExecuted;
+        private double avgTimePerRowMs;
+        private double avgTimePerStatementMs;
+        private double rowsPerSecond;
+
+        // Scans: rows returned (or aggregated) per operation; rowsPerSecond above is the scan throughput
+        private long rowsRead;
+        private double avgRowsPerOperation;
+
+        // Where the time of one operation goes, e.g. roundTrip / translation / handler
+        private Map<String, PhaseStats> phases;
+        private String note;
+
+        // How long warm-up ran and whether the JVM was still compiling or collecting while measuring
+        private WarmupStats warmup;
+        private JvmStats measurementJvm;
+    }
+
+    @Data
+    public static class WarmupStats {
+        private String mode;                   // "ADAPTIVE" or "FIXED"
+        private int iterations;
+        private double durationMs;
+        private boolean converged;             // ADAPTIVE only: false when a cap ended warm-up first
+        private String stopReason;             // "STEADY_STATE", "MAX_ITERATIONS", "MAX_DURATION", "FIXED", "CANCELLED",
+                                               // or "NOT_DETECTABLE" when the cap is too small for the compared windows
+        private int windowSize;                // 0 when steady state was not detectable
+        private int windows;
+        private double lastWindowOpsPerSecond;
+        private double lastWindowP50TimeMs;
+        private double throughputSpreadPercent; // largest deviation from the mean over the compared windows
+        private double latencySpreadPercent;
+        private JvmStats jvm;
+    }
+
+    @Data
+    public static class JvmStats {
+        private long jitCompilationTimeMs;     // -1 when the JVM does not report it
+        private long gcCount;
+        private long gcTimeMs;
+        private long classesLoaded;
+    }
+
+    @Data
+    public static class PhaseStats {
+        private long count;
+        private double avgTimeMs;
+        private double p50TimeMs;
+        private double p95TimeMs;
+        private double p99TimeMs;
+        private double p999TimeMs;
+        private double maxTimeMs;
+        private double sharePercent; // share of the operation's average time
+        private Double callsPerOperation; // JDBC phases: e.g. more than one execute per Hibernate save
+        private String encodedHistogram;
+    }
+
+    @Data
+    public static class WorkerResult {
+        private int workerId;
+        private int operations;
+        private int errorCount;
+        private double avgTimeMs;
+        private double p50TimeMs;
+        private double p99TimeMs;
+        private double opsPerSecond;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class RollupSeries {
+    private String granularity;       // MINUTE, HOUR or DAY
+    private String groupBy;           // table, operationType, user or status; null for totals only
+    private Instant from;             // start of the first bucket
+    private Instant to;               // start of the last bucket
+    private Instant retainedFrom;     // oldest bucket still kept at this granularity, null if none
+    private long logPosition;         // last log entry counted
+    private long total;
+    private Map<String, Long> totals; // per group over the whole window
+    private List<Point> points;       // one per bucket, empty buckets included
+
+    @Data
+    public static class Point {
+        private Instant bucket;
+        private long total;
+        private Map<String, Long> groups;
+    }
+}
@@ -0,0 +1,32 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class RunComparison {
+    private String baselineRunId;
+    private String candidateRunId;
+    private double confidenceLevel;
+    private double regressionThresholdPercent;
+    private boolean fingerprintMatches;
+    private List<String> fingerprintDifferences; // e.g. "profile: jpa -> jdbc"
+    private List<OperationDelta> deltas;
+    private boolean regression; // at least one operation regressed
+
+    @Data
+    public static class OperationDelta {
+        private String operation;
+        private double baselineAvgMs;
+        private double candidateAvgMs;
+        private double changePercent;     // positive = candidate slower
+        private double baselineP99Ms;
+        private double candidateP99Ms;
+        private double p99ChangePercent;
+        private double tStatistic;        // Welch's t on the per-operation means
+        private double degreesOfFreedom;
+        private boolean significant;
+        private boolean regression;       // significant, slower and above the threshold
+        private boolean improvement;      // significant, faster and above the threshold
+    }
+}
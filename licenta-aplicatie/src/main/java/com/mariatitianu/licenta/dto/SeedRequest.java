@@ -0,0 +1,26 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+@Data
+public class SeedRequest {
+    private long seed = 42; // same seed and settings produce the same rows, whatever the parallelism
+    private long products = 1_000_000;
+    private long payments = 1_000_000;
+
+    // Products: category cardinality and Zipfian skew (0 = uniform), description length in characters
+    private int categories = 50;
+    private double categorySkew = 0.99;
+    private int descriptionMinLength = 20;
+    private int descriptionMaxLength = 200;
+
+    // Payments: distinct customers and how skewed payments are towards the most active ones
+    private int customers = 100_000;
+    private double customerSkew = 0.8;
+    private int paymentDays = 365; // payment dates are spread over this many days before 2025-01-01
+
+    private int parallelism = 4;    // concurrent COPY streams
+    private int chunkSize = 100_000; // rows per COPY stream
+    private boolean truncate;       // empty the tables first so IDs start at 1
+    private boolean analyze = true; // refresh planner statistics afterwards
+}
@@ -0,0 +1,23 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class SeedResult {
+    private long seed;
+    private double durationMs;
+    private Map<String, TableResult> tables;
+
+    @Data
+    public static class TableResult {
+        private long rows;
+        private long firstId;
+        private long lastId;
+        private int chunks;
+        private double durationMs;
+        private double rowsPerSecond;
+        private long tableSizeBytes; // pg_total_relation_size after loading, including indexes
+    }
+}
@@ -0,0 +1,16 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class TrendPoint {
+    private String runId;
+    private LocalDateTime createdAt;
+    private String commit;
+    private double avgTimeMs;
+    private double p50TimeMs;
+    private double p99TimeMs;
+    private double opsPerSecond;
+    private boolean baseline;
+}
@@ -0,0 +1,19 @@
+package com.mariatitianu.licenta.dto;
+
+import lombok.Data;
+
+@Data
+public class WorkloadSpec {
+    // YCSB core workload to start from: "A" (50/50 read/update), "B" (95/5 read/update),
+    // "C" (read only) or "D" (95/5 read/insert, latest keys); omit for a fully custom mix
+    private String profile;
+
+    // Operation mix; any proportion set here overrides the profile, and they are normalized to sum to 1
+    private Double readProportion;
+    private Double updateProportion;
+    private Double insertProportion;
+    private Double deleteProportion;
+
+    private String keyDistribution; // "UNIFORM", "ZIPFIAN" or "LATEST"
+    private Double zipfianConstant; // skew of ZIPFIAN/LATEST, defaults to 0.99 as in YCSB
+}
@@ -0,0 +1,18 @@
+package com.mariatitianu.licenta.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk write: rows written, SQL statements the server executed for them
+ * (what pg_warden's hooks see) and the generated IDs when the method returns them.
+ */
+@Data
+@AllArgsConstructor
+public class BulkWriteResult {
+    private int rows;
+    private int statements;
+    private List<Long> ids;
+}
@@ -0,0 +1,100 @@
+package com.mariatitianu.licenta.repository;
+
+import com.mariatitianu.licenta.dto.LogSegment;
+import com.mariatitianu.licenta.repository.jdbc.RowMapping;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * pg_warden's archive of rotated log segments, under both profiles. Databases whose pg_warden
+ * predates log rotation, and those without it, have no archive; see {@link #isAvailable()}.
+ */
+@Repository
+public class LogArchiveRepository {
+
+    private static final String HAS_ARCHIVE = "SELECT to_regprocedure('warden_log_segments()') IS NOT NULL";
+    private static final String CAN_MANAGE =
+            "SELECT has_function_privilege('warden_drop_segments(text, bigint)', 'EXECUTE')";
+    private static final String FIND_SEGMENTS = "SELECT segment_name, first_position, row_count, min_timestamp, "
+            + "max_timestamp, raw_bytes, compressed_bytes FROM warden_log_segments()";
+    private static final String ROTATE = "SELECT warden_rotate_log()";
+    private static final String ROTATE_IF_DUE = "SELECT warden_rotate_log(true)";
+    private static final String DROP_SEGMENTS = "SELECT warden_drop_segments(?, ?)";
+
+    private static final RowMapping<LogSegment> SEGMENT_ROWS = RowMapping.of((rs, columns) -> {
+        LogSegment segment = new LogSegment();
+        segment.setName(rs.getString(columns[0]));
+        segment.setFirstPosition(rs.getLong(columns[1]));
+        segment.setRowCount(rs.getLong(columns[2]));
+        segment.setMinTimestamp(rs.getString(columns[3]));
+        segment.setMaxTimestamp(rs.getString(columns[4]));
+        segment.setRawBytes(rs.getLong(columns[5]));
+        long compressedBytes = rs.getLong(columns[6]);
+        segment.setCompressedBytes(rs.wasNull() ? null : compressedBytes);
+        return segment;
+    }, "segment_name", "first_position", "row_count", "min_timestamp", "max_timestamp", "raw_bytes", "compressed_bytes");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LogArchiveRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public boolean isAvailable() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(HAS_ARCHIVE, Boolean.class));
+    }
+
+    // Whether the database user may rotate and drop segments (warden_admin members)
+    public boolean canManage() {
+        return isAvailable() && Boolean.TRUE.equals(jdbcTemplate.queryForObject(CAN_MANAGE, Boolean.class));
+    }
+
+    /**
+     * Archived segments in log order, then the live log.
+     */
+    public List<LogSegment> findSegments() {
+        return jdbcTemplate.query(FIND_SEGMENTS, SEGMENT_ROWS.rowMapper());
+    }
+
+    // Rows archived; 0 if the live log was empty
+    public long rotate() {
+        return rotate(ROTATE);
+    }
+
+    // Rows archived; 0 unless the live log reached pg_warden.rotation_size or rotation_age
+    public long rotateIfDue() {
+        return rotate(ROTATE_IF_DUE);
+    }
+
+    /**
+     * Deletes the segments whose newest entry is older than {@code before} and that end at or
+     * before {@code maxPosition}; returns how many.
+     */
+    public int dropSegments(String before, long maxPosition) {
+        Integer dropped = jdbcTemplate.queryForObject(DROP_SEGMENTS, Integer.class, before, maxPosition);
+        return dropped != null ? dropped : 0;
+    }
+
+    /**
+     * Last log position copied into warden_operations, null before the first ingestion.
+     */
+    public Long findIngestedPosition() {
+        try {
+            List<Long> positions = jdbcTemplate.queryForList(LogIngestSql.READ_CHECKPOINT, Long.class,
+                    LogIngestSql.SOURCE);
+            return positions.isEmpty() ? null : positions.get(0);
+        } catch (BadSqlGrammarException e) {
+            // The checkpoint table is created by the first ingestion
+            return null;
+        }
+    }
+
+    private long rotate(String sql) {
+        Long rows = jdbcTemplate.queryForObject(sql, Long.class);
+        return rows != null ? rows : 0;
+    }
+}
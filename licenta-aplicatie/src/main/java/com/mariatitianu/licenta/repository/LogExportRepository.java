@@ -0,0 +1,107 @@
+package com.mariatitianu.licenta.repository;
+
+import com.mariatitianu.licenta.repository.jdbc.RowMapping;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streams the operation log row by row for exports, under both profiles: the PostgreSQL driver
+ * only uses a server-side cursor for a fetch size inside a transaction, so the query runs in a
+ * read-only one and the driver holds at most {@code logs.export.fetch-size} rows at a time.
+ * Rows are read by column index into one {@link ExportRow} reused for the whole export.
+ */
+@Repository
+public class LogExportRepository {
+
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final LogSource logSource;
+
+    public LogExportRepository(DataSource dataSource, LogSource logSource,
+                               @Value("${logs.export.fetch-size:1000}") int fetchSize) {
+        this.logSource = logSource;
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        this.namedJdbc = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    /**
+     * Hands every matching row to the handler in log order; filters as in
+     * {@link LogRepository#findOperations}, read from the table or the log as {@link LogSource}
+     * says. The handler gets the same ExportRow each time, refilled for every row, so it must not
+     * keep it.
+     */
+    @Transactional(readOnly = true)
+    public void streamOperations(String status, String tableName, String userName, String operationType,
+                                 String fromTime, String toTime, Consumer<ExportRow> handler) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.exportOperations(logSource.current(), params, status, tableName, userName, operationType,
+                fromTime, toTime);
+        namedJdbc.query(sql, params, (ResultSetExtractor<Void>) rs -> {
+            forEachRow(rs, handler);
+            return null;
+        });
+    }
+
+    /**
+     * Reads the remaining rows of an operation log result into one reused ExportRow.
+     */
+    public static void forEachRow(ResultSet rs, Consumer<ExportRow> handler) throws SQLException {
+        ExportRow row = new ExportRow(RowMapping.resolve(rs, ExportRow.COLUMNS));
+        while (rs.next()) {
+            row.read(rs);
+            handler.accept(row);
+        }
+    }
+
+    /**
+     * One log row, overwritten by the next; copy what needs to outlive the handler call.
+     */
+    @Getter
+    public static final class ExportRow {
+        private static final String[] COLUMNS = {LogSql.POSITION_COLUMN, "log_timestamp", "operation_type",
+                "table_name", "user_name", "session_pid", "blocked_reason", "query_text"};
+
+        @Getter(AccessLevel.NONE)
+        private final int[] columns;
+        private long position;
+        private String operationTime;
+        private String operationType;
+        private String tableName;
+        private String userName;
+        private int sessionPid;
+        private String blockedReason;
+        private String queryText;
+
+        private ExportRow(int[] columns) {
+            this.columns = columns;
+        }
+
+        private void read(ResultSet rs) throws SQLException {
+            position = rs.getLong(columns[0]);
+            operationTime = rs.getString(columns[1]);
+            operationType = rs.getString(columns[2]);
+            tableName = rs.getString(columns[3]);
+            userName = rs.getString(columns[4]);
+            sessionPid = rs.getInt(columns[5]);
+            blockedReason = rs.getString(columns[6]);
+            queryText = rs.getString(columns[7]);
+        }
+
+        public String getStatus() {
+            return blockedReason != null && !blockedReason.trim().isEmpty() ? "BLOCKED" : "ALLOWED";
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.mariatitianu.licenta.repository;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Schema and SQL of the operation log ingestion, see LogIngestService. warden_operations is
+ * partitioned by month of log_time; rows whose timestamp does not parse are kept under the epoch.
+ */
+public final class LogIngestSql {
+
+    public static final String SOURCE = "pg_warden_ops";
+    // Checkpoint row touched whenever ingestion has reached the end of the log
+    public static final String HEARTBEAT = SOURCE + ":caught_up";
+
+    // Primary keys of partitioned tables must contain the partition key; the checkpoint keeps positions unique
+    public static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS " + LogSql.TABLE + " ("
+                    + LogSql.POSITION_COLUMN + " BIGINT NOT NULL, "
+                    + "log_time TIMESTAMPTZ NOT NULL, "
+                    + "log_timestamp TEXT, "
+                    + "operation_type TEXT, "
+                    + "table_name TEXT, "
+                    + "user_name TEXT, "
+                    + "session_pid INTEGER, "
+                    + "status TEXT, "
+                    + "blocked_reason TEXT, "
+                    + "query_text TEXT, "
+                    + "blocked BOOLEAN NOT NULL, "
+                    + "PRIMARY KEY (log_time, " + LogSql.POSITION_COLUMN + ")"
+                    + ") PARTITION BY RANGE (log_time)",
+            "CREATE INDEX IF NOT EXISTS warden_operations_position_idx ON " + LogSql.TABLE
+                    + " (" + LogSql.POSITION_COLUMN + ")",
+            "CREATE INDEX IF NOT EXISTS warden_operations_table_idx ON " + LogSql.TABLE + " (table_name, log_time)",
+            "CREATE INDEX IF NOT EXISTS warden_operations_blocked_idx ON " + LogSql.TABLE + " (blocked, log_time)",
+            "CREATE TABLE IF NOT EXISTS warden_ingest_checkpoint ("
+                    + "source TEXT PRIMARY KEY, "
+                    + LogSql.POSITION_COLUMN + " BIGINT NOT NULL, "
+                    + "updated_at TIMESTAMPTZ NOT NULL)",
+            // Readable like warden_all_queries() is; only the ingesting role writes
+            "GRANT SELECT ON " + LogSql.TABLE + ", warden_ingest_checkpoint TO PUBLIC");
+
+    public static final String HAS_EXTENSION = "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_warden')";
+    public static final String IS_WARDEN_ADMIN = "SELECT EXISTS (SELECT 1 FROM pg_roles r "
+            + "WHERE r.rolname = 'warden_admin' AND pg_has_role(current_user, r.oid, 'MEMBER'))";
+
+    public static final String TRY_LOCK = "SELECT pg_try_advisory_lock(?)";
+    public static final String UNLOCK = "SELECT pg_advisory_unlock(?)";
+
+    public static final String PARTITIONS = "SELECT c.relname FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = '" + LogSql.TABLE + "'::regclass";
+
+    public static final String READ_CHECKPOINT =
+            "SELECT " + LogSql.POSITION_COLUMN + " FROM warden_ingest_checkpoint WHERE source = ?";
+
+    /**
+     * Moves the checkpoint from the expected position only: source, new position, expected position.
+     * An upsert rather than an UPDATE, which pg_warden would block on the protected table.
+     */
+    public static final String ADVANCE_CHECKPOINT = "INSERT INTO warden_ingest_checkpoint AS c "
+            + "(source, " + LogSql.POSITION_COLUMN + ", updated_at) VALUES (?, ?, now()) "
+            + "ON CONFLICT (source) DO UPDATE SET " + LogSql.POSITION_COLUMN + " = EXCLUDED." + LogSql.POSITION_COLUMN
+            + ", updated_at = EXCLUDED.updated_at WHERE c." + LogSql.POSITION_COLUMN + " = ?";
+
+    /**
+     * Records that ingestion has caught up: source, position. Unconditional, unlike the above.
+     */
+    public static final String TOUCH_HEARTBEAT = "INSERT INTO warden_ingest_checkpoint AS c "
+            + "(source, " + LogSql.POSITION_COLUMN + ", updated_at) VALUES (?, ?, now()) "
+            + "ON CONFLICT (source) DO UPDATE SET " + LogSql.POSITION_COLUMN + " = EXCLUDED." + LogSql.POSITION_COLUMN
+            + ", updated_at = EXCLUDED.updated_at";
+
+    public static final String HAS_TABLES = "SELECT to_regclass('" + LogSql.TABLE + "') IS NOT NULL "
+            + "AND to_regclass('warden_ingest_checkpoint') IS NOT NULL";
+
+    // Milliseconds since the heartbeat, no row if ingestion never caught up
+    public static final String HEARTBEAT_AGE_MS =
+            "SELECT CAST(EXTRACT(EPOCH FROM now() - updated_at) * 1000 AS bigint) FROM warden_ingest_checkpoint "
+            + "WHERE source = ?";
+
+    // Log entries after the given position, oldest first
+    public static final String READ_SOURCE = LogSql.SELECT_NUMBERED
+            + "WHERE " + LogSql.POSITION_COLUMN + " > ? ORDER BY " + LogSql.POSITION_COLUMN;
+
+    public static final String HAS_RANGE_READER =
+            "SELECT to_regprocedure('warden_queries_range(bigint, text, text)') IS NOT NULL";
+
+    /**
+     * The same with a pg_warden that archives its log: positions stay put when old segments are
+     * dropped, segments before the position are not read, and rows come back in log order.
+     */
+    public static final String READ_SOURCE_RANGE =
+            "SELECT " + LogSql.COLUMNS + " FROM warden_queries_range(?, NULL, NULL)";
+
+    public static final String COPY = "COPY " + LogSql.TABLE + " (" + LogSql.POSITION_COLUMN + ", log_time, "
+            + "log_timestamp, operation_type, table_name, user_name, session_pid, status, blocked_reason, query_text, "
+            + "blocked) FROM STDIN WITH (FORMAT csv)";
+
+    private LogIngestSql() {
+    }
+
+    public static String partitionName(YearMonth month) {
+        return String.format("%s_%04d_%02d", LogSql.TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    public static String createPartition(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF " + LogSql.TABLE
+                + " FOR VALUES FROM ('" + startOf(month) + "') TO ('" + startOf(month.plusMonths(1)) + "')";
+    }
+
+    private static Instant startOf(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC);
+    }
+
+    /**
+     * Appends one row in the column order of {@link #COPY}.
+     */
+    public static void appendCsv(StringBuilder csv, long position, Instant time, String timestamp,
+                                 String operationType, String tableName, String userName, int sessionPid,
+                                 String status, String blockedReason, String queryText, boolean blocked) {
+        csv.append(position).append(',')
+           .append(time).append(',');
+        csvField(csv, timestamp).append(',');
+        csvField(csv, operationType).append(',');
+        csvField(csv, tableName).append(',');
+        csvField(csv, userName).append(',');
+        csv.append(sessionPid).append(',');
+        csvField(csv, status).append(',');
+        csvField(csv, blockedReason).append(',');
+        csvField(csv, queryText).append(',')
+           .append(blocked).append('\n');
+    }
+
+    // Unquoted empty is NULL in CSV COPY, quoted empty an empty string
+    private static StringBuilder csvField(StringBuilder csv, String value) {
+        if (value == null) {
+            return csv;
+        }
+        csv.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csv.append('"');
+            }
+            csv.append(c);
+        }
+        return csv.append('"');
+    }
+}
@@ -5,7 +5,24 @@ import java.util.Map;
 
 public interface LogRepository {
     
+    // Bean name of the profile's repository, which reads warden_operations; RoutingLogRepository wraps it
+    String TABLE_REPOSITORY = "logTableRepository";
+    
     List<Map<String, Object>> getRecentOperations(int limit);
     
     List<Map<String, Object>> getAllOperations();
+    
+    /**
+     * Newest-first page of operation log rows matching every non-null filter, each row
+     * carrying its {@code log_position} (line in the log). Timestamps are the log's ISO-8601 UTC
+     * text and compare as instants. With {@code afterTimestamp}/{@code afterPosition} set, the page
+     * starts right after that row (keyset pagination), so deep pages cost the same as the first.
+     * {@code status} is BLOCKED or ALLOWED, decided by blocked_reason like OperationLog does.
+     */
+    List<Map<String, Object>> findOperations(String status, String tableName, String userName, String operationType,
+                                             String fromTime, String toTime,
+                                             String afterTimestamp, Long afterPosition, int limit);
+    
+    // Entries after a log position, oldest first; used by the operation cache to fetch only what is new
+    List<Map<String, Object>> findOperationsAfter(long afterPosition, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,68 @@
+package com.mariatitianu.licenta.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where reads of the operation log go. warden_operations is only current while some backend
+ * ingests into it, which that backend shows by touching a heartbeat in warden_ingest_checkpoint
+ * (see LogIngestService). Without a heartbeat younger than {@code logs.ingest.stale-after-ms} -
+ * ingestion disabled, no warden_admin backend running, the table not created yet - reads go to
+ * the log itself through pg_warden, which costs a parse of the log but is never stale.
+ * Checked at most once every few seconds.
+ */
+@Repository
+@Slf4j
+public class LogSource {
+
+    private static final long CHECK_EVERY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final JdbcTemplate jdbc;
+    private final long staleAfterMs;
+
+    private volatile String source;
+    private volatile long checkedAt;
+
+    public LogSource(DataSource dataSource, @Value("${logs.ingest.stale-after-ms:30000}") long staleAfterMs) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.staleAfterMs = staleAfterMs;
+    }
+
+    /**
+     * {@link LogSql#TABLE}, or {@link LogSql#LOG_RANGE} / {@link LogSql#LOG_NUMBERED} in its place.
+     */
+    public String current() {
+        String current = source;
+        if (current == null || System.nanoTime() - checkedAt >= CHECK_EVERY_NANOS) {
+            current = check();
+            if (!current.equals(source)) {
+                log.info("Reading the operation log from {}", LogSql.TABLE.equals(current)
+                        ? LogSql.TABLE : "pg_warden, as no backend keeps " + LogSql.TABLE + " current");
+            }
+            source = current;
+            checkedAt = System.nanoTime();
+        }
+        return current;
+    }
+
+    public boolean isTable() {
+        return LogSql.TABLE.equals(current());
+    }
+
+    private String check() {
+        if (Boolean.TRUE.equals(jdbc.queryForObject(LogIngestSql.HAS_TABLES, Boolean.class))) {
+            List<Long> age = jdbc.queryForList(LogIngestSql.HEARTBEAT_AGE_MS, Long.class, LogIngestSql.HEARTBEAT);
+            if (!age.isEmpty() && age.get(0) < staleAfterMs) {
+                return LogSql.TABLE;
+            }
+        }
+        return Boolean.TRUE.equals(jdbc.queryForObject(LogIngestSql.HAS_RANGE_READER, Boolean.class))
+                ? LogSql.LOG_RANGE : LogSql.LOG_NUMBERED;
+    }
+}
@@ -0,0 +1,143 @@
+package com.mariatitianu.licenta.repository;
+
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Filtered reads of the operation log, shared by the JPA and JDBC log repositories and the
+ * streaming export. They read the warden_operations table that LogIngestService fills from
+ * warden_all_queries(), so filters and pages use its indexes instead of parsing the whole log
+ * file; log_position numbers the entries in log order, which breaks ties between entries logged
+ * within the same second and makes the cursor unique.
+ *
+ * While no backend keeps that table current (see LogSource), the same queries run against the
+ * log itself: {@link #LOG_RANGE} or {@link #LOG_NUMBERED} stands in for the table, with the
+ * same columns and named warden_operations, so the filters read alike on both.
+ */
+public final class LogSql {
+
+    public static final String POSITION_COLUMN = "log_position";
+    public static final String TABLE = "warden_operations";
+
+    // The columns of warden_all_queries() plus the position, as every query returns them
+    public static final String COLUMNS = "log_timestamp, operation_type, table_name, user_name, session_pid, "
+            + "status, blocked_reason, query_text, " + POSITION_COLUMN;
+
+    private static final String SELECT_OPERATIONS = "SELECT " + COLUMNS + " FROM " + TABLE + " ";
+
+    private static final String NUMBERED = "warden_all_queries() WITH ORDINALITY AS q(log_timestamp, operation_type, "
+            + "table_name, user_name, session_pid, status, blocked_reason, query_text, " + POSITION_COLUMN + ")";
+
+    /**
+     * The log file itself, numbered in log order; ingestion reads it.
+     */
+    public static final String SELECT_NUMBERED = "SELECT * FROM " + NUMBERED + " ";
+
+    // log_time and blocked as ingestion derives them; a timestamp that does not parse sorts under the epoch
+    private static final String DERIVED_COLUMNS = "q.*, CASE WHEN q.log_timestamp ~ "
+            + "'^[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9]{2}:[0-9]{2}:[0-9]{2}([.][0-9]+)?Z$' "
+            + "THEN CAST(q.log_timestamp AS timestamptz) ELSE CAST('epoch' AS timestamptz) END AS log_time, "
+            + "(q.blocked_reason IS NOT NULL AND btrim(q.blocked_reason) <> '') AS blocked";
+
+    /**
+     * The log itself in place of the table, positioned like ingestion positions it with a
+     * pg_warden that archives its log.
+     */
+    public static final String LOG_RANGE =
+            "(SELECT " + DERIVED_COLUMNS + " FROM warden_queries_range(NULL, NULL, NULL) AS q) AS " + TABLE;
+
+    /**
+     * The same with a pg_warden that only has warden_all_queries().
+     */
+    public static final String LOG_NUMBERED = "(SELECT " + DERIVED_COLUMNS + " FROM " + NUMBERED + ") AS " + TABLE;
+
+    private static final String PAGE =
+            "ORDER BY log_time DESC, " + POSITION_COLUMN + " DESC LIMIT :limit";
+    private static final String AFTER =
+            "WHERE " + POSITION_COLUMN + " > :afterPosition ORDER BY " + POSITION_COLUMN + " LIMIT :limit";
+    private static final String IN_LOG_ORDER = "ORDER BY " + POSITION_COLUMN;
+
+    /**
+     * Entries logged after the given position, oldest first: afterPosition, limit.
+     */
+    public static final String FIND_OPERATIONS_AFTER = SELECT_OPERATIONS + AFTER;
+
+    /**
+     * The same from the log; warden_queries_range() skips what lies before the position itself.
+     */
+    public static final String FIND_OPERATIONS_AFTER_IN_RANGE = "SELECT " + COLUMNS
+            + " FROM warden_queries_range(:afterPosition, NULL, NULL) LIMIT :limit";
+
+    private LogSql() {
+    }
+
+    // The queries above with another source in place of the table
+    public static String selectOperations(String source) {
+        return "SELECT " + COLUMNS + " FROM " + source + " ";
+    }
+
+    /**
+     * Newest first, one page, matching every filter that is set; with afterTimestamp and
+     * afterPosition set, it starts right after that row. Puts the values the query binds into
+     * params.
+     */
+    public static String findOperations(String source, Map<String, Object> params, String status, String tableName,
+                                        String userName, String operationType, String fromTime, String toTime,
+                                        String afterTimestamp, Long afterPosition, int limit) {
+        StringJoiner where = filters(params, status, tableName, userName, operationType, fromTime, toTime);
+        if (afterTimestamp != null && afterPosition != null) {
+            where.add("(log_time, " + POSITION_COLUMN + ") < (CAST(:afterTimestamp AS timestamptz), :afterPosition)");
+            params.put("afterTimestamp", afterTimestamp);
+            params.put("afterPosition", afterPosition);
+        }
+        params.put("limit", limit);
+        return selectOperations(source) + where + PAGE;
+    }
+
+    public static String findOperationsAfter(String source) {
+        return LOG_RANGE.equals(source) ? FIND_OPERATIONS_AFTER_IN_RANGE : selectOperations(source) + AFTER;
+    }
+
+    /**
+     * Everything matching the filters in log order, for streaming exports.
+     */
+    public static String exportOperations(String source, Map<String, Object> params, String status,
+                                          String tableName, String userName, String operationType,
+                                          String fromTime, String toTime) {
+        return selectOperations(source) + filters(params, status, tableName, userName, operationType, fromTime, toTime)
+                + IN_LOG_ORDER;
+    }
+
+    // Only the filters that are set become conditions: with "(:x IS NULL OR column = :x)" for the
+    // others the planner could neither prune log_time partitions nor use the table_name index.
+    // Times are compared as timestamptz so that partitions outside the range are skipped.
+    private static StringJoiner filters(Map<String, Object> params, String status, String tableName, String userName,
+                                        String operationType, String fromTime, String toTime) {
+        StringJoiner where = new StringJoiner(" AND ", "WHERE ", " ").setEmptyValue("");
+        if (status != null) {
+            where.add("blocked = :blocked");
+            params.put("blocked", "BLOCKED".equals(status));
+        }
+        if (tableName != null) {
+            where.add("table_name = :tableName");
+            params.put("tableName", tableName);
+        }
+        if (userName != null) {
+            where.add("user_name = :userName");
+            params.put("userName", userName);
+        }
+        if (operationType != null) {
+            where.add("operation_type = :operationType");
+            params.put("operationType", operationType);
+        }
+        if (fromTime != null) {
+            where.add("log_time >= CAST(:fromTime AS timestamptz)");
+            params.put("fromTime", fromTime);
+        }
+        if (toTime != null) {
+            where.add("log_time <= CAST(:toTime AS timestamptz)");
+            params.put("toTime", toTime);
+        }
+        return where;
+    }
+}
@@ -26,4 +26,14 @@ public interface PaymentRepository {
     List<CustomerPayment> findByAmountGreaterThan(BigDecimal amount);
     
     List<CustomerPayment> findByPaymentDateBetween(LocalDateTime startDate, LocalDateTime endDate);
+    
+    List<PaymentSummary> summarizeByCardType(LocalDateTime startDate, LocalDateTime endDate);
+    
+    Long findMinId();
+    
+    Long findMaxId();
+    
+    LocalDateTime findMinPaymentDate();
+    
+    LocalDateTime findMaxPaymentDate();
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.mariatitianu.licenta.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Payments of one card type within a date range: how many and their total amount.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentSummary {
+    private String cardType;
+    private Long count;
+    private BigDecimal totalAmount;
+}
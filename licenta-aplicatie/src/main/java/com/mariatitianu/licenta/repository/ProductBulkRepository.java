@@ -0,0 +1,26 @@
+package com.mariatitianu.licenta.repository;
+
+import com.mariatitianu.licenta.entity.Product;
+
+import java.util.List;
+
+public interface ProductBulkRepository {
+
+    // One INSERT per row, sent as a single JDBC batch
+    BulkWriteResult batchInsert(List<Product> products);
+
+    // One UPDATE per row, sent as a single JDBC batch. writeStart runs once only the write is left
+    // (after JPA has loaded the entities), where a benchmark starts its timer
+    BulkWriteResult batchUpdateDescription(List<Long> ids, String description, Runnable writeStart);
+
+    // One DELETE per row, sent as a single JDBC batch; writeStart as for updates
+    BulkWriteResult batchDelete(List<Long> ids, Runnable writeStart);
+
+    // A single INSERT ... VALUES (...), (...) statement
+    BulkWriteResult multiRowInsert(List<Product> products);
+
+    // A single COPY products FROM STDIN; generated IDs are not returned
+    BulkWriteResult copyInsert(List<Product> products);
+
+    int deleteByCategory(String category);
+}
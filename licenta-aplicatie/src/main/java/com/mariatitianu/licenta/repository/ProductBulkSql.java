@@ -0,0 +1,47 @@
+package com.mariatitianu.licenta.repository;
+
+import com.mariatitianu.licenta.entity.Product;
+
+import java.util.List;
+
+/**
+ * SQL shared by the JDBC and JPA bulk-write repositories.
+ */
+public final class ProductBulkSql {
+
+    public static final String INSERT =
+            "INSERT INTO products (name, category, price, stock_quantity, description) VALUES (?, ?, ?, ?, ?)";
+    public static final String COPY =
+            "COPY products (name, category, price, stock_quantity, description) FROM STDIN WITH (FORMAT csv)";
+
+    private ProductBulkSql() {
+    }
+
+    public static String multiRowInsert(int rows) {
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO products (name, category, price, stock_quantity, description) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        return sql.append(" RETURNING id").toString();
+    }
+
+    /**
+     * Products as CSV rows in the column order of {@link #COPY}.
+     */
+    public static String toCsv(List<Product> products) {
+        StringBuilder csv = new StringBuilder(products.size() * 96);
+        for (Product product : products) {
+            csv.append(csvField(product.getName())).append(',')
+               .append(csvField(product.getCategory())).append(',')
+               .append(product.getPrice()).append(',')
+               .append(product.getStockQuantity()).append(',')
+               .append(csvField(product.getDescription())).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static String csvField(String value) {
+        return value == null ? "" : '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,90 @@
+package com.mariatitianu.licenta.repository;
+
+import com.mariatitianu.licenta.repository.jdbc.RowMapping;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The log repository the services get: reads go to the profile's repository, which queries
+ * warden_operations, while {@link LogSource} finds that table current, and otherwise run here,
+ * under both profiles, against the log itself.
+ */
+@Repository
+@Primary
+public class RoutingLogRepository implements LogRepository {
+
+    private final LogRepository table;
+    private final LogSource logSource;
+    private final NamedParameterJdbcTemplate namedJdbc;
+
+    public RoutingLogRepository(@Qualifier(LogRepository.TABLE_REPOSITORY) LogRepository table,
+                                LogSource logSource, DataSource dataSource) {
+        this.table = table;
+        this.logSource = logSource;
+        this.namedJdbc = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<Map<String, Object>> getRecentOperations(int limit) {
+        String source = logSource.current();
+        if (LogSql.TABLE.equals(source)) {
+            return table.getRecentOperations(limit);
+        }
+        return query(LogSql.selectOperations(source) + "ORDER BY log_time DESC LIMIT :limit",
+                new MapSqlParameterSource("limit", limit), "Error fetching recent operations");
+    }
+
+    @Override
+    public List<Map<String, Object>> getAllOperations() {
+        String source = logSource.current();
+        if (LogSql.TABLE.equals(source)) {
+            return table.getAllOperations();
+        }
+        return query(LogSql.selectOperations(source) + "ORDER BY log_time DESC", new MapSqlParameterSource(),
+                "Error fetching all operations");
+    }
+
+    @Override
+    public List<Map<String, Object>> findOperations(String status, String tableName, String userName,
+                                                    String operationType, String fromTime, String toTime,
+                                                    String afterTimestamp, Long afterPosition, int limit) {
+        String source = logSource.current();
+        if (LogSql.TABLE.equals(source)) {
+            return table.findOperations(status, tableName, userName, operationType, fromTime, toTime,
+                    afterTimestamp, afterPosition, limit);
+        }
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.findOperations(source, params, status, tableName, userName, operationType, fromTime, toTime,
+                afterTimestamp, afterPosition, limit);
+        return query(sql, new MapSqlParameterSource(params), "Error searching operations");
+    }
+
+    @Override
+    public List<Map<String, Object>> findOperationsAfter(long afterPosition, int limit) {
+        String source = logSource.current();
+        if (LogSql.TABLE.equals(source)) {
+            return table.findOperationsAfter(afterPosition, limit);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterPosition", afterPosition)
+                .addValue("limit", limit);
+        return query(LogSql.findOperationsAfter(source), params, "Error fetching new operations");
+    }
+
+    private List<Map<String, Object>> query(String sql, MapSqlParameterSource params, String error) {
+        try {
+            return namedJdbc.query(sql, params, RowMapping.mapRowMapper());
+        } catch (DataAccessException e) {
+            throw new RuntimeException(error, e);
+        }
+    }
+}
@@ -1,77 +1,87 @@
 package com.mariatitianu.licenta.repository.jdbc;
 
 import com.mariatitianu.licenta.repository.LogRepository;
-import lombok.RequiredArgsConstructor;
+import com.mariatitianu.licenta.repository.LogSql;
 import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-@Repository
+@Repository(LogRepository.TABLE_REPOSITORY)
 @Profile("jdbc")
-@RequiredArgsConstructor
 public class LogJdbcRepository implements LogRepository {
     
     private final DataSource dataSource;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    
+    public LogJdbcRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.namedJdbc = new NamedParameterJdbcTemplate(dataSource);
+    }
     
     @Override
     public List<Map<String, Object>> getRecentOperations(int limit) {
         // VULNERABLE: Direct integer concatenation (less risky but still vulnerable)
-        String sql = "SELECT * FROM warden_all_queries() ORDER BY log_timestamp DESC LIMIT " + limit;
-        List<Map<String, Object>> results = new ArrayList<>();
+        String sql = "SELECT " + LogSql.COLUMNS + " FROM " + LogSql.TABLE + " ORDER BY log_time DESC LIMIT " + limit;
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    row.put(columnName, rs.getObject(i));
-                }
-                results.add(row);
-            }
+            return RowMapping.maps(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching recent operations", e);
         }
-        
-        return results;
     }
     
     @Override
     public List<Map<String, Object>> getAllOperations() {
-        String sql = "SELECT * FROM warden_all_queries() ORDER BY log_timestamp DESC";
-        List<Map<String, Object>> results = new ArrayList<>();
+        String sql = "SELECT " + LogSql.COLUMNS + " FROM " + LogSql.TABLE + " ORDER BY log_time DESC";
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    row.put(columnName, rs.getObject(i));
-                }
-                results.add(row);
-            }
+            return RowMapping.maps(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching all operations", e);
         }
+    }
+    
+    @Override
+    public List<Map<String, Object>> findOperations(String status, String tableName, String userName,
+                                                    String operationType, String fromTime, String toTime,
+                                                    String afterTimestamp, Long afterPosition, int limit) {
+        // Bound parameters: the filters come straight from query strings
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.findOperations(LogSql.TABLE, params, status, tableName, userName, operationType,
+                fromTime, toTime, afterTimestamp, afterPosition, limit);
+        
+        try {
+            return namedJdbc.query(sql, params, RowMapping.mapRowMapper());
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Error searching operations", e);
+        }
+    }
+    
+    @Override
+    public List<Map<String, Object>> findOperationsAfter(long afterPosition, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterPosition", afterPosition)
+                .addValue("limit", limit);
         
-        return results;
+        try {
+            return namedJdbc.query(LogSql.FIND_OPERATIONS_AFTER, params, RowMapping.mapRowMapper());
+        } catch (DataAccessException e) {
+            throw new RuntimeException("Error fetching new operations", e);
+        }
     }
     
     /**
@@ -80,29 +90,16 @@ public class LogJdbcRepository implements LogRepository {
      */
     public List<Map<String, Object>> getOperationsSorted(String sortField, String sortOrder) {
         // EXTREMELY VULNERABLE: Direct injection in ORDER BY clause
-        String sql = "SELECT * FROM warden_all_queries() ORDER BY " + 
+        String sql = "SELECT " + LogSql.COLUMNS + " FROM " + LogSql.TABLE + " ORDER BY " + 
                      sortField + " " + sortOrder;
-        List<Map<String, Object>> results = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            while (rs.next()) {
-                Map<String, Object> row = new HashMap<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    String columnName = metaData.getColumnName(i);
-                    row.put(columnName, rs.getObject(i));
-                }
-                results.add(row);
-            }
+            return RowMapping.maps(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching sorted operations", e);
         }
-        
-        return results;
     }
 }
\ No newline at end of file
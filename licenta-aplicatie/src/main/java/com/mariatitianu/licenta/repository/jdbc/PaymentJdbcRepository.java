@@ -2,6 +2,7 @@ package com.mariatitianu.licenta.repository.jdbc;
 
 import com.mariatitianu.licenta.entity.CustomerPayment;
 import com.mariatitianu.licenta.repository.PaymentRepository;
+import com.mariatitianu.licenta.repository.PaymentSummary;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
@@ -19,25 +20,23 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class PaymentJdbcRepository implements PaymentRepository {
     
+    private static final RowMapping<CustomerPayment> PAYMENT_ROWS = RowMapping.of(PaymentJdbcRepository::mapRowToPayment,
+            "id", "customer_name", "card_last_four_digits", "card_type", "amount", "payment_date");
+    
     private final DataSource dataSource;
     
     @Override
     public List<CustomerPayment> findAll() {
-        List<CustomerPayment> payments = new ArrayList<>();
         String sql = "SELECT * FROM customer_payments ORDER BY id";
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                payments.add(mapRowToPayment(rs));
-            }
+            return PAYMENT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching payments", e);
         }
-        
-        return payments;
     }
     
     @Override
@@ -49,14 +48,10 @@ public class PaymentJdbcRepository implements PaymentRepository {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            if (rs.next()) {
-                return Optional.of(mapRowToPayment(rs));
-            }
+            return PAYMENT_ROWS.first(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching payment", e);
         }
-        
-        return Optional.empty();
     }
     
     @Override
@@ -166,20 +161,15 @@ public class PaymentJdbcRepository implements PaymentRepository {
         // VULNERABLE: Direct string concatenation
         String sql = "SELECT * FROM customer_payments WHERE customer_name = '" + 
                      customerName + "'";
-        List<CustomerPayment> payments = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                payments.add(mapRowToPayment(rs));
-            }
+            return PAYMENT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error finding payments by customer", e);
         }
-        
-        return payments;
     }
     
     @Override
@@ -187,40 +177,30 @@ public class PaymentJdbcRepository implements PaymentRepository {
         // VULNERABLE: Direct string concatenation
         String sql = "SELECT * FROM customer_payments WHERE card_type = '" + 
                      cardType + "'";
-        List<CustomerPayment> payments = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                payments.add(mapRowToPayment(rs));
-            }
+            return PAYMENT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error finding payments by card type", e);
         }
-        
-        return payments;
     }
     
     @Override
     public List<CustomerPayment> findByAmountGreaterThan(BigDecimal amount) {
         // VULNERABLE: Direct numeric injection
         String sql = "SELECT * FROM customer_payments WHERE amount > " + amount;
-        List<CustomerPayment> payments = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                payments.add(mapRowToPayment(rs));
-            }
+            return PAYMENT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error finding payments by amount", e);
         }
-        
-        return payments;
     }
     
     @Override
@@ -231,30 +211,102 @@ public class PaymentJdbcRepository implements PaymentRepository {
             "SELECT * FROM customer_payments WHERE payment_date BETWEEN '%s' AND '%s'",
             startDate, endDate
         );
-        List<CustomerPayment> payments = new ArrayList<>();
+        
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            return PAYMENT_ROWS.list(rs);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding payments by date range", e);
+        }
+    }
+    
+    @Override
+    public List<PaymentSummary> summarizeByCardType(LocalDateTime startDate, LocalDateTime endDate) {
+        // VULNERABLE: Direct date injection
+        String sql = String.format(
+            "SELECT card_type, COUNT(*), SUM(amount) FROM customer_payments " +
+            "WHERE payment_date BETWEEN '%s' AND '%s' GROUP BY card_type ORDER BY card_type",
+            startDate, endDate
+        );
+        List<PaymentSummary> summaries = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                payments.add(mapRowToPayment(rs));
+                summaries.add(new PaymentSummary(rs.getString(1), rs.getLong(2), rs.getBigDecimal(3)));
             }
         } catch (SQLException e) {
-            throw new RuntimeException("Error finding payments by date range", e);
+            throw new RuntimeException("Error summarizing payments by card type", e);
+        }
+        
+        return summaries;
+    }
+    
+    @Override
+    public Long findMinId() {
+        return queryForLong("SELECT MIN(id) FROM customer_payments", "Error finding min payment ID");
+    }
+    
+    @Override
+    public Long findMaxId() {
+        return queryForLong("SELECT MAX(id) FROM customer_payments", "Error finding max payment ID");
+    }
+    
+    @Override
+    public LocalDateTime findMinPaymentDate() {
+        return queryForDate("SELECT MIN(payment_date) FROM customer_payments", "Error finding earliest payment date");
+    }
+    
+    @Override
+    public LocalDateTime findMaxPaymentDate() {
+        return queryForDate("SELECT MAX(payment_date) FROM customer_payments", "Error finding latest payment date");
+    }
+    
+    private Long queryForLong(String sql, String errorMessage) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            if (rs.next()) {
+                long value = rs.getLong(1);
+                return rs.wasNull() ? null : value;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+        
+        return null;
+    }
+    
+    private LocalDateTime queryForDate(String sql, String errorMessage) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            if (rs.next()) {
+                Timestamp value = rs.getTimestamp(1);
+                return value != null ? value.toLocalDateTime() : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage, e);
         }
         
-        return payments;
+        return null;
     }
     
-    private CustomerPayment mapRowToPayment(ResultSet rs) throws SQLException {
+    // columns[] follows the names given to PAYMENT_ROWS
+    private static CustomerPayment mapRowToPayment(ResultSet rs, int[] columns) throws SQLException {
         CustomerPayment payment = new CustomerPayment();
-        payment.setId(rs.getLong("id"));
-        payment.setCustomerName(rs.getString("customer_name"));
-        payment.setCardLastFourDigits(rs.getString("card_last_four_digits"));
-        payment.setCardType(rs.getString("card_type"));
-        payment.setAmount(rs.getBigDecimal("amount"));
-        payment.setPaymentDate(rs.getTimestamp("payment_date").toLocalDateTime());
+        payment.setId(rs.getLong(columns[0]));
+        payment.setCustomerName(rs.getString(columns[1]));
+        payment.setCardLastFourDigits(rs.getString(columns[2]));
+        payment.setCardType(rs.getString(columns[3]));
+        payment.setAmount(rs.getBigDecimal(columns[4]));
+        payment.setPaymentDate(rs.getTimestamp(columns[5]).toLocalDateTime());
         return payment;
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package com.mariatitianu.licenta.repository.jdbc;
+
+import com.mariatitianu.licenta.entity.Product;
+import com.mariatitianu.licenta.repository.BulkWriteResult;
+import com.mariatitianu.licenta.repository.ProductBulkRepository;
+import com.mariatitianu.licenta.repository.ProductBulkSql;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+@Profile("jdbc")
+@RequiredArgsConstructor
+public class ProductBulkJdbcRepository implements ProductBulkRepository {
+
+    private final DataSource dataSource;
+
+    @Override
+    public BulkWriteResult batchInsert(List<Product> products) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(ProductBulkSql.INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Product product : products) {
+                    bindProduct(stmt, product, 1);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+
+                List<Long> ids = new ArrayList<>(products.size());
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                conn.commit();
+                return new BulkWriteResult(products.size(), products.size(), ids);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error batch inserting products", e);
+        }
+    }
+
+    @Override
+    public BulkWriteResult batchUpdateDescription(List<Long> ids, String description, Runnable writeStart) {
+        writeStart.run();
+        return executeBatch("UPDATE products SET description = ? WHERE id = ?", ids, description,
+                "Error batch updating products");
+    }
+
+    @Override
+    public BulkWriteResult batchDelete(List<Long> ids, Runnable writeStart) {
+        writeStart.run();
+        return executeBatch("DELETE FROM products WHERE id = ?", ids, null, "Error batch deleting products");
+    }
+
+    @Override
+    public BulkWriteResult multiRowInsert(List<Product> products) {
+        String sql = ProductBulkSql.multiRowInsert(products.size());
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            for (Product product : products) {
+                index = bindProduct(stmt, product, index);
+            }
+
+            List<Long> ids = new ArrayList<>(products.size());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+            return new BulkWriteResult(products.size(), 1, ids);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error inserting products", e);
+        }
+    }
+
+    @Override
+    public BulkWriteResult copyInsert(List<Product> products) {
+        try (Connection conn = dataSource.getConnection()) {
+            long rows = conn.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn(ProductBulkSql.COPY, new StringReader(ProductBulkSql.toCsv(products)));
+            return new BulkWriteResult((int) rows, 1, List.of());
+        } catch (Exception e) {
+            throw new RuntimeException("Error copying products", e);
+        }
+    }
+
+    @Override
+    public int deleteByCategory(String category) {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("DELETE FROM products WHERE category = ?")) {
+            stmt.setString(1, category);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting products by category", e);
+        }
+    }
+
+    private BulkWriteResult executeBatch(String sql, List<Long> ids, String description, String errorMessage) {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (Long id : ids) {
+                    int index = 1;
+                    if (description != null) {
+                        stmt.setString(index++, description);
+                    }
+                    stmt.setLong(index, id);
+                    stmt.addBatch();
+                }
+
+                int rows = 0;
+                for (int count : stmt.executeBatch()) {
+                    rows += Math.max(count, 0);
+                }
+                conn.commit();
+                return new BulkWriteResult(rows, ids.size(), ids);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException(errorMessage, e);
+        }
+    }
+
+    private int bindProduct(PreparedStatement stmt, Product product, int index) throws SQLException {
+        stmt.setString(index++, product.getName());
+        stmt.setString(index++, product.getCategory());
+        stmt.setBigDecimal(index++, product.getPrice());
+        stmt.setInt(index++, product.getStockQuantity());
+        stmt.setString(index++, product.getDescription());
+        return index;
+    }
+}
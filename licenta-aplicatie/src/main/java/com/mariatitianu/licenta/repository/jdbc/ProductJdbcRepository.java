@@ -8,7 +8,6 @@ import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
 import java.sql.*;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,25 +16,23 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProductJdbcRepository implements ProductRepository {
     
+    private static final RowMapping<Product> PRODUCT_ROWS = RowMapping.of(ProductJdbcRepository::mapRowToProduct,
+            "id", "name", "category", "description", "price", "stock_quantity");
+    
     private final DataSource dataSource;
     
     @Override
     public List<Product> findAll() {
-        List<Product> products = new ArrayList<>();
         String sql = "SELECT * FROM products ORDER BY id";
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                products.add(mapRowToProduct(rs));
-            }
+            return PRODUCT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching products", e);
         }
-        
-        return products;
     }
     
     @Override
@@ -47,14 +44,10 @@ public class ProductJdbcRepository implements ProductRepository {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            if (rs.next()) {
-                return Optional.of(mapRowToProduct(rs));
-            }
+            return PRODUCT_ROWS.first(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching product", e);
         }
-        
-        return Optional.empty();
     }
     
     @Override
@@ -162,20 +155,15 @@ public class ProductJdbcRepository implements ProductRepository {
     public List<Product> findByCategory(String category) {
         // VULNERABLE: Direct string concatenation in WHERE clause
         String sql = "SELECT * FROM products WHERE category = '" + category + "'";
-        List<Product> products = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                products.add(mapRowToProduct(rs));
-            }
+            return PRODUCT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error searching products by category", e);
         }
-        
-        return products;
     }
     
     @Override
@@ -187,14 +175,10 @@ public class ProductJdbcRepository implements ProductRepository {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            if (rs.next()) {
-                return Optional.of(mapRowToProduct(rs));
-            }
+            return PRODUCT_ROWS.first(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error finding product by name", e);
         }
-        
-        return Optional.empty();
     }
     
     @Override
@@ -202,40 +186,30 @@ public class ProductJdbcRepository implements ProductRepository {
         // EXTREMELY VULNERABLE: Direct injection in LIKE clause
         String sql = "SELECT * FROM products WHERE LOWER(name) LIKE '%" + 
                      name.toLowerCase() + "%'";
-        List<Product> products = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                products.add(mapRowToProduct(rs));
-            }
+            return PRODUCT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error searching products", e);
         }
-        
-        return products;
     }
     
     @Override
     public List<Product> findByStockQuantityGreaterThan(Integer quantity) {
         // VULNERABLE: Direct numeric injection
         String sql = "SELECT * FROM products WHERE stock_quantity > " + quantity;
-        List<Product> products = new ArrayList<>();
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                products.add(mapRowToProduct(rs));
-            }
+            return PRODUCT_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error finding products by stock", e);
         }
-        
-        return products;
     }
     
     @Override
@@ -274,14 +248,15 @@ public class ProductJdbcRepository implements ProductRepository {
         return null;
     }
     
-    private Product mapRowToProduct(ResultSet rs) throws SQLException {
+    // columns[] follows the names given to PRODUCT_ROWS
+    private static Product mapRowToProduct(ResultSet rs, int[] columns) throws SQLException {
         Product product = new Product();
-        product.setId(rs.getLong("id"));
-        product.setName(rs.getString("name"));
-        product.setCategory(rs.getString("category"));
-        product.setDescription(rs.getString("description"));
-        product.setPrice(rs.getBigDecimal("price"));
-        product.setStockQuantity(rs.getInt("stock_quantity"));
+        product.setId(rs.getLong(columns[0]));
+        product.setName(rs.getString(columns[1]));
+        product.setCategory(rs.getString(columns[2]));
+        product.setDescription(rs.getString(columns[3]));
+        product.setPrice(rs.getBigDecimal(columns[4]));
+        product.setStockQuantity(rs.getInt(columns[5]));
         return product;
     }
 }
\ No newline at end of file
@@ -15,6 +15,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProtectionJdbcRepository implements ProtectionRepository {
     
+    // Typed reads in a fixed order, whatever order SELECT * returns the columns in
+    private static final RowMapping<Object[]> UNPROTECTED_TABLE_ROWS = RowMapping.of(
+            (rs, columns) -> new Object[]{rs.getString(columns[0]), rs.getTimestamp(columns[1]), rs.getString(columns[2])},
+            "table_name", "unprotect_time", "unprotected_by");
+    
     private final DataSource dataSource;
     
     @Override
@@ -66,7 +71,7 @@ public class ProtectionJdbcRepository implements ProtectionRepository {
              ResultSet rs = stmt.executeQuery(sql)) {
             
             while (rs.next()) {
-                tables.add(rs.getString("table_name"));
+                tables.add(rs.getString(1));
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching unprotected tables", e);
@@ -77,28 +82,16 @@ public class ProtectionJdbcRepository implements ProtectionRepository {
     
     @Override
     public List<Object[]> getUnprotectedTablesAlt() {
-        List<Object[]> results = new ArrayList<>();
         String sql = "SELECT * FROM public.warden_unprotected_tables ORDER BY table_name";
         
         try (Connection conn = dataSource.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            ResultSetMetaData metaData = rs.getMetaData();
-            int columnCount = metaData.getColumnCount();
-            
-            while (rs.next()) {
-                Object[] row = new Object[columnCount];
-                for (int i = 0; i < columnCount; i++) {
-                    row[i] = rs.getObject(i + 1);
-                }
-                results.add(row);
-            }
+            return UNPROTECTED_TABLE_ROWS.list(rs);
         } catch (SQLException e) {
             throw new RuntimeException("Error fetching unprotected tables data", e);
         }
-        
-        return results;
     }
     
     @Override
@@ -0,0 +1,142 @@
+package com.mariatitianu.licenta.repository.jdbc;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Maps JDBC rows by column index. The indexes of a mapping's columns are looked up once per
+ * result set, so every row after that costs only its typed getters, not a by-name lookup per
+ * column; mappers build the entity directly instead of going through a generic row object.
+ * The repositories keep one static mapping per entity, see ProductJdbcRepository.
+ */
+public final class RowMapping<T> {
+
+    /**
+     * Builds one row; {@code columns[i]} is the index of the i-th column name given to {@link #of}.
+     */
+    @FunctionalInterface
+    public interface IndexedMapper<T> {
+        T map(ResultSet rs, int[] columns) throws SQLException;
+    }
+
+    private final IndexedMapper<T> mapper;
+    private final String[] columnNames;
+
+    private RowMapping(IndexedMapper<T> mapper, String[] columnNames) {
+        this.mapper = mapper;
+        this.columnNames = columnNames;
+    }
+
+    public static <T> RowMapping<T> of(IndexedMapper<T> mapper, String... columnNames) {
+        return new RowMapping<>(mapper, columnNames.clone());
+    }
+
+    /**
+     * Indexes of the given column labels in this result set, in the same order.
+     */
+    public static int[] resolve(ResultSet rs, String... columnNames) throws SQLException {
+        int[] columns = new int[columnNames.length];
+        for (int i = 0; i < columnNames.length; i++) {
+            columns[i] = rs.findColumn(columnNames[i]);
+        }
+        return columns;
+    }
+
+    public int[] resolve(ResultSet rs) throws SQLException {
+        return resolve(rs, columnNames);
+    }
+
+    public T map(ResultSet rs, int[] columns) throws SQLException {
+        return mapper.map(rs, columns);
+    }
+
+    // Every remaining row of the result set
+    public List<T> list(ResultSet rs) throws SQLException {
+        List<T> results = new ArrayList<>();
+        int[] columns = null;
+        while (rs.next()) {
+            if (columns == null) {
+                columns = resolve(rs);
+            }
+            results.add(mapper.map(rs, columns));
+        }
+        return results;
+    }
+
+    public Optional<T> first(ResultSet rs) throws SQLException {
+        if (rs.next()) {
+            return Optional.of(mapper.map(rs, resolve(rs)));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * The same mapping for JdbcTemplate queries. It remembers the indexes of the result set it
+     * last saw, so use a fresh one per query rather than sharing it between threads.
+     */
+    public RowMapper<T> rowMapper() {
+        return new RowMapper<>() {
+            private ResultSet resolvedFor;
+            private int[] columns;
+
+            @Override
+            public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+                if (rs != resolvedFor) {
+                    columns = resolve(rs);
+                    resolvedFor = rs;
+                }
+                return mapper.map(rs, columns);
+            }
+        };
+    }
+
+    /**
+     * Rows as column label to value maps, like JdbcTemplate.queryForList, but with the labels read
+     * once per result set and each map a plain HashMap sized for the columns up front.
+     */
+    public static List<Map<String, Object>> maps(ResultSet rs) throws SQLException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        RowMapper<Map<String, Object>> rowMapper = mapRowMapper();
+        int rowNum = 0;
+        while (rs.next()) {
+            results.add(rowMapper.mapRow(rs, rowNum++));
+        }
+        return results;
+    }
+
+    // For JdbcTemplate queries; one per query, like rowMapper()
+    public static RowMapper<Map<String, Object>> mapRowMapper() {
+        return new RowMapper<>() {
+            private ResultSet resolvedFor;
+            private String[] labels;
+            private int capacity;
+
+            @Override
+            public Map<String, Object> mapRow(ResultSet rs, int rowNum) throws SQLException {
+                if (rs != resolvedFor) {
+                    ResultSetMetaData metaData = rs.getMetaData();
+                    labels = new String[metaData.getColumnCount()];
+                    for (int i = 0; i < labels.length; i++) {
+                        labels[i] = metaData.getColumnLabel(i + 1);
+                    }
+                    // Large enough that filling the map never resizes it
+                    capacity = (int) (labels.length / 0.75f) + 1;
+                    resolvedFor = rs;
+                }
+                Map<String, Object> row = new HashMap<>(capacity);
+                for (int i = 0; i < labels.length; i++) {
+                    row.put(labels[i], rs.getObject(i + 1));
+                }
+                return row;
+            }
+        };
+    }
+}
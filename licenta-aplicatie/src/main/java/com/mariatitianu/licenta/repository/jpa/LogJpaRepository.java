@@ -2,6 +2,7 @@ package com.mariatitianu.licenta.repository.jpa;
 
 import com.mariatitianu.licenta.entity.UnprotectedTable;
 import com.mariatitianu.licenta.repository.LogRepository;
+import com.mariatitianu.licenta.repository.LogSql;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -11,15 +12,20 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Map;
 
-@Repository
+@Repository(LogRepository.TABLE_REPOSITORY)
 @Profile("jpa")
-public interface LogJpaRepository extends LogRepository, JpaRepository<UnprotectedTable, String> {
+public interface LogJpaRepository extends LogRepository, LogJpaSearch, JpaRepository<UnprotectedTable, String> {
     
     @Override
-    @Query(value = "SELECT * FROM warden_all_queries() ORDER BY log_timestamp DESC LIMIT :limit", nativeQuery = true)
+    @Query(value = "SELECT " + LogSql.COLUMNS + " FROM " + LogSql.TABLE + " ORDER BY log_time DESC LIMIT :limit", nativeQuery = true)
     List<Map<String, Object>> getRecentOperations(@Param("limit") int limit);
     
     @Override
-    @Query(value = "SELECT * FROM warden_all_queries() ORDER BY log_timestamp DESC", nativeQuery = true)
+    @Query(value = "SELECT " + LogSql.COLUMNS + " FROM " + LogSql.TABLE + " ORDER BY log_time DESC", nativeQuery = true)
     List<Map<String, Object>> getAllOperations();
+    
+    @Override
+    @Query(value = LogSql.FIND_OPERATIONS_AFTER, nativeQuery = true)
+    List<Map<String, Object>> findOperationsAfter(@Param("afterPosition") long afterPosition,
+                                                  @Param("limit") int limit);
 }
\ No newline at end of file
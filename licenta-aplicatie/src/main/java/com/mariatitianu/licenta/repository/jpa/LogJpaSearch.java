@@ -0,0 +1,15 @@
+package com.mariatitianu.licenta.repository.jpa;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The log search of {@link LogJpaRepository}, implemented by {@link LogJpaSearchImpl}: its
+ * WHERE clause depends on which filters are set, which a fixed {@code @Query} cannot express.
+ */
+public interface LogJpaSearch {
+
+    List<Map<String, Object>> findOperations(String status, String tableName, String userName, String operationType,
+                                             String fromTime, String toTime,
+                                             String afterTimestamp, Long afterPosition, int limit);
+}
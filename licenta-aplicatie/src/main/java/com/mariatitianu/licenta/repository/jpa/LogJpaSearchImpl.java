@@ -0,0 +1,47 @@
+package com.mariatitianu.licenta.repository.jpa;
+
+import com.mariatitianu.licenta.repository.LogSql;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@link LogSql#findOperations} as a native query and returns the rows as column maps,
+ * like the {@code @Query} methods of {@link LogJpaRepository} do.
+ */
+class LogJpaSearchImpl implements LogJpaSearch {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> findOperations(String status, String tableName, String userName,
+                                                    String operationType, String fromTime, String toTime,
+                                                    String afterTimestamp, Long afterPosition, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.findOperations(LogSql.TABLE, params, status, tableName, userName, operationType,
+                fromTime, toTime, afterTimestamp, afterPosition, limit);
+        Query query = entityManager.createNativeQuery(sql, Tuple.class);
+        params.forEach(query::setParameter);
+
+        List<Tuple> tuples = query.getResultList();
+        return tuples.stream().map(LogJpaSearchImpl::toMap).collect(Collectors.toList());
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            row.put(element.getAlias(), tuple.get(element));
+        }
+        return row;
+    }
+}
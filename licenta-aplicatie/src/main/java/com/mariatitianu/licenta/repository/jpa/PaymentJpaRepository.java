@@ -2,13 +2,37 @@ package com.mariatitianu.licenta.repository.jpa;
 
 import com.mariatitianu.licenta.entity.CustomerPayment;
 import com.mariatitianu.licenta.repository.PaymentRepository;
+import com.mariatitianu.licenta.repository.PaymentSummary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 @Profile("jpa")
 public interface PaymentJpaRepository extends PaymentRepository, JpaRepository<CustomerPayment, Long> {
     // All methods are inherited from both interfaces
     // Spring Data JPA will auto-implement them
+    
+    @Query("SELECT new com.mariatitianu.licenta.repository.PaymentSummary(p.cardType, COUNT(p), SUM(p.amount)) "
+            + "FROM CustomerPayment p WHERE p.paymentDate BETWEEN :startDate AND :endDate "
+            + "GROUP BY p.cardType ORDER BY p.cardType")
+    List<PaymentSummary> summarizeByCardType(@Param("startDate") LocalDateTime startDate,
+                                             @Param("endDate") LocalDateTime endDate);
+    
+    @Query("SELECT MIN(p.id) FROM CustomerPayment p")
+    Long findMinId();
+    
+    @Query("SELECT MAX(p.id) FROM CustomerPayment p")
+    Long findMaxId();
+    
+    @Query("SELECT MIN(p.paymentDate) FROM CustomerPayment p")
+    LocalDateTime findMinPaymentDate();
+    
+    @Query("SELECT MAX(p.paymentDate) FROM CustomerPayment p")
+    LocalDateTime findMaxPaymentDate();
 }
\ No newline at end of file
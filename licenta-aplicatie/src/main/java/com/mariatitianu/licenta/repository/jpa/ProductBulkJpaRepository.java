@@ -0,0 +1,121 @@
+package com.mariatitianu.licenta.repository.jpa;
+
+import com.mariatitianu.licenta.entity.Product;
+import com.mariatitianu.licenta.repository.BulkWriteResult;
+import com.mariatitianu.licenta.repository.ProductBulkRepository;
+import com.mariatitianu.licenta.repository.ProductBulkSql;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk writes through Hibernate. Product IDs use IDENTITY generation, so Hibernate cannot batch
+ * inserts and persists one INSERT per row; updates and deletes of managed entities are batched
+ * with the session's JDBC batch size, and the entities are loaded before writeStart so that
+ * the SELECT is not timed. Multi-row VALUES and COPY have no JPA equivalent and run
+ * as a native query and on the session's connection respectively.
+ */
+@Repository
+@Profile("jpa")
+@Transactional
+public class ProductBulkJpaRepository implements ProductBulkRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public BulkWriteResult batchInsert(List<Product> products) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(products.size());
+
+        for (Product product : products) {
+            entityManager.persist(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Long> ids = new ArrayList<>(products.size());
+        products.forEach(product -> ids.add(product.getId()));
+        return new BulkWriteResult(products.size(), products.size(), ids);
+    }
+
+    @Override
+    public BulkWriteResult batchUpdateDescription(List<Long> ids, String description, Runnable writeStart) {
+        List<Product> products = findAllById(ids);
+        writeStart.run();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(Math.max(1, products.size()));
+
+        products.forEach(product -> product.setDescription(description));
+        entityManager.flush();
+        entityManager.clear();
+        return new BulkWriteResult(products.size(), products.size(), ids);
+    }
+
+    @Override
+    public BulkWriteResult batchDelete(List<Long> ids, Runnable writeStart) {
+        List<Product> products = findAllById(ids);
+        writeStart.run();
+        entityManager.unwrap(Session.class).setJdbcBatchSize(Math.max(1, products.size()));
+
+        products.forEach(entityManager::remove);
+        entityManager.flush();
+        entityManager.clear();
+        return new BulkWriteResult(products.size(), products.size(), ids);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public BulkWriteResult multiRowInsert(List<Product> products) {
+        Query query = entityManager.createNativeQuery(ProductBulkSql.multiRowInsert(products.size()));
+        int index = 1;
+        for (Product product : products) {
+            query.setParameter(index++, product.getName());
+            query.setParameter(index++, product.getCategory());
+            query.setParameter(index++, product.getPrice());
+            query.setParameter(index++, product.getStockQuantity());
+            query.setParameter(index++, product.getDescription());
+        }
+
+        List<Long> ids = new ArrayList<>(products.size());
+        for (Object id : (List<Object>) query.getResultList()) {
+            ids.add(((Number) id).longValue());
+        }
+        return new BulkWriteResult(products.size(), 1, ids);
+    }
+
+    @Override
+    public BulkWriteResult copyInsert(List<Product> products) {
+        long rows = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(ProductBulkSql.COPY, new StringReader(ProductBulkSql.toCsv(products)));
+            } catch (IOException e) {
+                throw new IllegalStateException("Error copying products", e);
+            }
+        });
+        return new BulkWriteResult((int) rows, 1, List.of());
+    }
+
+    @Override
+    public int deleteByCategory(String category) {
+        return entityManager.createQuery("DELETE FROM Product p WHERE p.category = :category")
+                .setParameter("category", category)
+                .executeUpdate();
+    }
+
+    private List<Product> findAllById(List<Long> ids) {
+        return entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+}
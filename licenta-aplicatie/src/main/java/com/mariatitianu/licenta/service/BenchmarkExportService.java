@@ -0,0 +1,475 @@
+package com.mariatitianu.licenta.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mariatitianu.licenta.config.BenchmarkProperties;
+import com.mariatitianu.licenta.service.benchmark.SampleCapture;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Owns the per-run spill directories written by {@link SampleCapture} and streams them back
+ * as CSV, JSON Lines or HdrHistogram logs. Exports read the files record by record, so memory
+ * use is bounded by one buffer per worker file whatever the number of samples.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BenchmarkExportService {
+
+    public static final String CAPTURE_NONE = "NONE";
+    public static final String CAPTURE_INTERVALS = "INTERVALS";
+    public static final String CAPTURE_SAMPLES = "SAMPLES";
+
+    public static final String DATA_SAMPLES = "samples";
+    public static final String DATA_INTERVALS = "intervals";
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_JSONL = "jsonl";
+    public static final String FORMAT_HLOG = "hlog";
+
+    private static final Pattern RUN_ID = Pattern.compile("[0-9a-fA-F-]{36}");
+    // Capture directories are named {start}-{runId}, so they sort by start time; the run ID keeps them unique
+    private static final Pattern CAPTURE_DIR = Pattern.compile("\\d{8}T\\d{9}-[0-9a-fA-F-]{36}");
+    private static final DateTimeFormatter CAPTURE_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS").withZone(ZoneOffset.UTC);
+    private static final String[] OUTCOMES = {"OK", "BLOCKED", "ERROR"};
+    private static final int READ_BUFFER_BYTES = 16 * 1024;
+
+    private final BenchmarkProperties properties;
+    private final ObjectMapper objectMapper;
+    // Run IDs of captures still being written or exported; eviction leaves them alone
+    private final Map<String, Integer> busyCaptures = new ConcurrentHashMap<>();
+    // Start stamps only move forward, so captures started in the same millisecond still sort in order
+    private final AtomicLong lastStartMillis = new AtomicLong();
+
+    public static boolean isValidCapture(String capture) {
+        return capture == null || CAPTURE_NONE.equalsIgnoreCase(capture)
+                || CAPTURE_INTERVALS.equalsIgnoreCase(capture) || CAPTURE_SAMPLES.equalsIgnoreCase(capture);
+    }
+
+    public static boolean isCapturing(String capture) {
+        return capture != null && !CAPTURE_NONE.equalsIgnoreCase(capture);
+    }
+
+    /**
+     * Opens the spill files for a new run, evicting the oldest captures beyond the limit.
+     */
+    public SampleCapture startCapture(String runId, String capture) throws IOException {
+        if (!isRunId(runId)) {
+            throw new IllegalArgumentException("Invalid run ID: " + runId);
+        }
+        Path root = root();
+        Files.createDirectories(root);
+        acquire(runId);
+        try {
+            evictOldCaptures(root);
+            Path directory = root.resolve(nextStartStamp() + "-" + runId);
+            return new SampleCapture(directory, CAPTURE_SAMPLES.equalsIgnoreCase(capture),
+                    properties.getExport().getIntervalMs(), () -> release(runId));
+        } catch (IOException | RuntimeException e) {
+            release(runId);
+            throw e;
+        }
+    }
+
+    public boolean hasCapture(String runId) {
+        return isRunId(runId) && findCapture(runId) != null;
+    }
+
+    /**
+     * Operations of the run that have raw samples, in the order they were measured.
+     */
+    public List<String> listSampleOperations(String runId) throws IOException {
+        Path samples = captureDir(runId).resolve(SampleCapture.SAMPLES_DIR);
+        if (!Files.isDirectory(samples)) {
+            return List.of();
+        }
+        try (Stream<Path> dirs = Files.list(samples)) {
+            return dirs.filter(Files::isDirectory)
+                    .sorted(Comparator.comparing(this::lastModified))
+                    .map(dir -> dir.getFileName().toString())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    public void deleteCapture(String runId) {
+        Path dir = isRunId(runId) ? findCapture(runId) : null;
+        if (dir != null) {
+            deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * Checks the export parameters before the response is committed, so errors can still become a 400.
+     */
+    public void validateExport(String runId, String data, String format) {
+        if (!hasCapture(runId)) {
+            throw new IllegalArgumentException("No capture for run " + runId);
+        }
+        if (DATA_SAMPLES.equals(data)) {
+            if (!FORMAT_CSV.equals(format) && !FORMAT_JSONL.equals(format)) {
+                throw new IllegalArgumentException("Samples can be exported as csv or jsonl");
+            }
+        } else if (DATA_INTERVALS.equals(data)) {
+            if (!FORMAT_CSV.equals(format) && !FORMAT_JSONL.equals(format) && !FORMAT_HLOG.equals(format)) {
+                throw new IllegalArgumentException("Intervals can be exported as csv, jsonl or hlog");
+            }
+        } else {
+            throw new IllegalArgumentException("data must be samples or intervals");
+        }
+    }
+
+    public void export(String runId, String data, String format, String operation, OutputStream out)
+            throws IOException {
+        acquire(runId);
+        try {
+            if (DATA_SAMPLES.equals(data)) {
+                exportSamples(runId, format, operation, out);
+            } else if (FORMAT_HLOG.equals(format)) {
+                exportIntervalLog(runId, operation, out);
+            } else {
+                exportIntervals(runId, format, operation, out);
+            }
+        } finally {
+            release(runId);
+        }
+    }
+
+    /**
+     * Raw samples ordered by completion time within each operation. Worker files are already
+     * in completion order, so a k-way merge keeps only one record per worker in memory.
+     */
+    private void exportSamples(String runId, String format, String operation, OutputStream out) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("operation,worker,end_offset_ns,latency_ns,corrected_latency_ns,outcome\n");
+        }
+
+        StringBuilder line = new StringBuilder(128);
+        for (String op : listSampleOperations(runId)) {
+            if (operation != null && !SampleCapture.directoryName(operation).equalsIgnoreCase(op)) {
+                continue;
+            }
+            String opField = csv ? op : objectMapper.writeValueAsString(op);
+
+            List<SampleReader> readers = openReaders(captureDir(runId).resolve(SampleCapture.SAMPLES_DIR).resolve(op));
+            PriorityQueue<SampleReader> queue = new PriorityQueue<>(Comparator.comparingLong(r -> r.endOffset));
+            try {
+                for (SampleReader reader : readers) {
+                    if (reader.advance()) {
+                        queue.add(reader);
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    SampleReader next = queue.poll();
+                    line.setLength(0);
+                    if (csv) {
+                        line.append(opField).append(',').append(next.worker).append(',')
+                            .append(next.endOffset).append(',').append(next.latency).append(',')
+                            .append(next.corrected).append(',').append(OUTCOMES[next.outcome]).append('\n');
+                    } else {
+                        line.append("{\"operation\":").append(opField)
+                            .append(",\"worker\":").append(next.worker)
+                            .append(",\"endOffsetNs\":").append(next.endOffset)
+                            .append(",\"latencyNs\":").append(next.latency)
+                            .append(",\"correctedLatencyNs\":").append(next.corrected)
+                            .append(",\"outcome\":\"").append(OUTCOMES[next.outcome]).append("\"}\n");
+                    }
+                    writer.append(line);
+                    if (next.advance()) {
+                        queue.add(next);
+                    }
+                }
+            } finally {
+                for (SampleReader reader : readers) {
+                    reader.close();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private void exportIntervals(String runId, String format, String operation, OutputStream out) throws IOException {
+        boolean csv = FORMAT_CSV.equals(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("operation,start_epoch_ms,end_epoch_ms,count,mean_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns\n");
+        }
+
+        try (InputStream in = Files.newInputStream(intervalLog(runId))) {
+            HistogramLogReader reader = new HistogramLogReader(in);
+            StringBuilder line = new StringBuilder(256);
+            EncodableHistogram encodable;
+            while ((encodable = reader.nextIntervalHistogram()) != null) {
+                if (!(encodable instanceof Histogram interval) || !matchesTag(interval, operation)) {
+                    continue;
+                }
+                line.setLength(0);
+                if (csv) {
+                    line.append(interval.getTag()).append(',')
+                        .append(interval.getStartTimeStamp()).append(',')
+                        .append(interval.getEndTimeStamp()).append(',')
+                        .append(interval.getTotalCount()).append(',')
+                        .append(Math.round(interval.getMean())).append(',')
+                        .append(interval.getValueAtPercentile(50)).append(',')
+                        .append(interval.getValueAtPercentile(90)).append(',')
+                        .append(interval.getValueAtPercentile(99)).append(',')
+                        .append(interval.getValueAtPercentile(99.9)).append(',')
+                        .append(interval.getMaxValue()).append('\n');
+                } else {
+                    line.append("{\"operation\":").append(objectMapper.writeValueAsString(interval.getTag()))
+                        .append(",\"startEpochMs\":").append(interval.getStartTimeStamp())
+                        .append(",\"endEpochMs\":").append(interval.getEndTimeStamp())
+                        .append(",\"count\":").append(interval.getTotalCount())
+                        .append(",\"meanNs\":").append(Math.round(interval.getMean()))
+                        .append(",\"p50Ns\":").append(interval.getValueAtPercentile(50))
+                        .append(",\"p90Ns\":").append(interval.getValueAtPercentile(90))
+                        .append(",\"p99Ns\":").append(interval.getValueAtPercentile(99))
+                        .append(",\"p999Ns\":").append(interval.getValueAtPercentile(99.9))
+                        .append(",\"maxNs\":").append(interval.getMaxValue()).append("}\n");
+                }
+                writer.append(line);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * The interval log as written, or rewritten with only one operation's tagged intervals.
+     */
+    private void exportIntervalLog(String runId, String operation, OutputStream out) throws IOException {
+        if (operation == null) {
+            Files.copy(intervalLog(runId), out);
+            return;
+        }
+
+        try (InputStream in = Files.newInputStream(intervalLog(runId))) {
+            HistogramLogReader reader = new HistogramLogReader(in);
+            HistogramLogWriter writer = null;
+            EncodableHistogram interval;
+            while ((interval = reader.nextIntervalHistogram()) != null) {
+                if (!(interval instanceof Histogram histogram) || !matchesTag(histogram, operation)) {
+                    continue;
+                }
+                if (writer == null) {
+                    // The reader resolves timestamps against the original base time; keep it
+                    long baseTime = (long) (reader.getStartTimeSec() * 1000);
+                    writer = new HistogramLogWriter(out);
+                    writer.setBaseTime(baseTime);
+                    writer.outputBaseTime(baseTime);
+                    writer.outputStartTime(baseTime);
+                    writer.outputLegend();
+                }
+                writer.outputIntervalHistogram(histogram);
+            }
+        }
+        out.flush();
+    }
+
+    private static boolean matchesTag(Histogram interval, String operation) {
+        return operation == null || operation.equalsIgnoreCase(interval.getTag());
+    }
+
+    private List<SampleReader> openReaders(Path dir) throws IOException {
+        List<SampleReader> readers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SampleCapture.WORKER_PREFIX) && name.endsWith(SampleCapture.WORKER_SUFFIX)) {
+                    int worker = Integer.parseInt(name.substring(SampleCapture.WORKER_PREFIX.length(),
+                            name.length() - SampleCapture.WORKER_SUFFIX.length()));
+                    readers.add(new SampleReader(worker, new DataInputStream(
+                            new BufferedInputStream(Files.newInputStream(file), READ_BUFFER_BYTES))));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            readers.forEach(SampleReader::close);
+            throw e;
+        }
+        return readers;
+    }
+
+    private Path intervalLog(String runId) throws IOException {
+        Path log = captureDir(runId).resolve(SampleCapture.INTERVAL_LOG);
+        if (!Files.exists(log)) {
+            throw new IOException("Run " + runId + " has no interval log");
+        }
+        return log;
+    }
+
+    private Path captureDir(String runId) throws IOException {
+        if (!isRunId(runId)) {
+            throw new IllegalArgumentException("Invalid run ID: " + runId);
+        }
+        Path dir = findCapture(runId);
+        if (dir == null) {
+            throw new IOException("No capture for run " + runId);
+        }
+        return dir;
+    }
+
+    private Path findCapture(String runId) {
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return null;
+        }
+        String suffix = "-" + runId;
+        try (Stream<Path> dirs = Files.list(root)) {
+            return dirs.filter(dir -> isCaptureDir(dir) && dir.getFileName().toString().endsWith(suffix))
+                    .findFirst()
+                    .orElse(null);
+        } catch (IOException e) {
+            log.warn("Could not list benchmark captures in {}: {}", root, e.getMessage());
+            return null;
+        }
+    }
+
+    private static boolean isCaptureDir(Path dir) {
+        return CAPTURE_DIR.matcher(dir.getFileName().toString()).matches() && Files.isDirectory(dir);
+    }
+
+    private static String runIdOf(Path captureDir) {
+        String name = captureDir.getFileName().toString();
+        return name.substring(name.length() - 36);
+    }
+
+    private String nextStartStamp() {
+        long now = System.currentTimeMillis();
+        long millis = lastStartMillis.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
+        return CAPTURE_STAMP.format(Instant.ofEpochMilli(millis));
+    }
+
+    private void acquire(String runId) {
+        busyCaptures.merge(runId, 1, Integer::sum);
+    }
+
+    private void release(String runId) {
+        busyCaptures.computeIfPresent(runId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Path root() {
+        return Paths.get(properties.getExport().getDir());
+    }
+
+    private static boolean isRunId(String runId) {
+        return runId != null && RUN_ID.matcher(runId).matches();
+    }
+
+    /**
+     * Deletes the oldest captures beyond the limit, by start time in the directory name. Captures that
+     * are still being written or exported are skipped, so the limit can be exceeded while they last.
+     */
+    private void evictOldCaptures(Path root) throws IOException {
+        List<Path> captures;
+        try (Stream<Path> dirs = Files.list(root)) {
+            captures = dirs.filter(BenchmarkExportService::isCaptureDir)
+                    .sorted(Comparator.comparing(dir -> dir.getFileName().toString()))
+                    .collect(Collectors.toList());
+        }
+        // Make room for the capture about to start
+        int excess = captures.size() - properties.getExport().getMaxCaptures() + 1;
+        for (Path capture : captures) {
+            if (excess <= 0) {
+                break;
+            }
+            if (busyCaptures.containsKey(runIdOf(capture))) {
+                continue;
+            }
+            deleteRecursively(capture);
+            excess--;
+        }
+    }
+
+    private long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Could not delete benchmark capture {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Sequential reader over one worker's sample file, positioned on its current record.
+     */
+    private static final class SampleReader {
+        private final int worker;
+        private final DataInputStream in;
+        private long endOffset;
+        private long latency;
+        private long corrected;
+        private int outcome;
+
+        private SampleReader(int worker, DataInputStream in) {
+            this.worker = worker;
+            this.in = in;
+        }
+
+        private boolean advance() throws IOException {
+            try {
+                endOffset = in.readLong();
+                latency = in.readLong();
+                corrected = in.readLong();
+                outcome = Math.min(in.readByte(), OUTCOMES.length - 1);
+                return true;
+            } catch (EOFException e) {
+                // End of file, or a record cut short by a run that is still writing
+                return false;
+            }
+        }
+
+        private void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.mariatitianu.licenta.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mariatitianu.licenta.config.BenchmarkProperties;
+import com.mariatitianu.licenta.dto.*;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkStatistics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores benchmark runs as JSON files (one per run) under {@code benchmark.history.dir},
+ * together with a fingerprint of the backend that produced them, and compares runs.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BenchmarkHistoryService {
+
+    private static final String BASELINE_FILE = "pinned-baseline";
+    private static final String RUN_SUFFIX = ".json";
+
+    private final BenchmarkProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final BenchmarkExportService exportService;
+
+    private final Map<String, BenchmarkRunRecord> runs = new ConcurrentHashMap<>();
+    private volatile String pinnedBaselineId;
+    private Path directory;
+
+    @PostConstruct
+    public void load() {
+        if (!properties.getHistory().isEnabled()) {
+            return;
+        }
+
+        directory = Paths.get(properties.getHistory().getDir());
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(RUN_SUFFIX)).forEach(file -> {
+                    try {
+                        BenchmarkRunRecord record = objectMapper.readValue(file.toFile(), BenchmarkRunRecord.class);
+                        runs.put(record.getId(), record);
+                    } catch (IOException e) {
+                        log.warn("Skipping unreadable benchmark history file {}: {}", file, e.getMessage());
+                    }
+                });
+            }
+
+            Path baselineFile = directory.resolve(BASELINE_FILE);
+            if (Files.exists(baselineFile)) {
+                String id = Files.readString(baselineFile, StandardCharsets.UTF_8).trim();
+                pinnedBaselineId = runs.containsKey(id) ? id : null;
+            }
+            log.info("Loaded {} benchmark runs from {}", runs.size(), directory.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Benchmark history directory {} is not usable: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the run and sets its ID on the result. Failures are logged and never fail the benchmark.
+     */
+    public Optional<String> record(MultiBenchmarkRequest request, MultiBenchmarkResult result) {
+        if (!properties.getHistory().isEnabled() || directory == null) {
+            return Optional.empty();
+        }
+
+        // Captured runs already have an ID, shared with their export files
+        boolean preassigned = result.getRunId() != null;
+        BenchmarkRunRecord record = new BenchmarkRunRecord();
+        record.setId(preassigned ? result.getRunId() : UUID.randomUUID().toString());
+        record.setCreatedAt(LocalDateTime.now());
+        record.setFingerprint(currentFingerprint());
+        record.setRequest(request);
+        record.setResult(result);
+        result.setRunId(record.getId());
+
+        try {
+            // Write to a temporary file first so a crash never leaves a truncated run behind
+            Path target = directory.resolve(record.getId() + RUN_SUFFIX);
+            Path temp = directory.resolve(record.getId() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), record);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            runs.put(record.getId(), record);
+            evictOldRuns();
+            return Optional.of(record.getId());
+        } catch (IOException e) {
+            log.warn("Could not store benchmark run in history: {}", e.getMessage());
+            if (!preassigned) {
+                result.setRunId(null);
+            }
+            return Optional.empty();
+        }
+    }
+
+    public List<BenchmarkRunSummary> listRuns() {
+        return runs.values().stream()
+                .sorted(Comparator.comparing(BenchmarkRunRecord::getCreatedAt).reversed())
+                .map(this::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    public Optional<BenchmarkRunRecord> getRun(String id) {
+        return Optional.ofNullable(runs.get(id));
+    }
+
+    public boolean deleteRun(String id) {
+        if (runs.remove(id) == null) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(id + RUN_SUFFIX));
+        } catch (IOException e) {
+            log.warn("Could not delete benchmark history file for run {}: {}", id, e.getMessage());
+        }
+        if (id.equals(pinnedBaselineId)) {
+            pinBaseline(null);
+        }
+        exportService.deleteCapture(id);
+        return true;
+    }
+
+    public Optional<BenchmarkRunSummary> getPinnedBaseline() {
+        return Optional.ofNullable(pinnedBaselineId).map(runs::get).map(this::toSummary);
+    }
+
+    public BenchmarkRunSummary pinBaseline(String id) {
+        if (id != null && !runs.containsKey(id)) {
+            throw new IllegalArgumentException("Unknown benchmark run: " + id);
+        }
+        pinnedBaselineId = id;
+        try {
+            Path baselineFile = directory.resolve(BASELINE_FILE);
+            if (id == null) {
+                Files.deleteIfExists(baselineFile);
+            } else {
+                Files.writeString(baselineFile, id, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            log.warn("Could not persist pinned benchmark baseline: {}", e.getMessage());
+        }
+        return id != null ? toSummary(runs.get(id)) : null;
+    }
+
+    /**
+     * Compares the candidate against the pinned baseline.
+     */
+    public RunComparison checkRegressions(String candidateId, double confidenceLevel) {
+        if (pinnedBaselineId == null) {
+            throw new IllegalStateException("No baseline run is pinned");
+        }
+        return compare(pinnedBaselineId, candidateId, confidenceLevel);
+    }
+
+    /**
+     * Compares two runs operation by operation. Mean latencies are compared with Welch's t-test,
+     * using each run's sample count and standard deviation; a change is a regression when it is
+     * significant, the candidate is slower and the change exceeds the configured threshold.
+     */
+    public RunComparison compare(String baselineId, String candidateId, double confidenceLevel) {
+        BenchmarkRunRecord baseline = requireRun(baselineId);
+        BenchmarkRunRecord candidate = requireRun(candidateId);
+        if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+            throw new IllegalArgumentException("confidenceLevel must be between 0 and 1");
+        }
+        double threshold = properties.getHistory().getRegressionThresholdPercent();
+
+        RunComparison comparison = new RunComparison();
+        comparison.setBaselineRunId(baselineId);
+        comparison.setCandidateRunId(candidateId);
+        comparison.setConfidenceLevel(confidenceLevel);
+        comparison.setRegressionThresholdPercent(threshold);
+        comparison.setFingerprintDifferences(fingerprintDifferences(baseline.getFingerprint(), candidate.getFingerprint()));
+        comparison.setFingerprintMatches(comparison.getFingerprintDifferences().isEmpty());
+
+        List<RunComparison.OperationDelta> deltas = new ArrayList<>();
+        Map<String, MultiBenchmarkResult.OperationResult> baselineOps = operationResults(baseline);
+        Map<String, MultiBenchmarkResult.OperationResult> candidateOps = operationResults(candidate);
+
+        for (String operation : new TreeSet<>(baselineOps.keySet())) {
+            MultiBenchmarkResult.OperationResult before = baselineOps.get(operation);
+            MultiBenchmarkResult.OperationResult after = candidateOps.get(operation);
+            if (after == null || before.getSuccessCount() < 2 || after.getSuccessCount() < 2) {
+                continue;
+            }
+
+            RunComparison.OperationDelta delta = new RunComparison.OperationDelta();
+            delta.setOperation(operation);
+            delta.setBaselineAvgMs(before.getAvgTimeMs());
+            delta.setCandidateAvgMs(after.getAvgTimeMs());
+            delta.setChangePercent(percentChange(before.getAvgTimeMs(), after.getAvgTimeMs()));
+            delta.setBaselineP99Ms(before.getP99TimeMs());
+            delta.setCandidateP99Ms(after.getP99TimeMs());
+            delta.setP99ChangePercent(percentChange(before.getP99TimeMs(), after.getP99TimeMs()));
+
+            double t = BenchmarkStatistics.welchT(before.getAvgTimeMs(), before.getStdDevTimeMs(), before.getSuccessCount(),
+                    after.getAvgTimeMs(), after.getStdDevTimeMs(), after.getSuccessCount());
+            double df = BenchmarkStatistics.welchDegreesOfFreedom(before.getStdDevTimeMs(), before.getSuccessCount(),
+                    after.getStdDevTimeMs(), after.getSuccessCount());
+            double critical = BenchmarkStatistics.tQuantile(1 - (1 - confidenceLevel) / 2, df);
+            delta.setTStatistic(t);
+            delta.setDegreesOfFreedom(df);
+            delta.setSignificant(Math.abs(t) > critical);
+            delta.setRegression(delta.isSignificant() && delta.getChangePercent() > threshold);
+            delta.setImprovement(delta.isSignificant() && delta.getChangePercent() < -threshold);
+            deltas.add(delta);
+        }
+
+        comparison.setDeltas(deltas);
+        comparison.setRegression(deltas.stream().anyMatch(RunComparison.OperationDelta::isRegression));
+        return comparison;
+    }
+
+    /**
+     * Latency of one operation across stored runs, oldest first. Filters match the fingerprint;
+     * null filters match everything.
+     */
+    public List<TrendPoint> trend(String operation, String profile, String databaseUser, String databaseName) {
+        return runs.values().stream()
+                .filter(run -> matches(profile, run.getFingerprint().getProfile()))
+                .filter(run -> matches(databaseUser, run.getFingerprint().getDatabaseUser()))
+                .filter(run -> matches(databaseName, run.getFingerprint().getDatabaseName()))
+                .filter(run -> operationResults(run).containsKey(operation))
+                .sorted(Comparator.comparing(BenchmarkRunRecord::getCreatedAt))
+                .map(run -> {
+                    MultiBenchmarkResult.OperationResult op = operationResults(run).get(operation);
+                    TrendPoint point = new TrendPoint();
+                    point.setRunId(run.getId());
+                    point.setCreatedAt(run.getCreatedAt());
+                    point.setCommit(run.getFingerprint().getCommit());
+                    point.setAvgTimeMs(op.getAvgTimeMs());
+                    point.setP50TimeMs(op.getP50TimeMs());
+                    point.setP99TimeMs(op.getP99TimeMs());
+                    point.setOpsPerSecond(op.getOpsPerSecond());
+                    point.setBaseline(run.getId().equals(pinnedBaselineId));
+                    return point;
+                })
+                .collect(Collectors.toList());
+    }
+
+    public BenchmarkFingerprint currentFingerprint() {
+        BenchmarkFingerprint fingerprint = new BenchmarkFingerprint();
+        fingerprint.setProfile(String.join(",", environment.getActiveProfiles()));
+        fingerprint.setDatabaseUser(environment.getProperty("spring.datasource.username"));
+        fingerprint.setDatabaseName(databaseName(environment.getProperty("spring.datasource.url")));
+        fingerprint.setServerPort(environment.getProperty("server.port"));
+        fingerprint.setCommit(properties.getCommit());
+        fingerprint.setJavaVersion(Runtime.version().toString());
+        try {
+            fingerprint.setHost(InetAddress.getLocalHost().getHostName());
+        } catch (IOException e) {
+            fingerprint.setHost("unknown");
+        }
+        return fingerprint;
+    }
+
+    private BenchmarkRunRecord requireRun(String id) {
+        BenchmarkRunRecord run = runs.get(id);
+        if (run == null) {
+            throw new IllegalArgumentException("Unknown benchmark run: " + id);
+        }
+        return run;
+    }
+
+    private Map<String, MultiBenchmarkResult.OperationResult> operationResults(BenchmarkRunRecord run) {
+        if (run.getResult() == null || run.getResult().getOperationResults() == null) {
+            return Map.of();
+        }
+        return run.getResult().getOperationResults();
+    }
+
+    private BenchmarkRunSummary toSummary(BenchmarkRunRecord run) {
+        BenchmarkRunSummary summary = new BenchmarkRunSummary();
+        summary.setId(run.getId());
+        summary.setCreatedAt(run.getCreatedAt());
+        summary.setFingerprint(run.getFingerprint());
+        summary.setOperations(new ArrayList<>(operationResults(run).keySet()));
+        if (run.getRequest() != null) {
+            summary.setIterations(run.getRequest().getIterations());
+            summary.setClients(run.getRequest().getClients());
+        }
+        if (run.getResult() != null) {
+            summary.setTotalTimeMs(run.getResult().getTotalTimeMs());
+        }
+        summary.setBaseline(run.getId().equals(pinnedBaselineId));
+        return summary;
+    }
+
+    private List<String> fingerprintDifferences(BenchmarkFingerprint a, BenchmarkFingerprint b) {
+        List<String> differences = new ArrayList<>();
+        addDifference(differences, "profile", a.getProfile(), b.getProfile());
+        addDifference(differences, "databaseUser", a.getDatabaseUser(), b.getDatabaseUser());
+        addDifference(differences, "databaseName", a.getDatabaseName(), b.getDatabaseName());
+        addDifference(differences, "serverPort", a.getServerPort(), b.getServerPort());
+        addDifference(differences, "commit", a.getCommit(), b.getCommit());
+        addDifference(differences, "javaVersion", a.getJavaVersion(), b.getJavaVersion());
+        return differences;
+    }
+
+    private void addDifference(List<String> differences, String field, String before, String after) {
+        if (!Objects.equals(before, after)) {
+            differences.add(field + ": " + before + " -> " + after);
+        }
+    }
+
+    private void evictOldRuns() {
+        int excess = runs.size() - properties.getHistory().getMaxRuns();
+        if (excess <= 0) {
+            return;
+        }
+        runs.values().stream()
+                .filter(run -> !run.getId().equals(pinnedBaselineId))
+                .sorted(Comparator.comparing(BenchmarkRunRecord::getCreatedAt))
+                .limit(excess)
+                .map(BenchmarkRunRecord::getId)
+                .collect(Collectors.toList())
+                .forEach(this::deleteRun);
+    }
+
+    private static boolean matches(String filter, String value) {
+        return filter == null || filter.isBlank() || filter.equals(value);
+    }
+
+    private static double percentChange(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100.0;
+    }
+
+    private static String databaseName(String url) {
+        if (url == null) {
+            return null;
+        }
+        String path = url.substring(url.lastIndexOf('/') + 1);
+        int query = path.indexOf('?');
+        return query >= 0 ? path.substring(0, query) : path;
+    }
+}
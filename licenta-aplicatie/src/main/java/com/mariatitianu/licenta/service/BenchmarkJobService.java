@@ -0,0 +1,312 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.dto.BenchmarkJobInfo;
+import com.mariatitianu.licenta.dto.BenchmarkProgressSnapshot;
+import com.mariatitianu.licenta.dto.ComparisonRequest;
+import com.mariatitianu.licenta.dto.FleetRequest;
+import com.mariatitianu.licenta.dto.MultiBenchmarkRequest;
+import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkJob;
+import com.mariatitianu.licenta.service.benchmark.LatencyHistograms;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs benchmarks as background jobs on a dedicated executor and streams
+ * once-per-second progress snapshots to SSE subscribers. Fleet benchmarks and overhead
+ * comparisons run as jobs too: they can take as long as every backend's or target's benchmark
+ * together.
+ */
+@Service
+@Slf4j
+public class BenchmarkJobService {
+
+    private static final int MAX_RETAINED_JOBS = 50;
+    private static final int MAX_SNAPSHOTS_PER_JOB = 3600;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.HOURS.toMillis(6);
+
+    private final BenchmarkService benchmarkService;
+    private final BenchmarkHistoryService historyService;
+    private final FleetBenchmarkService fleetBenchmarkService;
+    private final OverheadComparisonService overheadComparisonService;
+    private final ExecutorService jobExecutor;
+    private final ScheduledExecutorService progressTicker;
+    private final Map<String, BenchmarkJob> jobs = new ConcurrentHashMap<>();
+
+    public BenchmarkJobService(BenchmarkService benchmarkService,
+                               BenchmarkHistoryService historyService,
+                               FleetBenchmarkService fleetBenchmarkService,
+                               OverheadComparisonService overheadComparisonService,
+                               @Value("${benchmark.jobs.concurrency:1}") int concurrency) {
+        this.benchmarkService = benchmarkService;
+        this.historyService = historyService;
+        this.fleetBenchmarkService = fleetBenchmarkService;
+        this.overheadComparisonService = overheadComparisonService;
+
+        // Jobs run one at a time by default so concurrent runs do not distort each other
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.jobExecutor = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-job-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.progressTicker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.progressTicker.scheduleAtFixedRate(this::publishProgress,
+                PROGRESS_INTERVAL_MS, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public BenchmarkJobInfo submit(MultiBenchmarkRequest request) {
+        benchmarkService.validateRequest(request);
+
+        BenchmarkJob job = new BenchmarkJob(UUID.randomUUID().toString(), request, MAX_SNAPSHOTS_PER_JOB);
+        jobs.put(job.getId(), job);
+        evictOldJobs();
+
+        job.setFuture(jobExecutor.submit(() -> run(job)));
+        log.info("Submitted benchmark job {}: operations={}", job.getId(), request.getOperations());
+        return job.toInfo(false);
+    }
+
+    public BenchmarkJobInfo submitFleet(FleetRequest request) {
+        fleetBenchmarkService.validate(request);
+
+        BenchmarkJob job = new BenchmarkJob(UUID.randomUUID().toString(), request, MAX_SNAPSHOTS_PER_JOB);
+        jobs.put(job.getId(), job);
+        evictOldJobs();
+
+        job.setFuture(jobExecutor.submit(() -> run(job)));
+        log.info("Submitted fleet benchmark job {}: backends={}, mode={}", job.getId(),
+                request.getBackends() != null ? request.getBackends() : "configured", request.getMode());
+        return job.toInfo(false);
+    }
+
+    public BenchmarkJobInfo submitComparison(ComparisonRequest request) {
+        overheadComparisonService.validateRequest(request);
+
+        BenchmarkJob job = new BenchmarkJob(UUID.randomUUID().toString(), request, MAX_SNAPSHOTS_PER_JOB);
+        jobs.put(job.getId(), job);
+        evictOldJobs();
+
+        job.setFuture(jobExecutor.submit(() -> run(job)));
+        log.info("Submitted overhead comparison job {}: targets={}, operations={}", job.getId(),
+                request.getTargets() != null ? request.getTargets() : "configured", request.getOperations());
+        return job.toInfo(false);
+    }
+
+    public List<BenchmarkJobInfo> listJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing(BenchmarkJob::getSubmittedAt).reversed())
+                .map(job -> job.toInfo(false))
+                .collect(Collectors.toList());
+    }
+
+    public Optional<BenchmarkJobInfo> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(job -> job.toInfo(true));
+    }
+
+    public Optional<BenchmarkJobInfo> cancel(String jobId) {
+        BenchmarkJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        // Workers stop at their next iteration; the job thread is not interrupted so
+        // table protection can still be restored on the way out
+        job.getContext().cancel();
+        if (job.getFuture() != null && job.getFuture().cancel(false)) {
+            finish(job, BenchmarkJob.CANCELLED, null);
+        }
+        log.info("Cancellation requested for benchmark job {}", jobId);
+        return Optional.of(job.toInfo(false));
+    }
+
+    /**
+     * Opens an SSE stream for the job. The retained snapshot history is replayed first;
+     * finished jobs receive their final state and the stream is closed.
+     */
+    public Optional<SseEmitter> subscribe(String jobId) {
+        BenchmarkJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        emitter.onCompletion(() -> job.getEmitters().remove(emitter));
+        emitter.onTimeout(() -> job.getEmitters().remove(emitter));
+        emitter.onError(e -> job.getEmitters().remove(emitter));
+
+        synchronized (job) {
+            try {
+                for (BenchmarkProgressSnapshot snapshot : job.getSnapshotHistory()) {
+                    emitter.send(SseEmitter.event().name("progress").data(snapshot));
+                }
+                if (job.isFinished()) {
+                    emitter.send(SseEmitter.event().name("result").data(job.toInfo(true)));
+                    emitter.complete();
+                } else {
+                    emitter.send(SseEmitter.event().name("status").data(job.toInfo(false)));
+                    job.getEmitters().add(emitter);
+                }
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return Optional.of(emitter);
+    }
+
+    private void run(BenchmarkJob job) {
+        if (job.getContext().isCancelled()) {
+            finish(job, BenchmarkJob.CANCELLED, null);
+            return;
+        }
+
+        long now = System.nanoTime();
+        job.setStartNanos(now);
+        job.setLastTickNanos(now);
+        job.setStartedAt(LocalDateTime.now());
+        job.setStatus(BenchmarkJob.RUNNING);
+        broadcast(job, "status", job.toInfo(false));
+
+        try {
+            if (job.isFleet()) {
+                // Every backend records its own run in its history
+                job.setFleetResult(fleetBenchmarkService.run(job.getFleetRequest(), job.getContext()));
+                finish(job, job.getContext().isCancelled() ? BenchmarkJob.CANCELLED : BenchmarkJob.COMPLETED, null);
+                return;
+            }
+            if (job.isComparison()) {
+                job.setComparisonResult(overheadComparisonService.compare(job.getComparisonRequest(), job.getContext()));
+                finish(job, job.getContext().isCancelled() ? BenchmarkJob.CANCELLED : BenchmarkJob.COMPLETED, null);
+                return;
+            }
+            MultiBenchmarkResult result = benchmarkService.runMultiBenchmark(job.getRequest(), job.getContext());
+            // Cancelled runs are partial and would skew the history
+            if (!job.getContext().isCancelled()) {
+                historyService.record(job.getRequest(), result);
+            }
+            job.setResult(result);
+            tick(job);
+            finish(job, job.getContext().isCancelled() ? BenchmarkJob.CANCELLED : BenchmarkJob.COMPLETED, null);
+        } catch (Exception e) {
+            log.error("Benchmark job {} failed", job.getId(), e);
+            finish(job, BenchmarkJob.FAILED, e.getMessage());
+        }
+    }
+
+    private void finish(BenchmarkJob job, String status, String error) {
+        synchronized (job) {
+            if (job.isFinished()) {
+                return;
+            }
+            job.setError(error);
+            job.setFinishedAt(LocalDateTime.now());
+            job.setStatus(status);
+
+            BenchmarkJobInfo info = job.toInfo(true);
+            for (SseEmitter emitter : job.getEmitters()) {
+                try {
+                    emitter.send(SseEmitter.event().name("result").data(info));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+            job.getEmitters().clear();
+        }
+        log.info("Benchmark job {} finished with status {}", job.getId(), status);
+    }
+
+    private void publishProgress() {
+        for (BenchmarkJob job : jobs.values()) {
+            // Fleet jobs measure on other backends and comparisons on their own connections,
+            // so neither has anything to sample here
+            if (BenchmarkJob.RUNNING.equals(job.getStatus()) && !job.isFleet() && !job.isComparison()) {
+                try {
+                    tick(job);
+                } catch (Exception e) {
+                    // Never let one job break the ticker for the others
+                    log.warn("Failed to publish progress for benchmark job {}: {}", job.getId(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes the current interval and publishes it as a snapshot.
+     */
+    private void tick(BenchmarkJob job) {
+        long now = System.nanoTime();
+        Histogram interval = job.getContext().drainInterval();
+        long failures = job.getContext().getFailureCount();
+        long intervalNanos = Math.max(1, now - job.getLastTickNanos());
+
+        BenchmarkProgressSnapshot snapshot = new BenchmarkProgressSnapshot();
+        snapshot.setJobId(job.getId());
+        snapshot.setOperation(job.getContext().getCurrentOperation());
+        snapshot.setElapsedMs(LatencyHistograms.toMs(now - job.getStartNanos()));
+        snapshot.setIntervalMs(LatencyHistograms.toMs(intervalNanos));
+        snapshot.setIntervalOperations(interval.getTotalCount());
+        snapshot.setIntervalFailures(failures - job.getLastFailureCount());
+        snapshot.setOpsPerSecond(interval.getTotalCount() * 1_000_000_000.0 / intervalNanos);
+        if (interval.getTotalCount() > 0) {
+            snapshot.setP50TimeMs(LatencyHistograms.toMs(interval.getValueAtPercentile(50)));
+            snapshot.setP95TimeMs(LatencyHistograms.toMs(interval.getValueAtPercentile(95)));
+            snapshot.setP99TimeMs(LatencyHistograms.toMs(interval.getValueAtPercentile(99)));
+            snapshot.setMaxTimeMs(LatencyHistograms.toMs(interval.getMaxValue()));
+        }
+
+        job.setLastTickNanos(now);
+        job.setLastFailureCount(failures);
+        job.addSnapshot(snapshot);
+        broadcast(job, "progress", snapshot);
+    }
+
+    private void broadcast(BenchmarkJob job, String eventName, Object data) {
+        for (SseEmitter emitter : job.getEmitters()) {
+            try {
+                emitter.send(SseEmitter.event().name(eventName).data(data));
+            } catch (IOException | IllegalStateException e) {
+                job.getEmitters().remove(emitter);
+                log.debug("Dropped SSE subscriber of benchmark job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void evictOldJobs() {
+        if (jobs.size() <= MAX_RETAINED_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(BenchmarkJob::isFinished)
+                .sorted(Comparator.comparing(BenchmarkJob::getSubmittedAt))
+                .limit(jobs.size() - MAX_RETAINED_JOBS)
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobs.values().forEach(job -> job.getContext().cancel());
+        progressTicker.shutdownNow();
+        jobExecutor.shutdown();
+    }
+}
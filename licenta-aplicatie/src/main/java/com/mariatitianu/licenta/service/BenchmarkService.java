@@ -1,70 +1,217 @@
 package com.mariatitianu.licenta.service;
 
+import com.mariatitianu.licenta.config.BenchmarkProperties;
 import com.mariatitianu.licenta.dto.MultiBenchmarkRequest;
 import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
 import com.mariatitianu.licenta.entity.Product;
+import com.mariatitianu.licenta.repository.BulkWriteResult;
+import com.mariatitianu.licenta.repository.PaymentRepository;
+import com.mariatitianu.licenta.repository.PaymentSummary;
+import com.mariatitianu.licenta.repository.ProductBulkRepository;
 import com.mariatitianu.licenta.repository.ProductRepository;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkRunContext;
+import com.mariatitianu.licenta.service.benchmark.BlockedStatementProbe;
+import com.mariatitianu.licenta.service.benchmark.JdbcPhaseTimer;
+import com.mariatitianu.licenta.service.benchmark.JvmActivity;
+import com.mariatitianu.licenta.service.benchmark.LatencyHistograms;
+import com.mariatitianu.licenta.service.benchmark.PaymentWindowGenerator;
+import com.mariatitianu.licenta.service.benchmark.ProtectionLeases;
+import com.mariatitianu.licenta.service.benchmark.SampleCapture;
+import com.mariatitianu.licenta.service.benchmark.SteadyStateDetector;
+import com.mariatitianu.licenta.service.benchmark.WardenErrors;
+import com.mariatitianu.licenta.service.benchmark.WorkloadMix;
+import com.mariatitianu.licenta.service.benchmark.ZipfianGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class BenchmarkService {
-    
+
     private final ProductRepository productRepository;
+    private final ProductBulkRepository productBulkRepository;
+    private final PaymentRepository paymentRepository;
     private final ProtectionService protectionService;
-    
-    // Warm-up iterations to stabilize JVM performance
-    private static final int WARMUP_ITERATIONS = 100;
-    
+    private final ProtectionLeases protectionLeases;
+    private final BlockedStatementProbe blockedStatementProbe;
+    private final BenchmarkProperties benchmarkProperties;
+    private final BenchmarkExportService benchmarkExportService;
+
+    // Smallest sliding window the warm-up detector compares; with fewer samples per window
+    // the medians are too noisy and the warm-up reports steady state as not detectable
+    private static final int MIN_WARMUP_WINDOW = 5;
+
+    // Upper bound on concurrent workers per operation
+    private static final int MAX_CLIENTS = 512;
+
+    // Returned by a timed operation that had nothing to do (e.g. random ID not found)
+    private static final long SKIPPED = -1;
+
+    // Upper bound on the open-loop arrival rate, in operations per second
+    private static final double MAX_TARGET_RATE = 1_000_000;
+
+    // Below this distance from the scheduled start workers spin instead of parking
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    // Multi-row VALUES binds 5 parameters per row and PostgreSQL allows at most 65535
+    private static final int MAX_BATCH_SIZE = 10_000;
+
+    // Rows written by the bulk benchmarks, removed by category afterwards
+    private static final String BULK_CATEGORY = "BulkBenchmark";
+    private static final String BULK_SEED_CATEGORY = "BulkBenchmarkSeed";
+
+    // Warm-up budget for bulk operations, in rows
+    private static final int BULK_WARMUP_ROWS = 50_000;
+
+    // Longest payment window, in days
+    private static final int MAX_PAYMENT_WINDOW_DAYS = 3650;
+
+    private static final Set<String> PRODUCT_MODIFYING_OPERATIONS = Set.of(
+            "UPDATE", "DELETE", "BATCH_INSERT", "BATCH_UPDATE", "BATCH_DELETE", "MULTIROW_INSERT", "COPY_INSERT");
+
     public MultiBenchmarkResult runMultiBenchmark(MultiBenchmarkRequest request) {
+        return runMultiBenchmark(request, new BenchmarkRunContext());
+    }
+
+    /**
+     * Runs the benchmark, reporting every sample to the context and stopping early once it is cancelled.
+     */
+    public MultiBenchmarkResult runMultiBenchmark(MultiBenchmarkRequest request, BenchmarkRunContext context) {
+        validateRequest(request);
+
         MultiBenchmarkResult result = new MultiBenchmarkResult();
         result.setTotalIterations(request.getIterations());
-        
-        Map<String, MultiBenchmarkResult.OperationResult> operationResults = new HashMap<>();
-        long totalStartTime = System.nanoTime();
-        
-        // Only unprotect products table if UPDATE or DELETE operations are included
-        boolean needsUnprotection = request.getOperations().stream()
-            .anyMatch(op -> op.equalsIgnoreCase("UPDATE") || op.equalsIgnoreCase("DELETE"));
-        
-        boolean wasProtected = false;
-        if (needsUnprotection) {
+
+        // Captured runs get their ID up front so the spill files and the history entry share it
+        if (BenchmarkExportService.isCapturing(request.getCapture())) {
+            result.setRunId(UUID.randomUUID().toString());
             try {
+                context.setCapture(benchmarkExportService.startCapture(result.getRunId(), request.getCapture()));
+            } catch (IOException e) {
+                log.warn("Could not start sample capture, running without it: {}", e.getMessage());
+            }
+        }
+        boolean productsHeld = unprotectProducts(request);
+        try {
+            runOperations(request, context, result);
+        } finally {
+            if (productsHeld) {
+                // Restore protection status if we unprotected the table
+                protectionLeases.release(null, "products", () -> {
+                    protectionService.protectTable("products");
+                    log.info("Restored protection on products table after benchmarking");
+                    return true;
+                });
+            }
+            SampleCapture capture = context.getCapture();
+            if (capture != null) {
+                capture.close();
+                context.setCapture(null);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Unprotects products for runs that modify it, sharing the table with concurrent runs: the
+     * last one to finish protects it again. Returns whether the caller holds it and must release it.
+     */
+    private boolean unprotectProducts(MultiBenchmarkRequest request) {
+        List<String> operations = request.getOperations() != null ? request.getOperations() : List.of();
+        WorkloadMix workload = request.getWorkload() != null ? WorkloadMix.from(request.getWorkload()) : null;
+
+        // Only unprotect products table if UPDATE or DELETE operations are included
+        // (bulk inserts count too, they clean up with a DELETE)
+        boolean needsUnprotection = operations.stream()
+            .anyMatch(op -> PRODUCT_MODIFYING_OPERATIONS.contains(op.toUpperCase()))
+            || (workload != null && workload.modifiesRows());
+        if (!needsUnprotection) {
+            return false;
+        }
+
+        try {
+            protectionLeases.acquire(null, "products", false, () -> {
                 // Check if table was protected before unprotecting
-                wasProtected = protectionService.isTableProtected("products");
-                if (wasProtected) {
-                    protectionService.unprotectTable("products");
-                    log.info("Temporarily unprotected products table for UPDATE/DELETE benchmarks");
+                if (!protectionService.isTableProtected("products")) {
+                    return false;
                 }
-            } catch (Exception e) {
-                log.warn("Could not check/unprotect products table - might be vanilla PostgreSQL: {}", e.getMessage());
-            }
+                protectionService.unprotectTable("products");
+                log.info("Temporarily unprotected products table for UPDATE/DELETE benchmarks");
+                return true;
+            });
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not check/unprotect products table - might be vanilla PostgreSQL: {}", e.getMessage());
+            return false;
         }
-        
-        for (String operation : request.getOperations()) {
+    }
+
+    private void runOperations(MultiBenchmarkRequest request, BenchmarkRunContext context,
+                               MultiBenchmarkResult result) {
+
+        Map<String, MultiBenchmarkResult.OperationResult> operationResults = new HashMap<>();
+        long totalStartTime = System.nanoTime();
+
+        List<String> operations = request.getOperations() != null ? request.getOperations() : List.of();
+        WorkloadMix workload = request.getWorkload() != null ? WorkloadMix.from(request.getWorkload()) : null;
+
+        for (String operation : operations) {
+            if (context.isCancelled()) {
+                break;
+            }
+            context.setCurrentOperation(operation);
             MultiBenchmarkResult.OperationResult opResult = null;
-            
+
             try {
                 switch (operation.toUpperCase()) {
                     case "SELECT":
-                        opResult = benchmarkSelect(request.getIterations());
+                        opResult = benchmarkSelect(request, context);
                         break;
                     case "INSERT":
-                        opResult = benchmarkInsert(request.getIterations());
+                        opResult = benchmarkInsert(request, context);
                         break;
                     case "UPDATE":
-                        opResult = benchmarkUpdate(request.getIterations());
+                        opResult = benchmarkUpdate(request, context);
                         break;
                     case "DELETE":
-                        opResult = benchmarkDelete(request.getIterations());
+                        opResult = benchmarkDelete(request, context);
+                        break;
+                    case "BATCH_INSERT":
+                    case "BATCH_UPDATE":
+                    case "BATCH_DELETE":
+                    case "MULTIROW_INSERT":
+                    case "COPY_INSERT":
+                        opResult = benchmarkBulk(operation.toUpperCase(), request, context);
+                        break;
+                    case "PAYMENT_LOOKUP":
+                        opResult = benchmarkPaymentLookup(request, context);
+                        break;
+                    case "PAYMENT_RANGE_SCAN":
+                    case "PAYMENT_AGGREGATE":
+                        opResult = benchmarkPaymentScan(operation.toUpperCase(), request, context);
+                        break;
+                    case "BLOCKED_UPDATE":
+                    case "BLOCKED_DELETE":
+                    case "BLOCKED_ALTER":
+                    case "BLOCKED_DROP":
+                    case "BLOCKED_PAYMENT_UPDATE":
+                    case "BLOCKED_PAYMENT_DELETE":
+                        opResult = benchmarkBlocked(operation.toUpperCase(), request, context);
                         break;
                     default:
                         opResult = new MultiBenchmarkResult.OperationResult();
@@ -75,392 +222,1179 @@ public class BenchmarkService {
                 opResult.setError("Failed to run " + operation + ": " + e.getMessage());
                 log.error("Benchmark failed for operation: " + operation, e);
             }
-            
+
             if (opResult != null) {
                 operationResults.put(operation, opResult);
             }
         }
-        
-        result.setTotalTimeMs((double)(System.nanoTime() - totalStartTime) / 1_000_000.0);
-        result.setOperationResults(operationResults);
-        
-        // Restore protection status if we unprotected the table
-        if (needsUnprotection && wasProtected) {
+
+        if (workload != null && !context.isCancelled()) {
+            context.setCurrentOperation(workload.getName());
+            MultiBenchmarkResult.OperationResult opResult;
             try {
-                protectionService.protectTable("products");
-                log.info("Restored protection on products table after benchmarking");
+                opResult = benchmarkWorkload(request, workload, context);
             } catch (Exception e) {
-                log.warn("Could not restore protection on products table: {}", e.getMessage());
+                opResult = new MultiBenchmarkResult.OperationResult();
+                opResult.setError("Failed to run workload " + workload.getName() + ": " + e.getMessage());
+                log.error("Benchmark failed for workload: " + workload.getName(), e);
             }
+            operationResults.put(workload.getName(), opResult);
         }
-        
-        return result;
+
+        result.setTotalTimeMs((double)(System.nanoTime() - totalStartTime) / 1_000_000.0);
+        result.setOperationResults(operationResults);
     }
-    
-    private MultiBenchmarkResult.OperationResult benchmarkSelect(int iterations) {
-        MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
-        result.setIterations(iterations);
-        
+
+    void validateRequest(MultiBenchmarkRequest request) {
+        if ((request.getOperations() == null || request.getOperations().isEmpty()) && request.getWorkload() == null) {
+            throw new IllegalArgumentException("At least one operation or a workload is required");
+        }
+        if (request.getWorkload() != null) {
+            WorkloadMix.from(request.getWorkload());
+        }
+        if (request.getClients() < 1 || request.getClients() > MAX_CLIENTS) {
+            throw new IllegalArgumentException("clients must be between 1 and " + MAX_CLIENTS);
+        }
+        if (request.getDurationSeconds() != null) {
+            if (request.getDurationSeconds() <= 0) {
+                throw new IllegalArgumentException("durationSeconds must be positive");
+            }
+        } else if (request.getIterations() <= 0) {
+            throw new IllegalArgumentException("iterations must be positive");
+        }
+        if (request.getThreadModel() != null
+                && !request.getThreadModel().equalsIgnoreCase("PLATFORM")
+                && !request.getThreadModel().equalsIgnoreCase("VIRTUAL")) {
+            throw new IllegalArgumentException("Unknown thread model: " + request.getThreadModel());
+        }
+        if (!BenchmarkExportService.isValidCapture(request.getCapture())) {
+            throw new IllegalArgumentException("capture must be NONE, INTERVALS or SAMPLES");
+        }
+        if (request.getWarmupIterations() != null && request.getWarmupIterations() < 0) {
+            throw new IllegalArgumentException("warmupIterations must not be negative");
+        }
+        if (request.getBatchSize() < 1 || request.getBatchSize() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_BATCH_SIZE);
+        }
+        if (request.getPaymentWindowDays() < 1 || request.getPaymentWindowDays() > MAX_PAYMENT_WINDOW_DAYS) {
+            throw new IllegalArgumentException("paymentWindowDays must be between 1 and " + MAX_PAYMENT_WINDOW_DAYS);
+        }
+        if (request.getPaymentRecencySkew() < 0 || request.getPaymentRecencySkew() >= 1) {
+            throw new IllegalArgumentException("paymentRecencySkew must be at least 0 and below 1");
+        }
+        if (request.getTargetRate() != null
+                && (request.getTargetRate() <= 0 || request.getTargetRate() > MAX_TARGET_RATE)) {
+            throw new IllegalArgumentException("targetRate must be between 0 and " + (long) MAX_TARGET_RATE);
+        }
+    }
+
+    private MultiBenchmarkResult.OperationResult benchmarkSelect(MultiBenchmarkRequest request,
+                                                                   BenchmarkRunContext context) {
         // Get min and max product IDs for range
         Long minId = productRepository.findMinId();
         Long maxId = productRepository.findMaxId();
-        
+
         if (minId == null || maxId == null) {
+            MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
             result.setError("No products found for SELECT benchmark");
             return result;
         }
-        
-        List<Long> timings = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
-        
-        // Warm-up phase
-        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
-            try {
-                Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
-                productRepository.findById(randomId);
-            } catch (Exception e) {
-                // Ignore warmup errors
+
+        // A missing ID in the range is expected and still counts as a successful lookup
+        TimedOperation select = iteration -> {
+            Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+
+            long opStart = JdbcPhaseTimer.begin();
+            productRepository.findById(randomId);
+            return System.nanoTime() - opStart;
+        };
+
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, select, context);
+        return measure(request, select, context, warmup);
+    }
+
+    private MultiBenchmarkResult.OperationResult benchmarkInsert(MultiBenchmarkRequest request,
+                                                                   BenchmarkRunContext context) {
+        Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+
+        TimedOperation insert = iteration -> {
+            Product product = newProduct("Benchmark Product " + System.nanoTime() + "_" + iteration,
+                    "Benchmark", "99.99", 100, "Benchmark test product");
+
+            long opStart = JdbcPhaseTimer.begin();
+            Product saved = productRepository.save(product);
+            long elapsed = System.nanoTime() - opStart;
+
+            createdIds.add(saved.getId());
+            return elapsed;
+        };
+
+        // Warm-up products are removed before measuring so the table size matches the other runs
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, insert, context);
+        deleteProducts(createdIds);
+
+        try {
+            return measure(request, insert, context, warmup);
+        } finally {
+            // Clean up created products (outside of benchmark timing)
+            deleteProducts(createdIds);
+        }
+    }
+
+    private MultiBenchmarkResult.OperationResult benchmarkUpdate(MultiBenchmarkRequest request,
+                                                                   BenchmarkRunContext context) {
+        // Get product IDs for updates
+        Long minId = productRepository.findMinId();
+        Long maxId = productRepository.findMaxId();
+
+        if (minId == null || maxId == null) {
+            MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+            result.setError("No products found for UPDATE benchmark");
+            return result;
+        }
+
+        // The lookup is part of the update, as it is for a client that reads the row before changing it
+        TimedOperation update = iteration -> {
+            Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+
+            long opStart = JdbcPhaseTimer.begin();
+            Optional<Product> productOpt = productRepository.findById(randomId);
+            if (productOpt.isEmpty()) {
+                return SKIPPED;
+            }
+
+            Product product = productOpt.get();
+            product.setDescription("Updated at " + System.nanoTime() + "_" + iteration);
+            productRepository.save(product);
+            return System.nanoTime() - opStart;
+        };
+
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, update, context);
+        return measure(request, update, context, warmup);
+    }
+
+    private MultiBenchmarkResult.OperationResult benchmarkDelete(MultiBenchmarkRequest request,
+                                                                   BenchmarkRunContext context) {
+        // Create products to delete up front; duration-based runs create them inline when the queue runs dry
+        Queue<Long> pendingIds = new ConcurrentLinkedQueue<>();
+        Queue<Long> allIds = new ConcurrentLinkedQueue<>();
+
+        if (request.getDurationSeconds() == null) {
+            for (int i = 0; i < request.getIterations(); i++) {
+                try {
+                    Product saved = productRepository.save(newProduct("Delete Benchmark " + System.nanoTime() + "_" + i,
+                            "DeleteBenchmark", "1.99", 1, "To be deleted"));
+                    pendingIds.add(saved.getId());
+                    allIds.add(saved.getId());
+                } catch (Exception e) {
+                    log.debug("Failed to create product for delete benchmark: {}", e.getMessage());
+                }
+            }
+
+            if (pendingIds.size() < request.getIterations()) {
+                deleteProducts(allIds);
+                MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+                result.setError("Failed to create enough products for DELETE benchmark");
+                return result;
             }
         }
-        
-        // Actual benchmark
-        long totalTimeNanos = 0;
-        for (int i = 0; i < iterations; i++) {
-            try {
-                Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
-                
-                long opStart = System.nanoTime();
-                Optional<Product> product = productRepository.findById(randomId);
-                long opEnd = System.nanoTime();
-                
-                timings.add(opEnd - opStart);
-                
-                if (product.isPresent()) {
-                    successCount++;
-                } else {
-                    // ID might not exist in range, this is expected
-                    successCount++;
+
+        TimedOperation delete = iteration -> {
+            Long id = pendingIds.poll();
+            if (id == null) {
+                Product saved = productRepository.save(newProduct("Delete Benchmark " + System.nanoTime() + "_" + iteration,
+                        "DeleteBenchmark", "1.99", 1, "To be deleted"));
+                id = saved.getId();
+                allIds.add(id);
+            }
+
+            long opStart = JdbcPhaseTimer.begin();
+            productRepository.deleteById(id);
+            return System.nanoTime() - opStart;
+        };
+
+        // Warm-up takes its own products so the pre-created ones are left for measurement
+        Queue<Long> measuredIds = new ConcurrentLinkedQueue<>(pendingIds);
+        pendingIds.clear();
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, delete, context);
+        pendingIds.addAll(measuredIds);
+
+        try {
+            return measure(request, delete, context, warmup);
+        } finally {
+            // Clean up any remaining products
+            for (Long id : allIds) {
+                try {
+                    if (productRepository.existsById(id)) {
+                        productRepository.deleteById(id);
+                    }
+                } catch (Exception e) {
+                    // Ignore cleanup errors
                 }
-            } catch (Exception e) {
-                errorCount++;
-                log.debug("SELECT operation failed: {}", e.getMessage());
             }
         }
-        
-        // Calculate total time from timings
-        totalTimeNanos = timings.stream().mapToLong(Long::longValue).sum();
-        
-        result.setTotalTimeMs((double) totalTimeNanos / 1_000_000.0);
-        result.setSuccessCount(successCount);
-        result.setErrorCount(errorCount);
-        result.setBlockedCount(0); // SELECT operations are never blocked
-        
-        if (!timings.isEmpty()) {
-            result.setAvgTimeMs((double) totalTimeNanos / timings.size() / 1_000_000.0);
-            result.setOpsPerSecond(timings.size() * 1_000_000_000.0 / totalTimeNanos);
-            
-            // Calculate percentiles
-            Collections.sort(timings);
-            result.setP50TimeMs(calculatePercentile(timings, 50));
-            result.setP95TimeMs(calculatePercentile(timings, 95));
-            result.setP99TimeMs(calculatePercentile(timings, 99));
-        }
-        
-        return result;
     }
-    
-    @Transactional
-    private MultiBenchmarkResult.OperationResult benchmarkInsert(int iterations) {
-        MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
-        result.setIterations(iterations);
-        
-        List<Long> timings = new ArrayList<>();
-        List<Long> createdIds = new ArrayList<>();
-        int successCount = 0;
-        int errorCount = 0;
-        
-        // Warm-up phase
-        List<Long> warmupIds = new ArrayList<>();
-        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
-            try {
-                Product product = new Product();
-                product.setName("Warmup Product " + System.nanoTime());
-                product.setCategory("Warmup");
-                product.setPrice(new BigDecimal("1.00"));
-                product.setStockQuantity(1);
-                product.setDescription("Warmup");
-                
-                Product saved = productRepository.save(product);
-                warmupIds.add(saved.getId());
-            } catch (Exception e) {
-                // Ignore warmup errors
+
+    /**
+     * Bulk writes of {@code batchSize} rows per iteration. pg_warden's hooks fire once per
+     * statement, so the result reports the per-batch latency along with per-row and
+     * per-statement costs: a JDBC batch is one statement per row in a single round trip,
+     * multi-row VALUES and COPY are one statement for the whole batch.
+     */
+    private MultiBenchmarkResult.OperationResult benchmarkBulk(String operation, MultiBenchmarkRequest request,
+                                                                 BenchmarkRunContext context) {
+        int batchSize = request.getBatchSize();
+        LongAdder rows = new LongAdder();
+        LongAdder statements = new LongAdder();
+
+        try {
+            // Updates rewrite seeded rows, a slice of their own per worker so that clients do not wait on
+            // each other's row locks; deletes seed their rows untimed every iteration
+            List<List<Long>> updateSlices = new ArrayList<>();
+            if ("BATCH_UPDATE".equals(operation)) {
+                List<Product> seed = newBulkProducts(batchSize * request.getClients(), -1);
+                seed.forEach(product -> product.setCategory(BULK_SEED_CATEGORY));
+                List<Long> seededIds = productBulkRepository.multiRowInsert(seed).getIds();
+                for (int from = 0; from < seededIds.size(); from += batchSize) {
+                    updateSlices.add(seededIds.subList(from, Math.min(from + batchSize, seededIds.size())));
+                }
             }
+            AtomicInteger nextSlice = new AtomicInteger();
+            ThreadLocal<List<Long>> workerIds = ThreadLocal.withInitial(() -> updateSlices.isEmpty() ? List.of()
+                    : updateSlices.get(Math.floorMod(nextSlice.getAndIncrement(), updateSlices.size())));
+
+            TimedOperation bulk = iteration -> {
+                List<Product> batch = null;
+                List<Long> deleteIds = null;
+                if ("BATCH_DELETE".equals(operation)) {
+                    deleteIds = productBulkRepository.multiRowInsert(newBulkProducts(batchSize, iteration)).getIds();
+                } else if (!"BATCH_UPDATE".equals(operation)) {
+                    batch = newBulkProducts(batchSize, iteration);
+                }
+
+                // Updates and deletes restart the timer once only the write is left
+                long[] opStart = {JdbcPhaseTimer.begin()};
+                Runnable writeStart = () -> opStart[0] = JdbcPhaseTimer.begin();
+                BulkWriteResult written;
+                switch (operation) {
+                    case "BATCH_INSERT":
+                        written = productBulkRepository.batchInsert(batch);
+                        break;
+                    case "MULTIROW_INSERT":
+                        written = productBulkRepository.multiRowInsert(batch);
+                        break;
+                    case "COPY_INSERT":
+                        written = productBulkRepository.copyInsert(batch);
+                        break;
+                    case "BATCH_UPDATE":
+                        written = productBulkRepository.batchUpdateDescription(workerIds.get(),
+                                "Updated at " + System.nanoTime() + "_" + iteration, writeStart);
+                        break;
+                    default:
+                        written = productBulkRepository.batchDelete(deleteIds, writeStart);
+                }
+                long elapsed = System.nanoTime() - opStart[0];
+
+                rows.add(written.getRows());
+                statements.add(written.getStatements());
+                return elapsed;
+            };
+
+            // Warm up on a fixed number of rows so large batches do not load the table for minutes
+            MultiBenchmarkResult.WarmupStats warmup = warmUp(request, bulk, context,
+                    Math.max(1, BULK_WARMUP_ROWS / batchSize));
+            // Drops the warm-up thread's slice; the measuring workers each take a different one
+            workerIds.remove();
+            deleteBulkProducts(BULK_CATEGORY);
+            rows.reset();
+            statements.reset();
+
+            MultiBenchmarkResult.OperationResult result = measure(request, bulk, context, warmup);
+            result.setBatchSize(batchSize);
+            result.setRowsWritten(rows.sum());
+            result.setStatementsExecuted(statements.sum());
+            if (rows.sum() > 0) {
+                result.setAvgTimePerRowMs(result.getTotalTimeMs() / rows.sum());
+                result.setRowsPerSecond(rows.sum() * 1000.0 / result.getWallTimeMs());
+            }
+            if (statements.sum() > 0) {
+                result.setAvgTimePerStatementMs(result.getTotalTimeMs() / statements.sum());
+            }
+            return result;
+        } finally {
+            deleteBulkProducts(BULK_CATEGORY);
+            deleteBulkProducts(BULK_SEED_CATEGORY);
         }
-        
-        // Clean up warmup products
-        for (Long id : warmupIds) {
-            try {
-                productRepository.deleteById(id);
-            } catch (Exception e) {
-                // Ignore cleanup errors
+    }
+
+    private List<Product> newBulkProducts(int count, int iteration) {
+        List<Product> products = new ArrayList<>(count);
+        long stamp = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            products.add(newProduct("Bulk Product " + stamp + "_" + iteration + "_" + i,
+                    BULK_CATEGORY, "9.99", 10, "Bulk benchmark product"));
+        }
+        return products;
+    }
+
+    private void deleteBulkProducts(String category) {
+        try {
+            productBulkRepository.deleteByCategory(category);
+        } catch (Exception e) {
+            log.debug("Failed to clean up {} products: {}", category, e.getMessage());
+        }
+    }
+
+    /**
+     * Point lookups on customer_payments, the protected table, by random ID; compare with
+     * SELECT on products for pg_warden's read overhead on protected tables.
+     */
+    private MultiBenchmarkResult.OperationResult benchmarkPaymentLookup(MultiBenchmarkRequest request,
+                                                                          BenchmarkRunContext context) {
+        Long minId = paymentRepository.findMinId();
+        Long maxId = paymentRepository.findMaxId();
+
+        if (minId == null || maxId == null) {
+            MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+            result.setError("No payments found for PAYMENT_LOOKUP benchmark");
+            return result;
+        }
+
+        TimedOperation lookup = iteration -> {
+            Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+
+            long opStart = JdbcPhaseTimer.begin();
+            paymentRepository.findById(randomId);
+            return System.nanoTime() - opStart;
+        };
+
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, lookup, context);
+        return measure(request, lookup, context, warmup);
+    }
+
+    /**
+     * Date-range reads on customer_payments: PAYMENT_RANGE_SCAN fetches and maps every payment
+     * in the window, PAYMENT_AGGREGATE counts and sums them per card type in the database.
+     * Windows come from {@link PaymentWindowGenerator}; latencies are per query and the rows
+     * read give the scan throughput.
+     */
+    private MultiBenchmarkResult.OperationResult benchmarkPaymentScan(String operation, MultiBenchmarkRequest request,
+                                                                        BenchmarkRunContext context) {
+        LocalDateTime earliest = paymentRepository.findMinPaymentDate();
+        LocalDateTime latest = paymentRepository.findMaxPaymentDate();
+
+        if (earliest == null || latest == null) {
+            MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+            result.setError("No payments found for " + operation + " benchmark");
+            return result;
+        }
+
+        PaymentWindowGenerator windows = new PaymentWindowGenerator(earliest, latest,
+                request.getPaymentWindowDays(), request.getPaymentRecencySkew());
+        boolean aggregate = "PAYMENT_AGGREGATE".equals(operation);
+        LongAdder rows = new LongAdder();
+        LongAdder queries = new LongAdder();
+
+        TimedOperation scan = iteration -> {
+            PaymentWindowGenerator.Window window = windows.next();
+
+            long opStart = JdbcPhaseTimer.begin();
+            long read;
+            if (aggregate) {
+                read = 0;
+                for (PaymentSummary summary : paymentRepository.summarizeByCardType(window.getStart(), window.getEnd())) {
+                    read += summary.getCount();
+                }
+            } else {
+                read = paymentRepository.findByPaymentDateBetween(window.getStart(), window.getEnd()).size();
             }
+            long elapsed = System.nanoTime() - opStart;
+
+            rows.add(read);
+            queries.increment();
+            return elapsed;
+        };
+
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, scan, context);
+        rows.reset();
+        queries.reset();
+
+        MultiBenchmarkResult.OperationResult result = measure(request, scan, context, warmup);
+        result.setRowsRead(rows.sum());
+        if (queries.sum() > 0) {
+            result.setAvgRowsPerOperation((double) rows.sum() / queries.sum());
         }
-        
-        // Actual benchmark
-        long totalTimeNanos = 0;
-        for (int i = 0; i < iterations; i++) {
+        if (result.getWallTimeMs() > 0) {
+            result.setRowsPerSecond(rows.sum() * 1000.0 / result.getWallTimeMs());
+        }
+        result.setNote(request.getPaymentWindowDays() + "-day windows ending in the last " + windows.getEndDays()
+                + " days of payments, " + (request.getPaymentRecencySkew() > 0
+                        ? "skewed towards recent days (skew " + request.getPaymentRecencySkew() + ")"
+                        : "uniformly spread"));
+        return result;
+    }
+
+    /**
+     * Measures statements pg_warden rejects, issued against a protected scratch table or, for
+     * BLOCKED_PAYMENT_*, against customer_payments.
+     * The latency is what a client sees for a rejected statement; the phases split it into
+     * the JDBC round trip, SQLException translation and GlobalExceptionHandler, and estimate
+     * the server-side share as the round trip minus the median round trip of {@code SELECT 1}.
+     */
+    private MultiBenchmarkResult.OperationResult benchmarkBlocked(String operation, MultiBenchmarkRequest request,
+                                                                    BenchmarkRunContext context) throws SQLException {
+        String table = blockedStatementProbe.tableFor(operation);
+        boolean wardenInstalled = blockedStatementProbe.isWardenInstalled();
+        if (BlockedStatementProbe.SCRATCH_TABLE.equals(table)) {
+            blockedStatementProbe.createScratchTable();
+        }
+
+        // New tables are protected by default; re-protect only if someone unprotected the table
+        boolean tableHeld = false;
+        if (wardenInstalled) {
             try {
-                Product product = new Product();
-                product.setName("Benchmark Product " + System.nanoTime() + "_" + i);
-                product.setCategory("Benchmark");
-                product.setPrice(new BigDecimal("99.99"));
-                product.setStockQuantity(100);
-                product.setDescription("Benchmark test product");
-                
-                long opStart = System.nanoTime();
-                Product saved = productRepository.save(product);
-                long opEnd = System.nanoTime();
-                
-                timings.add(opEnd - opStart);
-                createdIds.add(saved.getId());
-                successCount++;
+                protectionLeases.acquire(null, table, true, () -> {
+                    if (protectionService.isTableProtected(table)) {
+                        return false;
+                    }
+                    protectionService.protectTable(table);
+                    return true;
+                });
+                tableHeld = true;
             } catch (Exception e) {
-                errorCount++;
-                log.debug("INSERT operation failed: {}", e.getMessage());
+                log.warn("Could not check/protect {}: {}", table, e.getMessage());
             }
         }
-        
-        // Calculate total time from timings
-        totalTimeNanos = timings.stream().mapToLong(Long::longValue).sum();
-        
-        // Clean up created products (outside of benchmark timing)
-        for (Long id : createdIds) {
-            try {
-                productRepository.deleteById(id);
-            } catch (Exception e) {
-                log.debug("Failed to cleanup product {}: {}", id, e.getMessage());
+
+        String sql = blockedStatementProbe.statementFor(operation);
+        BlockedStatementProbe.Phases phases = new BlockedStatementProbe.Phases();
+        TimedOperation blocked = iteration -> blockedStatementProbe.execute(sql, phases);
+
+        long protocolBaselineNanos = blockedStatementProbe.measureBaselineRoundTrip();
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, blocked, context);
+        phases.reset();
+
+        try {
+            MultiBenchmarkResult.OperationResult result = measure(request, blocked, context, warmup);
+
+            // Rejections are the expected outcome here, so they are reported as blocked rather than as successes
+            result.setSuccessCount((int) phases.getAllowed());
+            result.setBlockedCount((int) phases.getBlocked());
+            result.setErrorCount(result.getErrorCount() + (int) phases.getFailed());
+
+            Histogram roundTrip = phases.drainRoundTrip();
+            double totalAvgNanos = result.getAvgTimeMs() * 1_000_000.0;
+            Map<String, MultiBenchmarkResult.PhaseStats> phaseStats = new LinkedHashMap<>();
+            phaseStats.put(BlockedStatementProbe.ROUND_TRIP, LatencyHistograms.toPhaseStats(roundTrip, totalAvgNanos));
+            phaseStats.put(BlockedStatementProbe.TRANSLATION,
+                    LatencyHistograms.toPhaseStats(phases.drainTranslation(), totalAvgNanos));
+            phaseStats.put(BlockedStatementProbe.HANDLER,
+                    LatencyHistograms.toPhaseStats(phases.drainHandler(), totalAvgNanos));
+
+            if (roundTrip.getTotalCount() > 0) {
+                MultiBenchmarkResult.PhaseStats protocol = new MultiBenchmarkResult.PhaseStats();
+                protocol.setP50TimeMs(LatencyHistograms.toMs(protocolBaselineNanos));
+                protocol.setAvgTimeMs(protocol.getP50TimeMs());
+                phaseStats.put("protocolBaseline", protocol);
+
+                MultiBenchmarkResult.PhaseStats server = new MultiBenchmarkResult.PhaseStats();
+                server.setCount(roundTrip.getTotalCount());
+                server.setAvgTimeMs(Math.max(0, roundTrip.getMean() - protocolBaselineNanos) / 1_000_000.0);
+                server.setP50TimeMs(LatencyHistograms.toMs(Math.max(0, roundTrip.getValueAtPercentile(50) - protocolBaselineNanos)));
+                server.setP99TimeMs(LatencyHistograms.toMs(Math.max(0, roundTrip.getValueAtPercentile(99) - protocolBaselineNanos)));
+                server.setMaxTimeMs(LatencyHistograms.toMs(Math.max(0, roundTrip.getMaxValue() - protocolBaselineNanos)));
+                server.setSharePercent(totalAvgNanos > 0 ? server.getAvgTimeMs() * 1_000_000.0 / totalAvgNanos * 100.0 : 0);
+                phaseStats.put("serverEstimate", server);
+            }
+            result.setPhases(phaseStats);
+
+            result.setNote(wardenInstalled
+                    ? "Statements rejected by pg_warden on " + table + "; serverEstimate = roundTrip - median SELECT 1 round trip"
+                    : "pg_warden is not installed: statements executed and were rolled back");
+            return result;
+        } finally {
+            if (tableHeld) {
+                protectionLeases.release(null, table, () -> protectionService.unprotectTable(table));
             }
         }
-        
-        result.setTotalTimeMs((double) totalTimeNanos / 1_000_000.0);
-        result.setSuccessCount(successCount);
-        result.setErrorCount(errorCount);
-        result.setBlockedCount(0); // INSERT operations are typically not blocked
-        
-        if (!timings.isEmpty()) {
-            result.setAvgTimeMs((double) totalTimeNanos / timings.size() / 1_000_000.0);
-            result.setOpsPerSecond(timings.size() * 1_000_000_000.0 / totalTimeNanos);
-            
-            // Calculate percentiles
-            Collections.sort(timings);
-            result.setP50TimeMs(calculatePercentile(timings, 50));
-            result.setP95TimeMs(calculatePercentile(timings, 95));
-            result.setP99TimeMs(calculatePercentile(timings, 99));
-        }
-        
-        return result;
     }
-    
-    @Transactional
-    private MultiBenchmarkResult.OperationResult benchmarkUpdate(int iterations) {
-        MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
-        result.setIterations(iterations);
-        
-        // Get product IDs for updates
+
+    /**
+     * Runs a YCSB-style mix as one interleaved stream: every iteration draws its operation from
+     * the mix and its key from the configured distribution. The overall result covers the whole
+     * stream; the breakdown splits it per operation type.
+     */
+    private MultiBenchmarkResult.OperationResult benchmarkWorkload(MultiBenchmarkRequest request, WorkloadMix mix,
+                                                                     BenchmarkRunContext context) {
         Long minId = productRepository.findMinId();
         Long maxId = productRepository.findMaxId();
-        
+
         if (minId == null || maxId == null) {
-            result.setError("No products found for UPDATE benchmark");
+            MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+            result.setError("No products found for workload " + mix.getName());
             return result;
         }
-        
-        List<Long> timings = new ArrayList<>();
-        int successCount = 0;
-        int blockedCount = 0;
-        int errorCount = 0;
-        
-        // Warm-up phase
-        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+
+        ZipfianGenerator zipfian = WorkloadMix.UNIFORM.equals(mix.getKeyDistribution())
+                ? null
+                : new ZipfianGenerator(maxId - minId + 1, mix.getZipfianConstant());
+        AtomicLong latestId = new AtomicLong(maxId);
+        Queue<Long> createdIds = new ConcurrentLinkedQueue<>();
+        Map<String, MixCounters> breakdown = new LinkedHashMap<>();
+        for (String type : List.of(WorkloadMix.READ, WorkloadMix.UPDATE, WorkloadMix.INSERT, WorkloadMix.DELETE)) {
+            breakdown.put(type, new MixCounters());
+        }
+
+        TimedOperation mixed = iteration -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String type = mix.chooseOperation(random.nextDouble());
+            long key;
+            switch (mix.getKeyDistribution()) {
+                case WorkloadMix.ZIPFIAN:
+                    key = minId + zipfian.nextScrambled();
+                    break;
+                case WorkloadMix.LATEST:
+                    // Most recently inserted rows are the hottest
+                    key = Math.max(minId, latestId.get() - zipfian.nextRank());
+                    break;
+                default:
+                    key = random.nextLong(minId, maxId + 1);
+            }
+
+            MixCounters counters = breakdown.get(type);
             try {
-                Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
-                Optional<Product> productOpt = productRepository.findById(randomId);
-                
-                if (productOpt.isPresent()) {
-                    Product product = productOpt.get();
-                    product.setDescription("Warmup update " + i);
-                    productRepository.save(product);
+                long elapsed = executeMixed(type, key, iteration, createdIds, latestId);
+                counters.record(elapsed);
+                return elapsed;
+            } catch (Exception e) {
+                counters.recordFailure(WardenErrors.isBlocked(e));
+                throw e;
+            }
+        };
+
+        // Warm-up inserts are removed and its samples discarded so the measured stream starts clean
+        MultiBenchmarkResult.WarmupStats warmup = warmUp(request, mixed, context);
+        deleteProducts(createdIds);
+        latestId.set(maxId);
+        breakdown.values().forEach(MixCounters::reset);
+
+        try {
+            MultiBenchmarkResult.OperationResult result = measure(request, mixed, context, warmup);
+            result.setWorkload(mix.describe());
+
+            Map<String, MultiBenchmarkResult.OperationResult> breakdownResults = new LinkedHashMap<>();
+            breakdown.forEach((type, counters) -> {
+                if (counters.total() > 0) {
+                    breakdownResults.put(type, counters.toOperationResult());
                 }
+            });
+            result.setOperationBreakdown(breakdownResults);
+            return result;
+        } finally {
+            deleteProducts(createdIds);
+        }
+    }
+
+    private long executeMixed(String type, long key, int iteration, Queue<Long> createdIds, AtomicLong latestId) {
+        long opStart;
+        switch (type) {
+            case WorkloadMix.READ:
+                opStart = JdbcPhaseTimer.begin();
+                productRepository.findById(key);
+                return System.nanoTime() - opStart;
+            case WorkloadMix.UPDATE:
+                opStart = JdbcPhaseTimer.begin();
+                Optional<Product> productOpt = productRepository.findById(key);
+                if (productOpt.isEmpty()) {
+                    return SKIPPED;
+                }
+                Product product = productOpt.get();
+                product.setDescription("Updated at " + System.nanoTime() + "_" + iteration);
+                productRepository.save(product);
+                return System.nanoTime() - opStart;
+            case WorkloadMix.INSERT:
+                Product newProduct = newProduct("Workload Product " + System.nanoTime() + "_" + iteration,
+                        "Benchmark", "99.99", 100, "Workload test product");
+
+                opStart = JdbcPhaseTimer.begin();
+                Product saved = productRepository.save(newProduct);
+                long elapsed = System.nanoTime() - opStart;
+
+                createdIds.add(saved.getId());
+                latestId.accumulateAndGet(saved.getId(), Math::max);
+                return elapsed;
+            case WorkloadMix.DELETE:
+                // Only rows inserted by this run are deleted so the key space stays intact
+                Long id = createdIds.poll();
+                if (id == null) {
+                    return SKIPPED;
+                }
+                opStart = JdbcPhaseTimer.begin();
+                productRepository.deleteById(id);
+                return System.nanoTime() - opStart;
+            default:
+                throw new IllegalArgumentException("Unknown workload operation: " + type);
+        }
+    }
+
+    /**
+     * Runs the operation on the calling thread until the JVM and the database reach steady state;
+     * errors are ignored. Without a fixed {@code warmupIterations} in the request, warm-up stops
+     * once the sliding-window throughput and median latency stay within the configured tolerance
+     * ({@code benchmark.warmup.*}), or at the iteration or time cap.
+     */
+    private MultiBenchmarkResult.WarmupStats warmUp(MultiBenchmarkRequest request, TimedOperation operation,
+                                                    BenchmarkRunContext context) {
+        return warmUp(request, operation, context, benchmarkProperties.getWarmup().getMaxIterations());
+    }
+
+    private MultiBenchmarkResult.WarmupStats warmUp(MultiBenchmarkRequest request, TimedOperation operation,
+                                                    BenchmarkRunContext context, int maxIterations) {
+        BenchmarkProperties.Warmup settings = benchmarkProperties.getWarmup();
+        boolean fixed = request.getWarmupIterations() != null;
+        int limit = fixed ? request.getWarmupIterations() : Math.min(maxIterations, settings.getMaxIterations());
+        int minIterations = Math.min(settings.getMinIterations(), limit);
+        // Small caps (large bulk batches) shrink the windows so that the compared windows, plus one
+        // to settle, fit in the cap; below the smallest window the cap just runs out
+        int windowSize = Math.min(settings.getWindowSize(), limit / (settings.getStableWindows() + 1));
+        boolean detectable = !fixed && windowSize >= MIN_WARMUP_WINDOW;
+
+        JvmActivity jvmBefore = JvmActivity.snapshot();
+        long start = System.nanoTime();
+        long deadline = start + settings.getMaxSeconds() * 1_000_000_000L;
+        SteadyStateDetector detector = detectable
+                ? new SteadyStateDetector(windowSize, settings.getStableWindows(),
+                        settings.getTolerancePercent() / 100.0, start)
+                : null;
+
+        String stopReason = fixed ? "FIXED" : detectable ? "MAX_ITERATIONS" : "NOT_DETECTABLE";
+        int completed = 0;
+        while (completed < limit) {
+            if (context.isCancelled()) {
+                stopReason = "CANCELLED";
+                break;
+            }
+            long latency = SKIPPED;
+            try {
+                latency = operation.execute(completed);
             } catch (Exception e) {
                 // Ignore warmup errors
+            } finally {
+                JdbcPhaseTimer.end();
+            }
+            completed++;
+            if (fixed) {
+                continue;
+            }
+
+            boolean stable = detector != null && latency != SKIPPED && detector.record(latency, System.nanoTime());
+            if (stable && completed >= minIterations) {
+                stopReason = "STEADY_STATE";
+                break;
+            }
+            if (System.nanoTime() > deadline) {
+                stopReason = "MAX_DURATION";
+                break;
             }
         }
-        
-        // Actual benchmark
-        long totalTimeNanos = 0;
-        for (int i = 0; i < iterations; i++) {
+
+        MultiBenchmarkResult.WarmupStats warmup = new MultiBenchmarkResult.WarmupStats();
+        warmup.setMode(fixed ? "FIXED" : "ADAPTIVE");
+        warmup.setIterations(completed);
+        warmup.setDurationMs((System.nanoTime() - start) / 1_000_000.0);
+        warmup.setStopReason(stopReason);
+        warmup.setJvm(toJvmStats(JvmActivity.snapshot().since(jvmBefore)));
+        if (!fixed) {
+            warmup.setConverged("STEADY_STATE".equals(stopReason));
+            if (!warmup.isConverged()) {
+                log.info("Warm-up stopped after {} iterations without reaching steady state ({})",
+                        completed, stopReason);
+            }
+        }
+        if (detector != null) {
+            warmup.setWindowSize(detector.getWindowSize());
+            warmup.setWindows(detector.getCompletedWindows());
+            warmup.setLastWindowOpsPerSecond(detector.getLastThroughput());
+            warmup.setLastWindowP50TimeMs(detector.getLastMedianNanos() / 1_000_000.0);
+            if (detector.getCompletedWindows() > 0) {
+                warmup.setThroughputSpreadPercent(detector.getThroughputSpread() * 100);
+                warmup.setLatencySpreadPercent(detector.getLatencySpread() * 100);
+            }
+        }
+        return warmup;
+    }
+
+    private static MultiBenchmarkResult.JvmStats toJvmStats(JvmActivity activity) {
+        MultiBenchmarkResult.JvmStats stats = new MultiBenchmarkResult.JvmStats();
+        stats.setJitCompilationTimeMs(activity.getCompilationTimeMs());
+        stats.setGcCount(activity.getGcCount());
+        stats.setGcTimeMs(activity.getGcTimeMs());
+        stats.setClassesLoaded(activity.getLoadedClasses());
+        return stats;
+    }
+
+    /**
+     * Measures after a warm-up, attaching the warm-up outcome and the JIT/GC activity seen
+     * while measuring; compilation during measurement means warm-up ended too early.
+     */
+    private MultiBenchmarkResult.OperationResult measure(MultiBenchmarkRequest request, TimedOperation operation,
+                                                         BenchmarkRunContext context,
+                                                         MultiBenchmarkResult.WarmupStats warmup) {
+        JvmActivity jvmBefore = JvmActivity.snapshot();
+        MultiBenchmarkResult.OperationResult result = measure(request, operation, context);
+        result.setMeasurementJvm(toJvmStats(JvmActivity.snapshot().since(jvmBefore)));
+        result.setWarmup(warmup);
+        return result;
+    }
+
+    /**
+     * Runs the operation on {@code clients} concurrent workers until the iteration budget
+     * or the duration is exhausted, then merges the per-worker samples.
+     *
+     * With a target rate the run is open-loop: iteration {@code i} is due at {@code i / rate}
+     * seconds after the start, whichever worker claims it waits for that moment, and its
+     * corrected latency runs from that moment to its completion: the time it waited for a free
+     * worker and any setup around the measured section included. This avoids coordinated
+     * omission, where a slow operation silently delays the ones queued behind it.
+     */
+    private MultiBenchmarkResult.OperationResult measure(MultiBenchmarkRequest request, TimedOperation operation,
+                                                         BenchmarkRunContext context) {
+        int clients = request.getClients();
+        boolean timed = request.getDurationSeconds() != null;
+        boolean openLoop = request.getTargetRate() != null;
+        double intervalNanos = openLoop ? 1_000_000_000.0 / request.getTargetRate() : 0;
+        AtomicInteger nextIteration = new AtomicInteger();
+
+        ExecutorService executor = newWorkerExecutor(request);
+        String threadModel = executor instanceof ThreadPoolExecutor ? "PLATFORM" : "VIRTUAL";
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<WorkerStats>> futures = new ArrayList<>();
+        long[] window = new long[2];
+        SampleCapture.OperationCapture capture = context.getCapture() != null
+                ? context.getCapture().beginOperation(context.getCurrentOperation())
+                : null;
+
+        try {
+            for (int w = 0; w < clients; w++) {
+                int workerId = w;
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    WorkerStats stats = new WorkerStats(workerId, openLoop, capture);
+                    long deadline = timed ? window[0] + TimeUnit.SECONDS.toNanos(request.getDurationSeconds()) : 0;
+
+                    while (true) {
+                        int iteration = nextIteration.getAndIncrement();
+                        long intendedStart = openLoop ? window[0] + (long) (iteration * intervalNanos) : 0;
+                        if (context.isCancelled()
+                                || (timed ? (openLoop ? intendedStart : System.nanoTime()) >= deadline
+                                          : iteration >= request.getIterations())) {
+                            break;
+                        }
+
+                        if (openLoop) {
+                            stats.recordScheduleLag(awaitStart(intendedStart, context), intervalNanos);
+                        }
+                        runOnce(operation, iteration, stats, context, intendedStart);
+                    }
+                    if (stats.samples != null) {
+                        stats.samples.close();
+                    }
+                    return stats;
+                }));
+            }
+
+            window[0] = System.nanoTime();
+            startGate.countDown();
+
+            List<WorkerStats> workers = new ArrayList<>();
+            for (Future<WorkerStats> future : futures) {
+                workers.add(future.get());
+            }
+            window[1] = System.nanoTime();
+            if (capture != null) {
+                context.getCapture().finishOperation(capture);
+            }
+
+            return buildOperationResult(request, workers, window[1] - window[0], threadModel);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Benchmark worker failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Benchmark interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Waits until the scheduled start and returns how late the operation actually starts.
+     */
+    private long awaitStart(long intendedStart, BenchmarkRunContext context) {
+        long remaining;
+        while ((remaining = intendedStart - System.nanoTime()) > 0 && !context.isCancelled()) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return Math.max(0, System.nanoTime() - intendedStart);
+    }
+
+    /**
+     * Runs one iteration. In open-loop runs {@code intendedStart} is when it was scheduled, and its
+     * corrected latency is the time from then to its completion.
+     */
+    private void runOnce(TimedOperation operation, int iteration, WorkerStats stats, BenchmarkRunContext context,
+                         long intendedStart) {
+        try {
+            long elapsed;
+            long completed;
+            JdbcPhaseTimer.Capture capture;
             try {
-                Long randomId = ThreadLocalRandom.current().nextLong(minId, maxId + 1);
-                Optional<Product> productOpt = productRepository.findById(randomId);
-                
-                if (productOpt.isPresent()) {
-                    Product product = productOpt.get();
-                    product.setDescription("Updated at " + System.nanoTime() + "_" + i);
-                    
-                    long opStart = System.nanoTime();
-                    productRepository.save(product);
-                    long opEnd = System.nanoTime();
-                    
-                    timings.add(opEnd - opStart);
-                    successCount++;
+                elapsed = operation.execute(iteration);
+            } finally {
+                completed = System.nanoTime();
+                capture = JdbcPhaseTimer.end();
+            }
+            if (elapsed != SKIPPED) {
+                LatencyHistograms.record(stats.histogram, elapsed);
+                if (capture != null) {
+                    stats.recordPhases(capture, elapsed);
                 }
-            } catch (Exception e) {
-                if (e.getMessage() != null && 
-                    (e.getMessage().contains("not allowed") || 
-                     e.getMessage().contains("protected") ||
-                     e.getMessage().contains("blocked"))) {
-                    blockedCount++;
-                } else {
-                    errorCount++;
+                stats.totalTimeNanos += elapsed;
+                stats.successCount++;
+                long corrected = elapsed;
+                if (stats.correctedHistogram != null) {
+                    corrected = Math.max(elapsed, completed - intendedStart);
+                    LatencyHistograms.record(stats.correctedHistogram, corrected);
                 }
-                log.debug("UPDATE operation failed: {}", e.getMessage());
+                context.recordLatency(corrected);
+                if (stats.capture != null) {
+                    stats.capture.recordInterval(corrected);
+                    if (stats.samples != null) {
+                        stats.samples.write(elapsed, corrected, SampleCapture.OUTCOME_OK);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            boolean blocked = WardenErrors.isBlocked(e);
+            if (blocked) {
+                stats.blockedCount++;
+            } else {
+                stats.errorCount++;
+            }
+            if (stats.samples != null) {
+                stats.samples.write(-1, -1, blocked ? SampleCapture.OUTCOME_BLOCKED : SampleCapture.OUTCOME_ERROR);
             }
+            context.recordFailure();
+            log.debug("Benchmark operation failed: {}", e.getMessage());
         }
-        
-        // Calculate total time from timings
-        totalTimeNanos = timings.stream().mapToLong(Long::longValue).sum();
-        
-        result.setTotalTimeMs((double) totalTimeNanos / 1_000_000.0);
-        result.setSuccessCount(successCount);
-        result.setBlockedCount(blockedCount);
-        result.setErrorCount(errorCount);
-        
-        if (!timings.isEmpty()) {
-            result.setAvgTimeMs((double) totalTimeNanos / timings.size() / 1_000_000.0);
-            result.setOpsPerSecond(timings.size() * 1_000_000_000.0 / totalTimeNanos);
-            
-            // Calculate percentiles
-            Collections.sort(timings);
-            result.setP50TimeMs(calculatePercentile(timings, 50));
-            result.setP95TimeMs(calculatePercentile(timings, 95));
-            result.setP99TimeMs(calculatePercentile(timings, 99));
-        }
-        
-        return result;
     }
-    
-    @Transactional
-    private MultiBenchmarkResult.OperationResult benchmarkDelete(int iterations) {
+
+    private MultiBenchmarkResult.OperationResult buildOperationResult(MultiBenchmarkRequest request,
+                                                                      List<WorkerStats> workers,
+                                                                      long wallTimeNanos,
+                                                                      String threadModel) {
         MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
-        result.setIterations(iterations);
-        
-        List<Long> timings = new ArrayList<>();
+
+        Histogram histogram = LatencyHistograms.newHistogram();
+        List<MultiBenchmarkResult.WorkerResult> workerResults = new ArrayList<>();
+        long totalTimeNanos = 0;
         int successCount = 0;
         int blockedCount = 0;
         int errorCount = 0;
-        
-        // Create products to delete (including warmup)
-        List<Long> allIds = new ArrayList<>();
-        int totalToCreate = iterations + WARMUP_ITERATIONS;
-        
-        for (int i = 0; i < totalToCreate; i++) {
-            try {
-                Product product = new Product();
-                product.setName("Delete Benchmark " + System.nanoTime() + "_" + i);
-                product.setCategory("DeleteBenchmark");
-                product.setPrice(new BigDecimal("1.99"));
-                product.setStockQuantity(1);
-                product.setDescription("To be deleted");
-                
-                Product saved = productRepository.save(product);
-                allIds.add(saved.getId());
-            } catch (Exception e) {
-                log.debug("Failed to create product for delete benchmark: {}", e.getMessage());
+
+        for (WorkerStats worker : workers) {
+            histogram.add(worker.histogram);
+            totalTimeNanos += worker.totalTimeNanos;
+            successCount += worker.successCount;
+            blockedCount += worker.blockedCount;
+            errorCount += worker.errorCount;
+            workerResults.add(worker.toWorkerResult());
+        }
+
+        long measured = histogram.getTotalCount();
+
+        // What actually ran: skipped iterations are in neither, failed ones are not in the histogram
+        result.setIterations((int) measured + blockedCount + errorCount);
+        result.setTotalTimeMs((double) totalTimeNanos / 1_000_000.0);
+        result.setSuccessCount(successCount);
+        result.setBlockedCount(blockedCount);
+        result.setErrorCount(errorCount);
+        result.setClients(workers.size());
+        result.setThreadModel(threadModel);
+        result.setWallTimeMs((double) wallTimeNanos / 1_000_000.0);
+        result.setWorkerResults(workerResults);
+
+        if (measured > 0) {
+            result.setAvgTimeMs((double) totalTimeNanos / measured / 1_000_000.0);
+            result.setOpsPerSecond(measured * 1_000_000_000.0 / totalTimeNanos);
+            result.setAggregateOpsPerSecond(measured * 1_000_000_000.0 / wallTimeNanos);
+            LatencyHistograms.applyPercentiles(result, histogram);
+        }
+
+        if (measured > 0) {
+            result.setPhases(mergePhases(workers, (double) totalTimeNanos / measured));
+        }
+
+        result.setLoadModel(request.getTargetRate() != null ? "OPEN" : "CLOSED");
+        if (request.getTargetRate() != null) {
+            Histogram corrected = LatencyHistograms.newHistogram();
+            Histogram lag = LatencyHistograms.newHistogram();
+            long lateStarts = 0;
+            for (WorkerStats worker : workers) {
+                corrected.add(worker.correctedHistogram);
+                lag.add(worker.lagHistogram);
+                lateStarts += worker.lateStarts;
+            }
+
+            result.setTargetRate(request.getTargetRate());
+            result.setLateStarts(lateStarts);
+            LatencyHistograms.applyCorrectedPercentiles(result, corrected);
+            if (lag.getTotalCount() > 0) {
+                result.setSchedulerLagAvgMs(lag.getMean() / 1_000_000.0);
+                result.setSchedulerLagP99Ms(LatencyHistograms.toMs(lag.getValueAtPercentile(99)));
+                result.setSchedulerLagMaxMs(LatencyHistograms.toMs(lag.getMaxValue()));
             }
         }
-        
-        if (allIds.size() < iterations) {
-            result.setError("Failed to create enough products for DELETE benchmark");
-            return result;
+
+        return result;
+    }
+
+    /**
+     * Merges encoded histograms (e.g. from runs against different backends) into one latency summary.
+     */
+    public MultiBenchmarkResult.OperationResult mergeHistograms(List<String> encodedHistograms) {
+        if (encodedHistograms == null || encodedHistograms.isEmpty()) {
+            throw new IllegalArgumentException("At least one histogram is required");
+        }
+
+        Histogram merged = LatencyHistograms.merge(encodedHistograms);
+        MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+        result.setIterations((int) merged.getTotalCount());
+        result.setSuccessCount((int) merged.getTotalCount());
+        if (merged.getTotalCount() > 0) {
+            result.setAvgTimeMs(merged.getMean() / 1_000_000.0);
+            LatencyHistograms.applyPercentiles(result, merged);
         }
-        
-        // Warm-up phase - delete first WARMUP_ITERATIONS products
-        for (int i = 0; i < Math.min(WARMUP_ITERATIONS, allIds.size()); i++) {
+        return result;
+    }
+
+    /**
+     * Virtual threads are only available from Java 21, so they are looked up reflectively
+     * and the run falls back to platform threads on older runtimes.
+     */
+    private ExecutorService newWorkerExecutor(MultiBenchmarkRequest request) {
+        if ("VIRTUAL".equalsIgnoreCase(request.getThreadModel())) {
             try {
-                productRepository.deleteById(allIds.get(i));
-            } catch (Exception e) {
-                // Ignore warmup errors
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads are not available on Java {}, using platform threads",
+                        Runtime.version().feature());
             }
         }
-        
-        // Actual benchmark - delete remaining products
-        long totalTimeNanos = 0;
-        for (int i = WARMUP_ITERATIONS; i < Math.min(WARMUP_ITERATIONS + iterations, allIds.size()); i++) {
+
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(request.getClients(), runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-worker-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private Product newProduct(String name, String category, String price, int stock, String description) {
+        Product product = new Product();
+        product.setName(name);
+        product.setCategory(category);
+        product.setPrice(new BigDecimal(price));
+        product.setStockQuantity(stock);
+        product.setDescription(description);
+        return product;
+    }
+
+    private void deleteProducts(Queue<Long> ids) {
+        Long id;
+        while ((id = ids.poll()) != null) {
             try {
-                Long id = allIds.get(i);
-                
-                long opStart = System.nanoTime();
                 productRepository.deleteById(id);
-                long opEnd = System.nanoTime();
-                
-                timings.add(opEnd - opStart);
-                successCount++;
             } catch (Exception e) {
-                if (e.getMessage() != null && 
-                    (e.getMessage().contains("not allowed") || 
-                     e.getMessage().contains("protected") ||
-                     e.getMessage().contains("blocked"))) {
-                    blockedCount++;
-                } else {
-                    errorCount++;
-                }
-                log.debug("DELETE operation failed: {}", e.getMessage());
+                log.debug("Failed to cleanup product {}: {}", id, e.getMessage());
             }
         }
-        
-        // Calculate total time from timings
-        totalTimeNanos = timings.stream().mapToLong(Long::longValue).sum();
-        
-        // Clean up any remaining products
-        for (Long id : allIds) {
-            try {
-                if (productRepository.existsById(id)) {
-                    productRepository.deleteById(id);
+    }
+
+
+    /**
+     * One benchmarked operation. Returns the nanoseconds spent in the measured section,
+     * or {@link #SKIPPED} when there was nothing to measure.
+     */
+    @FunctionalInterface
+    private interface TimedOperation {
+        long execute(int iteration) throws Exception;
+    }
+
+    /**
+     * Per-operation-type samples of a mixed workload, shared by all workers.
+     */
+    private static class MixCounters {
+        private final Recorder recorder = LatencyHistograms.newRecorder();
+        private final LongAdder totalTimeNanos = new LongAdder();
+        private final LongAdder successCount = new LongAdder();
+        private final LongAdder blockedCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+
+        private void record(long elapsed) {
+            if (elapsed != SKIPPED) {
+                LatencyHistograms.record(recorder, elapsed);
+                totalTimeNanos.add(elapsed);
+                successCount.increment();
+            }
+        }
+
+        private void recordFailure(boolean blocked) {
+            (blocked ? blockedCount : errorCount).increment();
+        }
+
+        private long total() {
+            return successCount.sum() + blockedCount.sum() + errorCount.sum();
+        }
+
+        private void reset() {
+            recorder.reset();
+            totalTimeNanos.reset();
+            successCount.reset();
+            blockedCount.reset();
+            errorCount.reset();
+        }
+
+        private MultiBenchmarkResult.OperationResult toOperationResult() {
+            MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+            Histogram histogram = recorder.getIntervalHistogram();
+            long measured = histogram.getTotalCount();
+
+            result.setIterations((int) total());
+            result.setSuccessCount((int) successCount.sum());
+            result.setBlockedCount((int) blockedCount.sum());
+            result.setErrorCount((int) errorCount.sum());
+            result.setTotalTimeMs(LatencyHistograms.toMs(totalTimeNanos.sum()));
+            if (measured > 0) {
+                result.setAvgTimeMs(LatencyHistograms.toMs(totalTimeNanos.sum()) / measured);
+                result.setOpsPerSecond(measured * 1_000_000_000.0 / totalTimeNanos.sum());
+                LatencyHistograms.applyPercentiles(result, histogram);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Merges the per-worker JDBC phase histograms, or returns null when no operation went
+     * through the timed DataSource (phase timing disabled, or an operation that times its own phases).
+     */
+    private Map<String, MultiBenchmarkResult.PhaseStats> mergePhases(List<WorkerStats> workers, double avgNanos) {
+        int phaseCount = JdbcPhaseTimer.PHASES.length;
+        Histogram[] merged = null;
+        long[] calls = new long[phaseCount];
+        for (WorkerStats worker : workers) {
+            if (worker.phaseHistograms == null) {
+                continue;
+            }
+            if (merged == null) {
+                merged = new Histogram[phaseCount + 1];
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] = LatencyHistograms.newHistogram();
                 }
-            } catch (Exception e) {
-                // Ignore cleanup errors
+            }
+            for (int i = 0; i < merged.length; i++) {
+                merged[i].add(worker.phaseHistograms[i]);
+            }
+            for (int i = 0; i < phaseCount; i++) {
+                calls[i] += worker.phaseCalls[i];
             }
         }
-        
-        result.setTotalTimeMs((double) totalTimeNanos / 1_000_000.0);
-        result.setSuccessCount(successCount);
-        result.setBlockedCount(blockedCount);
-        result.setErrorCount(errorCount);
-        
-        if (!timings.isEmpty()) {
-            result.setAvgTimeMs((double) totalTimeNanos / timings.size() / 1_000_000.0);
-            result.setOpsPerSecond(timings.size() * 1_000_000_000.0 / totalTimeNanos);
-            
-            // Calculate percentiles
-            Collections.sort(timings);
-            result.setP50TimeMs(calculatePercentile(timings, 50));
-            result.setP95TimeMs(calculatePercentile(timings, 95));
-            result.setP99TimeMs(calculatePercentile(timings, 99));
-        }
-        
-        return result;
+        if (merged == null) {
+            return null;
+        }
+
+        Map<String, MultiBenchmarkResult.PhaseStats> phases = new LinkedHashMap<>();
+        long operations = merged[0].getTotalCount();
+        for (int i = 0; i < phaseCount; i++) {
+            MultiBenchmarkResult.PhaseStats stats = LatencyHistograms.toPhaseStats(merged[i], avgNanos);
+            stats.setCallsPerOperation((double) calls[i] / operations);
+            phases.put(JdbcPhaseTimer.PHASES[i], stats);
+        }
+        phases.put(JdbcPhaseTimer.APPLICATION, LatencyHistograms.toPhaseStats(merged[phaseCount], avgNanos));
+        return phases;
     }
-    
-    private double calculatePercentile(List<Long> sortedTimings, double percentile) {
-        if (sortedTimings.isEmpty()) {
-            return 0.0;
+
+    /**
+     * Samples and counters owned by a single worker thread; merged after the run.
+     * Latencies go into a fixed-size histogram so recording does not allocate.
+     * Open-loop runs also keep the schedule-corrected latencies and the start lag.
+     */
+    private static class WorkerStats {
+        private final int workerId;
+        private final Histogram histogram = LatencyHistograms.newHistogram();
+        private final Histogram correctedHistogram;
+        private final Histogram lagHistogram;
+        private long totalTimeNanos;
+        private int successCount;
+        private int blockedCount;
+        private int errorCount;
+        private long lateStarts;
+        // JDBC phases of successful operations, one histogram per phase plus the remainder
+        private Histogram[] phaseHistograms;
+        private long[] phaseCalls;
+        // Spill targets when the run is captured
+        private final SampleCapture.OperationCapture capture;
+        private final SampleCapture.SampleWriter samples;
+
+        private WorkerStats(int workerId, boolean openLoop, SampleCapture.OperationCapture capture) {
+            this.workerId = workerId;
+            this.capture = capture;
+            this.samples = capture != null ? capture.openWorker(workerId) : null;
+            this.correctedHistogram = openLoop ? LatencyHistograms.newHistogram() : null;
+            this.lagHistogram = openLoop ? LatencyHistograms.newHistogram() : null;
+        }
+
+        private void recordScheduleLag(long lagNanos, double intervalNanos) {
+            LatencyHistograms.record(lagHistogram, lagNanos);
+            if (lagNanos > intervalNanos) {
+                lateStarts++;
+            }
+        }
+
+        private void recordPhases(JdbcPhaseTimer.Capture capture, long elapsed) {
+            if (phaseHistograms == null) {
+                phaseHistograms = new Histogram[JdbcPhaseTimer.PHASES.length + 1];
+                for (int i = 0; i < phaseHistograms.length; i++) {
+                    phaseHistograms[i] = LatencyHistograms.newHistogram();
+                }
+                phaseCalls = new long[JdbcPhaseTimer.PHASES.length];
+            }
+            // Every phase gets a sample per operation, zero when absent, so shares add up
+            for (int i = 0; i < JdbcPhaseTimer.PHASES.length; i++) {
+                LatencyHistograms.record(phaseHistograms[i], capture.nanos(i));
+                phaseCalls[i] += capture.calls(i);
+            }
+            LatencyHistograms.record(phaseHistograms[JdbcPhaseTimer.PHASES.length],
+                    Math.max(0, elapsed - capture.totalNanos()));
+        }
+
+        private MultiBenchmarkResult.WorkerResult toWorkerResult() {
+            MultiBenchmarkResult.WorkerResult result = new MultiBenchmarkResult.WorkerResult();
+            result.setWorkerId(workerId);
+            result.setOperations(successCount + blockedCount + errorCount);
+            result.setErrorCount(errorCount + blockedCount);
+
+            long measured = histogram.getTotalCount();
+            if (measured > 0) {
+                result.setAvgTimeMs((double) totalTimeNanos / measured / 1_000_000.0);
+                result.setOpsPerSecond(measured * 1_000_000_000.0 / totalTimeNanos);
+                result.setP50TimeMs(LatencyHistograms.toMs(histogram.getValueAtPercentile(50)));
+                result.setP99TimeMs(LatencyHistograms.toMs(histogram.getValueAtPercentile(99)));
+            }
+            return result;
         }
-        
-        int index = (int) Math.ceil(percentile / 100.0 * sortedTimings.size()) - 1;
-        index = Math.max(0, Math.min(index, sortedTimings.size() - 1));
-        
-        // Convert nanoseconds to milliseconds
-        return sortedTimings.get(index) / 1_000_000.0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,518 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.dto.SeedRequest;
+import com.mariatitianu.licenta.dto.SeedResult;
+import com.mariatitianu.licenta.service.benchmark.ZipfianGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Generates large synthetic {@code products} and {@code customer_payments} tables with
+ * parallel COPY streams, so benchmarks can run against realistic table sizes.
+ *
+ * Every row is generated from its own random stream, derived from the seed, the table and
+ * the row's position, so a seed always produces the same rows regardless of chunk size and
+ * parallelism. IDs are assigned explicitly from the current maximum, and with
+ * {@code truncate} they start at 1, making the loaded tables identical between runs.
+ * pg_warden does not intercept TRUNCATE, so {@code truncate} is refused for tables it protects.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DataSeederService {
+
+    public static final String PRODUCTS = "products";
+    public static final String PAYMENTS = "customer_payments";
+
+    private static final long MAX_ROWS = 200_000_000L;
+    private static final int MAX_PARALLELISM = 32;
+    private static final int MAX_TEXT_LENGTH = 10_000;
+
+    private static final String PRODUCT_COPY = "COPY products (id, name, category, price, stock_quantity, description) "
+            + "FROM STDIN WITH (FORMAT csv)";
+    private static final String PAYMENT_COPY = "COPY customer_payments "
+            + "(id, customer_name, card_last_four_digits, card_type, amount, payment_date) FROM STDIN WITH (FORMAT csv)";
+    private static final String HAS_WARDEN = "SELECT to_regclass('warden_unprotected_tables') IS NOT NULL";
+    // Locks the rows, so none of the tables gets protected before the TRUNCATE commits
+    private static final String LOCK_UNPROTECTED =
+            "SELECT table_name FROM warden_unprotected_tables WHERE table_name = ANY (?) FOR SHARE";
+
+    // Payment dates count back from here rather than from now, so they do not depend on when the seed ran
+    private static final long PAYMENT_EPOCH_SECONDS = LocalDateTime.of(2025, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private static final long PRODUCT_SALT = 0x5052_4F44_5543_5453L;
+    private static final long PAYMENT_SALT = 0x5041_594D_454E_5453L;
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    private static final String[] CATEGORY_NAMES = {
+            "Electronics", "Furniture", "Books", "Clothing", "Toys", "Garden", "Kitchen", "Sports",
+            "Beauty", "Automotive", "Office", "Music", "Health", "Grocery", "Pets", "Tools"};
+    private static final String[] ADJECTIVES = {
+            "Compact", "Wireless", "Ergonomic", "Premium", "Portable", "Classic", "Smart", "Heavy-Duty",
+            "Adjustable", "Foldable", "Vintage", "Digital", "Organic", "Rechargeable", "Modular", "Ultra"};
+    private static final String[] NOUNS = {
+            "Laptop", "Mouse", "Keyboard", "Monitor", "Desk", "Chair", "Lamp", "Speaker", "Backpack",
+            "Blender", "Kettle", "Drill", "Headphones", "Camera", "Router", "Notebook", "Bottle", "Jacket"};
+    private static final String[] WORDS = {
+            "durable", "lightweight", "design", "with", "and", "for", "everyday", "use", "high", "quality",
+            "materials", "battery", "steel", "aluminium", "cotton", "includes", "warranty", "easy", "to",
+            "clean", "setup", "performance", "fast", "charging", "home", "office", "travel", "outdoor",
+            "compatible", "standard", "premium", "finish", "black", "white", "silver", "edition"};
+    private static final String[] FIRST_NAMES = {
+            "John", "Jane", "Bob", "Alice", "Maria", "Andrei", "Elena", "Mihai", "Ioana", "David",
+            "Sarah", "Michael", "Laura", "Alex", "Ana", "Radu", "Emma", "Daniel", "Sofia", "Paul"};
+    private static final String[] LAST_NAMES = {
+            "Doe", "Smith", "Wilson", "Brown", "Popescu", "Ionescu", "Popa", "Dumitru", "Stan", "Johnson",
+            "Miller", "Davis", "Garcia", "Stoica", "Marin", "Tudor", "Moore", "Taylor", "Anderson", "Lazar"};
+    private static final String[] CARD_TYPES = {"VISA", "MasterCard", "AMEX", "Discover"};
+    private static final int[] CARD_TYPE_WEIGHTS = {50, 30, 15, 5};
+
+    private final DataSource dataSource;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SeedResult seed(SeedRequest request) {
+        validate(request);
+        if (!running.compareAndSet(false, true)) {
+            throw new AlreadyRunningException();
+        }
+
+        int parallelism = Math.min(request.getParallelism(), availableConnections());
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            long start = System.nanoTime();
+            log.info("Seeding {} products and {} payments (seed {}, {} COPY streams)",
+                    request.getProducts(), request.getPayments(), request.getSeed(), parallelism);
+
+            if (request.isTruncate()) {
+                truncate(request);
+            }
+
+            Map<String, SeedResult.TableResult> tables = new LinkedHashMap<>();
+            if (request.getProducts() > 0) {
+                tables.put(PRODUCTS, load(PRODUCTS, PRODUCT_COPY, request.getProducts(),
+                        new ProductRows(request), request, executor));
+            }
+            if (request.getPayments() > 0) {
+                tables.put(PAYMENTS, load(PAYMENTS, PAYMENT_COPY, request.getPayments(),
+                        new PaymentRows(request), request, executor));
+            }
+
+            SeedResult result = new SeedResult();
+            result.setSeed(request.getSeed());
+            result.setTables(tables);
+            result.setDurationMs((System.nanoTime() - start) / 1_000_000.0);
+            log.info("Seeding finished in {} ms", Math.round(result.getDurationMs()));
+            return result;
+        } finally {
+            executor.shutdownNow();
+            running.set(false);
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    void validate(SeedRequest request) {
+        if (request.getProducts() < 0 || request.getProducts() > MAX_ROWS
+                || request.getPayments() < 0 || request.getPayments() > MAX_ROWS) {
+            throw new IllegalArgumentException("products and payments must be between 0 and " + MAX_ROWS);
+        }
+        if (request.getCategories() < 1 || request.getCustomers() < 1) {
+            throw new IllegalArgumentException("categories and customers must be at least 1");
+        }
+        if (request.getCategorySkew() < 0 || request.getCategorySkew() >= 1
+                || request.getCustomerSkew() < 0 || request.getCustomerSkew() >= 1) {
+            throw new IllegalArgumentException("categorySkew and customerSkew must be in [0, 1); 0 means uniform");
+        }
+        if (request.getDescriptionMinLength() < 0
+                || request.getDescriptionMaxLength() < request.getDescriptionMinLength()
+                || request.getDescriptionMaxLength() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("description lengths must satisfy 0 <= min <= max <= " + MAX_TEXT_LENGTH);
+        }
+        if (request.getPaymentDays() < 1) {
+            throw new IllegalArgumentException("paymentDays must be at least 1");
+        }
+        if (request.getParallelism() < 1 || request.getParallelism() > MAX_PARALLELISM) {
+            throw new IllegalArgumentException("parallelism must be between 1 and " + MAX_PARALLELISM);
+        }
+        if (request.getChunkSize() < 1) {
+            throw new IllegalArgumentException("chunkSize must be at least 1");
+        }
+    }
+
+    /**
+     * Streams the table in chunks of {@code chunkSize} rows, one COPY per chunk, spread over the executor.
+     */
+    private SeedResult.TableResult load(String table, String copySql, long rows, RowWriter writer,
+                                        SeedRequest request, ExecutorService executor) {
+        long start = System.nanoTime();
+        long firstId = queryLong("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table);
+        long baseSeed = mix(request.getSeed() ^ (PRODUCTS.equals(table) ? PRODUCT_SALT : PAYMENT_SALT));
+
+        // Set on failure: chunks that have not started yet skip their COPY
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Future<Long>> chunks = new ArrayList<>();
+        for (long from = 0; from < rows; from += request.getChunkSize()) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(rows, from + request.getChunkSize());
+            chunks.add(executor.submit(() -> failed.get() ? 0L
+                    : copyChunk(copySql, writer, chunkFrom, chunkTo, firstId, baseSeed)));
+        }
+
+        long written = 0;
+        try {
+            for (Future<Long> chunk : chunks) {
+                written += chunk.get();
+            }
+        } catch (ExecutionException e) {
+            failed.set(true);
+            // Chunks already committed stay; wait for the running ones so none commits after the sequence is set
+            awaitChunks(chunks);
+            syncSequenceAfterFailure(table);
+            throw new IllegalStateException("Seeding " + table + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            failed.set(true);
+            chunks.forEach(chunk -> chunk.cancel(true));
+            Thread.currentThread().interrupt();
+            syncSequenceAfterFailure(table);
+            throw new IllegalStateException("Seeding " + table + " interrupted", e);
+        }
+
+        long lastId = firstId + rows - 1;
+        syncSequence(table);
+        if (request.isAnalyze()) {
+            execute("ANALYZE " + table);
+        }
+
+        SeedResult.TableResult result = new SeedResult.TableResult();
+        result.setRows(written);
+        result.setFirstId(firstId);
+        result.setLastId(lastId);
+        result.setChunks(chunks.size());
+        result.setDurationMs((System.nanoTime() - start) / 1_000_000.0);
+        result.setRowsPerSecond(written * 1000.0 / Math.max(1, result.getDurationMs()));
+        result.setTableSizeBytes(queryLong("SELECT pg_total_relation_size('" + table + "')"));
+        log.info("Seeded {} rows into {} in {} ms", written, table, Math.round(result.getDurationMs()));
+        return result;
+    }
+
+    private static void awaitChunks(List<Future<Long>> chunks) {
+        for (Future<Long> chunk : chunks) {
+            try {
+                chunk.get();
+            } catch (ExecutionException e) {
+                // Reported through the first failure
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Keeps the serial sequence ahead of the explicit IDs so regular inserts do not collide
+    private void syncSequence(String table) {
+        execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                + "(SELECT COALESCE(MAX(id), 0) + 1 FROM " + table + "), false)");
+    }
+
+    // Whatever chunks committed before a failure are kept, so the sequence still has to move past them
+    private void syncSequenceAfterFailure(String table) {
+        try {
+            syncSequence(table);
+        } catch (RuntimeException e) {
+            log.warn("Could not move the {} id sequence past the seeded rows: {}", table, e.getMessage());
+        }
+    }
+
+    private long copyChunk(String copySql, RowWriter writer, long from, long to, long firstId, long baseSeed)
+            throws SQLException, IOException {
+        try (Connection conn = dataSource.getConnection()) {
+            PGCopyOutputStream copy = new PGCopyOutputStream(conn.unwrap(PGConnection.class), copySql,
+                    COPY_BUFFER_BYTES);
+            Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), COPY_BUFFER_BYTES);
+            StringBuilder row = new StringBuilder(512);
+            try {
+                for (long index = from; index < to; index++) {
+                    row.setLength(0);
+                    writer.write(firstId + index, new SplittableRandom(baseSeed + index), row);
+                    out.append(row);
+                }
+                // Closing the stream ends the COPY, which commits the chunk
+                out.close();
+            } catch (IOException | RuntimeException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e;
+            }
+            return to - from;
+        }
+    }
+
+    private void truncate(SeedRequest request) {
+        List<String> tables = new ArrayList<>();
+        if (request.getProducts() > 0) {
+            tables.add(PRODUCTS);
+        }
+        if (request.getPayments() > 0) {
+            tables.add(PAYMENTS);
+        }
+        if (tables.isEmpty()) {
+            return;
+        }
+
+        String sql = "TRUNCATE " + String.join(", ", tables) + " RESTART IDENTITY";
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                List<String> protectedTables = findProtected(conn, tables);
+                if (!protectedTables.isEmpty()) {
+                    throw new IllegalArgumentException("truncate is not allowed on tables pg_warden protects: "
+                            + String.join(", ", protectedTables) + "; unprotect them first or seed without truncate");
+                }
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(sql);
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error running " + sql, e);
+        }
+    }
+
+    // Tables pg_warden protects: every table not listed as unprotected, none without pg_warden
+    private static List<String> findProtected(Connection conn, List<String> tables) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(HAS_WARDEN)) {
+            rs.next();
+            if (!rs.getBoolean(1)) {
+                return List.of();
+            }
+        }
+        Set<String> unprotected = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(LOCK_UNPROTECTED)) {
+            ps.setArray(1, conn.createArrayOf("text", tables.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    unprotected.add(rs.getString(1));
+                }
+            }
+        }
+        return tables.stream().filter(table -> !unprotected.contains(table)).toList();
+    }
+
+    /**
+     * COPY streams beyond the pool size would only queue for a connection; one is left for everything else.
+     */
+    private int availableConnections() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return Math.max(1, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() - 1);
+            }
+        } catch (SQLException e) {
+            log.debug("Could not read the connection pool size: {}", e.getMessage());
+        }
+        return MAX_PARALLELISM;
+    }
+
+    private long queryLong(String sql) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error running " + sql, e);
+        }
+    }
+
+    private void execute(String sql) {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error running " + sql, e);
+        }
+    }
+
+    /**
+     * Thrown by {@link #seed} while another seeding run is in progress.
+     */
+    public static class AlreadyRunningException extends RuntimeException {
+        public AlreadyRunningException() {
+            super("A seeding run is already in progress");
+        }
+    }
+
+    /**
+     * Appends the CSV line for one row, newline included.
+     */
+    private interface RowWriter {
+        void write(long id, SplittableRandom random, StringBuilder row);
+    }
+
+    private static final class ProductRows implements RowWriter {
+        private final int categories;
+        private final ZipfianGenerator categoryDistribution;
+        private final int descriptionMin;
+        private final int descriptionMax;
+
+        private ProductRows(SeedRequest request) {
+            this.categories = request.getCategories();
+            this.categoryDistribution = request.getCategorySkew() > 0
+                    ? new ZipfianGenerator(categories, request.getCategorySkew())
+                    : null;
+            this.descriptionMin = request.getDescriptionMinLength();
+            this.descriptionMax = request.getDescriptionMaxLength();
+        }
+
+        @Override
+        public void write(long id, SplittableRandom random, StringBuilder row) {
+            int category = categoryDistribution != null
+                    ? (int) categoryDistribution.rank(random.nextDouble())
+                    : random.nextInt(categories);
+
+            row.append(id).append(",\"")
+               .append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]).append(' ')
+               .append(NOUNS[random.nextInt(NOUNS.length)]).append(' ')
+               .append((char) ('A' + random.nextInt(26))).append(100 + random.nextInt(900)).append("\",\"")
+               .append(CATEGORY_NAMES[category % CATEGORY_NAMES.length]);
+            if (category >= CATEGORY_NAMES.length) {
+                row.append(' ').append(category / CATEGORY_NAMES.length + 1);
+            }
+            row.append("\",");
+
+            // Each category has its own price level, individual prices are log-normal around it
+            double basePrice = 5.0 * (1 + (category * 37L) % 60);
+            appendMoney(row, basePrice * Math.exp(0.4 * random.nextGaussian()));
+            row.append(',');
+            row.append(random.nextInt(20) == 0 ? 0 : random.nextInt(1000)).append(",\"");
+            appendText(row, random, descriptionMin, descriptionMax);
+            row.append("\"\n");
+        }
+    }
+
+    private static final class PaymentRows implements RowWriter {
+        private final int customers;
+        private final ZipfianGenerator customerDistribution;
+        private final long paymentSeconds;
+
+        private PaymentRows(SeedRequest request) {
+            this.customers = request.getCustomers();
+            this.customerDistribution = request.getCustomerSkew() > 0
+                    ? new ZipfianGenerator(customers, request.getCustomerSkew())
+                    : null;
+            this.paymentSeconds = request.getPaymentDays() * 86_400L;
+        }
+
+        @Override
+        public void write(long id, SplittableRandom random, StringBuilder row) {
+            long customer = customerDistribution != null
+                    ? customerDistribution.rank(random.nextDouble())
+                    : random.nextInt(customers);
+
+            row.append(id).append(",\"");
+            appendCustomerName(row, customer);
+            row.append("\",");
+            int lastFour = random.nextInt(10_000);
+            row.append(lastFour < 1000 ? (lastFour < 100 ? (lastFour < 10 ? "000" : "00") : "0") : "")
+               .append(lastFour).append(',')
+               .append(pickCardType(random)).append(',');
+            appendMoney(row, Math.exp(3.5 + random.nextGaussian()));
+            row.append(',');
+            LocalDateTime paidAt = LocalDateTime.ofEpochSecond(
+                    PAYMENT_EPOCH_SECONDS - 1 - random.nextLong(paymentSeconds), 0, ZoneOffset.UTC);
+            row.append(paidAt).append('\n');
+        }
+    }
+
+    /**
+     * Customer names are unique per customer: first and last name from the lists, with a
+     * number once the combinations run out.
+     */
+    private static void appendCustomerName(StringBuilder row, long customer) {
+        int combinations = FIRST_NAMES.length * LAST_NAMES.length;
+        row.append(FIRST_NAMES[(int) (customer % FIRST_NAMES.length)]).append(' ')
+           .append(LAST_NAMES[(int) ((customer / FIRST_NAMES.length) % LAST_NAMES.length)]);
+        if (customer >= combinations) {
+            row.append(' ').append(customer / combinations + 1);
+        }
+    }
+
+    private static String pickCardType(SplittableRandom random) {
+        int pick = random.nextInt(100);
+        for (int i = 0; i < CARD_TYPES.length; i++) {
+            pick -= CARD_TYPE_WEIGHTS[i];
+            if (pick < 0) {
+                return CARD_TYPES[i];
+            }
+        }
+        return CARD_TYPES[0];
+    }
+
+    // DECIMAL(10,2): between 0.01 and 99,999,999.99
+    private static void appendMoney(StringBuilder row, double amount) {
+        long cents = Math.max(1, Math.min(9_999_999_999L, Math.round(amount * 100)));
+        row.append(cents / 100).append('.');
+        long fraction = cents % 100;
+        if (fraction < 10) {
+            row.append('0');
+        }
+        row.append(fraction);
+    }
+
+    private static void appendText(StringBuilder row, SplittableRandom random, int min, int max) {
+        int length = min + random.nextInt(max - min + 1);
+        int start = row.length();
+        while (row.length() - start < length) {
+            if (row.length() > start) {
+                row.append(' ');
+            }
+            row.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        row.setLength(start + length);
+    }
+
+    // SplitMix64 finalizer, spreads the seed before per-row offsets are added
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
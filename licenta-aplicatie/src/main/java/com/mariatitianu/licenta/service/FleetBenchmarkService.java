@@ -0,0 +1,303 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.config.BenchmarkProperties;
+import com.mariatitianu.licenta.dto.FleetRequest;
+import com.mariatitianu.licenta.dto.FleetResult;
+import com.mariatitianu.licenta.dto.MultiBenchmarkRequest;
+import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkRunContext;
+import com.mariatitianu.licenta.service.benchmark.LatencyHistograms;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one benchmark spec on several backend variants (jpa/jdbc x warden-admin/warden-user/vanilla)
+ * through their own {@code POST /api/benchmark/run} and lines the results up as a matrix of
+ * throughput and percentiles per backend and operation.
+ *
+ * The variants share one PostgreSQL server, so STAGGERED (one backend after another) is the
+ * default; PARALLEL starts them all at once and measures them under each other's load.
+ *
+ * Only the backends configured in benchmark.fleet.backends can be targeted, by name, so the
+ * endpoint cannot be pointed at arbitrary URLs. Runs take as long as all the backends' benchmarks
+ * together and are submitted as jobs through {@link BenchmarkJobService}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FleetBenchmarkService {
+
+    public static final String MODE_PARALLEL = "PARALLEL";
+    public static final String MODE_STAGGERED = "STAGGERED";
+
+    private static final String RUN_PATH = "/api/benchmark/run";
+    private static final int MAX_STAGGER_SECONDS = 3600;
+
+    private final BenchmarkService benchmarkService;
+    private final BenchmarkProperties properties;
+    private final RestClient.Builder restClientBuilder;
+
+    public Map<String, String> getBackends() {
+        return properties.getFleet().getBackends();
+    }
+
+    public FleetResult run(FleetRequest request, BenchmarkRunContext context) {
+        Map<String, String> backends = resolveBackends(request);
+        String mode = request.getMode() != null ? request.getMode().toUpperCase() : MODE_STAGGERED;
+        validate(request, backends, mode);
+
+        String baseline = request.getBaseline() != null ? request.getBaseline() : properties.getFleet().getBaseline();
+        if (baseline != null && !backends.containsKey(baseline)) {
+            baseline = null;
+        }
+        int timeoutSeconds = request.getTimeoutSeconds() != null
+                ? request.getTimeoutSeconds()
+                : properties.getFleet().getTimeoutSeconds();
+        RestClient client = newClient(timeoutSeconds);
+
+        long startTime = System.nanoTime();
+        Map<String, FleetResult.BackendRun> runs = new LinkedHashMap<>();
+        if (MODE_PARALLEL.equals(mode)) {
+            context.setCurrentOperation(String.join(",", backends.keySet()));
+            ExecutorService executor = Executors.newFixedThreadPool(backends.size());
+            try {
+                Map<String, Future<FleetResult.BackendRun>> futures = new LinkedHashMap<>();
+                backends.forEach((name, url) -> futures.put(name,
+                        executor.submit(() -> runBackend(client, name, url, request.getBenchmark(), startTime))));
+                for (Map.Entry<String, Future<FleetResult.BackendRun>> entry : futures.entrySet()) {
+                    runs.put(entry.getKey(), await(entry.getValue(), backends.get(entry.getKey())));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            // A cancelled job stops between backends; a backend's own run cannot be interrupted from here
+            for (Map.Entry<String, String> backend : backends.entrySet()) {
+                if (context.isCancelled()) {
+                    break;
+                }
+                if (!runs.isEmpty() && request.getStaggerSeconds() > 0) {
+                    try {
+                        Thread.sleep(request.getStaggerSeconds() * 1000L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                context.setCurrentOperation(backend.getKey());
+                runs.put(backend.getKey(),
+                        runBackend(client, backend.getKey(), backend.getValue(), request.getBenchmark(), startTime));
+            }
+        }
+
+        FleetResult result = new FleetResult();
+        result.setMode(mode);
+        result.setBaseline(baseline);
+        result.setBackends(runs);
+        result.setOperations(collectOperations(request.getBenchmark(), runs.values()));
+        result.setMatrix(buildMatrix(runs, result.getOperations(), baseline));
+        if (!request.isIncludeResults()) {
+            runs.values().forEach(run -> run.setResult(null));
+        }
+        result.setTotalTimeMs(LatencyHistograms.toMs(System.nanoTime() - startTime));
+        return result;
+    }
+
+    /**
+     * Rejects the request before it is queued as a job.
+     */
+    public void validate(FleetRequest request) {
+        String mode = request.getMode() != null ? request.getMode().toUpperCase() : MODE_STAGGERED;
+        validate(request, resolveBackends(request), mode);
+    }
+
+    // The configured backends, restricted to the requested names in request order
+    private Map<String, String> resolveBackends(FleetRequest request) {
+        Map<String, String> configured = properties.getFleet().getBackends();
+        if (request.getBackends() == null || request.getBackends().isEmpty()) {
+            return configured;
+        }
+        Map<String, String> backends = new LinkedHashMap<>();
+        for (String name : request.getBackends()) {
+            String url = configured.get(name);
+            if (url == null) {
+                throw new IllegalArgumentException("Unknown backend " + name + "; configured: " + configured.keySet());
+            }
+            backends.put(name, url);
+        }
+        return backends;
+    }
+
+    private void validate(FleetRequest request, Map<String, String> backends, String mode) {
+        if (request.getBenchmark() == null) {
+            throw new IllegalArgumentException("benchmark is required");
+        }
+        // Rejected here rather than six times over with an empty 400 from every backend
+        benchmarkService.validateRequest(request.getBenchmark());
+        if (backends == null || backends.isEmpty()) {
+            throw new IllegalArgumentException("No backends configured in benchmark.fleet.backends");
+        }
+        if (!MODE_PARALLEL.equals(mode) && !MODE_STAGGERED.equals(mode)) {
+            throw new IllegalArgumentException("mode must be PARALLEL or STAGGERED");
+        }
+        if (request.getStaggerSeconds() < 0 || request.getStaggerSeconds() > MAX_STAGGER_SECONDS) {
+            throw new IllegalArgumentException("staggerSeconds must be between 0 and " + MAX_STAGGER_SECONDS);
+        }
+        if (request.getTimeoutSeconds() != null && request.getTimeoutSeconds() <= 0) {
+            throw new IllegalArgumentException("timeoutSeconds must be positive");
+        }
+        if (request.getBaseline() != null && !backends.containsKey(request.getBaseline())) {
+            throw new IllegalArgumentException("Baseline " + request.getBaseline() + " is not one of the backends");
+        }
+    }
+
+    private RestClient newClient(int timeoutSeconds) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(properties.getFleet().getConnectTimeoutSeconds()))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofSeconds(timeoutSeconds));
+        return restClientBuilder.clone().requestFactory(requestFactory).build();
+    }
+
+    private FleetResult.BackendRun runBackend(RestClient client, String name, String url,
+                                              MultiBenchmarkRequest benchmark, long fleetStartNanos) {
+        FleetResult.BackendRun run = new FleetResult.BackendRun();
+        run.setUrl(url);
+        long start = System.nanoTime();
+        run.setStartOffsetMs(LatencyHistograms.toMs(start - fleetStartNanos));
+        log.info("Fleet benchmark: running on {} ({})", name, url);
+
+        try {
+            MultiBenchmarkResult result = client.post()
+                    .uri(stripTrailingSlash(url) + RUN_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(benchmark)
+                    .retrieve()
+                    .body(MultiBenchmarkResult.class);
+            run.setStatus("COMPLETED");
+            run.setResult(result);
+            run.setRunId(result != null ? result.getRunId() : null);
+        } catch (RestClientResponseException e) {
+            log.warn("Fleet benchmark on {} failed with HTTP {}", name, e.getStatusCode().value());
+            run.setStatus("FAILED");
+            run.setError("HTTP " + e.getStatusCode().value() + " from " + url);
+        } catch (Exception e) {
+            log.warn("Fleet benchmark on {} failed: {}", name, e.getMessage());
+            run.setStatus("FAILED");
+            run.setError(e.getMessage());
+        }
+        run.setDurationMs(LatencyHistograms.toMs(System.nanoTime() - start));
+        return run;
+    }
+
+    private FleetResult.BackendRun await(Future<FleetResult.BackendRun> future, String url) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failedRun(url, "Interrupted");
+        } catch (ExecutionException e) {
+            return failedRun(url, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+    }
+
+    private static FleetResult.BackendRun failedRun(String url, String error) {
+        FleetResult.BackendRun run = new FleetResult.BackendRun();
+        run.setUrl(url);
+        run.setStatus("FAILED");
+        run.setError(error);
+        return run;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Requested operations in request order, then anything else the backends reported (e.g. the workload).
+     */
+    private static List<String> collectOperations(MultiBenchmarkRequest benchmark,
+                                                  Collection<FleetResult.BackendRun> runs) {
+        Set<String> operations = new LinkedHashSet<>();
+        if (benchmark.getOperations() != null) {
+            operations.addAll(benchmark.getOperations());
+        }
+        for (FleetResult.BackendRun run : runs) {
+            if (run.getResult() != null && run.getResult().getOperationResults() != null) {
+                operations.addAll(run.getResult().getOperationResults().keySet());
+            }
+        }
+        return new ArrayList<>(operations);
+    }
+
+    private static List<FleetResult.MatrixCell> buildMatrix(Map<String, FleetResult.BackendRun> runs,
+                                                           List<String> operations, String baseline) {
+        List<FleetResult.MatrixCell> matrix = new ArrayList<>();
+        Map<String, FleetResult.MatrixCell> baselineCells = new HashMap<>();
+        for (Map.Entry<String, FleetResult.BackendRun> entry : runs.entrySet()) {
+            for (String operation : operations) {
+                FleetResult.MatrixCell cell = toCell(entry.getKey(), operation, entry.getValue());
+                matrix.add(cell);
+                if (entry.getKey().equals(baseline) && cell.getError() == null) {
+                    baselineCells.put(operation, cell);
+                }
+            }
+        }
+
+        for (FleetResult.MatrixCell cell : matrix) {
+            FleetResult.MatrixCell base = baselineCells.get(cell.getOperation());
+            if (base == null || cell.getError() != null) {
+                continue;
+            }
+            cell.setRelativeOpsPerSecond(ratio(cell.getOpsPerSecond(), base.getOpsPerSecond()));
+            cell.setRelativeP50(ratio(cell.getP50TimeMs(), base.getP50TimeMs()));
+            cell.setRelativeP99(ratio(cell.getP99TimeMs(), base.getP99TimeMs()));
+        }
+        return matrix;
+    }
+
+    private static FleetResult.MatrixCell toCell(String backend, String operation, FleetResult.BackendRun run) {
+        FleetResult.MatrixCell cell = new FleetResult.MatrixCell();
+        cell.setBackend(backend);
+        cell.setOperation(operation);
+
+        MultiBenchmarkResult.OperationResult op = run.getResult() != null && run.getResult().getOperationResults() != null
+                ? run.getResult().getOperationResults().get(operation)
+                : null;
+        if (op == null) {
+            cell.setError(run.getError() != null ? run.getError() : "Not reported by backend");
+            return cell;
+        }
+        cell.setError(op.getError());
+        // Throughput across all of the backend's clients, which is what the variants are compared on
+        cell.setOpsPerSecond(op.getAggregateOpsPerSecond() > 0 ? op.getAggregateOpsPerSecond() : op.getOpsPerSecond());
+        cell.setAvgTimeMs(op.getAvgTimeMs());
+        cell.setP50TimeMs(op.getP50TimeMs());
+        cell.setP95TimeMs(op.getP95TimeMs());
+        cell.setP99TimeMs(op.getP99TimeMs());
+        cell.setP999TimeMs(op.getP999TimeMs());
+        cell.setMaxTimeMs(op.getMaxTimeMs());
+        cell.setSuccessCount(op.getSuccessCount());
+        cell.setBlockedCount(op.getBlockedCount());
+        cell.setErrorCount(op.getErrorCount());
+        return cell;
+    }
+
+    private static Double ratio(double value, double baseline) {
+        return baseline > 0 ? value / baseline : null;
+    }
+}
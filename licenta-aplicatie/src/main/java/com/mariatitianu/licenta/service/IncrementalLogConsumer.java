@@ -0,0 +1,171 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.repository.LogExportRepository;
+import com.mariatitianu.licenta.repository.LogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A summary of the whole operation log kept current without rereading it: the log is streamed
+ * once, from a cursor, in the background once the application is up; after that the summary only
+ * grows by the batches {@link OperationLogCache} reads anyway, plus a catch-up query for anything
+ * logged since. A request arriving before the scan is done waits for it, and if the scan failed
+ * (e.g. the database was not up yet) the first request runs it again.
+ *
+ * The initial scan fills a fresh summary without holding this consumer's monitor, so the cache
+ * refresher handing its batches to {@link #append} is never stuck behind it; batches arriving
+ * during the scan are dropped and fetched again by the catch-up that follows it. Everything else
+ * counts into the summary under the monitor, and subclasses read it under the monitor too unless
+ * the summary is safe to read concurrently.
+ */
+@Slf4j
+public abstract class IncrementalLogConsumer<S extends IncrementalLogConsumer.Summary> {
+
+    // Entries fetched per catch-up query
+    private static final int BATCH_LIMIT = 1000;
+
+    private final LogRepository logRepository;
+    private final LogExportRepository logExportRepository;
+    private final OperationLogCache operationLogCache;
+    private final String name;
+    // Held for the initial scan, so concurrent first requests scan once
+    private final Object loadLock = new Object();
+
+    // Null until the initial scan is done
+    private volatile S summary;
+
+    protected IncrementalLogConsumer(LogRepository logRepository, LogExportRepository logExportRepository,
+                                     OperationLogCache operationLogCache, String name) {
+        this.logRepository = logRepository;
+        this.logExportRepository = logExportRepository;
+        this.operationLogCache = operationLogCache;
+        this.name = name;
+
+        operationLogCache.addListener(new OperationLogCache.Listener() {
+            @Override
+            public void onAppend(List<LogService.OperationLog> batch, long position) {
+                append(batch);
+            }
+
+            // Queries catch up on their own, so an idle dashboard need not keep the cache busy
+            @Override
+            public boolean wantsUpdates() {
+                return false;
+            }
+        });
+    }
+
+    protected abstract S newSummary();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                load();
+            } catch (RuntimeException e) {
+                log.warn("Could not summarize the operation log for {} at startup, retrying on first use: {}",
+                        name, e.getMessage());
+            }
+        }, "log-" + name.replace(' ', '-') + "-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The summary, brought up to the end of the log.
+     */
+    protected S current() {
+        S current = summary;
+        if (current == null) {
+            current = load();
+        }
+        // Outside our lock: a cache refresh hands its batch to append(), which takes it
+        long latest = operationLogCache.currentPosition();
+        synchronized (this) {
+            if (latest < 0 || current.getPosition() < latest) {
+                catchUp(current);
+                current.compact();
+            }
+        }
+        return current;
+    }
+
+    private S load() {
+        synchronized (loadLock) {
+            if (summary != null) {
+                return summary;
+            }
+            long started = System.nanoTime();
+            S scanned = newSummary();
+            logExportRepository.streamOperations(null, null, null, null, null, null,
+                    row -> scanned.add(row.getPosition(), row.getOperationTime(), row.getOperationType(),
+                            row.getTableName(), row.getUserName(), row.getQueryText(), row.getStatus()));
+            scanned.compact();
+            summary = scanned;
+            log.info("Summarized the operation log for {} up to position {} in {} ms", name, scanned.getPosition(),
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+            return scanned;
+        }
+    }
+
+    private synchronized void append(List<LogService.OperationLog> batch) {
+        S current = summary;
+        if (current == null || batch.isEmpty()) {
+            // The initial scan, or the catch-up after it, counts these
+            return;
+        }
+        if (batch.get(0).getPosition() > current.getPosition() + 1) {
+            catchUp(current);
+        }
+        batch.forEach(current::add);
+        current.compact();
+    }
+
+    private void catchUp(S current) {
+        List<LogService.OperationLog> batch;
+        do {
+            batch = logRepository.findOperationsAfter(current.getPosition(), BATCH_LIMIT).stream()
+                    .map(LogService::mapToOperationLog)
+                    .collect(Collectors.toList());
+            batch.forEach(current::add);
+        } while (batch.size() == BATCH_LIMIT);
+    }
+
+    /**
+     * What a consumer keeps of the log; each entry is counted once, in log order.
+     */
+    protected abstract static class Summary {
+        // Written by one thread at a time, read by any
+        private volatile long position;
+
+        public long getPosition() {
+            return position;
+        }
+
+        protected abstract void count(long entryPosition, String operationTime, String operationType,
+                                      String tableName, String userName, String queryText, String status);
+
+        // After every batch, e.g. to drop what has aged out
+        protected void compact() {
+        }
+
+        final void add(LogService.OperationLog entry) {
+            add(entry.getPosition(), entry.getOperationTime(), entry.getOperationType(), entry.getTableName(),
+                    entry.getUserName(), entry.getQueryText(), entry.getStatus());
+        }
+
+        final void add(long entryPosition, String operationTime, String operationType, String tableName,
+                       String userName, String queryText, String status) {
+            if (entryPosition <= position) {
+                return;
+            }
+            position = entryPosition;
+            count(entryPosition, operationTime, operationType, tableName, userName, queryText, status);
+        }
+    }
+}
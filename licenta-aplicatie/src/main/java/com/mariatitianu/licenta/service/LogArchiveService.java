@@ -0,0 +1,168 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.dto.LogSegment;
+import com.mariatitianu.licenta.repository.LogArchiveRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rotation, retention and management of pg_warden's log archive. The extension never rotates
+ * the live log while writing to it; every {@code logs.archive.rotate-check-seconds} this asks it
+ * to archive the log if it has reached pg_warden.rotation_size or rotation_age. Segments older
+ * than {@code logs.archive.retention-days} are deleted here once every entry in them has been
+ * ingested into warden_operations, so retention never removes an entry the log endpoints could
+ * not show any more. 0 disables either. The scheduled checks skip backends whose database user
+ * may not rotate the log or drop segments.
+ */
+@Service
+@Slf4j
+public class LogArchiveService {
+
+    private final LogArchiveRepository logArchiveRepository;
+    private final int retentionDays;
+    private final ScheduledExecutorService scheduler;
+
+    public LogArchiveService(LogArchiveRepository logArchiveRepository,
+                             @Value("${logs.archive.retention-days:0}") int retentionDays,
+                             @Value("${logs.archive.retention-check-minutes:60}") long checkMinutes,
+                             @Value("${logs.archive.rotate-check-seconds:60}") long rotateCheckSeconds) {
+        this.logArchiveRepository = logArchiveRepository;
+        this.retentionDays = Math.max(retentionDays, 0);
+        if (this.retentionDays == 0 && rotateCheckSeconds <= 0) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (rotateCheckSeconds > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::scheduledRotation, rotateCheckSeconds, rotateCheckSeconds,
+                    TimeUnit.SECONDS);
+        }
+        if (this.retentionDays > 0) {
+            this.scheduler.scheduleWithFixedDelay(this::scheduledRetention, checkMinutes, checkMinutes,
+                    TimeUnit.MINUTES);
+        }
+    }
+
+    public Map<String, Object> getArchive() {
+        Map<String, Object> archive = new LinkedHashMap<>();
+        boolean available = logArchiveRepository.isAvailable();
+        archive.put("available", available);
+        archive.put("retentionDays", retentionDays);
+        if (!available) {
+            return archive;
+        }
+        Long ingested = logArchiveRepository.findIngestedPosition();
+        List<LogSegment> segments = logArchiveRepository.findSegments();
+        long archivedRows = 0;
+        long rawBytes = 0;
+        long compressedBytes = 0;
+        int archived = 0;
+        for (LogSegment segment : segments) {
+            segment.setIngested(ingested != null && segment.getFirstPosition() + segment.getRowCount() <= ingested);
+            if (segment.getCompressedBytes() != null) {
+                archived++;
+                archivedRows += segment.getRowCount();
+                rawBytes += segment.getRawBytes();
+                compressedBytes += segment.getCompressedBytes();
+            }
+        }
+        archive.put("canManage", logArchiveRepository.canManage());
+        archive.put("ingestedPosition", ingested);
+        archive.put("archivedSegments", archived);
+        archive.put("archivedRows", archivedRows);
+        archive.put("rawBytes", rawBytes);
+        archive.put("compressedBytes", compressedBytes);
+        archive.put("compressionRatio", compressedBytes > 0 ? (double) rawBytes / compressedBytes : null);
+        archive.put("segments", segments);
+        return archive;
+    }
+
+    /**
+     * Archives the live log now; returns the entries archived.
+     */
+    public long rotate() {
+        requireManage();
+        long rows = logArchiveRepository.rotate();
+        log.info("Rotated the operation log: {} entries archived", rows);
+        return rows;
+    }
+
+    /**
+     * Deletes the ingested segments whose entries are all older than {@code days} (the configured
+     * retention if null).
+     */
+    public Map<String, Object> applyRetention(Integer days) {
+        int effectiveDays = days != null ? days : retentionDays;
+        if (effectiveDays < 1) {
+            throw new IllegalArgumentException("days must be at least 1");
+        }
+        requireManage();
+        Instant before = Instant.now().truncatedTo(ChronoUnit.SECONDS).minus(Duration.ofDays(effectiveDays));
+        Long ingested = logArchiveRepository.findIngestedPosition();
+        int dropped = logArchiveRepository.dropSegments(before.toString(), ingested != null ? ingested : 0);
+        if (dropped > 0) {
+            log.info("Dropped {} operation log segments older than {}", dropped, before);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("before", before.toString());
+        result.put("ingestedPosition", ingested);
+        result.put("droppedSegments", dropped);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void requireManage() {
+        if (!logArchiveRepository.isAvailable()) {
+            throw new IllegalStateException("pg_warden does not archive its log in this database");
+        }
+        if (!logArchiveRepository.canManage()) {
+            throw new IllegalStateException("Only warden_admin members can rotate the log or drop segments");
+        }
+    }
+
+    private void scheduledRotation() {
+        try {
+            if (logArchiveRepository.canManage()) {
+                long rows = logArchiveRepository.rotateIfDue();
+                if (rows > 0) {
+                    log.info("Rotated the operation log: {} entries archived", rows);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Rotating the operation log failed: {}", e.getMessage());
+        }
+    }
+
+    private void scheduledRetention() {
+        try {
+            if (logArchiveRepository.canManage()) {
+                applyRetention(null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Applying the operation log retention failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mariatitianu.licenta.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mariatitianu.licenta.repository.LogExportRepository;
+import com.mariatitianu.licenta.repository.LogExportRepository.ExportRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the operation log straight from a database cursor to the response as CSV or NDJSON,
+ * optionally gzipped. Each row is written and dropped before the next is read, so heap use
+ * does not grow with the size of the log.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LogExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String CSV_HEADER =
+            "position,operation_time,operation_type,table_name,user_name,session_pid,status,blocked_reason,query_text\n";
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private final LogExportRepository logExportRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Checks the request before the response is committed; the export itself can no longer
+     * turn into a 400 once streaming started.
+     */
+    public void validate(String format, LogService.LogFilter filter) {
+        if (!FORMAT_CSV.equals(format) && !FORMAT_NDJSON.equals(format)) {
+            throw new IllegalArgumentException("format must be csv or ndjson");
+        }
+        LogService.normalizeStatus(filter.getStatus());
+    }
+
+    public long export(LogService.LogFilter filter, String format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_CHARS) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+        boolean csv = FORMAT_CSV.equals(format);
+        JsonGenerator json = null;
+        if (!csv) {
+            // Rows are flushed into the buffered writer, not through it to the client
+            json = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+        JsonGenerator generator = json;
+        if (csv) {
+            writer.write(CSV_HEADER);
+        }
+
+        long[] rows = {0};
+        try {
+            logExportRepository.streamOperations(LogService.normalizeStatus(filter.getStatus()), filter.getTableName(),
+                    filter.getUserName(), LogService.normalizeOperationType(filter.getOperationType()),
+                    LogService.formatLogTime(filter.getFrom()), LogService.formatLogTime(filter.getTo()),
+                    row -> {
+                        try {
+                            if (csv) {
+                                writeCsvRow(writer, row);
+                            } else {
+                                writeJsonRow(generator, writer, row);
+                            }
+                        } catch (IOException e) {
+                            // Client went away: unwinding closes the cursor and ends the transaction
+                            throw new UncheckedIOException(e);
+                        }
+                        rows[0]++;
+                    });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        log.info("Exported {} operation log rows as {}{}", rows[0], format, gzip ? " (gzip)" : "");
+        return rows[0];
+    }
+
+    private static void writeCsvRow(Writer writer, ExportRow row) throws IOException {
+        writer.write(Long.toString(row.getPosition()));
+        writer.write(',');
+        writeCsvField(writer, row.getOperationTime());
+        writer.write(',');
+        writeCsvField(writer, row.getOperationType());
+        writer.write(',');
+        writeCsvField(writer, row.getTableName());
+        writer.write(',');
+        writeCsvField(writer, row.getUserName());
+        writer.write(',');
+        writer.write(Integer.toString(row.getSessionPid()));
+        writer.write(',');
+        writer.write(row.getStatus());
+        writer.write(',');
+        writeCsvField(writer, row.getBlockedReason());
+        writer.write(',');
+        writeCsvField(writer, row.getQueryText());
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    // Same field names as the OperationLog JSON of the other log endpoints
+    private static void writeJsonRow(JsonGenerator json, Writer writer, ExportRow row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("position", row.getPosition());
+        json.writeStringField("operationTime", row.getOperationTime());
+        json.writeStringField("operationType", row.getOperationType());
+        json.writeStringField("tableName", row.getTableName());
+        json.writeStringField("userName", row.getUserName());
+        json.writeNumberField("sessionPid", row.getSessionPid());
+        json.writeStringField("status", row.getStatus());
+        json.writeStringField("blockedReason", row.getBlockedReason());
+        json.writeStringField("queryText", row.getQueryText());
+        json.writeEndObject();
+        json.flush();
+        writer.write('\n');
+    }
+}
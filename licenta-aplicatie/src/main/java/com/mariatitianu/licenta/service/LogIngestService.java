@@ -0,0 +1,471 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.repository.LogIngestSql;
+import com.mariatitianu.licenta.repository.LogSource;
+import com.mariatitianu.licenta.repository.LogSql;
+import com.mariatitianu.licenta.repository.jdbc.RowMapping;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves new entries of the warden log into the partitioned, indexed warden_operations table
+ * that the log repositories read, so a query costs what it returns rather than a parse of the
+ * whole log file.
+ *
+ * Every cycle reads the entries after the stored checkpoint from pg_warden (warden_queries_range(),
+ * or warden_all_queries() before log archiving) through a cursor on one thread and hands them,
+ * as CSV batches of {@code logs.ingest.batch-size} rows, through a queue of
+ * {@code logs.ingest.queue-batches} to the writer, which blocks the reader while it falls behind. The writer COPYs each batch and advances the checkpoint in the same
+ * transaction, and only from the position it started from, so a batch is stored exactly once
+ * even if a cycle fails halfway or another writer got there first.
+ *
+ * The backends share the database: the one holding the advisory lock ingests and the others
+ * only read. Having caught up, the ingesting backend touches a heartbeat in the checkpoint table
+ * at least three times per {@code logs.ingest.stale-after-ms}; without it, LogSource sends reads
+ * to the log itself. Only members of warden_admin ingest, so the table and its partitions belong to
+ * them; like every new table, pg_warden protects them from DELETE, UPDATE, DROP and ALTER.
+ */
+@Service
+@Slf4j
+public class LogIngestService {
+
+    public enum State { STARTING, IDLE, STANDBY, FAILED, READ_ONLY, UNAVAILABLE, DISABLED }
+
+    // Key of the advisory lock held by the instance that ingests
+    private static final long LOCK_KEY = 0x5741_5244_454E_4F50L;
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+    private static final String[] SOURCE_COLUMNS = {LogSql.POSITION_COLUMN, "log_timestamp", "operation_type",
+            "table_name", "user_name", "session_pid", "status", "blocked_reason", "query_text"};
+    // Ends the reader's batches
+    private static final Batch END = new Batch(0);
+
+    private final DataSource dataSource;
+    private final LogSource logSource;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int queueBatches;
+    private final int fetchSize;
+    private final long heartbeatNanos;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService reader;
+    private final ScheduledFuture<?> schedule;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+
+    // Written by whichever thread runs the cycle
+    private boolean verified;
+    private String sourceSql = LogIngestSql.READ_SOURCE;
+    private boolean schemaReady;
+    private long heartbeatAt;
+    private volatile State state;
+    private volatile long checkpoint = -1;
+    private volatile Instant lastRunAt;
+    private volatile long lastRunRows;
+    private volatile long lastRunMs;
+    private volatile long totalRows;
+    private volatile long batches;
+    private volatile String lastError;
+
+    public LogIngestService(DataSource dataSource, LogSource logSource,
+                            @Value("${logs.ingest.enabled:true}") boolean enabled,
+                            @Value("${logs.ingest.interval-ms:1000}") long intervalMs,
+                            @Value("${logs.ingest.batch-size:5000}") int batchSize,
+                            @Value("${logs.ingest.queue-batches:4}") int queueBatches,
+                            @Value("${logs.export.fetch-size:1000}") int fetchSize,
+                            @Value("${logs.ingest.stale-after-ms:30000}") long staleAfterMs) {
+        this.dataSource = dataSource;
+        this.logSource = logSource;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.queueBatches = Math.max(queueBatches, 1);
+        this.fetchSize = fetchSize;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(staleAfterMs) / 3;
+        if (!enabled) {
+            this.state = State.DISABLED;
+            this.scheduler = null;
+            this.reader = null;
+            this.schedule = null;
+            return;
+        }
+        this.state = State.STARTING;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-ingest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reader = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-ingest-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.schedule = scheduler.scheduleWithFixedDelay(this::scheduledRun, intervalMs, intervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled && state != State.READ_ONLY && state != State.UNAVAILABLE;
+    }
+
+    /**
+     * Runs a cycle now on the caller's thread; false if one is already running.
+     */
+    public boolean ingest() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            runCycle();
+            lastError = null;
+            return true;
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            lastError = e.getMessage();
+            throw e;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("state", state);
+        stats.put("checkpoint", checkpoint >= 0 ? checkpoint : null);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunRows", lastRunRows);
+        stats.put("lastRunMs", lastRunMs);
+        stats.put("totalRows", totalRows);
+        stats.put("batches", batches);
+        stats.put("partitions", partitions.size());
+        stats.put("batchSize", batchSize);
+        stats.put("queueBatches", queueBatches);
+        stats.put("lastError", lastError);
+        // Where the log endpoints read from right now, whichever backend ingests
+        stats.put("readsFromTable", logSource.isTable());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            reader.shutdownNow();
+        }
+    }
+
+    private void scheduledRun() {
+        String previousError = lastError;
+        try {
+            ingest();
+        } catch (RuntimeException e) {
+            // Retried every cycle; only a new failure is worth a warning
+            if (!String.valueOf(e.getMessage()).equals(previousError)) {
+                log.warn("Ingesting the operation log failed, retrying: {}", e.getMessage());
+            }
+        }
+        if (!isEnabled()) {
+            schedule.cancel(false);
+        }
+    }
+
+    private void runCycle() {
+        long started = System.nanoTime();
+        try (Connection conn = dataSource.getConnection()) {
+            if (!verified && !verify(conn)) {
+                return;
+            }
+            if (!queryBoolean(conn, LogIngestSql.TRY_LOCK, LOCK_KEY)) {
+                state = State.STANDBY;
+                return;
+            }
+            try {
+                if (!schemaReady) {
+                    createSchema(conn);
+                }
+                long rows = copyNewEntries(conn);
+                if (heartbeatAt == 0 || System.nanoTime() - heartbeatAt >= heartbeatNanos) {
+                    touchHeartbeat(conn);
+                    heartbeatAt = System.nanoTime();
+                }
+                lastRunRows = rows;
+                lastRunMs = Duration.ofNanos(System.nanoTime() - started).toMillis();
+                lastRunAt = Instant.now();
+                state = State.IDLE;
+                if (rows > 0) {
+                    log.debug("Ingested {} operation log entries up to position {} in {} ms", rows, checkpoint, lastRunMs);
+                }
+            } finally {
+                unlock(conn);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error ingesting the operation log: " + e.getMessage(), e);
+        }
+    }
+
+    // Whether this instance can ingest at all; without the extension or the role it never will
+    private boolean verify(Connection conn) throws SQLException {
+        if (!queryBoolean(conn, LogIngestSql.HAS_EXTENSION, null)) {
+            state = State.UNAVAILABLE;
+            log.info("pg_warden is not installed in this database, so there is no operation log to ingest");
+            return false;
+        }
+        if (!queryBoolean(conn, LogIngestSql.IS_WARDEN_ADMIN, null)) {
+            state = State.READ_ONLY;
+            log.info("Not a warden_admin member: reading the operation log that another backend ingests");
+            return false;
+        }
+        if (queryBoolean(conn, LogIngestSql.HAS_RANGE_READER, null)) {
+            sourceSql = LogIngestSql.READ_SOURCE_RANGE;
+        }
+        verified = true;
+        return true;
+    }
+
+    private void createSchema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : LogIngestSql.SCHEMA) {
+                stmt.execute(sql);
+            }
+            try (ResultSet rs = stmt.executeQuery(LogIngestSql.PARTITIONS)) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        schemaReady = true;
+    }
+
+    private long copyNewEntries(Connection conn) throws SQLException {
+        long position = readCheckpoint(conn);
+        checkpoint = position;
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueBatches);
+        long from = position;
+        String sql = sourceSql;
+        Future<?> reading = reader.submit(() -> {
+            readSource(sql, from, queue);
+            return null;
+        });
+
+        long rows = 0;
+        try {
+            while (true) {
+                Batch batch = queue.poll(1, TimeUnit.SECONDS);
+                if (batch == null) {
+                    if (reading.isDone()) {
+                        // Finished without END, so it failed; get() says why
+                        reading.get();
+                        throw new IllegalStateException("Reading the operation log stopped early");
+                    }
+                    continue;
+                }
+                if (batch == END) {
+                    break;
+                }
+                write(conn, batch, position);
+                position = batch.lastPosition;
+                checkpoint = position;
+                rows += batch.rows;
+                totalRows += batch.rows;
+                batches++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("COPY into " + LogSql.TABLE + " failed: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ingesting the operation log interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Reading the operation log failed: " + e.getCause().getMessage(),
+                    e.getCause());
+        } finally {
+            // Unblocks a reader waiting on a full queue after the writer failed
+            reading.cancel(true);
+        }
+        return rows;
+    }
+
+    private void readSource(String sql, long after, BlockingQueue<Batch> queue)
+            throws SQLException, InterruptedException {
+        try (Connection conn = dataSource.getConnection()) {
+            // The driver only streams with a fetch size inside a transaction
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(fetchSize);
+                ps.setLong(1, after);
+                try (ResultSet rs = ps.executeQuery()) {
+                    int[] columns = RowMapping.resolve(rs, SOURCE_COLUMNS);
+                    Batch batch = new Batch(batchSize);
+                    while (rs.next()) {
+                        batch.add(rs, columns);
+                        if (batch.rows == batchSize) {
+                            queue.put(batch);
+                            batch = new Batch(batchSize);
+                        }
+                    }
+                    if (batch.rows > 0) {
+                        queue.put(batch);
+                    }
+                    queue.put(END);
+                }
+            } finally {
+                conn.rollback();
+                conn.setReadOnly(false);
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void write(Connection conn, Batch batch, long expected) throws SQLException, IOException {
+        // Partitions are created outside the batch's transaction and stay if it fails
+        try (Statement stmt = conn.createStatement()) {
+            for (YearMonth month : batch.months) {
+                String name = LogIngestSql.partitionName(month);
+                if (!partitions.contains(name)) {
+                    stmt.execute(LogIngestSql.createPartition(month));
+                    partitions.add(name);
+                }
+            }
+        }
+
+        conn.setAutoCommit(false);
+        try {
+            PGCopyOutputStream copy = new PGCopyOutputStream(conn.unwrap(PGConnection.class), LogIngestSql.COPY,
+                    COPY_BUFFER_BYTES);
+            Writer out = new BufferedWriter(new OutputStreamWriter(copy, StandardCharsets.UTF_8), COPY_BUFFER_BYTES);
+            try {
+                out.append(batch.csv);
+                out.close();
+            } catch (IOException | RuntimeException e) {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+                throw e;
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement(LogIngestSql.ADVANCE_CHECKPOINT)) {
+                ps.setString(1, LogIngestSql.SOURCE);
+                ps.setLong(2, batch.lastPosition);
+                ps.setLong(3, expected);
+                if (ps.executeUpdate() != 1) {
+                    throw new IllegalStateException("The ingest checkpoint moved past " + expected
+                            + " while this batch was written; it was discarded");
+                }
+            }
+            conn.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private void touchHeartbeat(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(LogIngestSql.TOUCH_HEARTBEAT)) {
+            ps.setString(1, LogIngestSql.HEARTBEAT);
+            ps.setLong(2, checkpoint);
+            ps.executeUpdate();
+        }
+    }
+
+    private static void unlock(Connection conn) {
+        try {
+            queryBoolean(conn, LogIngestSql.UNLOCK, LOCK_KEY);
+        } catch (SQLException e) {
+            // A broken connection is discarded by the pool, and its session takes the lock with it
+            log.debug("Releasing the ingest lock failed: {}", e.getMessage());
+        }
+    }
+
+    private long readCheckpoint(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(LogIngestSql.READ_CHECKPOINT)) {
+            ps.setString(1, LogIngestSql.SOURCE);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static boolean queryBoolean(Connection conn, String sql, Long parameter) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            if (parameter != null) {
+                ps.setLong(1, parameter);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    /**
+     * One COPY's worth of log entries, already in CSV, and the partitions they go to.
+     */
+    private static final class Batch {
+        private final StringBuilder csv;
+        private final Set<YearMonth> months = new HashSet<>();
+        private int rows;
+        private long lastPosition;
+
+        Batch(int capacity) {
+            this.csv = new StringBuilder(capacity * 160);
+        }
+
+        void add(ResultSet rs, int[] columns) throws SQLException {
+            long position = rs.getLong(columns[0]);
+            String timestamp = rs.getString(columns[1]);
+            Instant time = parseTime(timestamp);
+            String blockedReason = rs.getString(columns[7]);
+            LogIngestSql.appendCsv(csv, position, time, timestamp, rs.getString(columns[2]), rs.getString(columns[3]),
+                    rs.getString(columns[4]), rs.getInt(columns[5]), rs.getString(columns[6]), blockedReason,
+                    rs.getString(columns[8]), blockedReason != null && !blockedReason.trim().isEmpty());
+            months.add(YearMonth.from(time.atOffset(ZoneOffset.UTC)));
+            rows++;
+            lastPosition = position;
+        }
+
+        // A torn or hand-edited line keeps its text but sorts under the epoch
+        private static Instant parseTime(String timestamp) {
+            try {
+                return timestamp != null ? Instant.parse(timestamp) : Instant.EPOCH;
+            } catch (DateTimeParseException e) {
+                return Instant.EPOCH;
+            }
+        }
+    }
+}
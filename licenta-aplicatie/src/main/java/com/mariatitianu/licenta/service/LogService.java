@@ -1,13 +1,21 @@
 package com.mariatitianu.licenta.service;
 
 import com.mariatitianu.licenta.repository.LogRepository;
+import com.mariatitianu.licenta.repository.LogSql;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.Getter;
 import lombok.AllArgsConstructor;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -18,6 +26,7 @@ import java.util.stream.Collectors;
 public class LogService {
     
     private final LogRepository logRepository;
+    private final OperationLogCache operationLogCache;
     
     public List<OperationLog> getRecentOperations(int limit) {
         if (limit <= 0) {
@@ -27,9 +36,15 @@ public class LogService {
             limit = 1000;
         }
         
-        List<Map<String, Object>> rawLogs = logRepository.getRecentOperations(limit);
+        // Dashboard polling is answered from memory; the database only when the cache cannot
+        List<OperationLog> cached = operationLogCache.recent(limit);
+        if (cached != null) {
+            return cached;
+        }
+        List<Map<String, Object>> rawLogs = logRepository.findOperations(
+                null, null, null, null, null, null, null, null, limit);
         return rawLogs.stream()
-                .map(this::mapToOperationLog)
+                .map(LogService::mapToOperationLog)
                 .collect(Collectors.toList());
     }
     
@@ -40,7 +55,7 @@ public class LogService {
     public List<OperationLog> getAllOperations() {
         List<Map<String, Object>> rawLogs = logRepository.getAllOperations();
         return rawLogs.stream()
-                .map(this::mapToOperationLog)
+                .map(LogService::mapToOperationLog)
                 .collect(Collectors.toList());
     }
     
@@ -52,12 +67,14 @@ public class LogService {
             limit = 1000;
         }
         
-        // Fetch more logs to ensure we get enough blocked ones
-        List<Map<String, Object>> rawLogs = logRepository.getRecentOperations(limit * 2);
+        List<OperationLog> cached = operationLogCache.byStatus("BLOCKED", limit);
+        if (cached != null) {
+            return cached;
+        }
+        List<Map<String, Object>> rawLogs = logRepository.findOperations(
+                "BLOCKED", null, null, null, null, null, null, null, limit);
         return rawLogs.stream()
-                .map(this::mapToOperationLog)
-                .filter(log -> "BLOCKED".equals(log.getStatus()))
-                .limit(limit)
+                .map(LogService::mapToOperationLog)
                 .collect(Collectors.toList());
     }
     
@@ -69,12 +86,14 @@ public class LogService {
             limit = 1000;
         }
         
-        // Fetch more logs to ensure we get enough allowed ones
-        List<Map<String, Object>> rawLogs = logRepository.getRecentOperations(limit * 2);
+        List<OperationLog> cached = operationLogCache.byStatus("ALLOWED", limit);
+        if (cached != null) {
+            return cached;
+        }
+        List<Map<String, Object>> rawLogs = logRepository.findOperations(
+                "ALLOWED", null, null, null, null, null, null, null, limit);
         return rawLogs.stream()
-                .map(this::mapToOperationLog)
-                .filter(log -> "ALLOWED".equals(log.getStatus()))
-                .limit(limit)
+                .map(LogService::mapToOperationLog)
                 .collect(Collectors.toList());
     }
     
@@ -86,60 +105,117 @@ public class LogService {
             limit = 1000;
         }
         
-        // Fetch more logs to ensure we get enough for the specific table
-        List<Map<String, Object>> rawLogs = logRepository.getRecentOperations(limit * 3);
+        List<OperationLog> cached = operationLogCache.byTable(tableName, limit);
+        if (cached != null) {
+            return cached;
+        }
+        List<Map<String, Object>> rawLogs = logRepository.findOperations(
+                null, tableName, null, null, null, null, null, null, limit);
         return rawLogs.stream()
-                .map(this::mapToOperationLog)
-                .filter(log -> tableName.equals(log.getTableName()))
-                .limit(limit)
+                .map(LogService::mapToOperationLog)
                 .collect(Collectors.toList());
     }
     
-    public Map<String, Object> getOperationsSummary(int limit) {
+    /**
+     * One page of operations matching the filter, newest first. Pass the returned nextCursor
+     * to get the following page; it is null on the last one.
+     */
+    public LogPage searchOperations(LogFilter filter, String cursor, int limit) {
         if (limit <= 0) {
-            limit = 100;
+            limit = 50;
         }
         if (limit > 1000) {
             limit = 1000;
         }
         
-        List<OperationLog> logs = getRecentOperations(limit);
-        
-        long blockedCount = logs.stream().filter(log -> "BLOCKED".equals(log.getStatus())).count();
-        long allowedCount = logs.size() - blockedCount;
-        
-        Map<String, Long> operationTypes = logs.stream()
-                .collect(Collectors.groupingBy(
-                        OperationLog::getOperationType,
-                        Collectors.counting()
-                ));
+        String status = normalizeStatus(filter.getStatus());
+        String afterTimestamp = null;
+        Long afterPosition = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterTimestamp = parts[0];
+            afterPosition = Long.parseLong(parts[1]);
+        }
         
-        Map<String, Long> statusCounts = logs.stream()
-                .collect(Collectors.groupingBy(
-                        OperationLog::getStatus,
-                        Collectors.counting()
-                ));
+        List<OperationLog> logs = logRepository.findOperations(status, filter.getTableName(), filter.getUserName(),
+                        normalizeOperationType(filter.getOperationType()),
+                        formatLogTime(filter.getFrom()), formatLogTime(filter.getTo()),
+                        afterTimestamp, afterPosition, limit)
+                .stream()
+                .map(LogService::mapToOperationLog)
+                .collect(Collectors.toList());
         
-        return Map.of(
-            "totalOperations", logs.size(),
-            "blockedOperations", blockedCount,
-            "allowedOperations", allowedCount,
-            "operationTypes", operationTypes,
-            "statusCounts", statusCounts
-        );
+        // A full page may have more behind it; the next one starts after its last row
+        String nextCursor = null;
+        if (logs.size() == limit) {
+            OperationLog last = logs.get(logs.size() - 1);
+            nextCursor = encodeCursor(last.getOperationTime(), last.getPosition());
+        }
+        return new LogPage(logs, nextCursor);
     }
     
-    private OperationLog mapToOperationLog(Map<String, Object> rawLog) {
+    static OperationLog mapToOperationLog(Map<String, Object> rawLog) {
+        Object position = rawLog.get(LogSql.POSITION_COLUMN);
         return new OperationLog(
                 (String) rawLog.get("operation_type"),
                 (String) rawLog.get("table_name"),
                 (String) rawLog.get("log_timestamp"),
                 (String) rawLog.get("user_name"),
                 (String) rawLog.get("blocked_reason"),
-                (String) rawLog.get("query_text")
+                (String) rawLog.get("query_text"),
+                position != null ? ((Number) position).longValue() : null
         );
     }
     
+    static String normalizeStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        String normalized = status.toUpperCase();
+        if (!"BLOCKED".equals(normalized) && !"ALLOWED".equals(normalized)) {
+            throw new IllegalArgumentException("status must be BLOCKED or ALLOWED");
+        }
+        return normalized;
+    }
+    
+    static String normalizeOperationType(String operationType) {
+        return operationType != null ? operationType.toUpperCase() : null;
+    }
+    
+    // Same text format pg_warden writes; the queries cast it to timestamptz
+    static String formatLogTime(Instant time) {
+        return time != null ? DateTimeFormatter.ISO_INSTANT.format(time.truncatedTo(ChronoUnit.SECONDS)) : null;
+    }
+    
+    // The cursor holds the entry's log_time, which is the epoch for a timestamp that does not parse
+    static String encodeCursor(String timestamp, Long position) {
+        Instant time;
+        try {
+            time = Instant.parse(timestamp);
+        } catch (NullPointerException | DateTimeParseException e) {
+            time = Instant.EPOCH;
+        }
+        String raw = DateTimeFormatter.ISO_INSTANT.format(time) + "|" + position;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            String timestamp = raw.substring(0, separator);
+            String position = raw.substring(separator + 1);
+            Instant.parse(timestamp);
+            Long.parseLong(position);
+            return new String[] { timestamp, position };
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+    
     @Getter
     @AllArgsConstructor
     public static class OperationLog {
@@ -149,9 +225,29 @@ public class LogService {
         private final String userName;
         private final String blockedReason;
         private final String queryText;
+        private final Long position; // line in the operation log, null when the query did not number rows
         
         public String getStatus() {
             return (blockedReason != null && !blockedReason.trim().isEmpty()) ? "BLOCKED" : "ALLOWED";
         }
     }
+    
+    @Data
+    public static class LogFilter {
+        private String status;        // BLOCKED or ALLOWED
+        private String tableName;
+        private String userName;
+        private String operationType; // e.g. DELETE, DROP
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private Instant from;         // inclusive, second precision like the log
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        private Instant to;           // inclusive
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class LogPage {
+        private final List<OperationLog> operations;
+        private final String nextCursor;
+    }
 }
\ No newline at end of file
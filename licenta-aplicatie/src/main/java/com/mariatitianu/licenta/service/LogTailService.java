@@ -0,0 +1,245 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.repository.LogRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Live tail of the operation log over SSE. New entries come from {@link OperationLogCache},
+ * whose refresher already fetches only what is new; each batch goes to the subscribers whose
+ * filter matches. The database sees one small query per interval however many dashboards are
+ * open, and the cache stops refreshing for the tail while nobody is subscribed.
+ *
+ * Events are named "operations" with a list of OperationLog (oldest first) as data and the
+ * log position as id, so a reconnecting EventSource resumes where it stopped via Last-Event-ID.
+ */
+@Service
+@Slf4j
+public class LogTailService {
+
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long HEARTBEAT_NANOS = TimeUnit.SECONDS.toNanos(15);
+    private static final long HEARTBEAT_CHECK_SECONDS = 5;
+
+    // Entries fetched per replay query
+    private static final int BATCH_LIMIT = 1000;
+    private static final int MAX_BACKLOG = 1000;
+
+    private final LogRepository logRepository;
+    private final OperationLogCache operationLogCache;
+    private final ScheduledExecutorService heartbeats;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // Guarded by this; position of the last batch handed to subscribers
+    private long lastPosition = -1;
+
+    public LogTailService(LogRepository logRepository, OperationLogCache operationLogCache) {
+        this.logRepository = logRepository;
+        this.operationLogCache = operationLogCache;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-tail");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats.scheduleWithFixedDelay(this::heartbeat,
+                HEARTBEAT_CHECK_SECONDS, HEARTBEAT_CHECK_SECONDS, TimeUnit.SECONDS);
+        operationLogCache.addListener(new OperationLogCache.Listener() {
+            @Override
+            public void onAppend(List<LogService.OperationLog> batch, long position) {
+                publish(batch, position);
+            }
+
+            @Override
+            public boolean wantsUpdates() {
+                return !subscribers.isEmpty();
+            }
+        });
+    }
+
+    /**
+     * Opens a stream of new entries matching the filter. A reconnect (lastEventId set) first
+     * replays what the client missed; otherwise up to {@code backlog} recent entries are sent first.
+     */
+    public SseEmitter subscribe(LogService.LogFilter filter, Long lastEventId, int backlog) {
+        Subscriber subscriber = new Subscriber(filter, new SseEmitter(EMITTER_TIMEOUT_MS));
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Outside the lock: a refresh here hands its batch to publish(), which takes it
+        long position = operationLogCache.currentPosition();
+        synchronized (this) {
+            try {
+                if (position < 0) {
+                    throw new IllegalStateException("Operation log is not available");
+                }
+                // A batch still waiting for the lock is at or below this and is skipped for the new subscriber
+                long start = Math.max(lastPosition, position);
+                List<LogService.OperationLog> missed = lastEventId != null
+                        ? replay(subscriber, lastEventId, start)
+                        : backlog(subscriber, Math.min(Math.max(backlog, 0), MAX_BACKLOG), start);
+                send(subscriber, missed, start);
+                if (!subscriber.closed) {
+                    subscribers.add(subscriber);
+                }
+            } catch (Exception e) {
+                log.warn("Could not start log tail subscription: {}", e.getMessage());
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private List<LogService.OperationLog> replay(Subscriber subscriber, long afterPosition, long upTo) {
+        List<LogService.OperationLog> missed = new ArrayList<>();
+        long position = afterPosition;
+        while (position < upTo && missed.size() < MAX_BACKLOG) {
+            List<LogService.OperationLog> batch = fetchAfter(position);
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (LogService.OperationLog entry : batch) {
+                if (entry.getPosition() <= upTo && subscriber.matches(entry)) {
+                    missed.add(entry);
+                }
+            }
+            position = batch.get(batch.size() - 1).getPosition();
+        }
+        return missed;
+    }
+
+    private List<LogService.OperationLog> backlog(Subscriber subscriber, int limit, long upTo) {
+        if (limit == 0) {
+            return List.of();
+        }
+        LogService.LogFilter filter = subscriber.filter;
+        List<LogService.OperationLog> recent = logRepository.findOperations(subscriber.status, filter.getTableName(),
+                        filter.getUserName(), subscriber.operationType, subscriber.fromTime, subscriber.toTime,
+                        null, null, limit)
+                .stream()
+                .map(LogService::mapToOperationLog)
+                .filter(entry -> entry.getPosition() <= upTo)
+                .collect(Collectors.toList());
+        Collections.reverse(recent);
+        return recent;
+    }
+
+    // Called on the cache's refresher thread with every new batch, subscribers or not
+    private synchronized void publish(List<LogService.OperationLog> batch, long position) {
+        lastPosition = position;
+        if (!subscribers.isEmpty()) {
+            fanOut(batch, position);
+        }
+    }
+
+    private List<LogService.OperationLog> fetchAfter(long position) {
+        List<Map<String, Object>> rows = logRepository.findOperationsAfter(position, BATCH_LIMIT);
+        return rows.stream().map(LogService::mapToOperationLog).collect(Collectors.toList());
+    }
+
+    private void fanOut(List<LogService.OperationLog> batch, long position) {
+        for (Subscriber subscriber : subscribers) {
+            List<LogService.OperationLog> matching = new ArrayList<>();
+            for (LogService.OperationLog entry : batch) {
+                if (entry.getPosition() > subscriber.lastSent && subscriber.matches(entry)) {
+                    matching.add(entry);
+                }
+            }
+            if (!matching.isEmpty()) {
+                send(subscriber, matching, position);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (now - subscriber.lastSentAt > HEARTBEAT_NANOS) {
+                try {
+                    // Comment line: keeps proxies from closing an idle stream, ignored by EventSource
+                    subscriber.emitter.send(SseEmitter.event().comment("keepalive"));
+                    subscriber.lastSentAt = now;
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscriber);
+                }
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, List<LogService.OperationLog> entries, long position) {
+        try {
+            subscriber.emitter.send(SseEmitter.event()
+                    .name("operations")
+                    .id(Long.toString(position))
+                    .data(entries));
+            subscriber.lastSent = position;
+            subscriber.lastSentAt = System.nanoTime();
+        } catch (IOException | IllegalStateException e) {
+            drop(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        subscriber.closed = true;
+        subscribers.remove(subscriber);
+        subscriber.emitter.completeWithError(new IOException("Log tail client disconnected"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    /**
+     * One open stream: its filter, normalised once, and how far it has been sent.
+     */
+    private static class Subscriber {
+        private final LogService.LogFilter filter;
+        private final SseEmitter emitter;
+        private final String status;
+        private final String operationType;
+        private final String fromTime;
+        private final String toTime;
+        private volatile long lastSent = -1;
+        private volatile long lastSentAt = System.nanoTime();
+        private volatile boolean closed;
+
+        Subscriber(LogService.LogFilter filter, SseEmitter emitter) {
+            this.filter = filter;
+            this.emitter = emitter;
+            this.status = LogService.normalizeStatus(filter.getStatus());
+            this.operationType = LogService.normalizeOperationType(filter.getOperationType());
+            this.fromTime = LogService.formatLogTime(filter.getFrom());
+            this.toTime = LogService.formatLogTime(filter.getTo());
+        }
+
+        boolean matches(LogService.OperationLog entry) {
+            return (status == null || status.equals(entry.getStatus()))
+                    && (filter.getTableName() == null || filter.getTableName().equals(entry.getTableName()))
+                    && (filter.getUserName() == null || filter.getUserName().equals(entry.getUserName()))
+                    && (operationType == null || operationType.equals(entry.getOperationType()))
+                    && (fromTime == null || (entry.getOperationTime() != null && entry.getOperationTime().compareTo(fromTime) >= 0))
+                    && (toTime == null || (entry.getOperationTime() != null && entry.getOperationTime().compareTo(toTime) <= 0));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.dto.HeavyHitterReport;
+import com.mariatitianu.licenta.repository.LogExportRepository;
+import com.mariatitianu.licenta.repository.LogRepository;
+import com.mariatitianu.licenta.service.analytics.CountMinSketch;
+import com.mariatitianu.licenta.service.analytics.QueryFingerprint;
+import com.mariatitianu.licenta.service.analytics.SpaceSaving;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The users, tables and queries behind the most operations, over the whole log and in fixed
+ * memory. Each dimension keeps a Space-Saving summary of its most frequent keys, whose counts
+ * are off by at most N / capacity for N counted entries, and a count-min sketch that estimates
+ * any key within epsilon * N with probability 1 - delta. Neither grows with the log or with
+ * the number of distinct keys. Like {@link OperationRollupService}, the summaries follow the log
+ * as an {@link IncrementalLogConsumer}.
+ *
+ * Queries are counted by {@link QueryFingerprint}, so executions differing only in their values
+ * count as one.
+ */
+@Service
+public class OperationHeavyHitterService extends IncrementalLogConsumer<OperationHeavyHitterService.HeavyHitters> {
+
+    public static final List<String> DIMENSIONS = List.of("blockedUsers", "blockedTables", "blockedQueries",
+            "tables", "queries");
+    private static final List<String> QUERY_DIMENSIONS = List.of("blockedQueries", "queries");
+
+    private static final int MAX_TOP = 100;
+    private static final String NONE = "(none)";
+
+    private final int capacity;
+    private final double epsilon;
+    private final double delta;
+
+    public OperationHeavyHitterService(LogRepository logRepository, LogExportRepository logExportRepository,
+                                       OperationLogCache operationLogCache,
+                                       @Value("${logs.heavy-hitters.capacity:200}") int capacity,
+                                       @Value("${logs.heavy-hitters.epsilon:0.001}") double epsilon,
+                                       @Value("${logs.heavy-hitters.delta:0.01}") double delta) {
+        super(logRepository, logExportRepository, operationLogCache, "heavy hitters");
+        this.capacity = capacity;
+        this.epsilon = epsilon;
+        this.delta = delta;
+        // Fails on bad sketch settings at startup rather than on the first request
+        newSummary();
+    }
+
+    @Override
+    protected HeavyHitters newSummary() {
+        return new HeavyHitters(capacity, epsilon, delta);
+    }
+
+    /**
+     * The {@code top} most frequent keys of every dimension with their error bounds.
+     */
+    public HeavyHitterReport getReport(int top) {
+        if (top < 1 || top > Math.min(MAX_TOP, capacity)) {
+            throw new IllegalArgumentException("top must be between 1 and " + Math.min(MAX_TOP, capacity));
+        }
+        HeavyHitters summary = current();
+        synchronized (this) {
+            HeavyHitterReport report = new HeavyHitterReport();
+            report.setLogPosition(summary.getPosition());
+            report.setTotalOperations(summary.total);
+            report.setBlockedOperations(summary.blocked);
+            report.setCapacity(capacity);
+            report.setEpsilon(epsilon);
+            report.setDelta(delta);
+            Map<String, HeavyHitterReport.Sketch> dimensions = new LinkedHashMap<>();
+            summary.trackers.forEach((dimension, tracker) -> dimensions.put(dimension, tracker.sketch(top)));
+            report.setDimensions(dimensions);
+            return report;
+        }
+    }
+
+    /**
+     * Bounds of how often {@code key} occurred in one dimension, whether or not it is among the
+     * most frequent; query keys are fingerprinted first.
+     */
+    public HeavyHitterReport.Estimate estimate(String dimension, String key) {
+        if (!DIMENSIONS.contains(dimension)) {
+            throw new IllegalArgumentException("dimension must be one of " + DIMENSIONS);
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("key is required");
+        }
+        String counted = QUERY_DIMENSIONS.contains(dimension) ? QueryFingerprint.of(key) : orNone(key);
+        HeavyHitters summary = current();
+        synchronized (this) {
+            Tracker tracker = summary.trackers.get(dimension);
+            HeavyHitterReport.Estimate estimate = new HeavyHitterReport.Estimate();
+            estimate.setDimension(dimension);
+            estimate.setKey(counted);
+            estimate.setLowerBound(tracker.topKeys.lowerBound(counted));
+            estimate.setUpperBound(tracker.topKeys.upperBound(counted));
+            estimate.setCountMin(tracker.counts.estimate(counted));
+            estimate.setErrorBound(tracker.counts.getErrorBound());
+            estimate.setConfidence(1 - delta);
+            return estimate;
+        }
+    }
+
+    /**
+     * A tracker per dimension and the totals; after the initial scan read and written under the
+     * service's monitor.
+     */
+    static final class HeavyHitters extends IncrementalLogConsumer.Summary {
+        private final Map<String, Tracker> trackers = new LinkedHashMap<>();
+        private long total;
+        private long blocked;
+
+        private HeavyHitters(int capacity, double epsilon, double delta) {
+            for (String dimension : DIMENSIONS) {
+                trackers.put(dimension, new Tracker(capacity, epsilon, delta));
+            }
+        }
+
+        @Override
+        protected void count(long entryPosition, String operationTime, String operationType, String tableName,
+                             String userName, String queryText, String status) {
+            total++;
+            String table = orNone(tableName);
+            String query = orNone(QueryFingerprint.of(queryText));
+            trackers.get("tables").add(table);
+            trackers.get("queries").add(query);
+            if ("BLOCKED".equals(status)) {
+                blocked++;
+                trackers.get("blockedUsers").add(orNone(userName));
+                trackers.get("blockedTables").add(table);
+                trackers.get("blockedQueries").add(query);
+            }
+        }
+    }
+
+    private static String orNone(String value) {
+        return value != null && !value.isEmpty() ? value : NONE;
+    }
+
+    /**
+     * One dimension: the Space-Saving summary lists the top keys, the count-min sketch answers
+     * for any key.
+     */
+    private static final class Tracker {
+        private final SpaceSaving topKeys;
+        private final CountMinSketch counts;
+
+        Tracker(int capacity, double epsilon, double delta) {
+            this.topKeys = new SpaceSaving(capacity);
+            this.counts = new CountMinSketch(epsilon, delta);
+        }
+
+        void add(String key) {
+            topKeys.add(key);
+            counts.add(key);
+        }
+
+        HeavyHitterReport.Sketch sketch(int top) {
+            HeavyHitterReport.Sketch sketch = new HeavyHitterReport.Sketch();
+            sketch.setStreamLength(topKeys.getStreamLength());
+            sketch.setMaxError(topKeys.getMaxError());
+            sketch.setCountMinError(counts.getErrorBound());
+            sketch.setTop(topKeys.top(top).stream().map(entry -> {
+                HeavyHitterReport.HeavyHitter hitter = new HeavyHitterReport.HeavyHitter();
+                hitter.setKey(entry.getKey());
+                hitter.setCount(entry.getCount());
+                hitter.setMinCount(entry.getCount() - entry.getError());
+                hitter.setGuaranteed(entry.isGuaranteed());
+                return hitter;
+            }).collect(Collectors.toList()));
+            return sketch;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.repository.LogRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Collectors;
+
+/**
+ * The most recent operations of the warden log, kept in memory so the dashboard endpoints
+ * (recent, blocked, allowed, by table, summary) do not query the log on every poll.
+ *
+ * Entries live in bounded rings: one for the whole log and one per status and per table, each
+ * holding the newest {@code capacity} entries of its kind. One writer fills them from the log,
+ * fetching only the entries after the last position it has seen; readers never take a lock.
+ * The writer runs on a schedule while the cache is being read or has listeners (the live tail)
+ * and otherwise pauses; a read of a stale cache refreshes it first.
+ *
+ * A query the rings cannot answer exactly - cache not loaded yet, or a ring holding fewer
+ * entries than asked while older ones may still be in the log - returns null and the caller
+ * reads the database as before.
+ *
+ * With capacity 0 there are no rings and every read goes to the database, but the writer still
+ * follows the log position and hands new batches to the listeners, so the live tail and the
+ * incremental log consumers keep working.
+ */
+@Service
+@Slf4j
+public class OperationLogCache {
+
+    private static final String BLOCKED = "BLOCKED";
+    private static final String ALLOWED = "ALLOWED";
+
+    // Entries fetched per query; a larger burst is drained over several queries
+    private static final int BATCH_LIMIT = 1000;
+    // Beyond this many distinct tables, the extra ones are read from the database
+    private static final int MAX_TABLES = 256;
+
+    /**
+     * Gets every batch of new entries, oldest first, on the writer thread.
+     */
+    public interface Listener {
+        void onAppend(List<LogService.OperationLog> batch, long position);
+
+        // While true, the cache keeps refreshing even if nobody reads it
+        boolean wantsUpdates();
+    }
+
+    private final LogRepository logRepository;
+    private final int capacity;
+    private final long refreshNanos;
+    private final long idleNanos;
+    private final ScheduledExecutorService refresher;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // Published by the writer, read without locking
+    private volatile Ring all;
+    private volatile Ring blocked;
+    private volatile Ring allowed;
+    private final Map<String, Ring> byTable = new ConcurrentHashMap<>();
+    private volatile long position = -1;      // last log position in the rings, -1 until loaded
+    private volatile boolean wholeLog;        // the initial load held the entire log
+    private volatile long lastRefreshAt;
+    private volatile long lastReadAt = System.nanoTime();
+    private volatile long refreshes;
+
+    public OperationLogCache(LogRepository logRepository,
+                             @Value("${logs.cache.capacity:1000}") int capacity,
+                             @Value("${logs.cache.refresh-ms:1000}") long refreshMs,
+                             @Value("${logs.cache.idle-after-ms:60000}") long idleAfterMs) {
+        this.logRepository = logRepository;
+        this.capacity = Math.max(capacity, 0);
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMs);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleAfterMs);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-cache");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.refresher.scheduleWithFixedDelay(this::scheduledRefresh, refreshMs, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Whether the rings serve reads; the position and the listeners work either way
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Last log position the cache has taken in, refreshing first if stale; -1 if it cannot load.
+     */
+    public long currentPosition() {
+        readFresh();
+        return position;
+    }
+
+    // Newest first, or null when the cache cannot answer
+    public List<LogService.OperationLog> recent(int limit) {
+        return isEnabled() && readFresh() ? latest(all, limit) : null;
+    }
+
+    public List<LogService.OperationLog> byStatus(String status, int limit) {
+        if (!isEnabled() || !readFresh()) {
+            return null;
+        }
+        return latest(BLOCKED.equals(status) ? blocked : allowed, limit);
+    }
+
+    public List<LogService.OperationLog> byTable(String tableName, int limit) {
+        if (!isEnabled() || tableName == null || !readFresh()) {
+            return null;
+        }
+        Ring ring = byTable.get(tableName);
+        if (ring == null || (!ring.isComplete() && ring.size() < limit)) {
+            ring = seedTable(tableName);
+        }
+        return latest(ring, limit);
+    }
+
+    private List<LogService.OperationLog> latest(Ring ring, int limit) {
+        if (ring == null) {
+            return null;
+        }
+        if (!ring.isComplete() && ring.size() < limit) {
+            return null;
+        }
+        return ring.latest(limit);
+    }
+
+    /**
+     * Takes in the entries appended since the last refresh, loading the cache first if needed.
+     */
+    public synchronized void refresh() {
+        if (position < 0) {
+            load();
+        } else {
+            drain();
+        }
+        lastRefreshAt = System.nanoTime();
+        refreshes++;
+    }
+
+    /**
+     * Drops everything and loads the newest entries again, e.g. after the log was truncated.
+     */
+    public synchronized void reload() {
+        position = -1;
+        refresh();
+    }
+
+    public Map<String, Object> getStats() {
+        Ring current = all;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("loaded", position >= 0);
+        stats.put("position", position);
+        stats.put("capacity", capacity);
+        stats.put("entries", current != null ? current.size() : 0);
+        stats.put("blockedEntries", blocked != null ? blocked.size() : 0);
+        stats.put("allowedEntries", allowed != null ? allowed.size() : 0);
+        stats.put("tables", byTable.size());
+        stats.put("wholeLog", wholeLog);
+        stats.put("refreshes", refreshes);
+        stats.put("msSinceRefresh", position >= 0 ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastRefreshAt) : null);
+        return stats;
+    }
+
+    // Marks the cache as in use and refreshes it on the caller's thread if the schedule has paused
+    private boolean readFresh() {
+        long now = System.nanoTime();
+        lastReadAt = now;
+        if (position < 0 || now - lastRefreshAt > 2 * refreshNanos) {
+            try {
+                synchronized (this) {
+                    if (position < 0 || System.nanoTime() - lastRefreshAt > 2 * refreshNanos) {
+                        refresh();
+                    }
+                }
+            } catch (Exception e) {
+                // Serve what is in memory; an unloaded cache makes callers use the database
+                log.warn("Operation log cache refresh failed: {}", e.getMessage());
+            }
+        }
+        return position >= 0;
+    }
+
+    private void scheduledRefresh() {
+        try {
+            boolean inUse = System.nanoTime() - lastReadAt < idleNanos
+                    || listeners.stream().anyMatch(Listener::wantsUpdates);
+            if (inUse) {
+                refresh();
+            }
+        } catch (Exception e) {
+            // Keep the schedule alive; the next tick retries from the same position
+            log.warn("Operation log cache refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!isEnabled()) {
+            // No rings: start following the log at its end
+            List<LogService.OperationLog> newest = fetchNewest(null, null, 1);
+            position = newest.isEmpty() ? 0 : newest.get(0).getPosition();
+            log.info("Following the operation log from position {} without caching entries", position);
+            return;
+        }
+        List<LogService.OperationLog> newest = fetchNewest(null, null, capacity);
+        long loadedPosition = newest.isEmpty() ? 0 : newest.get(newest.size() - 1).getPosition();
+        boolean whole = newest.size() < capacity;
+
+        Ring allRing = new Ring(capacity, whole);
+        Ring blockedRing = new Ring(capacity, whole);
+        Ring allowedRing = new Ring(capacity, whole);
+        Map<String, Ring> tables = new LinkedHashMap<>();
+        for (LogService.OperationLog entry : newest) {
+            allRing.append(entry);
+            if (whole) {
+                (BLOCKED.equals(entry.getStatus()) ? blockedRing : allowedRing).append(entry);
+                appendToTable(tables, entry, true);
+            }
+        }
+        if (!whole) {
+            // The newest entries of the whole log need not include the newest of each status
+            blockedRing = seed(BLOCKED, null, loadedPosition);
+            allowedRing = seed(ALLOWED, null, loadedPosition);
+        }
+
+        byTable.clear();
+        byTable.putAll(tables);
+        all = allRing;
+        blocked = blockedRing;
+        allowed = allowedRing;
+        wholeLog = whole;
+        position = loadedPosition;
+        log.info("Loaded {} operation log entries into the cache (position {})", newest.size(), loadedPosition);
+    }
+
+    private void drain() {
+        List<LogService.OperationLog> batch;
+        do {
+            batch = logRepository.findOperationsAfter(position, BATCH_LIMIT).stream()
+                    .map(LogService::mapToOperationLog)
+                    .collect(Collectors.toList());
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (isEnabled()) {
+                for (LogService.OperationLog entry : batch) {
+                    all.append(entry);
+                    (BLOCKED.equals(entry.getStatus()) ? blocked : allowed).append(entry);
+                    appendToTable(byTable, entry, wholeLog);
+                }
+            }
+            position = batch.get(batch.size() - 1).getPosition();
+            for (Listener listener : listeners) {
+                try {
+                    listener.onAppend(batch, position);
+                } catch (Exception e) {
+                    log.warn("Operation log listener failed: {}", e.getMessage());
+                }
+            }
+        } while (batch.size() == BATCH_LIMIT);
+    }
+
+    private void appendToTable(Map<String, Ring> tables, LogService.OperationLog entry, boolean complete) {
+        String tableName = entry.getTableName();
+        if (tableName == null) {
+            return;
+        }
+        Ring ring = tables.get(tableName);
+        if (ring == null) {
+            if (tables.size() >= MAX_TABLES) {
+                return;
+            }
+            // Only complete if every earlier entry of this table was seen too
+            ring = new Ring(capacity, complete);
+            tables.put(tableName, ring);
+        }
+        ring.append(entry);
+    }
+
+    // Replaces a table's ring with the newest entries from the log, so later appends keep it exact
+    private synchronized Ring seedTable(String tableName) {
+        Ring ring = byTable.get(tableName);
+        if (ring != null && ring.isComplete()) {
+            return ring;
+        }
+        if (ring == null && byTable.size() >= MAX_TABLES) {
+            return null;
+        }
+        try {
+            ring = seed(null, tableName, position);
+            byTable.put(tableName, ring);
+            return ring;
+        } catch (Exception e) {
+            log.warn("Could not load operations of table {} into the cache: {}", tableName, e.getMessage());
+            return null;
+        }
+    }
+
+    // Newest entries matching status/table up to a position; complete when that is all the log has
+    private Ring seed(String status, String tableName, long upTo) {
+        List<LogService.OperationLog> newest = fetchNewest(status, tableName, capacity);
+        Ring ring = new Ring(capacity, newest.size() < capacity);
+        for (LogService.OperationLog entry : newest) {
+            // Entries past upTo arrive with the next drain
+            if (entry.getPosition() <= upTo) {
+                ring.append(entry);
+            }
+        }
+        return ring;
+    }
+
+    // Oldest first, so they can be appended in order
+    private List<LogService.OperationLog> fetchNewest(String status, String tableName, int limit) {
+        List<LogService.OperationLog> newest = logRepository.findOperations(status, tableName, null, null, null, null,
+                        null, null, limit)
+                .stream()
+                .map(LogService::mapToOperationLog)
+                .collect(Collectors.toList());
+        Collections.reverse(newest);
+        return newest;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Fixed-size ring of the newest entries appended to it. One writer appends, any number of
+     * readers copy out the newest entries without locking: each slot carries the sequence number
+     * it was written for, so a reader that the writer has lapped sees the mismatch and retries
+     * instead of returning entries out of order.
+     */
+    static final class Ring {
+        private static final int MAX_READ_ATTEMPTS = 3;
+
+        private final AtomicReferenceArray<Slot> slots;
+        private final int capacity;
+        // True when the ring started out with every matching entry of the log
+        private final boolean startedComplete;
+        private volatile long count;
+
+        Ring(int capacity, boolean startedComplete) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.capacity = capacity;
+            this.startedComplete = startedComplete;
+        }
+
+        // No older matching entry exists outside the ring: it started complete and never had to evict
+        boolean isComplete() {
+            return startedComplete && count <= capacity;
+        }
+
+        // Writer thread only
+        void append(LogService.OperationLog entry) {
+            long sequence = count;
+            slots.set((int) (sequence % capacity), new Slot(sequence, entry));
+            count = sequence + 1;
+        }
+
+        int size() {
+            return (int) Math.min(count, capacity);
+        }
+
+        List<LogService.OperationLog> latest(int limit) {
+            for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+                long end = count;
+                int size = (int) Math.min(Math.min(limit, capacity), end);
+                List<LogService.OperationLog> result = new ArrayList<>(size);
+                for (long sequence = end - 1; sequence >= end - size; sequence--) {
+                    Slot slot = slots.get((int) (sequence % capacity));
+                    if (slot == null || slot.sequence != sequence) {
+                        result = null;
+                        break;
+                    }
+                    result.add(slot.entry);
+                }
+                if (result != null) {
+                    return result;
+                }
+            }
+            // Only reachable while the writer appends more than a ring's worth during each read
+            return null;
+        }
+
+        private static final class Slot {
+            private final long sequence;
+            private final LogService.OperationLog entry;
+
+            Slot(long sequence, LogService.OperationLog entry) {
+                this.sequence = sequence;
+                this.entry = entry;
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.dto.RollupSeries;
+import com.mariatitianu.licenta.repository.LogExportRepository;
+import com.mariatitianu.licenta.repository.LogRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Operation counts per minute, hour and day, split by table, operation type, user and status.
+ * The counts follow the log as an {@link IncrementalLogConsumer}, so a time series over any
+ * window costs one pass over its buckets, not over the rows, and the totals cover every entry
+ * rather than a recent sample.
+ *
+ * Minute and hour buckets older than their retention (relative to the newest entry) are
+ * dropped as the log grows; day buckets are kept, as are the totals over the whole log.
+ */
+@Service
+@Slf4j
+public class OperationRollupService extends IncrementalLogConsumer<OperationRollupService.Rollup> {
+
+    public static final List<String> GROUP_BY = List.of("table", "operationType", "user", "status");
+
+    private static final int MAX_POINTS = 10_000;
+    // Old buckets are dropped this often while the initial scan runs
+    private static final int PRUNE_EVERY = 10_000;
+    private static final String NONE = "(none)";
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES, Duration.ofHours(1)),
+        HOUR(ChronoUnit.HOURS, Duration.ofDays(1)),
+        DAY(ChronoUnit.DAYS, Duration.ofDays(30));
+
+        private final long seconds;
+        private final Duration defaultWindow;
+
+        Granularity(ChronoUnit unit, Duration defaultWindow) {
+            this.seconds = unit.getDuration().getSeconds();
+            this.defaultWindow = defaultWindow;
+        }
+
+        long bucketOf(long epochSecond) {
+            return Math.floorDiv(epochSecond, seconds) * seconds;
+        }
+    }
+
+    private final Map<Granularity, Long> retentionSeconds = new EnumMap<>(Granularity.class);
+
+    public OperationRollupService(LogRepository logRepository, LogExportRepository logExportRepository,
+                                  OperationLogCache operationLogCache,
+                                  @Value("${logs.rollup.minute-retention-hours:48}") long minuteRetentionHours,
+                                  @Value("${logs.rollup.hour-retention-days:90}") long hourRetentionDays) {
+        super(logRepository, logExportRepository, operationLogCache, "rollups");
+        retentionSeconds.put(Granularity.MINUTE, Duration.ofHours(minuteRetentionHours).getSeconds());
+        retentionSeconds.put(Granularity.HOUR, Duration.ofDays(hourRetentionDays).getSeconds());
+    }
+
+    @Override
+    protected Rollup newSummary() {
+        return new Rollup(retentionSeconds);
+    }
+
+    /**
+     * Counts per bucket between filter.from and filter.to (both inclusive, defaulting to a window
+     * ending now), restricted by the filter's status, table, user and operation type and split
+     * by {@code groupBy} if given.
+     */
+    public RollupSeries getSeries(String granularityName, String groupBy, LogService.LogFilter filter) {
+        Granularity granularity = parseGranularity(granularityName);
+        if (groupBy != null && !GROUP_BY.contains(groupBy)) {
+            throw new IllegalArgumentException("groupBy must be one of " + GROUP_BY);
+        }
+        String status = LogService.normalizeStatus(filter.getStatus());
+        String operationType = LogService.normalizeOperationType(filter.getOperationType());
+        Instant to = filter.getTo() != null ? filter.getTo() : Instant.now();
+        Instant from = filter.getFrom() != null ? filter.getFrom() : to.minus(granularity.defaultWindow);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        long first = granularity.bucketOf(from.getEpochSecond());
+        long last = granularity.bucketOf(to.getEpochSecond());
+        if ((last - first) / granularity.seconds + 1 > MAX_POINTS) {
+            throw new IllegalArgumentException("Window spans more than " + MAX_POINTS + " buckets; use a coarser granularity");
+        }
+
+        // Buckets are read without locking
+        Rollup rollup = current();
+        ConcurrentSkipListMap<Long, Bucket> series = rollup.buckets.get(granularity);
+        Map<String, Long> totals = new TreeMap<>();
+        List<RollupSeries.Point> points = new ArrayList<>();
+        long total = 0;
+        for (long start = first; start <= last; start += granularity.seconds) {
+            RollupSeries.Point point = new RollupSeries.Point();
+            point.setBucket(Instant.ofEpochSecond(start));
+            Map<String, Long> groups = groupBy != null ? new TreeMap<>() : null;
+            long pointTotal = 0;
+            Bucket bucket = series.get(start);
+            if (bucket != null) {
+                for (Map.Entry<Key, AtomicLong> entry : bucket.counts.entrySet()) {
+                    Key key = entry.getKey();
+                    if (!key.matches(status, filter.getTableName(), filter.getUserName(), operationType)) {
+                        continue;
+                    }
+                    long count = entry.getValue().get();
+                    pointTotal += count;
+                    if (groups != null) {
+                        groups.merge(key.dimension(groupBy), count, Long::sum);
+                    }
+                }
+            }
+            point.setTotal(pointTotal);
+            point.setGroups(groups);
+            if (groups != null) {
+                groups.forEach((group, count) -> totals.merge(group, count, Long::sum));
+            }
+            total += pointTotal;
+            points.add(point);
+        }
+
+        RollupSeries result = new RollupSeries();
+        result.setGranularity(granularity.name());
+        result.setGroupBy(groupBy);
+        result.setFrom(Instant.ofEpochSecond(first));
+        result.setTo(Instant.ofEpochSecond(last));
+        Map.Entry<Long, Bucket> oldest = series.firstEntry();
+        result.setRetainedFrom(oldest != null ? Instant.ofEpochSecond(oldest.getKey()) : null);
+        result.setLogPosition(rollup.getPosition());
+        result.setTotal(total);
+        result.setTotals(groupBy != null ? totals : null);
+        result.setPoints(points);
+        return result;
+    }
+
+    /**
+     * Counts over the whole log, entries without a valid timestamp included: the total, per status
+     * and per operation type.
+     */
+    public Map<String, Object> getSummary() {
+        Rollup rollup = current();
+        long blocked = 0;
+        Map<String, Long> operationTypes = new TreeMap<>();
+        Map<String, Long> statusCounts = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<Key, AtomicLong> entry : rollup.totals.counts.entrySet()) {
+            Key key = entry.getKey();
+            long count = entry.getValue().get();
+            total += count;
+            if ("BLOCKED".equals(key.status)) {
+                blocked += count;
+            }
+            operationTypes.merge(key.operationType, count, Long::sum);
+            statusCounts.merge(key.status, count, Long::sum);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("totalOperations", total);
+        summary.put("blockedOperations", blocked);
+        summary.put("allowedOperations", total - blocked);
+        summary.put("operationTypes", operationTypes);
+        summary.put("statusCounts", statusCounts);
+        summary.put("logPosition", rollup.getPosition());
+        return summary;
+    }
+
+    private static Granularity parseGranularity(String name) {
+        try {
+            return Granularity.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("granularity must be minute, hour or day");
+        }
+    }
+
+    /**
+     * The buckets of every granularity and the totals; after the initial scan written under the
+     * service's monitor, read without it.
+     */
+    static final class Rollup extends IncrementalLogConsumer.Summary {
+        private final Map<Granularity, ConcurrentSkipListMap<Long, Bucket>> buckets = new EnumMap<>(Granularity.class);
+        private final Bucket totals = new Bucket();
+        private final Map<Granularity, Long> retentionSeconds;
+        private long newestSecond = Long.MIN_VALUE;
+        private long counted;
+        private long unparseable;
+
+        private Rollup(Map<Granularity, Long> retentionSeconds) {
+            this.retentionSeconds = retentionSeconds;
+            for (Granularity granularity : Granularity.values()) {
+                buckets.put(granularity, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        @Override
+        protected void count(long entryPosition, String operationTime, String operationType, String tableName,
+                             String userName, String queryText, String status) {
+            Key key = new Key(orNone(tableName), orNone(operationType), orNone(userName), status);
+            totals.increment(key);
+            long second;
+            try {
+                second = Instant.parse(operationTime).getEpochSecond();
+            } catch (NullPointerException | DateTimeParseException e) {
+                if (unparseable++ == 0) {
+                    log.warn("Operation log entry {} has no valid timestamp and is only counted in the totals", entryPosition);
+                }
+                return;
+            }
+            for (Granularity granularity : Granularity.values()) {
+                buckets.get(granularity)
+                        .computeIfAbsent(granularity.bucketOf(second), start -> new Bucket())
+                        .increment(key);
+            }
+            newestSecond = Math.max(newestSecond, second);
+            if (++counted % PRUNE_EVERY == 0) {
+                compact();
+            }
+        }
+
+        @Override
+        protected void compact() {
+            if (newestSecond == Long.MIN_VALUE) {
+                return;
+            }
+            retentionSeconds.forEach((granularity, retention) -> {
+                if (retention > 0) {
+                    buckets.get(granularity).headMap(granularity.bucketOf(newestSecond - retention)).clear();
+                }
+            });
+        }
+    }
+
+    private static String orNone(String value) {
+        return value != null && !value.isEmpty() ? value : NONE;
+    }
+
+    /**
+     * Counts of one bucket, per combination of the dimensions; a handful per bucket in practice.
+     */
+    private static final class Bucket {
+        private final Map<Key, AtomicLong> counts = new ConcurrentHashMap<>();
+
+        void increment(Key key) {
+            counts.computeIfAbsent(key, k -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static final class Key {
+        private final String tableName;
+        private final String operationType;
+        private final String userName;
+        private final String status;
+
+        boolean matches(String status, String tableName, String userName, String operationType) {
+            return (status == null || status.equals(this.status))
+                    && (tableName == null || tableName.equals(this.tableName))
+                    && (userName == null || userName.equals(this.userName))
+                    && (operationType == null || operationType.equals(this.operationType));
+        }
+
+        String dimension(String groupBy) {
+            return switch (groupBy) {
+                case "table" -> tableName;
+                case "operationType" -> operationType;
+                case "user" -> userName;
+                default -> status;
+            };
+        }
+    }
+}
@@ -0,0 +1,493 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.config.BenchmarkProperties;
+import com.mariatitianu.licenta.dto.ComparisonRequest;
+import com.mariatitianu.licenta.dto.ComparisonResult;
+import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkRunContext;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkStatistics;
+import com.mariatitianu.licenta.service.benchmark.BenchmarkTargetRegistry;
+import com.mariatitianu.licenta.service.benchmark.LatencyHistograms;
+import com.mariatitianu.licenta.service.benchmark.ProtectionLeases;
+import com.mariatitianu.licenta.service.benchmark.WardenErrors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs an identical workload against several named databases (e.g. with and without pg_warden)
+ * and reports the per-operation overhead relative to a baseline.
+ *
+ * Targets are interleaved: every round runs each operation as a short batch on every target,
+ * rotating the target order between rounds so drift (cache warm-up, autovacuum, host noise)
+ * affects all targets alike. Each round yields one paired sample per operation, and the
+ * overhead interval is a paired Student-t interval over those round differences.
+ *
+ * Comparisons run as benchmark jobs (see BenchmarkJobService). Writes go to scratch rows in
+ * products; on a target with pg_warden the table is unprotected for the run if it was
+ * protected, and protected again once the scratch rows are gone, as benchmarkBlocked does.
+ * Both go through {@link ProtectionLeases}, shared with the benchmarks of this backend.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OverheadComparisonService {
+
+    private static final List<String> DEFAULT_OPERATIONS = List.of("SELECT", "INSERT", "UPDATE", "DELETE");
+    private static final String SCRATCH_CATEGORY = "OverheadComparison";
+    private static final int WARMUP_ITERATIONS = 100;
+    private static final int MAX_ROUNDS = 1000;
+    private static final int MAX_ITERATIONS_PER_ROUND = 100_000;
+
+    private static final String SELECT_SQL =
+            "SELECT id, name, category, price, stock_quantity, description FROM products WHERE id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, category, price, stock_quantity, description) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE products SET description = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM products WHERE id = ?";
+    private static final String CLEANUP_SQL = "DELETE FROM products WHERE category = ?";
+    private static final String WARDEN_INSTALLED_SQL =
+            "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_warden')";
+    private static final String PRODUCTS_PROTECTED_SQL =
+            "SELECT NOT EXISTS (SELECT 1 FROM warden_unprotected_tables WHERE table_name = 'products')";
+    private static final String UNPROTECT_SQL = "SELECT warden_unprotect('products')";
+    private static final String PROTECT_SQL = "SELECT warden_protect('products')";
+
+    private final BenchmarkTargetRegistry targetRegistry;
+    private final BenchmarkProperties properties;
+    private final ProtectionLeases protectionLeases;
+
+    public List<String> getTargets() {
+        return targetRegistry.getTargetNames();
+    }
+
+    /**
+     * Checks the request before it is queued; compare() checks it again.
+     */
+    public void validateRequest(ComparisonRequest request) {
+        normalizeOperations(request.getOperations());
+        validate(request, resolveTargets(request, resolveBaseline(request)));
+    }
+
+    /**
+     * Runs the comparison, stopping after the current round once the context is cancelled;
+     * rounds that did not run are left out of the intervals.
+     */
+    public ComparisonResult compare(ComparisonRequest request, BenchmarkRunContext context) {
+        List<String> operations = normalizeOperations(request.getOperations());
+        String baseline = resolveBaseline(request);
+        List<String> targets = resolveTargets(request, baseline);
+        validate(request, targets);
+
+        ComparisonResult result = new ComparisonResult();
+        result.setBaselineTarget(baseline);
+        result.setTargets(targets);
+        result.setRounds(request.getRounds());
+        result.setIterationsPerRound(request.getIterationsPerRound());
+        result.setConfidenceLevel(request.getConfidenceLevel());
+        result.setTargetErrors(new LinkedHashMap<>());
+
+        long startTime = System.nanoTime();
+        Map<String, TargetRun> runs = new LinkedHashMap<>();
+        try {
+            for (String target : targets) {
+                TargetRun run = new TargetRun(target, request, operations);
+                try {
+                    run.open();
+                    runs.put(target, run);
+                } catch (Exception e) {
+                    log.warn("Skipping benchmark target {}: {}", target, e.getMessage());
+                    result.getTargetErrors().put(target, e.getMessage());
+                    // Drops the scratch rows and restores protection of what open() got to
+                    run.close();
+                }
+            }
+            if (!runs.containsKey(baseline)) {
+                throw new IllegalStateException("Baseline target '" + baseline + "' is not available: "
+                        + result.getTargetErrors().get(baseline));
+            }
+
+            for (TargetRun run : runs.values()) {
+                for (String operation : operations) {
+                    context.setCurrentOperation(operation + " warm-up on " + run.name);
+                    run.warmUp(operation);
+                }
+            }
+
+            List<TargetRun> order = new ArrayList<>(runs.values());
+            for (int round = 0; round < request.getRounds() && !context.isCancelled(); round++) {
+                for (String operation : operations) {
+                    context.setCurrentOperation(operation + ", round " + (round + 1) + " of " + request.getRounds());
+                    for (TargetRun run : order) {
+                        run.runBatch(operation, round);
+                    }
+                }
+                Collections.rotate(order, 1);
+            }
+        } finally {
+            runs.values().forEach(TargetRun::close);
+        }
+
+        Map<String, Map<String, MultiBenchmarkResult.OperationResult>> targetResults = new LinkedHashMap<>();
+        for (TargetRun run : runs.values()) {
+            targetResults.put(run.name, run.toOperationResults());
+        }
+        result.setTargetResults(targetResults);
+        computeOverheads(result, runs, baseline, operations, request.getConfidenceLevel());
+        result.setTotalTimeMs(LatencyHistograms.toMs(System.nanoTime() - startTime));
+        return result;
+    }
+
+    private void computeOverheads(ComparisonResult result, Map<String, TargetRun> runs, String baseline,
+                                  List<String> operations, double confidenceLevel) {
+        TargetRun baselineRun = runs.get(baseline);
+        List<ComparisonResult.OperationOverhead> overheads = new ArrayList<>();
+        Map<String, Double> averageOverhead = new LinkedHashMap<>();
+
+        for (TargetRun run : runs.values()) {
+            if (run == baselineRun) {
+                continue;
+            }
+
+            List<Double> percents = new ArrayList<>();
+            for (String operation : operations) {
+                double[] targetMeans = run.roundMeans.get(operation);
+                double[] baselineMeans = baselineRun.roundMeans.get(operation);
+
+                // Only rounds where both sides measured something can be paired
+                List<Double> differences = new ArrayList<>();
+                List<Double> baselineValues = new ArrayList<>();
+                List<Double> targetValues = new ArrayList<>();
+                for (int round = 0; round < targetMeans.length; round++) {
+                    if (!Double.isNaN(targetMeans[round]) && !Double.isNaN(baselineMeans[round])) {
+                        differences.add(targetMeans[round] - baselineMeans[round]);
+                        baselineValues.add(baselineMeans[round]);
+                        targetValues.add(targetMeans[round]);
+                    }
+                }
+                if (differences.isEmpty()) {
+                    continue;
+                }
+
+                double[] diff = differences.stream().mapToDouble(Double::doubleValue).toArray();
+                double baselineMean = BenchmarkStatistics.mean(baselineValues.stream().mapToDouble(Double::doubleValue).toArray());
+                double overhead = BenchmarkStatistics.mean(diff);
+                double halfWidth = BenchmarkStatistics.confidenceHalfWidth(diff, confidenceLevel);
+
+                ComparisonResult.OperationOverhead entry = new ComparisonResult.OperationOverhead();
+                entry.setOperation(operation);
+                entry.setTarget(run.name);
+                entry.setBaselineMeanMs(baselineMean);
+                entry.setTargetMeanMs(BenchmarkStatistics.mean(targetValues.stream().mapToDouble(Double::doubleValue).toArray()));
+                entry.setOverheadMs(overhead);
+                entry.setOverheadMsLow(overhead - halfWidth);
+                entry.setOverheadMsHigh(overhead + halfWidth);
+                entry.setPairedRounds(diff.length);
+                entry.setSignificant(!Double.isNaN(halfWidth) && (overhead - halfWidth > 0 || overhead + halfWidth < 0));
+                if (baselineMean > 0) {
+                    entry.setOverheadPercent(overhead / baselineMean * 100.0);
+                    entry.setOverheadPercentLow((overhead - halfWidth) / baselineMean * 100.0);
+                    entry.setOverheadPercentHigh((overhead + halfWidth) / baselineMean * 100.0);
+                    percents.add(entry.getOverheadPercent());
+                }
+                overheads.add(entry);
+            }
+
+            if (!percents.isEmpty()) {
+                averageOverhead.put(run.name, percents.stream().mapToDouble(Double::doubleValue).average().orElse(0));
+            }
+        }
+
+        result.setOverheads(overheads);
+        result.setAverageOverheadPercent(averageOverhead);
+    }
+
+    private String resolveBaseline(ComparisonRequest request) {
+        return request.getBaselineTarget() != null ? request.getBaselineTarget() : properties.getBaselineTarget();
+    }
+
+    private List<String> resolveTargets(ComparisonRequest request, String baseline) {
+        List<String> targets = new ArrayList<>(request.getTargets() != null && !request.getTargets().isEmpty()
+                ? request.getTargets()
+                : targetRegistry.getConfiguredTargetNames());
+        if (!targets.contains(baseline)) {
+            targets.add(baseline);
+        }
+        return targets;
+    }
+
+    private List<String> normalizeOperations(List<String> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return DEFAULT_OPERATIONS;
+        }
+        List<String> normalized = new ArrayList<>();
+        for (String operation : operations) {
+            String upper = operation.toUpperCase();
+            if (!DEFAULT_OPERATIONS.contains(upper)) {
+                throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+            normalized.add(upper);
+        }
+        return normalized;
+    }
+
+    private void validate(ComparisonRequest request, List<String> targets) {
+        if (targets.size() < 2) {
+            throw new IllegalArgumentException("At least two targets are required for a comparison");
+        }
+        for (String target : targets) {
+            if (!targetRegistry.getTargetNames().contains(target)) {
+                throw new IllegalArgumentException("Unknown benchmark target: " + target);
+            }
+        }
+        if (request.getRounds() < 2 || request.getRounds() > MAX_ROUNDS) {
+            throw new IllegalArgumentException("rounds must be between 2 and " + MAX_ROUNDS);
+        }
+        if (request.getIterationsPerRound() < 1 || request.getIterationsPerRound() > MAX_ITERATIONS_PER_ROUND) {
+            throw new IllegalArgumentException("iterationsPerRound must be between 1 and " + MAX_ITERATIONS_PER_ROUND);
+        }
+        if (request.getConfidenceLevel() <= 0 || request.getConfidenceLevel() >= 1) {
+            throw new IllegalArgumentException("confidenceLevel must be between 0 and 1");
+        }
+    }
+
+
+    /**
+     * Workload state for one target: a dedicated connection with prepared statements,
+     * scratch rows for UPDATE/DELETE and the samples collected so far.
+     */
+    private class TargetRun {
+        private final String name;
+        private final ComparisonRequest request;
+        private final List<String> operations;
+        private final Map<String, Histogram> histograms = new HashMap<>();
+        private final Map<String, long[]> counters = new HashMap<>(); // success, blocked, error, totalNanos
+        private final Map<String, double[]> roundMeans = new HashMap<>();
+        private final Deque<Long> deletePool = new ArrayDeque<>();
+        private final List<Long> updateIds = new ArrayList<>();
+
+        private Connection connection;
+        private PreparedStatement select;
+        private PreparedStatement insert;
+        private PreparedStatement update;
+        private PreparedStatement delete;
+        private long minId;
+        private long maxId;
+        private boolean productsHeld;
+
+        private TargetRun(String name, ComparisonRequest request, List<String> operations) {
+            this.name = name;
+            this.request = request;
+            this.operations = operations;
+            for (String operation : operations) {
+                histograms.put(operation, LatencyHistograms.newHistogram());
+                counters.put(operation, new long[4]);
+                double[] means = new double[request.getRounds()];
+                Arrays.fill(means, Double.NaN);
+                roundMeans.put(operation, means);
+            }
+        }
+
+        private void open() throws Exception {
+            connection = targetRegistry.getDataSource(name).getConnection();
+            connection.setAutoCommit(true);
+            select = connection.prepareStatement(SELECT_SQL);
+            insert = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            update = connection.prepareStatement(UPDATE_SQL);
+            delete = connection.prepareStatement(DELETE_SQL);
+
+            // Scratch rows are written by everything but SELECT, and removed with a DELETE
+            if (operations.stream().anyMatch(operation -> !"SELECT".equals(operation))) {
+                unprotectProducts();
+            }
+
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(id), MAX(id) FROM products")) {
+                rs.next();
+                minId = rs.getLong(1);
+                maxId = rs.getLong(2);
+            }
+
+            // Scratch rows keep UPDATE/DELETE away from the demo data
+            if (operations.contains("UPDATE")) {
+                for (int i = 0; i < request.getIterationsPerRound(); i++) {
+                    updateIds.add(insertScratchRow());
+                }
+            }
+            if (operations.contains("DELETE")) {
+                int needed = WARMUP_ITERATIONS + request.getRounds() * request.getIterationsPerRound();
+                for (int i = 0; i < needed; i++) {
+                    deletePool.add(insertScratchRow());
+                }
+            }
+        }
+
+        private void unprotectProducts() throws Exception {
+            protectionLeases.acquire(targetRegistry.getUrl(name), "products", false, () -> {
+                try (Statement stmt = connection.createStatement()) {
+                    try (ResultSet rs = stmt.executeQuery(WARDEN_INSTALLED_SQL)) {
+                        if (!rs.next() || !rs.getBoolean(1)) {
+                            return false;
+                        }
+                    }
+                    try (ResultSet rs = stmt.executeQuery(PRODUCTS_PROTECTED_SQL)) {
+                        if (!rs.next() || !rs.getBoolean(1)) {
+                            return false;
+                        }
+                    }
+                    stmt.execute(UNPROTECT_SQL);
+                    return true;
+                }
+            });
+            productsHeld = true;
+        }
+
+        private void warmUp(String operation) {
+            for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+                try {
+                    execute(operation, i);
+                } catch (SQLException e) {
+                    // Ignore warmup errors
+                }
+            }
+        }
+
+        private void runBatch(String operation, int round) {
+            Histogram histogram = histograms.get(operation);
+            long[] counts = counters.get(operation);
+            long batchNanos = 0;
+            int batchCount = 0;
+
+            for (int i = 0; i < request.getIterationsPerRound(); i++) {
+                try {
+                    long elapsed = execute(operation, i);
+                    LatencyHistograms.record(histogram, elapsed);
+                    counts[0]++;
+                    counts[3] += elapsed;
+                    batchNanos += elapsed;
+                    batchCount++;
+                } catch (SQLException e) {
+                    counts[WardenErrors.isBlocked(e) ? 1 : 2]++;
+                    log.debug("{} on target {} failed: {}", operation, name, e.getMessage());
+                }
+            }
+
+            if (batchCount > 0) {
+                roundMeans.get(operation)[round] = LatencyHistograms.toMs(batchNanos) / batchCount;
+            }
+        }
+
+        /**
+         * Executes one operation and returns the nanoseconds spent in the statement round trip.
+         */
+        private long execute(String operation, int iteration) throws SQLException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start;
+            switch (operation) {
+                case "SELECT":
+                    select.setLong(1, random.nextLong(minId, maxId + 1));
+                    start = System.nanoTime();
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            rs.getString(2);
+                        }
+                    }
+                    return System.nanoTime() - start;
+                case "INSERT":
+                    bindScratchRow(iteration);
+                    start = System.nanoTime();
+                    insert.executeUpdate();
+                    try (ResultSet keys = insert.getGeneratedKeys()) {
+                        keys.next();
+                    }
+                    return System.nanoTime() - start;
+                case "UPDATE":
+                    update.setString(1, "Compared at " + System.nanoTime() + "_" + iteration);
+                    update.setLong(2, updateIds.get(random.nextInt(updateIds.size())));
+                    start = System.nanoTime();
+                    update.executeUpdate();
+                    return System.nanoTime() - start;
+                case "DELETE":
+                    Long id = deletePool.poll();
+                    delete.setLong(1, id != null ? id : insertScratchRow());
+                    start = System.nanoTime();
+                    delete.executeUpdate();
+                    return System.nanoTime() - start;
+                default:
+                    throw new IllegalArgumentException("Unknown operation: " + operation);
+            }
+        }
+
+        private void bindScratchRow(int iteration) throws SQLException {
+            insert.setString(1, "Comparison Product " + System.nanoTime() + "_" + iteration);
+            insert.setString(2, SCRATCH_CATEGORY);
+            insert.setBigDecimal(3, new BigDecimal("9.99"));
+            insert.setInt(4, 1);
+            insert.setString(5, "Overhead comparison scratch row");
+        }
+
+        private long insertScratchRow() throws SQLException {
+            bindScratchRow(0);
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+
+        private Map<String, MultiBenchmarkResult.OperationResult> toOperationResults() {
+            Map<String, MultiBenchmarkResult.OperationResult> results = new LinkedHashMap<>();
+            for (String operation : operations) {
+                Histogram histogram = histograms.get(operation);
+                long[] counts = counters.get(operation);
+
+                MultiBenchmarkResult.OperationResult result = new MultiBenchmarkResult.OperationResult();
+                result.setIterations(request.getRounds() * request.getIterationsPerRound());
+                result.setSuccessCount((int) counts[0]);
+                result.setBlockedCount((int) counts[1]);
+                result.setErrorCount((int) counts[2]);
+                result.setTotalTimeMs(LatencyHistograms.toMs(counts[3]));
+                result.setClients(1);
+                if (counts[0] > 0) {
+                    result.setAvgTimeMs(LatencyHistograms.toMs(counts[3]) / counts[0]);
+                    result.setOpsPerSecond(counts[0] * 1_000_000_000.0 / counts[3]);
+                    LatencyHistograms.applyPercentiles(result, histogram);
+                }
+                results.put(operation, result);
+            }
+            return results;
+        }
+
+        private void close() {
+            if (connection == null) {
+                return;
+            }
+            try (Connection conn = connection) {
+                try (PreparedStatement cleanup = conn.prepareStatement(CLEANUP_SQL)) {
+                    cleanup.setString(1, SCRATCH_CATEGORY);
+                    cleanup.executeUpdate();
+                } catch (SQLException e) {
+                    log.warn("Failed to clean up scratch rows on target {}: {}", name, e.getMessage());
+                }
+                if (productsHeld) {
+                    productsHeld = false;
+                    protectionLeases.release(targetRegistry.getUrl(name), "products", () -> {
+                        try (Statement stmt = conn.createStatement()) {
+                            stmt.execute(PROTECT_SQL);
+                            return true;
+                        }
+                    });
+                }
+            } catch (SQLException e) {
+                log.warn("Failed to close the connection to target {}: {}", name, e.getMessage());
+            }
+            connection = null;
+        }
+    }
+}
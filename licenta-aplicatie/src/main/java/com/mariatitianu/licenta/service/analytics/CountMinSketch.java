@@ -0,0 +1,100 @@
+package com.mariatitianu.licenta.service.analytics;
+
+/**
+ * Estimated frequency of any key in fixed memory, with the count-min sketch of Cormode and
+ * Muthukrishnan, "An Improved Data Stream Summary: The Count-Min Sketch and its Applications".
+ * With width ceil(e / epsilon) and depth ceil(ln(1 / delta)), an estimate never undercounts,
+ * and overcounts by more than epsilon * N for a stream of N keys only with probability delta.
+ * Rows are indexed by double hashing one 64-bit hash of the key. Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 1099511628211L;
+
+    private final double epsilon;
+    private final double delta;
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long streamLength;
+
+    public CountMinSketch(double epsilon, double delta) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1) {
+            throw new IllegalArgumentException("epsilon and delta must be between 0 and 1 (exclusive)");
+        }
+        // In double first: the int casts would saturate and the product wrap around
+        double width = Math.ceil(Math.E / epsilon);
+        double depth = Math.ceil(Math.log(1 / delta));
+        if (width * depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("epsilon " + epsilon + " and delta " + delta + " need "
+                    + (long) (width * depth) + " counters, more than an array holds");
+        }
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.width = (int) width;
+        this.depth = (int) depth;
+        this.counts = new long[this.width * this.depth];
+    }
+
+    public void add(String key) {
+        streamLength++;
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + index(h1, h2, row)]++;
+        }
+    }
+
+    public long estimate(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + index(h1, h2, row)]);
+        }
+        return estimate;
+    }
+
+    // Overcount that an estimate exceeds only with probability delta
+    public long getErrorBound() {
+        return (long) Math.ceil(epsilon * streamLength);
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public double getDelta() {
+        return delta;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getStreamLength() {
+        return streamLength;
+    }
+
+    private int index(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    // FNV-1a over the characters, finished with the SplitMix64 mixer so both halves are usable
+    private static long hash(String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * FNV_PRIME;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+}
@@ -0,0 +1,111 @@
+package com.mariatitianu.licenta.service.analytics;
+
+/**
+ * Reduces a query to its shape, so that executions differing only in their values count as one:
+ * string and number literals and $n parameters become ?, lists of them collapse to one ?,
+ * comments are dropped, whitespace is collapsed and everything outside quoted identifiers is
+ * lower-cased. "DELETE FROM products WHERE id IN (1, 2, 3);" becomes
+ * "delete from products where id in (?)".
+ */
+public final class QueryFingerprint {
+
+    public static final int MAX_LENGTH = 256;
+
+    private QueryFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return null;
+        }
+        StringBuilder out = new StringBuilder(Math.min(sql.length(), MAX_LENGTH));
+        int length = sql.length();
+        int i = 0;
+        while (i < length && out.length() < MAX_LENGTH) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                space(out);
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                while (i < length && sql.charAt(i) != '\n') {
+                    i++;
+                }
+                space(out);
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                space(out);
+            } else if (c == '\'') {
+                // '' inside a literal is an escaped quote
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                placeholder(out);
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if ((Character.isDigit(c) || c == '$' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))
+                    && !continuesWord(out)) {
+                i++;
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                placeholder(out);
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && (out.charAt(end - 1) == ' ' || out.charAt(end - 1) == ';')) {
+            end--;
+        }
+        out.setLength(Math.min(end, MAX_LENGTH));
+        return out.toString();
+    }
+
+    private static void space(StringBuilder out) {
+        if (out.length() > 0 && out.charAt(out.length() - 1) != ' ') {
+            out.append(' ');
+        }
+    }
+
+    // "?, ?" and "? ,?" become "?"
+    private static void placeholder(StringBuilder out) {
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (end > 0 && out.charAt(end - 1) == ',') {
+            int before = end - 1;
+            while (before > 0 && out.charAt(before - 1) == ' ') {
+                before--;
+            }
+            if (before > 0 && out.charAt(before - 1) == '?') {
+                out.setLength(before);
+                return;
+            }
+        }
+        out.append('?');
+    }
+
+    // Digits inside an identifier such as order_items2 are not literals
+    private static boolean continuesWord(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char last = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(last) || last == '_' || last == '"';
+    }
+}
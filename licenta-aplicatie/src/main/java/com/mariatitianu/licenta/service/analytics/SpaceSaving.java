@@ -0,0 +1,170 @@
+package com.mariatitianu.licenta.service.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most frequent keys of a stream in a fixed number of counters, with the Space-Saving
+ * algorithm of Metwally, Agrawal and El Abbadi, "Efficient Computation of Frequent and Top-k
+ * Elements in Data Streams". A monitored key's count overestimates its true frequency by at
+ * most the key's error, and no error exceeds N / capacity for a stream of N keys, so every key
+ * more frequent than that is monitored. Once all counters are taken, a new key replaces the
+ * one with the smallest count and inherits that count as its error. Not thread-safe.
+ */
+public class SpaceSaving {
+
+    /**
+     * A monitored key: its true count is between {@code count - error} and {@code count}.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String key;
+        private final long count;
+        private final long error;
+        private final boolean guaranteed; // certainly among the true top entries asked for
+    }
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    // Min-heap on count, so the counter to replace is always at the root
+    private final Counter[] heap;
+    private int size;
+    private long streamLength;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Space-Saving needs at least one counter");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>((int) (capacity / 0.75f) + 1);
+        this.heap = new Counter[capacity];
+    }
+
+    public void add(String key) {
+        streamLength++;
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            counter.count++;
+            siftDown(counter.index);
+            return;
+        }
+        if (size < capacity) {
+            counter = new Counter(key);
+            counter.count = 1;
+            counter.index = size;
+            heap[size++] = counter;
+            counters.put(key, counter);
+            siftUp(counter.index);
+            return;
+        }
+        // Evict the smallest count; the counter object is reused, so a full sketch never allocates
+        Counter min = heap[0];
+        counters.remove(min.key);
+        min.key = key;
+        min.error = min.count;
+        min.count++;
+        counters.put(key, min);
+        siftDown(0);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getStreamLength() {
+        return streamLength;
+    }
+
+    /**
+     * The most any count is overestimated by, and the most an unmonitored key can have occurred:
+     * the smallest monitored count once every counter is taken, 0 before.
+     */
+    public long getMaxError() {
+        return size < capacity ? 0 : heap[0].count;
+    }
+
+    // Bounds of any key's true count, monitored or not
+    public long upperBound(String key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.count : getMaxError();
+    }
+
+    public long lowerBound(String key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.count - counter.error : 0;
+    }
+
+    /**
+     * Up to {@code limit} monitored keys, highest count first. An entry is guaranteed when even
+     * its lowest possible count beats the highest possible count of every key ranked below.
+     */
+    public List<Entry> top(int limit) {
+        Counter[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted, Comparator.comparingLong((Counter counter) -> counter.count).reversed()
+                .thenComparing(counter -> counter.key));
+        int count = Math.min(limit, size);
+        long nextBest = size > count ? sorted[count].count : getMaxError();
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Counter counter = sorted[i];
+            entries.add(new Entry(counter.key, counter.count, counter.error,
+                    counter.count - counter.error >= nextBest));
+        }
+        return entries;
+    }
+
+    private void siftUp(int index) {
+        Counter counter = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= counter.count) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(counter, index);
+    }
+
+    private void siftDown(int index) {
+        Counter counter = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].count < heap[child].count) {
+                child = right;
+            }
+            if (counter.count <= heap[child].count) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(counter, index);
+    }
+
+    private void place(Counter counter, int index) {
+        heap[index] = counter;
+        counter.index = index;
+    }
+
+    private static final class Counter {
+        private String key;
+        private long count;
+        private long error;
+        private int index;
+
+        Counter(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import com.mariatitianu.licenta.dto.BenchmarkJobInfo;
+import com.mariatitianu.licenta.dto.BenchmarkProgressSnapshot;
+import com.mariatitianu.licenta.dto.ComparisonRequest;
+import com.mariatitianu.licenta.dto.ComparisonResult;
+import com.mariatitianu.licenta.dto.FleetRequest;
+import com.mariatitianu.licenta.dto.FleetResult;
+import com.mariatitianu.licenta.dto.MultiBenchmarkRequest;
+import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+
+/**
+ * A benchmark submitted for asynchronous execution, together with its progress history
+ * and the SSE subscribers watching it. Fleet jobs run the benchmark on other backends and
+ * have no local progress, only the backend currently running; overhead comparisons report
+ * only the operation currently running.
+ */
+@Getter
+public class BenchmarkJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private final String id;
+    private final MultiBenchmarkRequest request;
+    private final FleetRequest fleetRequest; // null for a benchmark run on this backend
+    private final ComparisonRequest comparisonRequest; // set only for an overhead comparison
+    private final BenchmarkRunContext context = new BenchmarkRunContext();
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final Deque<BenchmarkProgressSnapshot> snapshots = new ArrayDeque<>();
+    private final int maxSnapshots;
+
+    @Setter private volatile String status = QUEUED;
+    @Setter private volatile LocalDateTime startedAt;
+    @Setter private volatile LocalDateTime finishedAt;
+    @Setter private volatile String error;
+    @Setter private volatile MultiBenchmarkResult result;
+    @Setter private volatile FleetResult fleetResult;
+    @Setter private volatile ComparisonResult comparisonResult;
+    @Setter private volatile Future<?> future;
+
+    // Progress bookkeeping, only touched by the progress ticker and the job thread
+    @Setter private volatile long startNanos;
+    @Setter private volatile long lastTickNanos;
+    @Setter private volatile long lastFailureCount;
+
+    public BenchmarkJob(String id, MultiBenchmarkRequest request, int maxSnapshots) {
+        this(id, request, null, null, maxSnapshots);
+    }
+
+    public BenchmarkJob(String id, FleetRequest fleetRequest, int maxSnapshots) {
+        this(id, fleetRequest.getBenchmark(), fleetRequest, null, maxSnapshots);
+    }
+
+    public BenchmarkJob(String id, ComparisonRequest comparisonRequest, int maxSnapshots) {
+        this(id, null, null, comparisonRequest, maxSnapshots);
+    }
+
+    private BenchmarkJob(String id, MultiBenchmarkRequest request, FleetRequest fleetRequest,
+                         ComparisonRequest comparisonRequest, int maxSnapshots) {
+        this.id = id;
+        this.request = request;
+        this.fleetRequest = fleetRequest;
+        this.comparisonRequest = comparisonRequest;
+        this.maxSnapshots = maxSnapshots;
+    }
+
+    public boolean isFleet() {
+        return fleetRequest != null;
+    }
+
+    public boolean isComparison() {
+        return comparisonRequest != null;
+    }
+
+    public boolean isFinished() {
+        return COMPLETED.equals(status) || FAILED.equals(status) || CANCELLED.equals(status);
+    }
+
+    public synchronized void addSnapshot(BenchmarkProgressSnapshot snapshot) {
+        if (snapshots.size() == maxSnapshots) {
+            snapshots.removeFirst();
+        }
+        snapshots.addLast(snapshot);
+    }
+
+    public synchronized List<BenchmarkProgressSnapshot> getSnapshotHistory() {
+        return new ArrayList<>(snapshots);
+    }
+
+    public synchronized BenchmarkProgressSnapshot getLatestSnapshot() {
+        return snapshots.peekLast();
+    }
+
+    public BenchmarkJobInfo toInfo(boolean includeResult) {
+        BenchmarkJobInfo info = new BenchmarkJobInfo();
+        info.setJobId(id);
+        info.setStatus(status);
+        info.setOperations(isComparison() ? comparisonRequest.getOperations() : request.getOperations());
+        info.setCurrentOperation(context.getCurrentOperation());
+        info.setSubmittedAt(submittedAt);
+        info.setStartedAt(startedAt);
+        info.setFinishedAt(finishedAt);
+        info.setError(error);
+        info.setLatestSnapshot(getLatestSnapshot());
+        info.setFleet(isFleet());
+        info.setComparison(isComparison());
+        if (includeResult) {
+            info.setResult(result);
+            info.setFleetResult(fleetResult);
+            info.setComparisonResult(comparisonResult);
+        }
+        return info;
+    }
+}
@@ -0,0 +1,68 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shared state of one benchmark run: the cancellation flag checked by the workers and
+ * an interval recorder that progress reporting drains once per tick.
+ */
+public class BenchmarkRunContext {
+
+    private final Recorder intervalRecorder = LatencyHistograms.newRecorder();
+    private final LongAdder failures = new LongAdder();
+    private volatile boolean cancelled;
+    private volatile String currentOperation;
+    private volatile SampleCapture capture;
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public String getCurrentOperation() {
+        return currentOperation;
+    }
+
+    public void setCurrentOperation(String currentOperation) {
+        this.currentOperation = currentOperation;
+    }
+
+    /**
+     * Spill files of this run, or null when the request did not ask for a capture.
+     */
+    public SampleCapture getCapture() {
+        return capture;
+    }
+
+    public void setCapture(SampleCapture capture) {
+        this.capture = capture;
+    }
+
+    /**
+     * Wait-free; safe to call from every worker thread.
+     */
+    public void recordLatency(long nanos) {
+        LatencyHistograms.record(intervalRecorder, nanos);
+    }
+
+    public void recordFailure() {
+        failures.increment();
+    }
+
+    /**
+     * Returns the latencies recorded since the previous call and resets the interval.
+     */
+    public Histogram drainInterval() {
+        return intervalRecorder.getIntervalHistogram();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,125 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+/**
+ * Small statistics toolkit for comparing benchmark samples: means, standard deviations
+ * and Student-t confidence intervals.
+ */
+public final class BenchmarkStatistics {
+
+    private BenchmarkStatistics() {
+    }
+
+    public static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    /**
+     * Sample standard deviation (n - 1 denominator).
+     */
+    public static double stdDev(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double mean = mean(values);
+        double sumSquares = 0;
+        for (double value : values) {
+            sumSquares += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(sumSquares / (values.length - 1));
+    }
+
+    /**
+     * Half-width of the two-sided confidence interval of the mean of {@code values}.
+     * Returns NaN when fewer than two values are available.
+     */
+    public static double confidenceHalfWidth(double[] values, double confidenceLevel) {
+        if (values.length < 2) {
+            return Double.NaN;
+        }
+        double t = tQuantile(1 - (1 - confidenceLevel) / 2, values.length - 1);
+        return t * stdDev(values) / Math.sqrt(values.length);
+    }
+
+    /**
+     * Welch's t statistic for the difference of two means given their standard deviations and counts.
+     */
+    public static double welchT(double meanA, double stdDevA, long countA,
+                                double meanB, double stdDevB, long countB) {
+        double standardError = Math.sqrt(stdDevA * stdDevA / countA + stdDevB * stdDevB / countB);
+        return standardError == 0 ? 0 : (meanB - meanA) / standardError;
+    }
+
+    /**
+     * Welch–Satterthwaite degrees of freedom for {@link #welchT}.
+     */
+    public static double welchDegreesOfFreedom(double stdDevA, long countA, double stdDevB, long countB) {
+        double varianceA = stdDevA * stdDevA / countA;
+        double varianceB = stdDevB * stdDevB / countB;
+        double denominator = varianceA * varianceA / Math.max(1, countA - 1)
+                + varianceB * varianceB / Math.max(1, countB - 1);
+        return denominator == 0 ? Math.max(1, countA + countB - 2) : Math.pow(varianceA + varianceB, 2) / denominator;
+    }
+
+    /**
+     * Quantile of Student's t distribution: exact for 1 and 2 degrees of freedom,
+     * Cornish-Fisher expansion around the normal quantile otherwise.
+     */
+    public static double tQuantile(double p, double degreesOfFreedom) {
+        if (degreesOfFreedom <= 1) {
+            return Math.tan(Math.PI * (p - 0.5));
+        }
+        if (degreesOfFreedom <= 2) {
+            return (2 * p - 1) / Math.sqrt(2 * p * (1 - p));
+        }
+
+        double z = normalQuantile(p);
+        double v = degreesOfFreedom;
+        double z3 = z * z * z;
+        double z5 = z3 * z * z;
+        double z7 = z5 * z * z;
+        double z9 = z7 * z * z;
+        return z
+                + (z3 + z) / (4 * v)
+                + (5 * z5 + 16 * z3 + 3 * z) / (96 * v * v)
+                + (3 * z7 + 19 * z5 + 17 * z3 - 15 * z) / (384 * v * v * v)
+                + (79 * z9 + 776 * z7 + 1482 * z5 - 1920 * z3 - 945 * z) / (92160 * v * v * v * v);
+    }
+
+    /**
+     * Inverse of the standard normal CDF (Acklam's rational approximation, relative error below 1.2e-9).
+     */
+    public static double normalQuantile(double p) {
+        if (p <= 0 || p >= 1) {
+            throw new IllegalArgumentException("p must be in (0, 1)");
+        }
+
+        double[] a = {-3.969683028665376e+01, 2.209460984245205e+02, -2.759285104469687e+02,
+                1.383577518672690e+02, -3.066479806614716e+01, 2.506628277459239e+00};
+        double[] b = {-5.447609879822406e+01, 1.615858368580409e+02, -1.556989798598866e+02,
+                6.680131188771972e+01, -1.328068155288572e+01};
+        double[] c = {-7.784894002430293e-03, -3.223964580411365e-01, -2.400758277161838e+00,
+                -2.549732539343734e+00, 4.374664141464968e+00, 2.938163982698783e+00};
+        double[] d = {7.784695709041462e-03, 3.224671290700398e-01, 2.445134137142996e+00,
+                3.754408661907416e+00};
+        double low = 0.02425;
+
+        if (p < low) {
+            double q = Math.sqrt(-2 * Math.log(p));
+            return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        if (p > 1 - low) {
+            double q = Math.sqrt(-2 * Math.log(1 - p));
+            return -(((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4]) * q + c[5])
+                    / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3]) * q + 1);
+        }
+        double q = p - 0.5;
+        double r = q * q;
+        return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r + a[5]) * q
+                / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3]) * r + b[4]) * r + 1);
+    }
+}
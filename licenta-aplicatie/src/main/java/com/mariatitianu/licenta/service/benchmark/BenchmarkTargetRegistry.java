@@ -0,0 +1,86 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import com.mariatitianu.licenta.config.BenchmarkProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named DataSources for benchmark targets. The application's own DataSource is always
+ * available as {@value #PRIMARY}; configured targets get their own small pool on first use,
+ * so an unreachable target does not prevent startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BenchmarkTargetRegistry {
+
+    public static final String PRIMARY = "primary";
+
+    private final DataSource primaryDataSource;
+    private final BenchmarkProperties properties;
+    private final Map<String, HikariDataSource> pools = new ConcurrentHashMap<>();
+
+    public List<String> getTargetNames() {
+        List<String> names = new ArrayList<>();
+        names.add(PRIMARY);
+        names.addAll(properties.getTargets().keySet());
+        return names;
+    }
+
+    public List<String> getConfiguredTargetNames() {
+        return new ArrayList<>(properties.getTargets().keySet());
+    }
+
+    /**
+     * The JDBC URL of a configured target, or null for {@value #PRIMARY}, the application's database.
+     */
+    public String getUrl(String name) {
+        if (PRIMARY.equals(name)) {
+            return null;
+        }
+        BenchmarkProperties.Target target = properties.getTargets().get(name);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown benchmark target: " + name);
+        }
+        return target.getUrl();
+    }
+
+    public DataSource getDataSource(String name) {
+        if (PRIMARY.equals(name)) {
+            return primaryDataSource;
+        }
+
+        BenchmarkProperties.Target target = properties.getTargets().get(name);
+        if (target == null) {
+            throw new IllegalArgumentException("Unknown benchmark target: " + name);
+        }
+        return pools.computeIfAbsent(name, key -> createPool(key, target));
+    }
+
+    private HikariDataSource createPool(String name, BenchmarkProperties.Target target) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("benchmark-" + name);
+        config.setJdbcUrl(target.getUrl());
+        config.setUsername(target.getUsername());
+        config.setPassword(target.getPassword());
+        config.setMaximumPoolSize(target.getMaxPoolSize());
+        config.setMinimumIdle(0);
+        log.info("Creating benchmark connection pool for target {} ({})", name, target.getUrl());
+        return new HikariDataSource(config);
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,214 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import com.mariatitianu.licenta.exception.GlobalExceptionHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues statements that pg_warden rejects against a protected scratch table and times the
+ * path a rejected statement takes through the application: the JDBC round trip that ends in
+ * the server's ERROR, Spring's SQLException translation and GlobalExceptionHandler.
+ */
+@Component
+@Slf4j
+public class BlockedStatementProbe {
+
+    public static final String SCRATCH_TABLE = "warden_bench_protected";
+    public static final String PAYMENTS_TABLE = "customer_payments";
+
+    public static final String ROUND_TRIP = "roundTrip";
+    public static final String TRANSLATION = "translation";
+    public static final String HANDLER = "handler";
+
+    private static final int BASELINE_SAMPLES = 200;
+
+    private final DataSource dataSource;
+    private final GlobalExceptionHandler exceptionHandler;
+    private final SQLExceptionTranslator translator;
+
+    public BlockedStatementProbe(DataSource dataSource, GlobalExceptionHandler exceptionHandler) {
+        this.dataSource = dataSource;
+        this.exceptionHandler = exceptionHandler;
+        this.translator = new SQLErrorCodeSQLExceptionTranslator(dataSource);
+    }
+
+    public boolean isWardenInstalled() {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_warden')")) {
+            return rs.next() && rs.getBoolean(1);
+        } catch (SQLException e) {
+            log.warn("Could not check for pg_warden: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Creates the scratch table if needed. CREATE and INSERT are never blocked by pg_warden.
+     */
+    public void createScratchTable() throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + SCRATCH_TABLE + " (id BIGSERIAL PRIMARY KEY, note TEXT)");
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + SCRATCH_TABLE)) {
+                if (rs.next() && rs.getLong(1) == 0) {
+                    stmt.execute("INSERT INTO " + SCRATCH_TABLE + " (note) VALUES ('protected row')");
+                }
+            }
+        }
+    }
+
+    public String tableFor(String operation) {
+        return operation.startsWith("BLOCKED_PAYMENT_") ? PAYMENTS_TABLE : SCRATCH_TABLE;
+    }
+
+    public String statementFor(String operation) {
+        switch (operation) {
+            // The real protected table; a single existing row, and the transaction is rolled back either way
+            case "BLOCKED_PAYMENT_UPDATE":
+                return "UPDATE " + PAYMENTS_TABLE + " SET amount = amount + 1"
+                        + " WHERE id = (SELECT MIN(id) FROM " + PAYMENTS_TABLE + ")";
+            case "BLOCKED_PAYMENT_DELETE":
+                return "DELETE FROM " + PAYMENTS_TABLE + " WHERE id = (SELECT MIN(id) FROM " + PAYMENTS_TABLE + ")";
+            case "BLOCKED_UPDATE":
+                return "UPDATE " + SCRATCH_TABLE + " SET note = 'changed' WHERE id = 1";
+            case "BLOCKED_DELETE":
+                return "DELETE FROM " + SCRATCH_TABLE + " WHERE id = 1";
+            case "BLOCKED_ALTER":
+                return "ALTER TABLE " + SCRATCH_TABLE + " ALTER COLUMN note SET DEFAULT 'changed'";
+            case "BLOCKED_DROP":
+                return "DROP TABLE " + SCRATCH_TABLE;
+            default:
+                throw new IllegalArgumentException("Unknown blocked operation: " + operation);
+        }
+    }
+
+    /**
+     * Median round trip of {@code SELECT 1}: the protocol and network cost every statement pays,
+     * subtracted from the blocked round trip to estimate the server-side work.
+     */
+    public long measureBaselineRoundTrip() throws SQLException {
+        Histogram histogram = LatencyHistograms.newHistogram();
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            for (int i = 0; i < BASELINE_SAMPLES; i++) {
+                long start = System.nanoTime();
+                try (ResultSet rs = stmt.executeQuery("SELECT 1")) {
+                    rs.next();
+                }
+                LatencyHistograms.record(histogram, System.nanoTime() - start);
+            }
+        }
+        return histogram.getValueAtPercentile(50);
+    }
+
+    /**
+     * Runs the statement in a transaction that is always rolled back, so on a database without
+     * pg_warden the ALTER/DROP/UPDATE/DELETE leave no trace. Returns the client-visible time:
+     * round trip plus, for rejected statements, translation and handling.
+     */
+    public long execute(String sql, Phases phases) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                long start = System.nanoTime();
+                try {
+                    stmt.execute(sql);
+                    long roundTrip = System.nanoTime() - start;
+                    phases.record(ROUND_TRIP, roundTrip);
+                    phases.allowed.increment();
+                    return roundTrip;
+                } catch (SQLException e) {
+                    long roundTrip = System.nanoTime() - start;
+
+                    long translateStart = System.nanoTime();
+                    DataAccessException translated = translator.translate("blocked statement benchmark", sql, e);
+                    long translation = System.nanoTime() - translateStart;
+
+                    long handlerStart = System.nanoTime();
+                    exceptionHandler.handleDataAccessException(translated);
+                    long handler = System.nanoTime() - handlerStart;
+
+                    phases.record(ROUND_TRIP, roundTrip);
+                    phases.record(TRANSLATION, translation);
+                    phases.record(HANDLER, handler);
+                    if (WardenErrors.isBlocked(e)) {
+                        phases.blocked.increment();
+                    } else {
+                        phases.failed.increment();
+                    }
+                    return roundTrip + translation + handler;
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+
+    /**
+     * Per-phase latencies and outcomes of one blocked-operation run, shared by all workers.
+     */
+    public static class Phases {
+        private final Recorder roundTrip = LatencyHistograms.newRecorder();
+        private final Recorder translation = LatencyHistograms.newRecorder();
+        private final Recorder handler = LatencyHistograms.newRecorder();
+        private final LongAdder blocked = new LongAdder();
+        private final LongAdder allowed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        private void record(String phase, long nanos) {
+            switch (phase) {
+                case ROUND_TRIP -> LatencyHistograms.record(roundTrip, nanos);
+                case TRANSLATION -> LatencyHistograms.record(translation, nanos);
+                default -> LatencyHistograms.record(handler, nanos);
+            }
+        }
+
+        public void reset() {
+            roundTrip.reset();
+            translation.reset();
+            handler.reset();
+            blocked.reset();
+            allowed.reset();
+            failed.reset();
+        }
+
+        public Histogram drainRoundTrip() {
+            return roundTrip.getIntervalHistogram();
+        }
+
+        public Histogram drainTranslation() {
+            return translation.getIntervalHistogram();
+        }
+
+        public Histogram drainHandler() {
+            return handler.getIntervalHistogram();
+        }
+
+        public long getBlocked() {
+            return blocked.sum();
+        }
+
+        public long getAllowed() {
+            return allowed.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Splits the time of one benchmarked operation into JDBC phases. {@link #wrap(DataSource)}
+ * returns a DataSource whose connections, statements and result sets time their calls into
+ * a per-thread capture between {@link #begin()} and {@link #end()}. Connections taken outside
+ * a capture are returned unwrapped, so the rest of the application pays a single ThreadLocal
+ * lookup per getConnection.
+ *
+ * Phases:
+ * connectionAcquire - DataSource.getConnection (pool checkout, or connect without a pool)
+ * prepare           - prepareStatement/prepareCall/createStatement
+ * execute           - execute*, including the round trip and any NOTICEs the server sends
+ * fetchMap          - from the result set being returned until it is closed: next(), getters and row mapping
+ * commit            - commit and rollback; with auto-commit this cost is part of execute
+ * connectionRelease - Connection.close (return to pool)
+ * Whatever is left of the operation (SQL building, Hibernate flush/dirty checking, mapping
+ * outside a result set) is reported by the caller as {@link #APPLICATION}. So is COPY, which
+ * runs on the unwrapped driver connection.
+ */
+public final class JdbcPhaseTimer {
+
+    public static final String CONNECTION_ACQUIRE = "connectionAcquire";
+    public static final String PREPARE = "prepare";
+    public static final String EXECUTE = "execute";
+    public static final String FETCH_MAP = "fetchMap";
+    public static final String COMMIT = "commit";
+    public static final String CONNECTION_RELEASE = "connectionRelease";
+    public static final String APPLICATION = "application";
+
+    public static final String[] PHASES = {CONNECTION_ACQUIRE, PREPARE, EXECUTE, FETCH_MAP, COMMIT, CONNECTION_RELEASE};
+
+    private static final int ACQUIRE_INDEX = 0;
+    private static final int PREPARE_INDEX = 1;
+    private static final int EXECUTE_INDEX = 2;
+    private static final int FETCH_INDEX = 3;
+    private static final int COMMIT_INDEX = 4;
+    private static final int RELEASE_INDEX = 5;
+
+    private static final ThreadLocal<Capture> CURRENT = new ThreadLocal<>();
+
+    private JdbcPhaseTimer() {
+    }
+
+    /**
+     * Starts capturing on the calling thread and returns the start time, to be used in place
+     * of {@code System.nanoTime()} at the start of a timed operation.
+     */
+    public static long begin() {
+        Capture capture = CURRENT.get();
+        if (capture == null) {
+            capture = new Capture();
+            CURRENT.set(capture);
+        }
+        capture.reset();
+        capture.active = true;
+        return System.nanoTime();
+    }
+
+    /**
+     * Stops capturing and returns what was recorded since {@link #begin()}, or null if the
+     * operation never called it. The capture is reused by the next {@code begin()} on this thread.
+     */
+    public static Capture end() {
+        Capture capture = CURRENT.get();
+        if (capture == null || !capture.active) {
+            return null;
+        }
+        capture.active = false;
+        return capture;
+    }
+
+    private static Capture active() {
+        Capture capture = CURRENT.get();
+        return capture != null && capture.active ? capture : null;
+    }
+
+    /**
+     * The wrapped DataSource stays AutoCloseable when the pool is, so the context still closes
+     * the pool on shutdown (Spring infers close() as the destroy method of AutoCloseable beans).
+     */
+    public static DataSource wrap(DataSource dataSource) {
+        Class<?>[] types = dataSource instanceof AutoCloseable
+                ? new Class<?>[]{DataSource.class, AutoCloseable.class}
+                : new Class<?>[]{DataSource.class};
+        return (DataSource) Proxy.newProxyInstance(JdbcPhaseTimer.class.getClassLoader(), types,
+                new TimingHandler(dataSource));
+    }
+
+    /**
+     * Phase totals of one operation.
+     */
+    public static final class Capture {
+        private final long[] nanos = new long[PHASES.length];
+        private final int[] calls = new int[PHASES.length];
+        private boolean active;
+
+        private void reset() {
+            Arrays.fill(nanos, 0);
+            Arrays.fill(calls, 0);
+        }
+
+        private void add(int phase, long elapsed) {
+            nanos[phase] += elapsed;
+            calls[phase]++;
+        }
+
+        public long nanos(int phase) {
+            return nanos[phase];
+        }
+
+        public int calls(int phase) {
+            return calls[phase];
+        }
+
+        public boolean isEmpty() {
+            for (int count : calls) {
+                if (count > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public long totalNanos() {
+            long total = 0;
+            for (long phase : nanos) {
+                total += phase;
+            }
+            return total;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        return (T) Proxy.newProxyInstance(JdbcPhaseTimer.class.getClassLoader(), new Class<?>[]{type},
+                new TimingHandler(target));
+    }
+
+    private static final class TimingHandler implements InvocationHandler {
+        private final Object target;
+        private final long createdNanos = System.nanoTime();
+        private boolean closed;
+
+        private TimingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // Proxies are only equal to themselves; Spring compares connections when binding transactions
+            if ("equals".equals(method.getName()) && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(method.getName()) && args == null) {
+                return System.identityHashCode(proxy);
+            }
+
+            Capture capture = active();
+            int phase = capture == null ? -1 : phaseOf(method);
+
+            long start = phase >= 0 ? System.nanoTime() : 0;
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                if (phase >= 0) {
+                    capture.add(phase, System.nanoTime() - start);
+                }
+            }
+
+            if (target instanceof ResultSet && "close".equals(method.getName()) && !closed) {
+                closed = true;
+                if (capture != null) {
+                    capture.add(FETCH_INDEX, System.nanoTime() - createdNanos);
+                }
+            }
+            return capture != null ? wrapResult(method, result) : result;
+        }
+
+        private int phaseOf(Method method) {
+            String name = method.getName();
+            if (target instanceof DataSource) {
+                return name.equals("getConnection") ? ACQUIRE_INDEX : -1;
+            }
+            if (target instanceof Connection) {
+                switch (name) {
+                    case "prepareStatement":
+                    case "prepareCall":
+                    case "createStatement":
+                        return PREPARE_INDEX;
+                    case "commit":
+                    case "rollback":
+                        return COMMIT_INDEX;
+                    case "close":
+                        return RELEASE_INDEX;
+                    default:
+                        return -1;
+                }
+            }
+            if (target instanceof Statement) {
+                return name.startsWith("execute") ? EXECUTE_INDEX : -1;
+            }
+            return -1;
+        }
+
+        // Objects handed out by a timed object are timed too; the declared type decides the proxy interface
+        private Object wrapResult(Method method, Object result) {
+            if (result == null || result == target) {
+                return result;
+            }
+            Class<?> type = method.getReturnType();
+            if (type == Connection.class) {
+                return proxy(Connection.class, (Connection) result);
+            }
+            if (type == CallableStatement.class) {
+                return proxy(CallableStatement.class, (CallableStatement) result);
+            }
+            if (type == PreparedStatement.class) {
+                return proxy(PreparedStatement.class, (PreparedStatement) result);
+            }
+            if (type == Statement.class) {
+                return proxy(Statement.class, (Statement) result);
+            }
+            if (type == ResultSet.class) {
+                return proxy(ResultSet.class, (ResultSet) result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Cumulative JIT, GC and class-loading counters at one point in time. Differences between
+ * two snapshots show whether the JVM was still compiling or collecting during a phase.
+ * The counters are process-wide, so concurrent requests show up here as well.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class JvmActivity {
+
+    private final long compilationTimeMs; // -1 when the JVM does not monitor compilation time
+    private final long gcCount;
+    private final long gcTimeMs;
+    private final long loadedClasses;
+
+    public static JvmActivity snapshot() {
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        long compilationTime = compilation != null && compilation.isCompilationTimeMonitoringSupported()
+                ? compilation.getTotalCompilationTime()
+                : -1;
+
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // -1 means the collector does not report the value
+            gcCount += Math.max(0, gc.getCollectionCount());
+            gcTime += Math.max(0, gc.getCollectionTime());
+        }
+
+        long loadedClasses = ManagementFactory.getClassLoadingMXBean().getTotalLoadedClassCount();
+        return new JvmActivity(compilationTime, gcCount, gcTime, loadedClasses);
+    }
+
+    public JvmActivity since(JvmActivity earlier) {
+        long compilation = compilationTimeMs < 0 || earlier.compilationTimeMs < 0
+                ? -1
+                : compilationTimeMs - earlier.compilationTimeMs;
+        return new JvmActivity(compilation, gcCount - earlier.gcCount, gcTimeMs - earlier.gcTimeMs,
+                loadedClasses - earlier.loadedClasses);
+    }
+}
@@ -0,0 +1,137 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import com.mariatitianu.licenta.dto.MultiBenchmarkResult;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+
+/**
+ * Helpers around the HdrHistogram recorders used by the benchmarks.
+ * All values are recorded in nanoseconds and reported in milliseconds.
+ */
+public final class LatencyHistograms {
+
+    // 1 microsecond resolution, 10 minute ceiling, 3 significant digits
+    private static final long LOWEST_DISCERNIBLE_NANOS = 1_000L;
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private LatencyHistograms() {
+    }
+
+    public static Histogram newHistogram() {
+        return new Histogram(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Thread-safe recorder for interval (per-tick) histograms with the same range as {@link #newHistogram()}.
+     */
+    public static Recorder newRecorder() {
+        return new Recorder(LOWEST_DISCERNIBLE_NANOS, HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    /**
+     * Records a sample without allocating; values outside the trackable range are clamped.
+     */
+    public static void record(Histogram histogram, long nanos) {
+        histogram.recordValue(clamp(nanos));
+    }
+
+    public static void record(Recorder recorder, long nanos) {
+        recorder.recordValue(clamp(nanos));
+    }
+
+    private static long clamp(long nanos) {
+        return Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /**
+     * Encodes the histogram in the compressed, base64 form used by HdrHistogram log files,
+     * so results can be decoded and merged by any HdrHistogram tooling.
+     */
+    public static String encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    public static Histogram decode(String encoded) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(encoded));
+            return Histogram.decodeFromCompressedByteBuffer(buffer, LOWEST_DISCERNIBLE_NANOS);
+        } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid encoded histogram: " + e.getMessage(), e);
+        }
+    }
+
+    public static Histogram merge(List<String> encodedHistograms) {
+        Histogram merged = newHistogram();
+        for (String encoded : encodedHistograms) {
+            merged.add(decode(encoded));
+        }
+        return merged;
+    }
+
+    /**
+     * Copies the percentile spectrum of the histogram into the operation result.
+     */
+    public static void applyPercentiles(MultiBenchmarkResult.OperationResult result, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        result.setMinTimeMs(toMs(histogram.getMinValue()));
+        result.setP50TimeMs(toMs(histogram.getValueAtPercentile(50)));
+        result.setP95TimeMs(toMs(histogram.getValueAtPercentile(95)));
+        result.setP99TimeMs(toMs(histogram.getValueAtPercentile(99)));
+        result.setP999TimeMs(toMs(histogram.getValueAtPercentile(99.9)));
+        result.setP9999TimeMs(toMs(histogram.getValueAtPercentile(99.99)));
+        result.setMaxTimeMs(toMs(histogram.getMaxValue()));
+        result.setStdDevTimeMs(histogram.getStdDeviation() / 1_000_000.0);
+        result.setEncodedHistogram(encode(histogram));
+    }
+
+    /**
+     * Copies the schedule-corrected (intended start to completion) percentiles of an open-loop run.
+     */
+    public static void applyCorrectedPercentiles(MultiBenchmarkResult.OperationResult result, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        result.setCorrectedAvgTimeMs(histogram.getMean() / 1_000_000.0);
+        result.setCorrectedP50TimeMs(toMs(histogram.getValueAtPercentile(50)));
+        result.setCorrectedP95TimeMs(toMs(histogram.getValueAtPercentile(95)));
+        result.setCorrectedP99TimeMs(toMs(histogram.getValueAtPercentile(99)));
+        result.setCorrectedP999TimeMs(toMs(histogram.getValueAtPercentile(99.9)));
+        result.setCorrectedMaxTimeMs(toMs(histogram.getMaxValue()));
+        result.setCorrectedEncodedHistogram(encode(histogram));
+    }
+
+    /**
+     * Summarizes one phase of an operation; {@code share} is relative to {@code totalAvgNanos}.
+     */
+    public static MultiBenchmarkResult.PhaseStats toPhaseStats(Histogram histogram, double totalAvgNanos) {
+        MultiBenchmarkResult.PhaseStats stats = new MultiBenchmarkResult.PhaseStats();
+        stats.setCount(histogram.getTotalCount());
+        if (histogram.getTotalCount() > 0) {
+            stats.setAvgTimeMs(histogram.getMean() / 1_000_000.0);
+            stats.setP50TimeMs(toMs(histogram.getValueAtPercentile(50)));
+            stats.setP95TimeMs(toMs(histogram.getValueAtPercentile(95)));
+            stats.setP99TimeMs(toMs(histogram.getValueAtPercentile(99)));
+            stats.setP999TimeMs(toMs(histogram.getValueAtPercentile(99.9)));
+            stats.setMaxTimeMs(toMs(histogram.getMaxValue()));
+            stats.setEncodedHistogram(encode(histogram));
+            stats.setSharePercent(totalAvgNanos > 0 ? histogram.getMean() / totalAvgNanos * 100.0 : 0);
+        }
+        return stats;
+    }
+
+    public static double toMs(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
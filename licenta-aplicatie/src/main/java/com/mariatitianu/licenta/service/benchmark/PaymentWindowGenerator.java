@@ -0,0 +1,53 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Date windows for payment range queries, the way reports ask for them: a fixed length
+ * ("last 7 days") ending on a day that is usually recent. The end day is drawn Zipfian by
+ * age, most recent first; skew 0 spreads it uniformly over the data. Windows always fall
+ * inside the payments' date range, so each one covers a full {@code windowDays} of data
+ * when there is that much. Safe to share between threads.
+ */
+public class PaymentWindowGenerator {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+
+    private final LocalDateTime latest;
+    private final long windowSeconds;
+    private final long endDays;
+    private final ZipfianGenerator zipfian;
+
+    public PaymentWindowGenerator(LocalDateTime earliest, LocalDateTime latest, int windowDays, double recencySkew) {
+        this.latest = latest;
+        this.windowSeconds = windowDays * SECONDS_PER_DAY;
+        long spanSeconds = Duration.between(earliest, latest).getSeconds();
+        this.endDays = Math.max(1, (spanSeconds - windowSeconds) / SECONDS_PER_DAY + 1);
+        this.zipfian = recencySkew > 0 ? new ZipfianGenerator(endDays, recencySkew) : null;
+    }
+
+    public Window next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long ageDays = zipfian != null ? zipfian.nextRank() : random.nextLong(endDays);
+        // Somewhere within the chosen day, so consecutive windows do not share boundaries
+        long ageSeconds = ageDays * SECONDS_PER_DAY + (ageDays + 1 < endDays ? random.nextLong(SECONDS_PER_DAY) : 0);
+        LocalDateTime end = latest.minusSeconds(ageSeconds);
+        return new Window(end.minusSeconds(windowSeconds), end);
+    }
+
+    public long getEndDays() {
+        return endDays;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Window {
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+    }
+}
@@ -0,0 +1,87 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serializes the temporary protection changes benchmarks make, whether they run from
+ * POST /run, as jobs or as overhead comparisons. Runs that need a table in the same state share
+ * one lease on it: the first changes the table if it has to and the last to release it undoes
+ * that, so a run never protects a table again while another one still needs it unprotected.
+ * Tables are told apart by database (JDBC URL, null for the application's) and name.
+ */
+@Component
+@Slf4j
+public class ProtectionLeases {
+
+    /**
+     * Changes or restores the protection of a table; returns whether it changed anything.
+     */
+    @FunctionalInterface
+    public interface Change {
+        boolean apply() throws Exception;
+    }
+
+    private final String applicationDatabase;
+    private final Map<String, Lease> leases = new HashMap<>();
+
+    public ProtectionLeases(@Value("${spring.datasource.url:}") String applicationDatabase) {
+        this.applicationDatabase = applicationDatabase;
+    }
+
+    /**
+     * Holds the table protected or unprotected until {@link #release}. The first holder runs
+     * the change; if it throws, nothing is held. Fails while the table is held the other way.
+     */
+    public synchronized void acquire(String database, String table, boolean protect, Change change) throws Exception {
+        String key = key(database, table);
+        Lease lease = leases.get(key);
+        if (lease != null) {
+            if (lease.protect != protect) {
+                throw new IllegalStateException(table + " is held " + (lease.protect ? "protected" : "unprotected")
+                        + " by another benchmark");
+            }
+            lease.holders++;
+            return;
+        }
+        leases.put(key, new Lease(protect, change.apply()));
+    }
+
+    /**
+     * Gives up one hold; the last one runs the restore if the first one changed the table.
+     */
+    public synchronized void release(String database, String table, Change restore) {
+        String key = key(database, table);
+        Lease lease = leases.get(key);
+        if (lease == null || --lease.holders > 0) {
+            return;
+        }
+        leases.remove(key);
+        if (lease.changed) {
+            try {
+                restore.apply();
+            } catch (Exception e) {
+                log.warn("Could not restore the protection of {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    private String key(String database, String table) {
+        return (database != null ? database : applicationDatabase) + "|" + table;
+    }
+
+    private static final class Lease {
+        private final boolean protect;
+        private final boolean changed;
+        private int holders = 1;
+
+        private Lease(boolean protect, boolean changed) {
+            this.protect = protect;
+            this.changed = changed;
+        }
+    }
+}
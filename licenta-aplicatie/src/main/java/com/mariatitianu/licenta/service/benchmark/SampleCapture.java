@@ -0,0 +1,226 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spills the latencies of one benchmark run to disk while it runs, so they can be exported
+ * afterwards without ever being held in memory.
+ *
+ * Layout under the capture directory:
+ * intervals.hlog                    - HdrHistogram interval log, one histogram per tick, tagged with the operation
+ * samples/{operation}/worker-N.bin  - raw samples of one worker ({@link #RECORD_BYTES} bytes each, see {@link SampleWriter})
+ *
+ * Operations run one after another, so one ticker drains the recorder of whichever is current.
+ */
+@Slf4j
+public class SampleCapture implements AutoCloseable {
+
+    public static final String INTERVAL_LOG = "intervals.hlog";
+    public static final String SAMPLES_DIR = "samples";
+    public static final String WORKER_PREFIX = "worker-";
+    public static final String WORKER_SUFFIX = ".bin";
+
+    // endOffsetNanos, latencyNanos, correctedLatencyNanos, outcome
+    public static final int RECORD_BYTES = 8 + 8 + 8 + 1;
+    public static final byte OUTCOME_OK = 0;
+    public static final byte OUTCOME_BLOCKED = 1;
+    public static final byte OUTCOME_ERROR = 2;
+
+    private static final int WORKER_BUFFER_BYTES = 16 * 1024;
+
+    private final Path directory;
+    private final boolean rawSamples;
+    private final long startMillis = System.currentTimeMillis();
+    private final OutputStream intervalStream;
+    private final HistogramLogWriter intervalLog;
+    private final ScheduledExecutorService ticker;
+    private final Runnable onClose;
+
+    private volatile OperationCapture current;
+
+    /**
+     * Creates the capture directory, which must not exist yet, and starts the ticker.
+     * {@code onClose} runs once the files are closed.
+     */
+    public SampleCapture(Path directory, boolean rawSamples, long intervalMillis, Runnable onClose) throws IOException {
+        this.directory = directory;
+        this.rawSamples = rawSamples;
+        this.onClose = onClose;
+        Files.createDirectory(directory);
+
+        this.intervalStream = new BufferedOutputStream(Files.newOutputStream(directory.resolve(INTERVAL_LOG)));
+        this.intervalLog = new HistogramLogWriter(intervalStream);
+        intervalLog.outputComment("licenta benchmark run, one tagged interval per operation tick");
+        intervalLog.setBaseTime(startMillis);
+        intervalLog.outputBaseTime(startMillis);
+        intervalLog.outputStartTime(startMillis);
+        intervalLog.outputLegend();
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "benchmark-capture");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isCapturingSamples() {
+        return rawSamples;
+    }
+
+    /**
+     * Starts capturing a new operation; sample offsets count from this call. The previous
+     * operation, if any, is flushed first.
+     */
+    public OperationCapture beginOperation(String operation) {
+        OperationCapture previous = current;
+        if (previous != null) {
+            finishOperation(previous);
+        }
+        OperationCapture capture = new OperationCapture(operation, System.nanoTime());
+        current = capture;
+        return capture;
+    }
+
+    public void finishOperation(OperationCapture capture) {
+        synchronized (this) {
+            writeInterval(capture);
+            if (current == capture) {
+                current = null;
+            }
+        }
+    }
+
+    private void tick() {
+        OperationCapture capture = current;
+        if (capture != null) {
+            synchronized (this) {
+                writeInterval(capture);
+            }
+        }
+    }
+
+    private void writeInterval(OperationCapture capture) {
+        Histogram interval = capture.recorder.getIntervalHistogram();
+        if (interval.getTotalCount() == 0) {
+            return;
+        }
+        interval.setTag(capture.operation);
+        intervalLog.outputIntervalHistogram(interval);
+    }
+
+    @Override
+    public void close() {
+        ticker.shutdownNow();
+        OperationCapture last = current;
+        if (last != null) {
+            finishOperation(last);
+        }
+        try {
+            intervalStream.close();
+        } catch (IOException e) {
+            log.warn("Could not close interval log in {}: {}", directory, e.getMessage());
+        } finally {
+            onClose.run();
+        }
+    }
+
+    public static String directoryName(String operation) {
+        return operation.replaceAll("[^A-Za-z0-9_-]", "_");
+    }
+
+    /**
+     * Capture state of one measured operation.
+     */
+    public final class OperationCapture {
+        private final String operation;
+        private final long windowStartNanos;
+        private final Recorder recorder = LatencyHistograms.newRecorder();
+
+        private OperationCapture(String operation, long windowStartNanos) {
+            this.operation = operation;
+            this.windowStartNanos = windowStartNanos;
+        }
+
+        /**
+         * Wait-free, like the run's progress recorder.
+         */
+        public void recordInterval(long latencyNanos) {
+            LatencyHistograms.record(recorder, latencyNanos);
+        }
+
+        /**
+         * Opens the sample file of one worker, or returns null when raw samples are not captured.
+         */
+        public SampleWriter openWorker(int workerId) {
+            if (!rawSamples) {
+                return null;
+            }
+            try {
+                Path dir = directory.resolve(SAMPLES_DIR).resolve(directoryName(operation));
+                Files.createDirectories(dir);
+                Path file = dir.resolve(WORKER_PREFIX + workerId + WORKER_SUFFIX);
+                return new SampleWriter(new DataOutputStream(
+                        new BufferedOutputStream(Files.newOutputStream(file), WORKER_BUFFER_BYTES)), windowStartNanos);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open sample file for " + operation, e);
+            }
+        }
+    }
+
+    /**
+     * Appends one worker's samples; only ever used by that worker's thread.
+     */
+    public static final class SampleWriter implements AutoCloseable {
+        private final DataOutputStream out;
+        private final long windowStartNanos;
+        private boolean failed;
+
+        private SampleWriter(DataOutputStream out, long windowStartNanos) {
+            this.out = out;
+            this.windowStartNanos = windowStartNanos;
+        }
+
+        /**
+         * Latencies are -1 for operations that failed before reporting their time.
+         */
+        public void write(long latencyNanos, long correctedLatencyNanos, byte outcome) {
+            if (failed) {
+                return;
+            }
+            try {
+                out.writeLong(System.nanoTime() - windowStartNanos);
+                out.writeLong(latencyNanos);
+                out.writeLong(correctedLatencyNanos);
+                out.writeByte(outcome);
+            } catch (IOException e) {
+                // A full disk loses the remaining samples but must not fail the benchmark
+                failed = true;
+                log.warn("Stopped writing benchmark samples: {}", e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                out.close();
+            } catch (IOException e) {
+                log.warn("Could not close benchmark sample file: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Decides when a warm-up has reached steady state. Samples are grouped into fixed-size
+ * windows; for each window it keeps the throughput (samples per second of wall time, so
+ * untimed setup work counts too) and the median latency. The run is considered stable once
+ * the last {@code requiredWindows} windows all lie within {@code tolerance} of their mean,
+ * for both metrics. The median is used instead of the mean so a single GC pause does not
+ * reset the detection. Not thread-safe; warm-up runs on one thread.
+ */
+public class SteadyStateDetector {
+
+    private final int windowSize;
+    private final int requiredWindows;
+    private final double tolerance;
+
+    private final long[] samples;
+    private int filled;
+    private long windowStartNanos;
+
+    private final Deque<double[]> recentWindows = new ArrayDeque<>();
+    private int completedWindows;
+
+    public SteadyStateDetector(int windowSize, int requiredWindows, double tolerance, long startNanos) {
+        if (windowSize < 1 || requiredWindows < 2) {
+            throw new IllegalArgumentException("Steady-state detection needs a window size >= 1 and at least 2 windows");
+        }
+        this.windowSize = windowSize;
+        this.requiredWindows = requiredWindows;
+        this.tolerance = tolerance;
+        this.samples = new long[windowSize];
+        this.windowStartNanos = startNanos;
+    }
+
+    /**
+     * Adds one latency sample and returns whether the recent windows are stable.
+     */
+    public boolean record(long latencyNanos, long nowNanos) {
+        samples[filled++] = latencyNanos;
+        if (filled < windowSize) {
+            return false;
+        }
+
+        long elapsed = Math.max(1, nowNanos - windowStartNanos);
+        double throughput = windowSize * 1_000_000_000.0 / elapsed;
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        double median = sorted[windowSize / 2];
+
+        recentWindows.addLast(new double[]{throughput, median});
+        if (recentWindows.size() > requiredWindows) {
+            recentWindows.removeFirst();
+        }
+        completedWindows++;
+        filled = 0;
+        windowStartNanos = nowNanos;
+
+        return isStable();
+    }
+
+    public boolean isStable() {
+        return recentWindows.size() == requiredWindows
+                && spread(0) <= tolerance
+                && spread(1) <= tolerance;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getCompletedWindows() {
+        return completedWindows;
+    }
+
+    public double getLastThroughput() {
+        return recentWindows.isEmpty() ? 0 : recentWindows.peekLast()[0];
+    }
+
+    public double getLastMedianNanos() {
+        return recentWindows.isEmpty() ? 0 : recentWindows.peekLast()[1];
+    }
+
+    public double getThroughputSpread() {
+        return spread(0);
+    }
+
+    public double getLatencySpread() {
+        return spread(1);
+    }
+
+    /**
+     * Largest relative deviation of one metric from its mean over the recent windows.
+     */
+    private double spread(int metric) {
+        if (recentWindows.isEmpty()) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (double[] window : recentWindows) {
+            sum += window[metric];
+        }
+        double mean = sum / recentWindows.size();
+        if (mean == 0) {
+            return 0;
+        }
+        double maxDeviation = 0;
+        for (double[] window : recentWindows) {
+            maxDeviation = Math.max(maxDeviation, Math.abs(window[metric] - mean) / mean);
+        }
+        return maxDeviation;
+    }
+}
@@ -0,0 +1,26 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+/**
+ * Recognizes statements rejected by pg_warden, so that every benchmark counts them the same way.
+ */
+public final class WardenErrors {
+
+    // errmsg of pg_warden's executor and utility hooks: "<OPERATION> operations are not allowed on table "<name>""
+    private static final String BLOCKED_MESSAGE = "operations are not allowed on table";
+
+    private WardenErrors() {
+    }
+
+    /**
+     * Whether {@code e}, or an exception it wraps (JPA and Spring translate the driver's), is
+     * pg_warden blocking the statement rather than any other failure.
+     */
+    public static boolean isBlocked(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains(BLOCKED_MESSAGE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
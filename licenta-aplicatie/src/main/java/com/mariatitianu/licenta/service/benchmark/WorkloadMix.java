@@ -0,0 +1,133 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import com.mariatitianu.licenta.dto.WorkloadSpec;
+
+import java.util.Locale;
+
+/**
+ * A resolved {@link WorkloadSpec}: normalized operation proportions and the key distribution.
+ */
+public class WorkloadMix {
+
+    public static final String READ = "READ";
+    public static final String UPDATE = "UPDATE";
+    public static final String INSERT = "INSERT";
+    public static final String DELETE = "DELETE";
+
+    public static final String UNIFORM = "UNIFORM";
+    public static final String ZIPFIAN = "ZIPFIAN";
+    public static final String LATEST = "LATEST";
+
+    private static final double DEFAULT_ZIPFIAN_CONSTANT = 0.99;
+
+    private final String name;
+    private final double read;
+    private final double update;
+    private final double insert;
+    private final double delete;
+    private final String keyDistribution;
+    private final double zipfianConstant;
+
+    private WorkloadMix(String name, double read, double update, double insert, double delete,
+                        String keyDistribution, double zipfianConstant) {
+        double total = read + update + insert + delete;
+        if (read < 0 || update < 0 || insert < 0 || delete < 0 || total <= 0) {
+            throw new IllegalArgumentException("Workload proportions must be non-negative and not all zero");
+        }
+        // Checked here so validateRequest rejects it, not ZipfianGenerator in the middle of a run
+        if (!(zipfianConstant > 0 && zipfianConstant < 1)) {
+            throw new IllegalArgumentException("zipfianConstant must be between 0 and 1 (exclusive)");
+        }
+        this.name = name;
+        this.read = read / total;
+        this.update = update / total;
+        this.insert = insert / total;
+        this.delete = delete / total;
+        this.keyDistribution = keyDistribution;
+        this.zipfianConstant = zipfianConstant;
+    }
+
+    public static WorkloadMix from(WorkloadSpec spec) {
+        String profile = spec.getProfile() != null ? spec.getProfile().toUpperCase(Locale.ROOT) : "CUSTOM";
+
+        // Defaults of the YCSB core workloads
+        double read = 0, update = 0, insert = 0;
+        String distribution = ZIPFIAN;
+        switch (profile) {
+            case "A":
+                read = 0.5;
+                update = 0.5;
+                break;
+            case "B":
+                read = 0.95;
+                update = 0.05;
+                break;
+            case "C":
+                read = 1.0;
+                break;
+            case "D":
+                read = 0.95;
+                insert = 0.05;
+                distribution = LATEST;
+                break;
+            case "CUSTOM":
+                distribution = UNIFORM;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown workload profile: " + spec.getProfile());
+        }
+
+        if (spec.getKeyDistribution() != null) {
+            distribution = spec.getKeyDistribution().toUpperCase(Locale.ROOT);
+            if (!UNIFORM.equals(distribution) && !ZIPFIAN.equals(distribution) && !LATEST.equals(distribution)) {
+                throw new IllegalArgumentException("Unknown key distribution: " + spec.getKeyDistribution());
+            }
+        }
+
+        return new WorkloadMix(
+                "CUSTOM".equals(profile) ? "CUSTOM" : "YCSB_" + profile,
+                spec.getReadProportion() != null ? spec.getReadProportion() : read,
+                spec.getUpdateProportion() != null ? spec.getUpdateProportion() : update,
+                spec.getInsertProportion() != null ? spec.getInsertProportion() : insert,
+                spec.getDeleteProportion() != null ? spec.getDeleteProportion() : 0,
+                distribution,
+                spec.getZipfianConstant() != null ? spec.getZipfianConstant() : DEFAULT_ZIPFIAN_CONSTANT);
+    }
+
+    /**
+     * Picks the operation for a uniform draw {@code u} in {@code [0, 1)}.
+     */
+    public String chooseOperation(double u) {
+        if (u < read) {
+            return READ;
+        }
+        if (u < read + update) {
+            return UPDATE;
+        }
+        if (u < read + update + insert) {
+            return INSERT;
+        }
+        return delete > 0 ? DELETE : READ;
+    }
+
+    public boolean modifiesRows() {
+        return update > 0 || delete > 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getKeyDistribution() {
+        return keyDistribution;
+    }
+
+    public double getZipfianConstant() {
+        return zipfianConstant;
+    }
+
+    public String describe() {
+        return String.format(Locale.ROOT, "%s read=%.2f update=%.2f insert=%.2f delete=%.2f keys=%s",
+                name, read, update, insert, delete, keyDistribution);
+    }
+}
@@ -0,0 +1,88 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf-distributed ranks in {@code [0, items)}, rank 0 being the most popular.
+ * Uses the rejection-free method from Gray et al., "Quickly Generating Billion-Record
+ * Synthetic Databases" (the same one YCSB uses), so each draw is O(1) after an O(n) setup.
+ * Safe to share between threads.
+ */
+public class ZipfianGenerator {
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 1099511628211L;
+
+    private final long items;
+    private final double theta;
+    private final double alpha;
+    private final double zetaN;
+    private final double eta;
+    private final double halfPowTheta;
+
+    public ZipfianGenerator(long items, double theta) {
+        if (items < 1) {
+            throw new IllegalArgumentException("Zipfian generator needs at least one item");
+        }
+        if (theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("zipfianConstant must be between 0 and 1 (exclusive)");
+        }
+        this.items = items;
+        this.theta = theta;
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetaN = zeta(items, theta);
+        this.halfPowTheta = 1.0 + Math.pow(0.5, theta);
+        double zeta2 = zeta(2, theta);
+        this.eta = items == 1 ? 0 : (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetaN);
+    }
+
+    public long nextRank() {
+        return rank(ThreadLocalRandom.current().nextDouble());
+    }
+
+    /**
+     * Rank for a uniform draw {@code u} in [0, 1), for callers that bring their own
+     * (e.g. seeded) random source.
+     */
+    public long rank(double u) {
+        double uz = u * zetaN;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < halfPowTheta) {
+            return Math.min(1, items - 1);
+        }
+        long rank = (long) (items * Math.pow(eta * u - eta + 1, alpha));
+        return Math.min(rank, items - 1);
+    }
+
+    /**
+     * Zipfian rank spread over the key space with a hash, so the hot keys are not
+     * clustered at the low end of the range (YCSB's "scrambled" Zipfian).
+     */
+    public long nextScrambled() {
+        return Math.floorMod(fnvHash(nextRank()), items);
+    }
+
+    public double getTheta() {
+        return theta;
+    }
+
+    private static double zeta(long n, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    private static long fnvHash(long value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mariatitianu.licenta.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSqlTests {
+
+    private static final String SELECT = "SELECT " + LogSql.COLUMNS + " FROM " + LogSql.TABLE + " ";
+
+    @Test
+    void noFiltersGiveNoWhereClause() {
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.findOperations(LogSql.TABLE, params, null, null, null, null, null, null, null, null, 50);
+
+        assertEquals(SELECT + "ORDER BY log_time DESC, log_position DESC LIMIT :limit", sql);
+        assertEquals(Map.of("limit", 50), params);
+    }
+
+    @Test
+    void onlyTheFiltersSetBecomeConditions() {
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.findOperations(LogSql.TABLE, params, null, "products", null, "DELETE",
+                "2024-05-01T00:00:00Z", null, null, null, 10);
+
+        assertEquals(SELECT + "WHERE table_name = :tableName AND operation_type = :operationType "
+                + "AND log_time >= CAST(:fromTime AS timestamptz) "
+                + "ORDER BY log_time DESC, log_position DESC LIMIT :limit", sql);
+        assertEquals(Map.of("tableName", "products", "operationType", "DELETE",
+                "fromTime", "2024-05-01T00:00:00Z", "limit", 10), params);
+        assertFalse(sql.contains("IS NULL"));
+    }
+
+    @Test
+    void statusBindsBlockedFlag() {
+        Map<String, Object> params = new HashMap<>();
+        LogSql.findOperations(LogSql.TABLE, params, "BLOCKED", null, null, null, null, null, null, null, 10);
+        assertEquals(true, params.get("blocked"));
+
+        params.clear();
+        LogSql.findOperations(LogSql.TABLE, params, "ALLOWED", null, null, null, null, null, null, null, 10);
+        assertEquals(false, params.get("blocked"));
+    }
+
+    @Test
+    void cursorStartsThePageAfterItsRow() {
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.findOperations(LogSql.TABLE, params, null, null, "app", null, null, null,
+                "2024-05-01T10:00:00Z", 42L, 10);
+
+        assertTrue(sql.contains("WHERE user_name = :userName AND (log_time, log_position) < "
+                + "(CAST(:afterTimestamp AS timestamptz), :afterPosition) ORDER BY"));
+        assertEquals(42L, params.get("afterPosition"));
+    }
+
+    @Test
+    void exportKeepsLogOrderOverTheLogItself() {
+        Map<String, Object> params = new HashMap<>();
+        String sql = LogSql.exportOperations(LogSql.LOG_RANGE, params, null, null, null, null,
+                null, "2024-05-02T00:00:00Z");
+
+        assertEquals("SELECT " + LogSql.COLUMNS + " FROM " + LogSql.LOG_RANGE + " "
+                + "WHERE log_time <= CAST(:toTime AS timestamptz) ORDER BY log_position", sql);
+        assertEquals(Map.of("toTime", "2024-05-02T00:00:00Z"), params);
+    }
+}
@@ -0,0 +1,70 @@
+package com.mariatitianu.licenta.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mariatitianu.licenta.config.BenchmarkProperties;
+import com.mariatitianu.licenta.service.benchmark.SampleCapture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkExportServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private BenchmarkExportService service(int maxCaptures) {
+        BenchmarkProperties properties = new BenchmarkProperties();
+        properties.getExport().setDir(dir.toString());
+        properties.getExport().setMaxCaptures(maxCaptures);
+        properties.getExport().setIntervalMs(60_000);
+        return new BenchmarkExportService(properties, new ObjectMapper());
+    }
+
+    @Test
+    void evictsTheOldestFinishedCapture() throws Exception {
+        BenchmarkExportService service = service(2);
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        String third = UUID.randomUUID().toString();
+
+        service.startCapture(first, BenchmarkExportService.CAPTURE_INTERVALS).close();
+        service.startCapture(second, BenchmarkExportService.CAPTURE_INTERVALS).close();
+        service.startCapture(third, BenchmarkExportService.CAPTURE_INTERVALS).close();
+
+        assertFalse(service.hasCapture(first));
+        assertTrue(service.hasCapture(second));
+        assertTrue(service.hasCapture(third));
+    }
+
+    @Test
+    void keepsCapturesThatAreStillOpen() throws Exception {
+        BenchmarkExportService service = service(1);
+        String running = UUID.randomUUID().toString();
+        String next = UUID.randomUUID().toString();
+
+        try (SampleCapture capture = service.startCapture(running, BenchmarkExportService.CAPTURE_SAMPLES)) {
+            service.startCapture(next, BenchmarkExportService.CAPTURE_INTERVALS).close();
+
+            assertTrue(service.hasCapture(running));
+            assertTrue(service.hasCapture(next));
+        }
+    }
+
+    @Test
+    void concurrentRunsGetTheirOwnDirectory() throws Exception {
+        BenchmarkExportService service = service(10);
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+
+        try (SampleCapture a = service.startCapture(first, BenchmarkExportService.CAPTURE_INTERVALS);
+             SampleCapture b = service.startCapture(second, BenchmarkExportService.CAPTURE_INTERVALS)) {
+            assertTrue(service.hasCapture(first));
+            assertTrue(service.hasCapture(second));
+        }
+    }
+}
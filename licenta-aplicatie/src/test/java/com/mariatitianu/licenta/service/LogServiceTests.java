@@ -0,0 +1,69 @@
+package com.mariatitianu.licenta.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogServiceTests {
+
+    @Test
+    void statusIsUpperCasedAndChecked() {
+        assertEquals("BLOCKED", LogService.normalizeStatus("blocked"));
+        assertEquals("ALLOWED", LogService.normalizeStatus("Allowed"));
+        assertNull(LogService.normalizeStatus(null));
+        assertThrows(IllegalArgumentException.class, () -> LogService.normalizeStatus("denied"));
+    }
+
+    @Test
+    void operationTypeIsUpperCased() {
+        assertEquals("DELETE", LogService.normalizeOperationType("delete"));
+        assertNull(LogService.normalizeOperationType(null));
+    }
+
+    @Test
+    void timesAreFormattedLikeTheLogToTheSecond() {
+        assertEquals("2024-05-01T10:15:30Z", LogService.formatLogTime(Instant.parse("2024-05-01T10:15:30.987Z")));
+        assertNull(LogService.formatLogTime(null));
+    }
+
+    @Test
+    void cursorRoundTripsTimeAndPosition() {
+        String cursor = LogService.encodeCursor("2024-05-01T10:15:30Z", 4242L);
+
+        assertArrayEquals(new String[] { "2024-05-01T10:15:30Z", "4242" }, LogService.decodeCursor(cursor));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = LogService.encodeCursor("2024-05-01T10:15:30Z", Long.MAX_VALUE);
+
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    void unparsableTimeFallsBackToTheEpoch() {
+        assertEquals("1970-01-01T00:00:00Z", LogService.decodeCursor(LogService.encodeCursor("yesterday", 7L))[0]);
+        assertEquals("1970-01-01T00:00:00Z", LogService.decodeCursor(LogService.encodeCursor(null, 7L))[0]);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LogService.decodeCursor("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> LogService.decodeCursor(encode("2024-05-01T10:15:30Z")));
+        assertThrows(IllegalArgumentException.class, () -> LogService.decodeCursor(encode("2024-05-01T10:15:30Z|abc")));
+        assertThrows(IllegalArgumentException.class, () -> LogService.decodeCursor(encode("yesterday|12")));
+        assertThrows(IllegalArgumentException.class, () -> LogService.decodeCursor(encode("|12")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
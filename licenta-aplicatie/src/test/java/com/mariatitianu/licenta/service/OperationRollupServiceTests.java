@@ -0,0 +1,152 @@
+package com.mariatitianu.licenta.service;
+
+import com.mariatitianu.licenta.dto.RollupSeries;
+import com.mariatitianu.licenta.repository.LogExportRepository;
+import com.mariatitianu.licenta.repository.LogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class OperationRollupServiceTests {
+
+    private OperationRollupService service;
+    private OperationLogCache.Listener listener;
+    private long position;
+
+    // An empty log to start from; entries then arrive the way the cache hands them over
+    @BeforeEach
+    void setUp() {
+        OperationLogCache cache = mock(OperationLogCache.class);
+        service = new OperationRollupService(mock(LogRepository.class), mock(LogExportRepository.class), cache, 1, 1);
+        ArgumentCaptor<OperationLogCache.Listener> captor = ArgumentCaptor.forClass(OperationLogCache.Listener.class);
+        verify(cache).addListener(captor.capture());
+        listener = captor.getValue();
+        service.getSeries("minute", null, new LogService.LogFilter());
+    }
+
+    private void append(String time, String type, String table, String user, String blockedReason) {
+        position++;
+        listener.onAppend(List.of(new LogService.OperationLog(type, table, time, user, blockedReason, null, position)),
+                position);
+    }
+
+    private static LogService.LogFilter window(String from, String to) {
+        LogService.LogFilter filter = new LogService.LogFilter();
+        filter.setFrom(Instant.parse(from));
+        filter.setTo(Instant.parse(to));
+        return filter;
+    }
+
+    private static List<Long> totals(RollupSeries series) {
+        return series.getPoints().stream().map(RollupSeries.Point::getTotal).collect(Collectors.toList());
+    }
+
+    @Test
+    void countsEachEntryInTheBucketOfEveryGranularity() {
+        append("2024-05-01T10:00:05Z", "DELETE", "products", "app", null);
+        append("2024-05-01T10:00:59Z", "UPDATE", "products", "app", null);
+        append("2024-05-01T10:01:00Z", "DELETE", "payments", "app", "protected");
+
+        RollupSeries minutes = service.getSeries("minute", null, window("2024-05-01T10:00:30Z", "2024-05-01T10:02:00Z"));
+        assertEquals(List.of(2L, 1L, 0L), totals(minutes));
+        assertEquals(Instant.parse("2024-05-01T10:00:00Z"), minutes.getFrom());
+        assertEquals(3, minutes.getTotal());
+        assertEquals(3, minutes.getLogPosition());
+
+        assertEquals(List.of(3L), totals(service.getSeries("HOUR", null, window("2024-05-01T10:00:00Z", "2024-05-01T10:59:59Z"))));
+        assertEquals(List.of(3L), totals(service.getSeries("day", null, window("2024-05-01T00:00:00Z", "2024-05-01T00:00:00Z"))));
+    }
+
+    @Test
+    void filtersAndGroupsByTheEntryDimensions() {
+        append("2024-05-01T10:00:05Z", "delete", "products", "app", null);
+        append("2024-05-01T10:00:10Z", "DELETE", "payments", "app", "protected");
+        append("2024-05-01T10:00:15Z", "UPDATE", "payments", null, null);
+
+        RollupSeries byTable = service.getSeries("minute", "table", window("2024-05-01T10:00:00Z", "2024-05-01T10:00:00Z"));
+        assertEquals(Map.of("payments", 2L, "products", 1L), byTable.getTotals());
+        assertEquals(Map.of("payments", 2L, "products", 1L), byTable.getPoints().get(0).getGroups());
+
+        LogService.LogFilter blocked = window("2024-05-01T10:00:00Z", "2024-05-01T10:00:00Z");
+        blocked.setStatus("blocked");
+        assertEquals(1, service.getSeries("minute", null, blocked).getTotal());
+
+        RollupSeries byUser = service.getSeries("minute", "user", window("2024-05-01T10:00:00Z", "2024-05-01T10:00:00Z"));
+        assertEquals(Map.of("app", 2L, "(none)", 1L), byUser.getTotals());
+        assertNull(service.getSeries("minute", null, window("2024-05-01T10:00:00Z", "2024-05-01T10:00:00Z")).getTotals());
+    }
+
+    @Test
+    void dropsBucketsOlderThanTheirRetentionFromTheNewestEntry() {
+        append("2024-05-01T08:00:00Z", "DELETE", "products", "app", null);
+        append("2024-05-02T10:30:00Z", "DELETE", "products", "app", null);
+
+        // Minutes keep 1 hour, hours keep 1 day, days are never dropped
+        RollupSeries minutes = service.getSeries("minute", null, window("2024-05-02T09:00:00Z", "2024-05-02T11:00:00Z"));
+        assertEquals(Instant.parse("2024-05-02T10:30:00Z"), minutes.getRetainedFrom());
+        RollupSeries hours = service.getSeries("hour", null, window("2024-05-01T08:00:00Z", "2024-05-02T10:00:00Z"));
+        assertEquals(Instant.parse("2024-05-02T10:00:00Z"), hours.getRetainedFrom());
+        assertEquals(1, hours.getTotal());
+        RollupSeries days = service.getSeries("day", null, window("2024-05-01T00:00:00Z", "2024-05-02T00:00:00Z"));
+        assertEquals(Instant.parse("2024-05-01T00:00:00Z"), days.getRetainedFrom());
+        assertEquals(List.of(1L, 1L), totals(days));
+    }
+
+    @Test
+    void retentionFollowsTheNewestEntryNotTheLatestOne() {
+        append("2024-05-01T10:30:00Z", "DELETE", "products", "app", null);
+        // A late entry with an older timestamp must not pull the cut-off back or drop newer buckets
+        append("2024-05-01T10:00:00Z", "DELETE", "products", "app", null);
+
+        RollupSeries minutes = service.getSeries("minute", null, window("2024-05-01T10:00:00Z", "2024-05-01T10:30:00Z"));
+        assertEquals(2, minutes.getTotal());
+    }
+
+    @Test
+    void skipsEntriesWithoutAValidTimestamp() {
+        append("not a time", "DELETE", "products", "app", null);
+        append("2024-05-01T10:00:05Z", "DELETE", "products", "app", null);
+
+        RollupSeries minutes = service.getSeries("minute", null, window("2024-05-01T10:00:00Z", "2024-05-01T10:00:00Z"));
+        assertEquals(1, minutes.getTotal());
+        assertEquals(2, minutes.getLogPosition());
+    }
+
+    @Test
+    void summaryCountsTheWholeLog() {
+        append("2024-05-01T08:00:00Z", "DELETE", "products", "app", "protected");
+        append("2024-05-02T10:30:00Z", "DELETE", "products", "app", null);
+        append("not a time", "UPDATE", "products", "app", null);
+
+        Map<String, Object> summary = service.getSummary();
+        assertEquals(3L, summary.get("totalOperations"));
+        assertEquals(1L, summary.get("blockedOperations"));
+        assertEquals(2L, summary.get("allowedOperations"));
+        assertEquals(Map.of("DELETE", 2L, "UPDATE", 1L), summary.get("operationTypes"));
+        assertEquals(Map.of("BLOCKED", 1L, "ALLOWED", 2L), summary.get("statusCounts"));
+        assertEquals(3L, summary.get("logPosition"));
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        LogService.LogFilter filter = new LogService.LogFilter();
+        assertThrows(IllegalArgumentException.class, () -> service.getSeries("week", null, filter));
+        assertThrows(IllegalArgumentException.class, () -> service.getSeries("minute", "query", filter));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getSeries("minute", null, window("2024-05-02T00:00:00Z", "2024-05-01T00:00:00Z")));
+        // Over 10,000 minute buckets
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getSeries("minute", null, window("2024-05-01T00:00:00Z", "2024-05-31T00:00:00Z")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.mariatitianu.licenta.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTests {
+
+    @Test
+    void sizesRowsFromEpsilonAndDelta() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+
+        assertEquals(272, sketch.getWidth());
+        assertEquals(5, sketch.getDepth());
+    }
+
+    @Test
+    void neverUndercountsAndStaysWithinTheErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            String key = "k" + random.nextInt(20_000);
+            sketch.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        long bound = sketch.getErrorBound();
+        assertEquals(100, bound);
+        long over = 0;
+        for (Map.Entry<String, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                over++;
+            }
+        }
+        // Each key exceeds the bound with probability at most delta
+        assertTrue(over <= exact.size() * 0.01, over + " keys over the bound");
+    }
+
+    @Test
+    void unseenKeyEstimatesZeroInAnEmptySketch() {
+        assertEquals(0, new CountMinSketch(0.01, 0.01).estimate("missing"));
+    }
+
+    @Test
+    void rejectsEpsilonAndDeltaOutsideTheOpenUnitInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0.01, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0.01, 1));
+    }
+
+    @Test
+    void rejectsSizesThatOverflowAnArray() {
+        // The width alone overflows an int
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(1e-10, 0.01));
+        // Width and depth each fit, their product does not
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(2e-9, 0.01));
+    }
+}
@@ -0,0 +1,60 @@
+package com.mariatitianu.licenta.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class QueryFingerprintTests {
+
+    @Test
+    void replacesLiteralsAndCollapsesLists() {
+        assertEquals("delete from products where id in (?)",
+                QueryFingerprint.of("DELETE FROM products WHERE id IN (1, 2, 3);"));
+        assertEquals("update products set name = ?, price = ? where id = ?",
+                QueryFingerprint.of("UPDATE products SET name = 'Desk', price = 12.50 WHERE id = 7"));
+    }
+
+    @Test
+    void sameShapeGivesSameFingerprint() {
+        assertEquals(QueryFingerprint.of("delete from payments where amount > 10"),
+                QueryFingerprint.of("DELETE  FROM payments\n WHERE amount >   99.99"));
+    }
+
+    @Test
+    void treatsParametersLikeLiterals() {
+        assertEquals("select * from products where id = ? and name = ?",
+                QueryFingerprint.of("SELECT * FROM products WHERE id = $1 AND name = $2"));
+    }
+
+    @Test
+    void skipsEscapedQuotesInsideStringLiterals() {
+        assertEquals("insert into notes values (?)",
+                QueryFingerprint.of("INSERT INTO notes VALUES ('it''s', 'a ''quoted'' word')"));
+    }
+
+    @Test
+    void keepsQuotedIdentifiersAndDigitsInNames() {
+        assertEquals("select \"OrderId\" from order_items2 where \"Qty3\" = ?",
+                QueryFingerprint.of("SELECT \"OrderId\" FROM order_items2 WHERE \"Qty3\" = 3"));
+    }
+
+    @Test
+    void dropsComments() {
+        assertEquals("delete from products where id = ?",
+                QueryFingerprint.of("-- cleanup\nDELETE FROM products /* one row */ WHERE id = 5"));
+    }
+
+    @Test
+    void truncatesLongQueries() {
+        String fingerprint = QueryFingerprint.of("SELECT " + "x,".repeat(200) + "y FROM t");
+
+        assertEquals(QueryFingerprint.MAX_LENGTH, fingerprint.length());
+        assertEquals("select x,x,", fingerprint.substring(0, 11));
+    }
+
+    @Test
+    void nullStaysNull() {
+        assertNull(QueryFingerprint.of(null));
+    }
+}
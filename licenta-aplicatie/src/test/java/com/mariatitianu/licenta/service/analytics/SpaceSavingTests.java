@@ -0,0 +1,127 @@
+package com.mariatitianu.licenta.service.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTests {
+
+    @Test
+    void countsExactlyWhileCountersAreFree() {
+        SpaceSaving sketch = new SpaceSaving(4);
+        add(sketch, "a", 3);
+        add(sketch, "b", 2);
+        add(sketch, "c", 1);
+
+        List<SpaceSaving.Entry> top = sketch.top(4);
+        assertEquals(List.of("a", "b", "c"),
+                top.stream().map(SpaceSaving.Entry::getKey).collect(Collectors.toList()));
+        assertEquals(List.of(3L, 2L, 1L),
+                top.stream().map(SpaceSaving.Entry::getCount).collect(Collectors.toList()));
+        assertTrue(top.stream().allMatch(entry -> entry.getError() == 0));
+        assertEquals(0, sketch.getMaxError());
+        assertEquals(0, sketch.upperBound("d"));
+    }
+
+    @Test
+    void newKeyReplacesTheSmallestCountAndInheritsItAsError() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        add(sketch, "a", 5);
+        add(sketch, "b", 3);
+        add(sketch, "c", 1);
+        sketch.add("d");
+
+        assertEquals(0, sketch.lowerBound("c"));
+        assertEquals(2, sketch.upperBound("d"));
+        assertEquals(1, sketch.lowerBound("d"));
+        assertEquals(2, sketch.getMaxError());
+        assertEquals(2, sketch.upperBound("c"));
+    }
+
+    @Test
+    void entryIsGuaranteedOnlyWhenItsLowerBoundBeatsEveryKeyBelow() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        add(sketch, "a", 5);
+        add(sketch, "b", 3);
+        add(sketch, "c", 1);
+        sketch.add("d");
+
+        // a 5 (exact), b 3 (exact), d 2 with error 1; unmonitored keys have at most 2
+        assertTrue(sketch.top(1).get(0).isGuaranteed());
+        assertTrue(sketch.top(2).get(1).isGuaranteed());
+        SpaceSaving.Entry last = sketch.top(3).get(2);
+        assertEquals("d", last.getKey());
+        assertFalse(last.isGuaranteed());
+    }
+
+    @Test
+    void evictsTheSmallestCountAfterIncrementsReorderTheHeap() {
+        SpaceSaving sketch = new SpaceSaving(3);
+        add(sketch, "a", 1);
+        add(sketch, "b", 1);
+        add(sketch, "c", 1);
+        // a moves from the root down; the new root must be whichever of b and c is now smallest
+        add(sketch, "a", 4);
+        add(sketch, "c", 2);
+        sketch.add("d");
+
+        assertEquals(0, sketch.lowerBound("b"));
+        assertEquals(5, sketch.upperBound("a"));
+        assertEquals(3, sketch.upperBound("c"));
+        assertEquals(2, sketch.upperBound("d"));
+        assertEquals(1, sketch.lowerBound("d"));
+    }
+
+    @Test
+    void boundsHoldForASkewedStream() {
+        int capacity = 20;
+        SpaceSaving sketch = new SpaceSaving(capacity);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        int length = 50_000;
+        for (int i = 0; i < length; i++) {
+            // Roughly Zipfian over 500 keys
+            String key = "k" + (int) Math.floor(Math.pow(500, random.nextDouble()));
+            sketch.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Entry> top = sketch.top(capacity);
+        assertEquals(capacity, top.size());
+        assertEquals(length, sketch.getStreamLength());
+        // Every increment lands on exactly one counter once they are all taken
+        assertEquals(length, top.stream().mapToLong(SpaceSaving.Entry::getCount).sum());
+        long smallest = top.stream().mapToLong(SpaceSaving.Entry::getCount).min().orElseThrow();
+        assertEquals(smallest, sketch.getMaxError());
+        assertTrue(sketch.getMaxError() <= length / capacity);
+        for (SpaceSaving.Entry entry : top) {
+            long actual = exact.get(entry.getKey());
+            assertTrue(entry.getCount() - entry.getError() <= actual, entry.getKey());
+            assertTrue(actual <= entry.getCount(), entry.getKey());
+        }
+        exact.forEach((key, actual) -> {
+            assertTrue(sketch.lowerBound(key) <= actual, key);
+            assertTrue(actual <= sketch.upperBound(key), key);
+        });
+    }
+
+    @Test
+    void rejectsZeroCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSaving(0));
+    }
+
+    private static void add(SpaceSaving sketch, String key, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.add(key);
+        }
+    }
+}
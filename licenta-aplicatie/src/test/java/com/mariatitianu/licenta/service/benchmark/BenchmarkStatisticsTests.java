@@ -0,0 +1,70 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BenchmarkStatisticsTests {
+
+    @Test
+    void meanAndSampleStandardDeviation() {
+        double[] values = {2, 4, 4, 4, 5, 5, 7, 9};
+
+        assertEquals(5.0, BenchmarkStatistics.mean(values), 1e-12);
+        assertEquals(Math.sqrt(32.0 / 7), BenchmarkStatistics.stdDev(values), 1e-12);
+        assertEquals(0.0, BenchmarkStatistics.stdDev(new double[] {3}));
+    }
+
+    @Test
+    void welchTMatchesTheTextbookFormula() {
+        // se = sqrt(2^2/10 + 3^2/20) = sqrt(0.85)
+        assertEquals(2 / Math.sqrt(0.85), BenchmarkStatistics.welchT(10, 2, 10, 12, 3, 20), 1e-12);
+        // The sign follows meanB - meanA
+        assertTrue(BenchmarkStatistics.welchT(12, 3, 20, 10, 2, 10) < 0);
+    }
+
+    @Test
+    void welchTIsZeroWithoutVariance() {
+        assertEquals(0.0, BenchmarkStatistics.welchT(10, 0, 5, 12, 0, 5));
+    }
+
+    @Test
+    void welchDegreesOfFreedomFollowSatterthwaite() {
+        double varianceA = 4.0 / 10;
+        double varianceB = 9.0 / 20;
+        double expected = Math.pow(varianceA + varianceB, 2)
+                / (varianceA * varianceA / 9 + varianceB * varianceB / 19);
+
+        assertEquals(expected, BenchmarkStatistics.welchDegreesOfFreedom(2, 10, 3, 20), 1e-9);
+        // Equal variances and counts give the pooled n1 + n2 - 2
+        assertEquals(18.0, BenchmarkStatistics.welchDegreesOfFreedom(2, 10, 2, 10), 1e-9);
+        assertEquals(28.0, BenchmarkStatistics.welchDegreesOfFreedom(0, 10, 0, 20), 1e-9);
+    }
+
+    @Test
+    void tQuantileMatchesTables() {
+        assertEquals(12.7062, BenchmarkStatistics.tQuantile(0.975, 1), 1e-4);
+        assertEquals(4.3027, BenchmarkStatistics.tQuantile(0.975, 2), 1e-4);
+        assertEquals(2.2281, BenchmarkStatistics.tQuantile(0.975, 10), 1e-3);
+        assertEquals(2.0423, BenchmarkStatistics.tQuantile(0.975, 30), 1e-3);
+        assertEquals(-2.0423, BenchmarkStatistics.tQuantile(0.025, 30), 1e-3);
+    }
+
+    @Test
+    void normalQuantileMatchesTables() {
+        assertEquals(1.959964, BenchmarkStatistics.normalQuantile(0.975), 1e-6);
+        assertEquals(0.0, BenchmarkStatistics.normalQuantile(0.5), 1e-9);
+        assertEquals(-3.090232, BenchmarkStatistics.normalQuantile(0.001), 1e-6);
+        assertThrows(IllegalArgumentException.class, () -> BenchmarkStatistics.normalQuantile(1));
+    }
+
+    @Test
+    void confidenceHalfWidthNeedsTwoValues() {
+        assertTrue(Double.isNaN(BenchmarkStatistics.confidenceHalfWidth(new double[] {1}, 0.95)));
+        // n = 4, sd = 1.2910, t(0.975, 3) = 3.1824
+        assertEquals(3.1824 * Math.sqrt(5.0 / 3) / 2,
+                BenchmarkStatistics.confidenceHalfWidth(new double[] {1, 2, 3, 4}, 0.95), 1e-2);
+    }
+}
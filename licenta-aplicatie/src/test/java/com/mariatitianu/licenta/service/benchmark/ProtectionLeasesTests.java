@@ -0,0 +1,58 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProtectionLeasesTests {
+
+    private final ProtectionLeases leases = new ProtectionLeases("jdbc:postgresql://localhost/licenta_db");
+
+    @Test
+    void lastHolderRestoresWhatTheFirstChanged() throws Exception {
+        AtomicInteger changes = new AtomicInteger();
+        AtomicInteger restores = new AtomicInteger();
+
+        leases.acquire(null, "products", false, () -> changes.incrementAndGet() > 0);
+        leases.acquire("jdbc:postgresql://localhost/licenta_db", "products", false, () -> changes.incrementAndGet() > 0);
+        leases.release(null, "products", () -> restores.incrementAndGet() > 0);
+        assertEquals(0, restores.get());
+
+        leases.release(null, "products", () -> restores.incrementAndGet() > 0);
+        assertEquals(1, changes.get());
+        assertEquals(1, restores.get());
+    }
+
+    @Test
+    void nothingToRestoreWhenTheTableWasAlreadyInPlace() throws Exception {
+        AtomicInteger restores = new AtomicInteger();
+
+        leases.acquire(null, "products", false, () -> false);
+        leases.release(null, "products", () -> restores.incrementAndGet() > 0);
+        assertEquals(0, restores.get());
+    }
+
+    @Test
+    void refusesTheOppositeStateWhileHeld() throws Exception {
+        leases.acquire(null, "warden_bench_protected", true, () -> true);
+
+        assertThrows(IllegalStateException.class,
+                () -> leases.acquire(null, "warden_bench_protected", false, () -> true));
+        // Another database's table of the same name is separate
+        leases.acquire("jdbc:postgresql://localhost/licenta_vanilla_db", "warden_bench_protected", false, () -> true);
+    }
+
+    @Test
+    void failedChangeHoldsNothing() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> leases.acquire(null, "products", false, () -> {
+            throw new IllegalArgumentException("Table 'products' does not exist");
+        }));
+
+        AtomicInteger changes = new AtomicInteger();
+        leases.acquire(null, "products", false, () -> changes.incrementAndGet() > 0);
+        assertEquals(1, changes.get());
+    }
+}
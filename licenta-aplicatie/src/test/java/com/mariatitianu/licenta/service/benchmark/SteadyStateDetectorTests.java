@@ -0,0 +1,107 @@
+package com.mariatitianu.licenta.service.benchmark;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SteadyStateDetectorTests {
+
+    private static final long MICROS = 1_000;
+
+    // Records one window of identical samples spread evenly over windowNanos, returning the last result
+    private static boolean recordWindow(SteadyStateDetector detector, long[] clock, int size,
+                                        long latencyNanos, long windowNanos) {
+        boolean stable = false;
+        for (int i = 0; i < size; i++) {
+            clock[0] += windowNanos / size;
+            stable = detector.record(latencyNanos, clock[0]);
+        }
+        return stable;
+    }
+
+    @Test
+    void stableOnceTheRequiredWindowsAgree() {
+        long[] clock = {0};
+        SteadyStateDetector detector = new SteadyStateDetector(10, 3, 0.05, clock[0]);
+
+        assertFalse(recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000));
+        assertFalse(recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000));
+        assertTrue(recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000));
+        assertEquals(3, detector.getCompletedWindows());
+        assertEquals(10_000.0, detector.getLastThroughput(), 1e-6);
+        assertEquals(100 * MICROS, detector.getLastMedianNanos(), 1e-6);
+    }
+
+    @Test
+    void decisionIsOnlyMadeAtWindowBoundaries() {
+        long[] clock = {0};
+        SteadyStateDetector detector = new SteadyStateDetector(4, 2, 0.05, clock[0]);
+        recordWindow(detector, clock, 4, 50 * MICROS, 400_000);
+        recordWindow(detector, clock, 4, 50 * MICROS, 400_000);
+        assertTrue(detector.isStable());
+
+        clock[0] += 100_000;
+        assertFalse(detector.record(50 * MICROS, clock[0]));
+        assertEquals(2, detector.getCompletedWindows());
+    }
+
+    @Test
+    void warmingLatencyKeepsItUnstableUntilItSettles() {
+        long[] clock = {0};
+        SteadyStateDetector detector = new SteadyStateDetector(10, 3, 0.05, clock[0]);
+
+        // Same throughput, but the median keeps dropping as the JIT kicks in
+        assertFalse(recordWindow(detector, clock, 10, 400 * MICROS, 1_000_000));
+        assertFalse(recordWindow(detector, clock, 10, 200 * MICROS, 1_000_000));
+        assertFalse(recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000));
+        assertTrue(detector.getLatencySpread() > 0.05);
+        assertEquals(0.0, detector.getThroughputSpread(), 1e-9);
+
+        assertFalse(recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000));
+        assertTrue(recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000));
+    }
+
+    @Test
+    void throughputChangesAlsoCount() {
+        long[] clock = {0};
+        SteadyStateDetector detector = new SteadyStateDetector(10, 2, 0.05, clock[0]);
+
+        recordWindow(detector, clock, 10, 100 * MICROS, 1_000_000);
+        // Same latencies, but untimed setup work doubles the wall time of the window
+        assertFalse(recordWindow(detector, clock, 10, 100 * MICROS, 2_000_000));
+        assertEquals(1.0 / 3, detector.getThroughputSpread(), 1e-9);
+    }
+
+    @Test
+    void medianIgnoresASinglePause() {
+        long[] clock = {0};
+        SteadyStateDetector detector = new SteadyStateDetector(5, 2, 0.05, clock[0]);
+        recordWindow(detector, clock, 5, 100 * MICROS, 500_000);
+
+        for (int i = 0; i < 4; i++) {
+            clock[0] += 100_000;
+            detector.record(100 * MICROS, clock[0]);
+        }
+        clock[0] += 100_000;
+        // One 50 ms outlier, e.g. a GC pause, leaves the window median where it was
+        assertTrue(detector.record(50_000 * MICROS, clock[0]));
+    }
+
+    @Test
+    void spreadIsUndefinedBeforeTheFirstWindow() {
+        SteadyStateDetector detector = new SteadyStateDetector(10, 2, 0.05, 0);
+
+        assertTrue(Double.isNaN(detector.getLatencySpread()));
+        assertEquals(0.0, detector.getLastThroughput());
+        assertFalse(detector.isStable());
+    }
+
+    @Test
+    void rejectsWindowsThatCannotBeCompared() {
+        assertThrows(IllegalArgumentException.class, () -> new SteadyStateDetector(0, 3, 0.05, 0));
+        assertThrows(IllegalArgumentException.class, () -> new SteadyStateDetector(10, 1, 0.05, 0));
+    }
+}
@@ -2,14 +2,17 @@ const API = {
   baseUrl: 'http://localhost:8081',
   currentPort: 8081,
 
+  resolveUrl(endpoint) {
+    // Use relative URL when running in production (Docker)
+    const baseUrl = window.location.hostname === 'localhost' && window.location.port
+      ? this.baseUrl
+      : `/backend-${this.currentPort}`;
+    return `${baseUrl}${endpoint}`;
+  },
+
   async fetch(endpoint, options = {}) {
     try {
-      // Use relative URL when running in production (Docker)
-      const baseUrl = window.location.hostname === 'localhost' && window.location.port
-        ? this.baseUrl
-        : `/backend-${this.currentPort}`;
-        
-      const response = await fetch(`${baseUrl}${endpoint}`, {
+      const response = await fetch(this.resolveUrl(endpoint), {
         headers: { 'Content-Type': 'application/json' },
         ...options,
       });
@@ -69,11 +72,23 @@ const API = {
     getBlocked: (limit = 500) => API.fetch(`/api/logs/operations/blocked?limit=${limit}`),
     getAllowed: (limit = 500) => API.fetch(`/api/logs/operations/allowed?limit=${limit}`),
     getSummary: () => API.fetch('/api/logs/summary'),
+    streamUrl: (filters = {}, backlog = 0) => {
+      const params = new URLSearchParams({ ...filters, backlog });
+      return API.resolveUrl(`/api/logs/operations/stream?${params}`);
+    },
   },
 
   // Benchmark API
   benchmark: {
     run: (request) => API.fetch('/api/benchmark/run', { method: 'POST', body: JSON.stringify(request) }),
+    submitJob: (request) => API.fetch('/api/benchmark/jobs', { method: 'POST', body: JSON.stringify(request) }),
+    getJob: (jobId) => API.fetch(`/api/benchmark/jobs/${jobId}`),
+    cancelJob: (jobId) => API.fetch(`/api/benchmark/jobs/${jobId}`, { method: 'DELETE' }),
+    jobEventsUrl: (jobId) => API.resolveUrl(`/api/benchmark/jobs/${jobId}/events`),
+    listRuns: () => API.fetch('/api/benchmark/history'),
+    getTrend: (operation) => API.fetch(`/api/benchmark/history/trend?operation=${operation}`),
+    checkRegressions: (runId) => API.fetch(`/api/benchmark/history/runs/${runId}/regressions`),
+    pinBaseline: (runId) => API.fetch(`/api/benchmark/history/baseline/${runId}`, { method: 'PUT' }),
   },
 
   // Test API (vulnerable endpoints for SQL injection demo)
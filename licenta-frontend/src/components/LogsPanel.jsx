@@ -94,9 +94,12 @@ const LogsPanel = ({ currentPath }) => {
     }
   };
 
+  // Live mode gets its initial rows from the stream's backlog instead
   useEffect(() => {
-    fetchLogs();
-  }, [filters]);
+    if (!autoRefresh) {
+      fetchLogs();
+    }
+  }, [filters, autoRefresh]);
 
   // Auto-collapse on benchmark page
   useEffect(() => {
@@ -114,12 +117,30 @@ const LogsPanel = ({ currentPath }) => {
     previousLogCount.current = logs.length;
   }, [logs, expanded]);
 
+  // Live updates: the backend pushes new entries over SSE instead of being polled every second.
+  // The first event carries the backlog, later ones only new entries (oldest first).
   useEffect(() => {
-    if (autoRefresh && !loading) {
-      const timer = setTimeout(fetchLogs, 1000);
-      return () => clearTimeout(timer);
-    }
-  }, [autoRefresh, lastRefresh, loading]);
+    if (!autoRefresh) return;
+
+    const streamFilters = {};
+    if (filters.status !== 'all') streamFilters.status = filters.status.toUpperCase();
+    if (filters.tableName !== 'all') streamFilters.tableName = filters.tableName;
+    if (filters.operationType !== 'all') streamFilters.operationType = filters.operationType;
+
+    let first = true;
+    const source = new EventSource(API.logs.streamUrl(streamFilters, 500));
+    source.addEventListener('operations', (event) => {
+      const entries = JSON.parse(event.data).reverse();
+      if (first) {
+        first = false;
+        setLogs(entries);
+      } else if (entries.length > 0) {
+        setLogs(prev => [...entries, ...prev].slice(0, 500));
+      }
+      setLastRefresh(new Date());
+    });
+    return () => source.close();
+  }, [autoRefresh, filters]);
 
   // Handle resize
   useEffect(() => {
@@ -1,6 +1,7 @@
-import { useState } from 'react';
-import { Typography, Button, Divider, TextField, FormControlLabel, Checkbox, Paper, Table, TableBody, TableCell, TableContainer, TableHead, TableRow } from '@mui/material';
+import { useState, useEffect } from 'react';
+import { Typography, Button, Divider, TextField, FormControlLabel, Checkbox, Paper, Table, TableBody, TableCell, TableContainer, TableHead, TableRow, Select, MenuItem } from '@mui/material';
 import { BarChart } from '@mui/x-charts/BarChart';
+import { LineChart } from '@mui/x-charts/LineChart';
 import { toast } from 'react-toastify';
 import BackendSelectorWithToggle from '../components/BackendSelectorWithToggle';
 import API from '../api';
@@ -19,6 +20,23 @@ const Benchmark = ({ selectedBackend, setSelectedBackend }) => {
   });
   const [compareWithVanilla, setCompareWithVanilla] = useState(true);
   const [vanillaResults, setVanillaResults] = useState(null);
+  const [progress, setProgress] = useState(null);
+  const [trendOperation, setTrendOperation] = useState('SELECT');
+  const [trend, setTrend] = useState([]);
+
+  // Trend of the selected operation across the runs stored by the current backend
+  const loadTrend = async () => {
+    try {
+      setTrend(await API.benchmark.getTrend(trendOperation));
+    } catch {
+      setTrend([]);
+    }
+  };
+
+  useEffect(() => {
+    loadTrend();
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [trendOperation, selectedBackend]);
 
   // Helper function to format time values with appropriate precision
   const formatTime = (timeMs) => {
@@ -45,6 +63,41 @@ const Benchmark = ({ selectedBackend, setSelectedBackend }) => {
     }));
   };
 
+  // Follows a submitted job over SSE and resolves with its final state
+  const waitForJob = (jobId) => new Promise((resolve, reject) => {
+    const settle = (info) => {
+      if (info.status === 'COMPLETED') {
+        resolve(info);
+      } else {
+        reject(new Error(info.error || `benchmark ${info.status.toLowerCase()}`));
+      }
+    };
+
+    const source = new EventSource(API.benchmark.jobEventsUrl(jobId));
+    source.addEventListener('progress', (event) => setProgress(JSON.parse(event.data)));
+    source.addEventListener('result', (event) => {
+      source.close();
+      settle(JSON.parse(event.data));
+    });
+    source.onerror = () => {
+      // Stream dropped (e.g. by a proxy) - fall back to polling the job
+      source.close();
+      const poll = async () => {
+        try {
+          const info = await API.benchmark.getJob(jobId);
+          if (['COMPLETED', 'FAILED', 'CANCELLED'].includes(info.status)) {
+            settle(info);
+          } else {
+            setTimeout(poll, 1000);
+          }
+        } catch (error) {
+          reject(error);
+        }
+      };
+      poll();
+    };
+  });
+
   const runBenchmark = async (backend) => {
     const operations = Object.keys(selectedOperations).filter(op => selectedOperations[op]);
     
@@ -65,13 +118,15 @@ const Benchmark = ({ selectedBackend, setSelectedBackend }) => {
       // Set backend for benchmark
       API.setBackend(backend);
       
-      // Run benchmark
-      const result = await API.benchmark.run(request);
+      // Submit benchmark as a job and follow its progress
+      const job = await API.benchmark.submitJob(request);
+      const jobEvents = waitForJob(job.jobId);
       
       // Restore original backend
       API.baseUrl = currentBackend;
       
-      return result;
+      const info = await jobEvents;
+      return info.result;
     } catch (error) {
       toast.error(`Benchmark failed: ${error.message}`);
       return null;
@@ -111,6 +166,8 @@ const Benchmark = ({ selectedBackend, setSelectedBackend }) => {
       }
     } finally {
       setLoading(false);
+      setProgress(null);
+      loadTrend();
     }
   };
 
@@ -238,6 +295,12 @@ const Benchmark = ({ selectedBackend, setSelectedBackend }) => {
           >
             {loading ? 'Running Benchmark...' : 'Run Benchmark'}
           </Button>
+
+          {loading && progress && (
+            <Typography variant="body2" sx={{ mt: 1, color: colors.textSecondary }}>
+              {progress.operation}: {progress.opsPerSecond.toFixed(0)} ops/s, p99 {formatTime(progress.p99TimeMs)}
+            </Typography>
+          )}
         </div>
 
         <div className="main-area">
@@ -410,6 +473,45 @@ const Benchmark = ({ selectedBackend, setSelectedBackend }) => {
             </>
           )}
 
+          {trend.length > 1 && (
+            <Paper sx={{ p: 2, mt: 1.5, backgroundColor: colors.card }}>
+              <div style={{ display: 'flex', alignItems: 'center', justifyContent: 'space-between' }}>
+                <Typography variant="h6" style={{ color: colors.text }}>
+                  Trend over stored runs (ms)
+                </Typography>
+                <Select
+                  size="small"
+                  value={trendOperation}
+                  onChange={(e) => setTrendOperation(e.target.value)}
+                  sx={{ color: colors.text, '& fieldset': { borderColor: colors.border } }}
+                >
+                  {['SELECT', 'INSERT', 'UPDATE', 'DELETE'].map(op => (
+                    <MenuItem key={op} value={op}>{op}</MenuItem>
+                  ))}
+                </Select>
+              </div>
+
+              <LineChart
+                xAxis={[{
+                  scaleType: 'point',
+                  data: trend.map(point => new Date(point.createdAt).toLocaleString())
+                }]}
+                series={[
+                  { data: trend.map(point => point.avgTimeMs), label: 'Average', color: colors.accent },
+                  { data: trend.map(point => point.p99TimeMs), label: 'p99', color: colors.error }
+                ]}
+                height={300}
+                margin={{ left: 50 }}
+                sx={{
+                  '& .MuiChartsAxis-line': { stroke: colors.border },
+                  '& .MuiChartsAxis-tick': { stroke: colors.border },
+                  '& .MuiChartsAxis-tickLabel': { fill: colors.textSecondary },
+                  '& .MuiChartsLegend-label': { fill: colors.text },
+                }}
+              />
+            </Paper>
+          )}
+
           {!results && !loading && (
             <Paper sx={{ p: 2, mt: 1.5, backgroundColor: colors.card }}>
               <Typography style={{ color: colors.textSecondary }}>
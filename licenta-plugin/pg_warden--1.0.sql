@@ -22,6 +22,46 @@ RETURNS TABLE (
 AS 'MODULE_PATHNAME', 'warden_all_queries'
 LANGUAGE C STRICT;
 
+-- Rows after after_position and between from_time and to_time (ISO-8601 text, compared like
+-- log_timestamp), with their positions; NULL for no bound. Skips archived segments outside the range.
+CREATE FUNCTION warden_queries_range(after_position BIGINT, from_time TEXT, to_time TEXT)
+RETURNS TABLE (
+    log_timestamp TEXT,
+    operation_type TEXT,
+    table_name TEXT,
+    user_name TEXT,
+    session_pid INTEGER,
+    status TEXT,
+    blocked_reason TEXT,
+    query_text TEXT,
+    log_position BIGINT
+)
+AS 'MODULE_PATHNAME', 'warden_queries_range'
+LANGUAGE C;
+
+CREATE FUNCTION warden_log_segments()
+RETURNS TABLE (
+    segment_name TEXT,
+    first_position BIGINT,
+    row_count BIGINT,
+    min_timestamp TEXT,
+    max_timestamp TEXT,
+    raw_bytes BIGINT,
+    compressed_bytes BIGINT
+)
+AS 'MODULE_PATHNAME', 'warden_log_segments'
+LANGUAGE C STRICT;
+
+CREATE FUNCTION warden_rotate_log(only_if_due BOOLEAN DEFAULT false)
+RETURNS BIGINT
+AS 'MODULE_PATHNAME', 'warden_rotate_log'
+LANGUAGE C STRICT;
+
+CREATE FUNCTION warden_drop_segments(before_time TEXT, max_position BIGINT)
+RETURNS INTEGER
+AS 'MODULE_PATHNAME', 'warden_drop_segments'
+LANGUAGE C;
+
 CREATE FUNCTION warden_protect(tablename TEXT)
 RETURNS BOOLEAN
 AS 'MODULE_PATHNAME', 'warden_protect'
@@ -44,6 +84,10 @@ END $$;
 
 REVOKE EXECUTE ON FUNCTION warden_protect(TEXT) FROM PUBLIC;
 REVOKE EXECUTE ON FUNCTION warden_unprotect(TEXT) FROM PUBLIC;
+REVOKE EXECUTE ON FUNCTION warden_rotate_log(BOOLEAN) FROM PUBLIC;
+REVOKE EXECUTE ON FUNCTION warden_drop_segments(TEXT, BIGINT) FROM PUBLIC;
 
 GRANT EXECUTE ON FUNCTION warden_protect(TEXT) TO warden_admin;
-GRANT EXECUTE ON FUNCTION warden_unprotect(TEXT) TO warden_admin; 
\ No newline at end of file
+GRANT EXECUTE ON FUNCTION warden_unprotect(TEXT) TO warden_admin;
+GRANT EXECUTE ON FUNCTION warden_rotate_log(BOOLEAN) TO warden_admin;
+GRANT EXECUTE ON FUNCTION warden_drop_segments(TEXT, BIGINT) TO warden_admin; 
\ No newline at end of file
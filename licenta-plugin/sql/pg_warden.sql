@@ -0,0 +1,98 @@
+-- Regression test of pg_warden: make installcheck, against a server the extension is installed on.
+-- It rotates the server's operation log, so use a scratch server (see Dockerfile.postgres).
+-- The checks run in DO blocks that print nothing unless they fail.
+SET client_min_messages TO WARNING;
+CREATE EXTENSION pg_warden;
+-- No rotation falls due on its own, so warden_rotate_log(true) must leave the log alone
+SET pg_warden.rotation_size = 0;
+SET pg_warden.rotation_age = 0;
+
+-- The log belongs to the whole server and may already hold rows: note where it ends
+CREATE TEMP TABLE smoke_start AS
+    SELECT coalesce(max(log_position), 0) AS log_position FROM warden_queries_range(NULL, NULL, NULL);
+
+CREATE TABLE warden_smoke (id INTEGER PRIMARY KEY, name TEXT);
+INSERT INTO warden_smoke VALUES (1, 'first'), (2, 'second');
+
+-- Logged: UNPROTECT, UPDATE, DELETE, PROTECT, and the DELETE that is then blocked
+DO $$ BEGIN PERFORM warden_unprotect('warden_smoke'); END $$;
+UPDATE warden_smoke SET name = 'changed' WHERE id = 1;
+DELETE FROM warden_smoke WHERE id = 2;
+DO $$ BEGIN PERFORM warden_protect('warden_smoke'); END $$;
+DELETE FROM warden_smoke WHERE id = 1;
+
+-- Reading the log
+DO $$
+DECLARE
+    start_position  BIGINT := (SELECT log_position FROM smoke_start);
+    logged          TEXT;
+    first_ts        TEXT;
+    n               BIGINT;
+    first_position  BIGINT;
+    last_position   BIGINT;
+BEGIN
+    SELECT string_agg(operation_type || ':' || status, ',' ORDER BY log_position), min(log_timestamp)
+    INTO logged, first_ts
+    FROM warden_queries_range(start_position, NULL, NULL);
+    IF logged IS DISTINCT FROM 'UNPROTECT:SUCCESS,UPDATE:ALLOWED,DELETE:ALLOWED,PROTECT:SUCCESS,DELETE:BLOCKED' THEN
+        RAISE EXCEPTION 'warden_queries_range: unexpected rows %', logged;
+    END IF;
+    SELECT count(*), min(log_position), max(log_position) INTO n, first_position, last_position
+    FROM warden_queries_range(NULL, NULL, NULL);
+    IF n <> last_position - first_position + 1 OR last_position <> start_position + 5 THEN
+        RAISE EXCEPTION 'warden_queries_range: % rows at positions %..%, expected them contiguous up to %',
+            n, first_position, last_position, start_position + 5;
+    END IF;
+    IF (SELECT count(*) FROM warden_all_queries()) <> n THEN
+        RAISE EXCEPTION 'warden_all_queries: row count differs from warden_queries_range';
+    END IF;
+    IF (SELECT count(*) FROM warden_queries_range(start_position, first_ts, NULL)) <> 5
+       OR (SELECT count(*) FROM warden_queries_range(NULL, '2000-01-01T00:00:00Z', '2000-01-02T00:00:00Z')) <> 0 THEN
+        RAISE EXCEPTION 'warden_queries_range: time bounds not applied';
+    END IF;
+END $$;
+
+-- Rotating, then reading across the archived segment and the new live log
+DO $$
+DECLARE
+    start_position  BIGINT := (SELECT log_position FROM smoke_start);
+    live_first      BIGINT;
+    live_rows       BIGINT;
+    last_position   BIGINT;
+    total           BIGINT;
+    rotated         BIGINT;
+    logged          TEXT;
+BEGIN
+    SELECT first_position, row_count INTO live_first, live_rows
+    FROM warden_log_segments() WHERE segment_name = 'live';
+    SELECT count(*), max(log_position) INTO total, last_position FROM warden_queries_range(NULL, NULL, NULL);
+    rotated := warden_rotate_log(true);
+    IF rotated <> 0 THEN
+        RAISE EXCEPTION 'warden_rotate_log(true): rotated % rows with rotation disabled', rotated;
+    END IF;
+    rotated := warden_rotate_log();
+    IF rotated <> live_rows OR rotated < 5 THEN
+        RAISE EXCEPTION 'warden_rotate_log: archived % rows, the live log had %', rotated, live_rows;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM warden_log_segments()
+                   WHERE first_position = live_first AND row_count = rotated AND compressed_bytes IS NOT NULL) THEN
+        RAISE EXCEPTION 'warden_log_segments: no archived segment of % rows after position %', rotated, live_first;
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM warden_log_segments()
+                   WHERE segment_name = 'live' AND first_position = last_position AND row_count = 1) THEN
+        RAISE EXCEPTION 'warden_log_segments: the live log should hold the ROTATE row after position %', last_position;
+    END IF;
+    SELECT string_agg(operation_type, ',' ORDER BY log_position) INTO logged
+    FROM warden_queries_range(start_position, NULL, NULL);
+    IF logged IS DISTINCT FROM 'UNPROTECT,UPDATE,DELETE,PROTECT,DELETE,ROTATE' THEN
+        RAISE EXCEPTION 'warden_queries_range after rotation: unexpected rows %', logged;
+    END IF;
+    IF (SELECT count(*) FROM warden_all_queries()) <> total + 1
+       OR (SELECT max(log_position) FROM warden_queries_range(NULL, NULL, NULL)) <> last_position + 1 THEN
+        RAISE EXCEPTION 'rows or positions changed by the rotation';
+    END IF;
+END $$;
+
+DO $$ BEGIN PERFORM warden_unprotect('warden_smoke'); END $$;
+DROP TABLE warden_smoke;
+DROP EXTENSION pg_warden;
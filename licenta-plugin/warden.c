@@ -1,19 +1,23 @@
 #include "/usr/include/postgresql/16/server/postgres.h"
 
 #include <math.h>
+#include <sys/file.h>
 #include <sys/stat.h>
 #include <unistd.h>
 #include <setjmp.h>
 #include <time.h>
+#include <zlib.h>
 
 #include "access/hash.h"
 #include "access/heapam.h"
 #include "catalog/pg_authid.h"
 #include "catalog/namespace.h"
 #include "catalog/pg_type.h"
+#include "common/file_perm.h"
 #include "executor/executor.h"
 #include "executor/instrument.h"
 #include "funcapi.h"
+#include "lib/stringinfo.h"
 #include "mb/pg_wchar.h"
 #include "miscadmin.h"
 #include "nodes/nodes.h"
@@ -31,6 +35,7 @@
 #include "utils/acl.h"
 #include "utils/builtins.h"
 #include "utils/fmgroids.h"
+#include "utils/guc.h"
 #include "utils/lsyscache.h"
 #include "utils/memutils.h"
 #include "utils/rel.h"
@@ -52,6 +57,69 @@ static int nested_level = 0;
 static ProcessUtility_hook_type prev_ProcessUtility = NULL;
 static post_parse_analyze_hook_type prev_post_parse_analyze_hook = NULL;
 
+/* The live log, and the archive of rotated segments, both under the data directory */
+#define WARDEN_LOG_FILE         "pg_warden_ops.csv"
+#define WARDEN_ARCHIVE_DIR      "pg_warden_archive"
+#define WARDEN_BASE_FILE        "live.base"
+#define WARDEN_ROTATION_LOCK    "rotation.lock"
+#define WARDEN_PENDING_SUFFIX   ".pending"
+#define WARDEN_LINE_MAX         4096
+#define WARDEN_FIELDS           8
+#define WARDEN_TS_LEN           32
+
+/*
+ * Rotation thresholds of the live log, 0 disables: size in kB, age in minutes. Checked by
+ * warden_rotate_log(true), which the application calls on a schedule; writers never rotate.
+ */
+static int warden_rotation_size = 10240;
+static int warden_rotation_age = 0;
+
+/*
+ * This backend's descriptor of the live log, kept open between writes, and the file it was
+ * opened on; -1 before the first write and after a rotation moved the file away
+ */
+static int live_log_fd = -1;
+static dev_t live_log_dev;
+static ino_t live_log_ino;
+static bool live_log_check_tail = false;
+
+/*
+ * One archived segment: a gzip of a former live log, immutable once written, and its
+ * index <name>.idx. Positions number the log's rows from 1 across all segments and the
+ * live log, and stay the same when older segments are dropped.
+ */
+typedef struct WardenSegment
+{
+    char    name[64];
+    int64   first_position;     /* position of the row before its first one */
+    int64   rows;
+    char    min_ts[WARDEN_TS_LEN];
+    char    max_ts[WARDEN_TS_LEN];
+    int64   raw_bytes;
+    int64   compressed_bytes;
+} WardenSegment;
+
+/* Where the live log starts: the position before its first row, and when it was started */
+typedef struct WardenBase
+{
+    int64   first_position;
+    int64   started;
+} WardenBase;
+
+/* One pass over log rows, into a tuplestore or (without one) only counting them */
+typedef struct WardenScan
+{
+    Tuplestorestate *tupstore;
+    TupleDesc   tupdesc;
+    bool        with_position;
+    int64       after;          /* rows at or before this position are skipped */
+    const char *from_ts;        /* NULL for no bound; compared as text like the log's timestamps */
+    const char *to_ts;
+    int64       rows;
+    char        min_ts[WARDEN_TS_LEN];
+    char        max_ts[WARDEN_TS_LEN];
+} WardenScan;
+
 
 static void log_operation_csv(const char *operation_type, const char *table_name, 
                               const char *status, const char *blocked_reason, 
@@ -60,15 +128,43 @@ static char *escape_csv_field(const char *str);
 static bool is_unprotected_table(const char *table_name);
 static void intercept_dml_command(ParseState *pstate, Query *query);
 static bool is_protected_ddl_command(Node *parsetree, char **table_name);
+static bool parse_log_line(char *line, char **fields);
+static FILE *open_live_log(const char *mode, int lock_mode);
+static void append_live_log(const char *line, size_t len);
+static bool open_live_log_fd(const char *log_path);
+static void close_live_log_fd(void);
+static bool read_log_line(gzFile in, StringInfo line);
+static bool rotation_due(FILE *live, WardenBase *base);
+static int64 rotate_live_log(bool only_if_due);
+static int64 archive_live_log(bool only_if_due);
+static bool compress_segment(const char *pending_path, int64 first_position, WardenSegment *segment);
+static bool finish_rotation(const char *pending_path, WardenBase *base);
+static bool find_pending(int64 *first_position);
+static void pending_file_path(char *path, int64 first_position);
+static FILE *open_pending(const WardenBase *base);
+static int load_segments(WardenSegment **segments);
+static void load_base(WardenBase *base, const WardenSegment *segments, int nsegments);
+static int open_log(WardenSegment **segments, WardenBase *base, FILE **pending, FILE **live);
+static int64 scan_log_file(WardenScan *scan, FILE *fp, int64 position);
+static void scan_log(WardenScan *scan);
+static int64 put_uncompressed_segment(ReturnSetInfo *rsinfo, const char *name, FILE *fp, int64 position);
 
 
 Datum warden_all_queries(PG_FUNCTION_ARGS);
 Datum warden_protect(PG_FUNCTION_ARGS);
 Datum warden_unprotect(PG_FUNCTION_ARGS);
+Datum warden_queries_range(PG_FUNCTION_ARGS);
+Datum warden_log_segments(PG_FUNCTION_ARGS);
+Datum warden_rotate_log(PG_FUNCTION_ARGS);
+Datum warden_drop_segments(PG_FUNCTION_ARGS);
 
 PG_FUNCTION_INFO_V1(warden_all_queries);
 PG_FUNCTION_INFO_V1(warden_protect);
 PG_FUNCTION_INFO_V1(warden_unprotect);
+PG_FUNCTION_INFO_V1(warden_queries_range);
+PG_FUNCTION_INFO_V1(warden_log_segments);
+PG_FUNCTION_INFO_V1(warden_rotate_log);
+PG_FUNCTION_INFO_V1(warden_drop_segments);
 
 static void process_utility(PlannedStmt *pstmt,
                             const char *queryString,
@@ -87,6 +183,24 @@ _PG_init(void)
 {
     elog(NOTICE, "pg_warden extension initializing");
     
+    DefineCustomIntVariable("pg_warden.rotation_size",
+                            "Archives the operation log once it grows to this size.",
+                            "Checked by warden_rotate_log(true). 0 disables size-based rotation.",
+                            &warden_rotation_size,
+                            10240, 0, MAX_KILOBYTES,
+                            PGC_SUSET, GUC_UNIT_KB,
+                            NULL, NULL, NULL);
+    
+    DefineCustomIntVariable("pg_warden.rotation_age",
+                            "Archives the operation log once it has been written to for this long.",
+                            "Checked by warden_rotate_log(true). 0 disables time-based rotation.",
+                            &warden_rotation_age,
+                            0, 0, INT_MAX / SECS_PER_MINUTE,
+                            PGC_SUSET, GUC_UNIT_MIN,
+                            NULL, NULL, NULL);
+    
+    MarkGUCPrefixReserved("pg_warden");
+    
     
     prev_ProcessUtility = ProcessUtility_hook;
     ProcessUtility_hook = process_utility;
@@ -167,8 +281,7 @@ log_operation_csv(const char *operation_type, const char *table_name,
                   const char *status, const char *blocked_reason, 
                   const char *query_text)
 {
-    char log_path[MAXPGPATH];
-    FILE *fp;
+    StringInfoData line;
     char timestamp_str[128];
     char *escaped_query;
     char *escaped_reason;
@@ -176,17 +289,6 @@ log_operation_csv(const char *operation_type, const char *table_name,
     time_t now;
     struct tm *tm_info;
     
-    /* Build log file path in data directory */
-    snprintf(log_path, sizeof(log_path), "%s/pg_warden_ops.csv", DataDir);
-    
-    /* Open file for appending */
-    fp = fopen(log_path, "a+");
-    if (fp == NULL)
-    {
-        elog(WARNING, "pg_warden: unable to open log file %s", log_path);
-        return;
-    }
-    
     /* Get current timestamp in ISO format */
     now = time(NULL);
     tm_info = gmtime(&now);
@@ -199,26 +301,988 @@ log_operation_csv(const char *operation_type, const char *table_name,
     escaped_query = escape_csv_field(query_text);
     escaped_reason = escape_csv_field(blocked_reason);
     
-    /* Write CSV row (removed database_name field) */
-    fprintf(fp, "%s,%s,%s,%s,%d,%s,%s,%s\n",
-            timestamp_str,
-            operation_type ? operation_type : "",
-            table_name ? table_name : "",
-            user_name ? user_name : "",
-            MyProcPid,
-            status ? status : "",
-            escaped_reason,
-            escaped_query);
+    /* Build the CSV row (removed database_name field), written with one write() */
+    initStringInfo(&line);
+    appendStringInfo(&line, "%s,%s,%s,%s,%d,%s,%s,%s\n",
+                     timestamp_str,
+                     operation_type ? operation_type : "",
+                     table_name ? table_name : "",
+                     user_name ? user_name : "",
+                     MyProcPid,
+                     status ? status : "",
+                     escaped_reason,
+                     escaped_query);
     
-    fclose(fp);
+    append_live_log(line.data, line.len);
     
     /* Clean up */
+    pfree(line.data);
     if (escaped_query)
         pfree(escaped_query);
     if (escaped_reason)
         pfree(escaped_reason);
 }
 
+/*
+ * Appends one line to the live log. Writers share a flock, as O_APPEND writes of whole lines
+ * do not interleave; a rotation takes it exclusively to move the file away. The descriptor
+ * stays open between writes, so a write costs the lock, a stat of the path and the write: if
+ * the path no longer names our file once we hold the lock, a rotation has moved it and the
+ * new live log is opened. An audit row is never dropped silently: if it cannot be written,
+ * the statement fails.
+ */
+static void
+append_live_log(const char *line, size_t len)
+{
+    char log_path[MAXPGPATH];
+    struct stat st;
+    ssize_t written;
+    int save_errno;
+    int attempt;
+    
+    snprintf(log_path, sizeof(log_path), "%s/%s", DataDir, WARDEN_LOG_FILE);
+    
+    for (attempt = 0; attempt < 5; attempt++)
+    {
+        if (live_log_fd < 0 && !open_live_log_fd(log_path))
+            break;
+        if (flock(live_log_fd, LOCK_SH) != 0)
+            break;
+        
+        if (stat(log_path, &st) != 0 || st.st_dev != live_log_dev || st.st_ino != live_log_ino)
+        {
+            /* Rotated away since we opened it */
+            close_live_log_fd();
+            continue;
+        }
+        
+        /* A line cut short by a crash would swallow ours; end it first */
+        if (live_log_check_tail)
+        {
+            char last;
+            
+            if (st.st_size > 0 && pread(live_log_fd, &last, 1, st.st_size - 1) == 1 && last != '\n')
+                (void) write(live_log_fd, "\n", 1);
+            live_log_check_tail = false;
+        }
+        
+        written = write(live_log_fd, line, len);
+        if (written == (ssize_t) len)
+        {
+            flock(live_log_fd, LOCK_UN);
+            return;
+        }
+        save_errno = written >= 0 ? ENOSPC : errno;
+        
+        /* Reopening checks the tail again, in case part of the line was written */
+        close_live_log_fd();
+        errno = save_errno;
+        ereport(ERROR,
+               (errcode_for_file_access(),
+                errmsg("could not write to the pg_warden operation log \"%s\": %m", log_path)));
+    }
+    
+    close_live_log_fd();
+    ereport(ERROR,
+           (errcode_for_file_access(),
+            errmsg("could not open the pg_warden operation log \"%s\": %m", log_path)));
+}
+
+static bool
+open_live_log_fd(const char *log_path)
+{
+    struct stat st;
+    int fd;
+    
+    if (!AcquireExternalFD())
+    {
+        errno = EMFILE;
+        return false;
+    }
+    
+    fd = open(log_path, O_RDWR | O_APPEND | O_CREAT | PG_BINARY, pg_file_create_mode);
+    if (fd < 0 || fstat(fd, &st) != 0)
+    {
+        int save_errno = errno;
+        
+        if (fd >= 0)
+            close(fd);
+        ReleaseExternalFD();
+        errno = save_errno;
+        return false;
+    }
+    
+    live_log_fd = fd;
+    live_log_dev = st.st_dev;
+    live_log_ino = st.st_ino;
+    live_log_check_tail = true;
+    return true;
+}
+
+/* Closing also releases a lock held on it */
+static void
+close_live_log_fd(void)
+{
+    if (live_log_fd < 0)
+        return;
+    close(live_log_fd);
+    ReleaseExternalFD();
+    live_log_fd = -1;
+}
+
+
+/*
+ * Opens the live log and takes the given flock on it, for readers and rotation; writers keep
+ * their own descriptor (append_live_log). A rotation moves the file away while holding the
+ * exclusive lock, so once we hold ours, the file must still be the one at the path; otherwise
+ * it is opened again. With mode "r", NULL means there is no live log.
+ */
+static FILE *
+open_live_log(const char *mode, int lock_mode)
+{
+    char log_path[MAXPGPATH];
+    struct stat fd_st;
+    struct stat path_st;
+    FILE *fp;
+    int attempt;
+    
+    snprintf(log_path, sizeof(log_path), "%s/%s", DataDir, WARDEN_LOG_FILE);
+    
+    for (attempt = 0; attempt < 5; attempt++)
+    {
+        fp = fopen(log_path, mode);
+        if (fp == NULL)
+            return NULL;
+        
+        if (flock(fileno(fp), lock_mode) != 0)
+        {
+            fclose(fp);
+            return NULL;
+        }
+        
+        if (fstat(fileno(fp), &fd_st) == 0 && stat(log_path, &path_st) == 0 &&
+            fd_st.st_dev == path_st.st_dev && fd_st.st_ino == path_st.st_ino)
+            return fp;
+        
+        /* Rotated away while we waited for the lock */
+        fclose(fp);
+    }
+    
+    return NULL;
+}
+
+static void
+archive_path(char *path, const char *file_name)
+{
+    snprintf(path, MAXPGPATH, "%s/%s/%s", DataDir, WARDEN_ARCHIVE_DIR, file_name);
+}
+
+static bool
+ensure_archive_dir(void)
+{
+    char dir_path[MAXPGPATH];
+    
+    snprintf(dir_path, sizeof(dir_path), "%s/%s", DataDir, WARDEN_ARCHIVE_DIR);
+    if (MakePGDirectory(dir_path) != 0 && errno != EEXIST)
+    {
+        elog(WARNING, "pg_warden: unable to create archive directory %s: %m", dir_path);
+        return false;
+    }
+    return true;
+}
+
+/* Writes a small file next to the archive under a temporary name, then renames it into place */
+static bool
+write_archive_file(const char *file_name, const char *contents)
+{
+    char path[MAXPGPATH];
+    char tmp_path[MAXPGPATH];
+    FILE *fp;
+    
+    archive_path(path, file_name);
+    snprintf(tmp_path, sizeof(tmp_path), "%s.tmp", path);
+    
+    fp = fopen(tmp_path, "w");
+    if (fp == NULL)
+    {
+        elog(WARNING, "pg_warden: unable to write %s: %m", tmp_path);
+        return false;
+    }
+    fputs(contents, fp);
+    if (fclose(fp) != 0)
+    {
+        elog(WARNING, "pg_warden: unable to write %s: %m", tmp_path);
+        unlink(tmp_path);
+        return false;
+    }
+    return durable_rename(tmp_path, path, WARNING) == 0;
+}
+
+static bool
+read_base(WardenBase *base)
+{
+    char path[MAXPGPATH];
+    FILE *fp;
+    long long first_position;
+    long long started;
+    bool found = false;
+    
+    archive_path(path, WARDEN_BASE_FILE);
+    fp = fopen(path, "r");
+    if (fp == NULL)
+        return false;
+    
+    if (fscanf(fp, "%lld %lld", &first_position, &started) == 2)
+    {
+        base->first_position = first_position;
+        base->started = started;
+        found = true;
+    }
+    fclose(fp);
+    return found;
+}
+
+static bool
+write_base(const WardenBase *base)
+{
+    char contents[64];
+    
+    snprintf(contents, sizeof(contents), "%lld %lld\n",
+             (long long) base->first_position, (long long) base->started);
+    return write_archive_file(WARDEN_BASE_FILE, contents);
+}
+
+/*
+ * Where the live log starts. The base file records it after each rotation; a rotation that
+ * stopped after publishing its segment but before moving the base leaves that segment
+ * starting at the base, so the base moves past it here. Without a base file (nothing
+ * rotated yet), the live log starts after the last segment.
+ */
+static void
+load_base(WardenBase *base, const WardenSegment *segments, int nsegments)
+{
+    int i;
+    
+    if (read_base(base))
+    {
+        /* Sorted by position, so one pass moves past several */
+        for (i = 0; i < nsegments; i++)
+        {
+            if (segments[i].first_position == base->first_position)
+                base->first_position += segments[i].rows;
+        }
+        return;
+    }
+    
+    base->first_position = 0;
+    base->started = 0;
+    for (i = 0; i < nsegments; i++)
+    {
+        if (segments[i].first_position + segments[i].rows > base->first_position)
+            base->first_position = segments[i].first_position + segments[i].rows;
+    }
+}
+
+static bool
+read_segment_index(const char *file_name, WardenSegment *segment)
+{
+    char path[MAXPGPATH];
+    FILE *fp;
+    long long values[4];
+    size_t name_len = strlen(file_name) - strlen(".idx");
+    bool found = false;
+    
+    if (name_len >= sizeof(segment->name))
+        return false;
+    
+    memset(segment, 0, sizeof(WardenSegment));
+    memcpy(segment->name, file_name, name_len);
+    segment->name[name_len] = '\0';
+    
+    archive_path(path, file_name);
+    fp = fopen(path, "r");
+    if (fp == NULL)
+        return false;
+    
+    /* first_position,rows,min_ts,max_ts,raw_bytes,compressed_bytes; "-" when it holds no rows */
+    if (fscanf(fp, "%lld,%lld,%31[^,],%31[^,],%lld,%lld",
+               &values[0], &values[1], segment->min_ts, segment->max_ts, &values[2], &values[3]) == 6)
+    {
+        segment->first_position = values[0];
+        segment->rows = values[1];
+        segment->raw_bytes = values[2];
+        segment->compressed_bytes = values[3];
+        if (strcmp(segment->min_ts, "-") == 0)
+            segment->min_ts[0] = '\0';
+        if (strcmp(segment->max_ts, "-") == 0)
+            segment->max_ts[0] = '\0';
+        found = true;
+    }
+    fclose(fp);
+    return found;
+}
+
+static bool
+write_segment_index(const WardenSegment *segment)
+{
+    char file_name[MAXPGPATH];
+    char contents[256];
+    
+    snprintf(file_name, sizeof(file_name), "%s.idx", segment->name);
+    snprintf(contents, sizeof(contents), "%lld,%lld,%s,%s,%lld,%lld\n",
+             (long long) segment->first_position,
+             (long long) segment->rows,
+             segment->min_ts[0] ? segment->min_ts : "-",
+             segment->max_ts[0] ? segment->max_ts : "-",
+             (long long) segment->raw_bytes,
+             (long long) segment->compressed_bytes);
+    return write_archive_file(file_name, contents);
+}
+
+static int
+compare_segments(const void *a, const void *b)
+{
+    int64 first_a = ((const WardenSegment *) a)->first_position;
+    int64 first_b = ((const WardenSegment *) b)->first_position;
+    
+    return (first_a > first_b) - (first_a < first_b);
+}
+
+/* The archived segments in log order, from their index files */
+static int
+load_segments(WardenSegment **segments)
+{
+    char dir_path[MAXPGPATH];
+    DIR *dir;
+    struct dirent *de;
+    int count = 0;
+    int capacity = 16;
+    WardenSegment *result = palloc(sizeof(WardenSegment) * capacity);
+    
+    snprintf(dir_path, sizeof(dir_path), "%s/%s", DataDir, WARDEN_ARCHIVE_DIR);
+    dir = AllocateDir(dir_path);
+    if (dir == NULL)
+    {
+        /* Nothing rotated yet */
+        *segments = result;
+        return 0;
+    }
+    
+    while ((de = ReadDir(dir, dir_path)) != NULL)
+    {
+        size_t len = strlen(de->d_name);
+        
+        if (len <= strlen(".idx") || strcmp(de->d_name + len - strlen(".idx"), ".idx") != 0)
+            continue;
+        
+        if (count == capacity)
+        {
+            capacity *= 2;
+            result = repalloc(result, sizeof(WardenSegment) * capacity);
+        }
+        if (read_segment_index(de->d_name, &result[count]))
+            count++;
+    }
+    FreeDir(dir);
+    
+    qsort(result, count, sizeof(WardenSegment), compare_segments);
+    *segments = result;
+    return count;
+}
+
+/* The live log while it is being archived: live_<first position>.pending */
+static void
+pending_file_path(char *path, int64 first_position)
+{
+    char file_name[MAXPGPATH];
+    
+    snprintf(file_name, sizeof(file_name), "live_%020lld%s",
+             (long long) first_position, WARDEN_PENDING_SUFFIX);
+    archive_path(path, file_name);
+}
+
+/* Whether a rotation left a pending file, and the position it starts at */
+static bool
+find_pending(int64 *first_position)
+{
+    char dir_path[MAXPGPATH];
+    DIR *dir;
+    struct dirent *de;
+    bool found = false;
+    
+    snprintf(dir_path, sizeof(dir_path), "%s/%s", DataDir, WARDEN_ARCHIVE_DIR);
+    dir = AllocateDir(dir_path);
+    if (dir == NULL)
+        return false;
+    
+    while ((de = ReadDir(dir, dir_path)) != NULL)
+    {
+        long long first;
+        char suffix[16];
+        
+        if (sscanf(de->d_name, "live_%lld%15s", &first, suffix) == 2 &&
+            strcmp(suffix, WARDEN_PENDING_SUFFIX) == 0)
+        {
+            *first_position = first;
+            found = true;
+            break;
+        }
+    }
+    FreeDir(dir);
+    return found;
+}
+
+/*
+ * Opens the pending file if its rows are not in a segment yet, i.e. it starts at the base;
+ * otherwise (or without one) NULL. Its rows come after the segments and before the live log.
+ * The caller holds a lock on the live log, under which a rotation publishes its segment.
+ */
+static FILE *
+open_pending(const WardenBase *base)
+{
+    char path[MAXPGPATH];
+    int64 first_position;
+    
+    if (!find_pending(&first_position) || first_position != base->first_position)
+        return NULL;
+    
+    pending_file_path(path, first_position);
+    return fopen(path, "r");
+}
+
+/*
+ * Whether the live log has reached pg_warden.rotation_size or pg_warden.rotation_age; the
+ * caller holds the exclusive lock on it. The age counts from the last rotation, or from the
+ * first check if there was none.
+ */
+static bool
+rotation_due(FILE *live, WardenBase *base)
+{
+    struct stat st;
+    
+    if (warden_rotation_size > 0 && fstat(fileno(live), &st) == 0 &&
+        st.st_size >= (off_t) warden_rotation_size * 1024L)
+        return true;
+    
+    if (warden_rotation_age > 0)
+    {
+        if (base->started == 0)
+        {
+            base->started = (int64) time(NULL);
+            write_base(base);
+            return false;
+        }
+        return (int64) time(NULL) - base->started >= (int64) warden_rotation_age * SECS_PER_MINUTE;
+    }
+    
+    return false;
+}
+
+/*
+ * Archives the live log; only_if_due leaves it alone until rotation_due(). One rotation runs
+ * at a time, under a lock file in the archive directory; a call that finds it taken does
+ * nothing. Returns the rows archived, or -1 if a step failed.
+ */
+static int64
+rotate_live_log(bool only_if_due)
+{
+    char lock_path[MAXPGPATH];
+    int lock_fd;
+    int64 rows;
+    
+    if (!ensure_archive_dir())
+        return -1;
+    
+    /* A transient file is closed, releasing the lock, if the transaction aborts */
+    archive_path(lock_path, WARDEN_ROTATION_LOCK);
+    lock_fd = OpenTransientFile(lock_path, O_RDWR | O_CREAT | PG_BINARY);
+    if (lock_fd < 0)
+    {
+        elog(WARNING, "pg_warden: unable to open %s: %m", lock_path);
+        return -1;
+    }
+    if (flock(lock_fd, LOCK_EX | LOCK_NB) != 0)
+    {
+        CloseTransientFile(lock_fd);
+        return 0;
+    }
+    
+    rows = archive_live_log(only_if_due);
+    
+    CloseTransientFile(lock_fd);
+    return rows;
+}
+
+/*
+ * The rotation itself. The live log is locked only for the two short steps that change what
+ * readers see - moving it aside, and publishing the segment - and not while it is compressed,
+ * so writers wait for a rename, never for gzip:
+ *   1. the live log is renamed to the pending file; readers read it after the segments, and
+ *      writers start a new live log whose rows follow it;
+ *   2. the pending file is compressed into a segment, which has no index yet and is ignored;
+ *   3. the index is written: the segment now holds the rows, load_base moves past it, and
+ *      the pending file, no longer starting at the base, is ignored;
+ *   4. the pending file is removed and the base file moved past the segment.
+ * A crash after any step leaves a state readers understand, and the next rotation finishes
+ * the pending file before it moves the live log again.
+ */
+static int64
+archive_live_log(bool only_if_due)
+{
+    char live_path[MAXPGPATH];
+    char path[MAXPGPATH];
+    WardenSegment *segments;
+    WardenSegment segment;
+    WardenBase base;
+    struct stat st;
+    FILE *live;
+    int64 first_position;
+    int nsegments;
+    bool resuming;
+    
+    snprintf(live_path, sizeof(live_path), "%s/%s", DataDir, WARDEN_LOG_FILE);
+    live = open_live_log("a+", LOCK_EX);
+    if (live == NULL)
+    {
+        elog(WARNING, "pg_warden: unable to open log file %s", live_path);
+        return -1;
+    }
+    
+    nsegments = load_segments(&segments);
+    load_base(&base, segments, nsegments);
+    pfree(segments);
+    
+    resuming = find_pending(&first_position);
+    if (resuming && first_position != base.first_position)
+    {
+        /* Published by a rotation that stopped before step 4 */
+        pending_file_path(path, first_position);
+        fclose(live);
+        elog(LOG, "pg_warden: removing the already archived %s", path);
+        return finish_rotation(path, &base) ? 0 : -1;
+    }
+    
+    /* Otherwise a pending file starts at the base, and is archived before the live log moves */
+    first_position = base.first_position;
+    pending_file_path(path, first_position);
+    if (!resuming)
+    {
+        if (only_if_due && !rotation_due(live, &base))
+        {
+            fclose(live);
+            return 0;
+        }
+        if (fstat(fileno(live), &st) != 0 || st.st_size == 0)
+        {
+            fclose(live);
+            return 0;
+        }
+        if (durable_rename(live_path, path, WARNING) != 0)
+        {
+            fclose(live);
+            return -1;
+        }
+    }
+    
+    /* Writers waiting for the lock find the path gone and start a new live log */
+    fclose(live);
+    
+    if (!compress_segment(path, first_position, &segment))
+        return -1;
+    
+    live = open_live_log("a+", LOCK_EX);
+    if (live == NULL)
+    {
+        elog(WARNING, "pg_warden: unable to open log file %s", live_path);
+        return -1;
+    }
+    if (!write_segment_index(&segment))
+    {
+        fclose(live);
+        return -1;
+    }
+    base.first_position = first_position + segment.rows;
+    if (!finish_rotation(path, &base))
+    {
+        fclose(live);
+        return -1;
+    }
+    fclose(live);
+    
+    elog(LOG, "pg_warden: archived %lld log rows into %s",
+         (long long) segment.rows, segment.name);
+    
+    return segment.rows;
+}
+
+/*
+ * Step 4: removes the pending file, then moves the base file to the given position. If the
+ * pending file cannot be removed, the base file is left as it was and the rotation fails;
+ * readers already ignore the pending file, and the next rotation removes it.
+ */
+static bool
+finish_rotation(const char *pending_path, WardenBase *base)
+{
+    if (unlink(pending_path) != 0 && errno != ENOENT)
+    {
+        elog(WARNING, "pg_warden: unable to remove rotated log file %s: %m", pending_path);
+        return false;
+    }
+    
+    base->started = (int64) time(NULL);
+    return write_base(base);
+}
+
+/*
+ * Step 2: compresses the pending file into ops_<first position>.csv.gz, written under a
+ * temporary name and renamed into place, and fills in the segment's index. A failure leaves
+ * the pending file for the next rotation.
+ */
+static bool
+compress_segment(const char *pending_path, int64 first_position, WardenSegment *segment)
+{
+    char file_name[MAXPGPATH];
+    char path[MAXPGPATH];
+    char tmp_path[MAXPGPATH];
+    char *fields[WARDEN_FIELDS];
+    StringInfoData line;
+    struct stat st;
+    gzFile in;
+    gzFile out;
+    bool failed = false;
+    
+    /* A gzFile reads plain files as they are */
+    in = gzopen(pending_path, "rb");
+    if (in == NULL)
+    {
+        elog(WARNING, "pg_warden: unable to read rotated log file %s: %m", pending_path);
+        return false;
+    }
+    
+    memset(segment, 0, sizeof(*segment));
+    snprintf(segment->name, sizeof(segment->name), "ops_%020lld", (long long) first_position);
+    segment->first_position = first_position;
+    snprintf(file_name, sizeof(file_name), "%s.csv.gz", segment->name);
+    archive_path(path, file_name);
+    snprintf(tmp_path, sizeof(tmp_path), "%s.tmp", path);
+    
+    out = gzopen(tmp_path, "wb");
+    if (out == NULL)
+    {
+        elog(WARNING, "pg_warden: unable to create archive segment %s", tmp_path);
+        gzclose(in);
+        return false;
+    }
+    
+    /*
+     * Rows are counted with the same line reads and parser as warden_all_queries(); a last line
+     * cut short by a crash is left out, as readers never counted it
+     */
+    initStringInfo(&line);
+    while (read_log_line(in, &line))
+    {
+        if (gzwrite(out, line.data, (unsigned) line.len) != line.len)
+        {
+            failed = true;
+            break;
+        }
+        segment->raw_bytes += line.len;
+        
+        if (parse_log_line(line.data, fields))
+        {
+            segment->rows++;
+            if (segment->min_ts[0] == '\0' || strcmp(fields[0], segment->min_ts) < 0)
+                strlcpy(segment->min_ts, fields[0], sizeof(segment->min_ts));
+            if (strcmp(fields[0], segment->max_ts) > 0)
+                strlcpy(segment->max_ts, fields[0], sizeof(segment->max_ts));
+        }
+    }
+    pfree(line.data);
+    gzclose(in);
+    
+    if (gzclose(out) != Z_OK || failed)
+    {
+        elog(WARNING, "pg_warden: unable to write archive segment %s", tmp_path);
+        unlink(tmp_path);
+        return false;
+    }
+    
+    if (stat(tmp_path, &st) == 0)
+        segment->compressed_bytes = st.st_size;
+    
+    if (durable_rename(tmp_path, path, WARNING) != 0)
+    {
+        unlink(tmp_path);
+        return false;
+    }
+    return true;
+}
+
+/*
+ * Splits one CSV line of the log into its fields, in place, unquoting quoted ones.
+ * False for lines that do not have all fields, which readers skip.
+ */
+static bool
+parse_log_line(char *line, char **fields)
+{
+    char *ptr = line;
+    int field_count = 0;
+    bool in_quotes = false;
+    char *field_start = ptr;
+    int i;
+    
+    /* Simple CSV parser */
+    while (*ptr && field_count < WARDEN_FIELDS)
+    {
+        if (*ptr == '"')
+        {
+            in_quotes = !in_quotes;
+        }
+        else if (*ptr == ',' && !in_quotes)
+        {
+            *ptr = '\0';
+            fields[field_count++] = field_start;
+            field_start = ptr + 1;
+        }
+        else if (*ptr == '\n' && !in_quotes)
+        {
+            *ptr = '\0';
+            fields[field_count++] = field_start;
+            break;
+        }
+        ptr++;
+    }
+    
+    /* Add last field if we haven't reached 8 fields */
+    if (field_count < WARDEN_FIELDS && field_start < ptr)
+    {
+        fields[field_count++] = field_start;
+    }
+    
+    /* Skip incomplete lines */
+    if (field_count != WARDEN_FIELDS)
+        return false;
+    
+    /* Remove quotes from quoted fields */
+    for (i = 0; i < WARDEN_FIELDS; i++)
+    {
+        char *field = fields[i];
+        int len = strlen(field);
+        if (len >= 2 && field[0] == '"' && field[len-1] == '"')
+        {
+            char *src;
+            char *dst;
+            
+            field[len-1] = '\0';
+            fields[i] = field + 1;
+            
+            /* Unescape double quotes */
+            src = fields[i];
+            dst = fields[i];
+            while (*src)
+            {
+                if (src[0] == '"' && src[1] == '"')
+                {
+                    *dst++ = '"';
+                    src += 2;
+                }
+                else
+                {
+                    *dst++ = *src++;
+                }
+            }
+            *dst = '\0';
+        }
+    }
+    
+    return true;
+}
+
+/*
+ * Reads the next line of the log, whatever its length, into line. False at the end, and
+ * before a last line without its '\n': readers do not lock the file while they read it, so
+ * that line may still be being written, and the next read sees it whole.
+ */
+static bool
+read_log_line(gzFile in, StringInfo line)
+{
+    char chunk[WARDEN_LINE_MAX];
+    
+    resetStringInfo(line);
+    while (gzgets(in, chunk, sizeof(chunk)) != NULL)
+    {
+        appendStringInfoString(line, chunk);
+        if (line->data[line->len - 1] == '\n')
+            return true;
+    }
+    return false;
+}
+
+/* Reads the rows of one segment or the live log, the first of them at position + 1 */
+static void
+scan_log_stream(WardenScan *scan, gzFile in, int64 position)
+{
+    StringInfoData line;
+    char *fields[WARDEN_FIELDS];
+    Datum values[WARDEN_FIELDS + 1];
+    bool nulls[WARDEN_FIELDS + 1];
+    int i;
+    
+    for (i = 0; i <= WARDEN_FIELDS; i++)
+        nulls[i] = false;
+    
+    initStringInfo(&line);
+    while (read_log_line(in, &line))
+    {
+        if (!parse_log_line(line.data, fields))
+            continue;
+        
+        position++;
+        scan->rows++;
+        if (scan->min_ts[0] == '\0' || strcmp(fields[0], scan->min_ts) < 0)
+            strlcpy(scan->min_ts, fields[0], sizeof(scan->min_ts));
+        if (strcmp(fields[0], scan->max_ts) > 0)
+            strlcpy(scan->max_ts, fields[0], sizeof(scan->max_ts));
+        
+        if (scan->tupstore == NULL || position <= scan->after)
+            continue;
+        if (scan->from_ts && strcmp(fields[0], scan->from_ts) < 0)
+            continue;
+        if (scan->to_ts && strcmp(fields[0], scan->to_ts) > 0)
+            continue;
+        
+        values[0] = CStringGetTextDatum(fields[0]); /* timestamp */
+        values[1] = CStringGetTextDatum(fields[1]); /* operation_type */
+        values[2] = CStringGetTextDatum(fields[2]); /* table_name */
+        values[3] = CStringGetTextDatum(fields[3]); /* user_name */
+        values[4] = Int32GetDatum(atoi(fields[4])); /* session_pid */
+        values[5] = CStringGetTextDatum(fields[5]); /* status */
+        
+        /* Handle NULL blocked_reason */
+        if (strlen(fields[6]) == 0)
+        {
+            nulls[6] = true;
+        }
+        else
+        {
+            nulls[6] = false;
+            values[6] = CStringGetTextDatum(fields[6]); /* blocked_reason */
+        }
+        
+        values[7] = CStringGetTextDatum(fields[7]); /* query_text */
+        
+        if (scan->with_position)
+            values[8] = Int64GetDatum(position);
+        
+        tuplestore_putvalues(scan->tupstore, scan->tupdesc, values, nulls);
+    }
+    pfree(line.data);
+}
+
+/*
+ * Lists what a reader sees, under a shared lock on the live log so that a rotation shows up
+ * either entirely or not at all: the segments, where the live log starts, and the live log
+ * and the pending file of a rotation in progress, opened so that they keep reading the
+ * listed files even if these are moved meanwhile. The live log is created if a rotation has
+ * just moved it, so that there is always a file to lock. Returns the number of segments.
+ */
+static int
+open_log(WardenSegment **segments, WardenBase *base, FILE **pending, FILE **live)
+{
+    int nsegments;
+    
+    *live = open_live_log("a+", LOCK_SH);
+    nsegments = load_segments(segments);
+    load_base(base, *segments, nsegments);
+    *pending = open_pending(base);
+    if (*live != NULL)
+        flock(fileno(*live), LOCK_UN);
+    return nsegments;
+}
+
+/*
+ * Reads the rows of a file opened by open_log(), the first of them at position + 1, and
+ * returns the position of its last row
+ */
+static int64
+scan_log_file(WardenScan *scan, FILE *fp, int64 position)
+{
+    /* A gzFile reads plain files as they are; dup() leaves fp to the caller */
+    gzFile in = gzdopen(dup(fileno(fp)), "rb");
+    int64 rows = scan->rows;
+    
+    if (in != NULL)
+    {
+        scan_log_stream(scan, in, position);
+        gzclose(in);
+    }
+    return position + scan->rows - rows;
+}
+
+/*
+ * Reads the archived segments, then the pending file of a rotation in progress, then the
+ * live log; the rows themselves are read without blocking writers. Segments entirely outside
+ * the scan's range are skipped using their index.
+ */
+static void
+scan_log(WardenScan *scan)
+{
+    WardenSegment *segments;
+    WardenBase base;
+    FILE *pending;
+    FILE *live;
+    int64 position;
+    int nsegments;
+    int i;
+    
+    nsegments = open_log(&segments, &base, &pending, &live);
+    
+    for (i = 0; i < nsegments; i++)
+    {
+        WardenSegment *segment = &segments[i];
+        char file_name[MAXPGPATH];
+        char path[MAXPGPATH];
+        gzFile in;
+        
+        /* Not contiguous with the base; its rows are not the ones before the live log */
+        if (segment->first_position >= base.first_position)
+            continue;
+        
+        if (scan->tupstore != NULL)
+        {
+            if (segment->first_position + segment->rows <= scan->after)
+                continue;
+            if (scan->from_ts && (segment->max_ts[0] == '\0' || strcmp(segment->max_ts, scan->from_ts) < 0))
+                continue;
+            if (scan->to_ts && (segment->min_ts[0] == '\0' || strcmp(segment->min_ts, scan->to_ts) > 0))
+                continue;
+        }
+        
+        snprintf(file_name, sizeof(file_name), "%s.csv.gz", segment->name);
+        archive_path(path, file_name);
+        in = gzopen(path, "rb");
+        if (in == NULL)
+        {
+            /* Dropped since we listed it */
+            continue;
+        }
+        scan_log_stream(scan, in, segment->first_position);
+        gzclose(in);
+    }
+    pfree(segments);
+    
+    position = base.first_position;
+    if (pending != NULL)
+    {
+        position = scan_log_file(scan, pending, position);
+        fclose(pending);
+    }
+    if (live != NULL)
+    {
+        scan_log_file(scan, live, position);
+        fclose(live);
+    }
+}
 
 /* Removed is_alter_table_command - no longer needed */
 
@@ -544,147 +1608,224 @@ Datum
 warden_all_queries(PG_FUNCTION_ARGS)
 {
     ReturnSetInfo   *rsinfo = (ReturnSetInfo *) fcinfo->resultinfo;
-    TupleDesc	    tupdesc;
-    Tuplestorestate *tupstore;
-    MemoryContext   per_query_ctx;
-    MemoryContext   oldcontext;
-    Datum           values[8];  /* Now 8 columns instead of 9 */
-    bool            nulls[8];
-    char            log_path[MAXPGPATH];
-    char            line_buffer[4096];
-    FILE            *fp = NULL;
+    WardenScan      scan;
+
+    InitMaterializedSRF(fcinfo, 0);
+
+    /* Every retained row: the archived segments, then the live log */
+    memset(&scan, 0, sizeof(scan));
+    scan.tupstore = rsinfo->setResult;
+    scan.tupdesc = rsinfo->setDesc;
+    scan_log(&scan);
+
+    PG_RETURN_NULL();
+}
+
+
+/*
+ * Rows after a position and within a time range, with their positions; any argument may be
+ * NULL for no bound. Archived segments outside the range are skipped without being read.
+ */
+Datum
+warden_queries_range(PG_FUNCTION_ARGS)
+{
+    ReturnSetInfo   *rsinfo = (ReturnSetInfo *) fcinfo->resultinfo;
+    WardenScan      scan;
+
+    InitMaterializedSRF(fcinfo, 0);
+
+    memset(&scan, 0, sizeof(scan));
+    scan.tupstore = rsinfo->setResult;
+    scan.tupdesc = rsinfo->setDesc;
+    scan.with_position = true;
+    scan.after = PG_ARGISNULL(0) ? 0 : PG_GETARG_INT64(0);
+    scan.from_ts = PG_ARGISNULL(1) ? NULL : text_to_cstring(PG_GETARG_TEXT_PP(1));
+    scan.to_ts = PG_ARGISNULL(2) ? NULL : text_to_cstring(PG_GETARG_TEXT_PP(2));
+    scan_log(&scan);
+
+    PG_RETURN_NULL();
+}
+
+
+/*
+ * The archived segments with their index, then the pending file of a rotation in progress
+ * as segment 'pending', and the live log last as segment 'live'
+ */
+Datum
+warden_log_segments(PG_FUNCTION_ARGS)
+{
+    ReturnSetInfo   *rsinfo = (ReturnSetInfo *) fcinfo->resultinfo;
+    WardenSegment   *segments;
+    WardenBase      base;
+    Datum           values[7];
+    bool            nulls[7];
+    FILE            *pending;
+    FILE            *live;
+    int64           position;
+    int             nsegments;
     int             i;
 
-    /* Initialize nulls array */
-    for (i = 0; i < 8; i++)
-        nulls[i] = false;
+    InitMaterializedSRF(fcinfo, 0);
 
-    if (get_call_result_type(fcinfo, NULL, &tupdesc) != TYPEFUNC_COMPOSITE)
-        elog(ERROR, "return type must be a row type");
+    nsegments = open_log(&segments, &base, &pending, &live);
 
-    per_query_ctx = rsinfo->econtext->ecxt_per_query_memory;
-    oldcontext = MemoryContextSwitchTo(per_query_ctx);
-    tupstore = tuplestore_begin_heap(true, false, work_mem);
+    for (i = 0; i < nsegments; i++)
+    {
+        WardenSegment *segment = &segments[i];
 
-    rsinfo->returnMode = SFRM_Materialize;
-    rsinfo->setResult = tupstore;
-    rsinfo->setDesc = tupdesc;
+        if (segment->first_position >= base.first_position)
+            continue;
 
-    /* Build log file path */
-    snprintf(log_path, sizeof(log_path), "%s/pg_warden_ops.csv", DataDir);
-    
-    /* Open CSV file */
-    fp = fopen(log_path, "r");
+        memset(nulls, false, sizeof(nulls));
+        values[0] = CStringGetTextDatum(segment->name);
+        values[1] = Int64GetDatum(segment->first_position);
+        values[2] = Int64GetDatum(segment->rows);
+        nulls[3] = segment->min_ts[0] == '\0';
+        values[3] = nulls[3] ? (Datum) 0 : CStringGetTextDatum(segment->min_ts);
+        nulls[4] = segment->max_ts[0] == '\0';
+        values[4] = nulls[4] ? (Datum) 0 : CStringGetTextDatum(segment->max_ts);
+        values[5] = Int64GetDatum(segment->raw_bytes);
+        values[6] = Int64GetDatum(segment->compressed_bytes);
+        tuplestore_putvalues(rsinfo->setResult, rsinfo->setDesc, values, nulls);
+    }
+    pfree(segments);
 
-    if (fp == NULL)
+    position = base.first_position;
+    if (pending != NULL)
     {
-        /* No log file yet - return empty result set */
-        tuplestore_donestoring(tupstore);
-        MemoryContextSwitchTo(oldcontext);
-        PG_RETURN_NULL();
+        position = put_uncompressed_segment(rsinfo, "pending", pending, position);
+        fclose(pending);
     }
-    
-    /* Read and parse each CSV line */
-    while (fgets(line_buffer, sizeof(line_buffer), fp) != NULL)
+    if (live != NULL)
     {
-        char *fields[8];  /* Now 8 fields */
-        char *ptr = line_buffer;
-        int field_count = 0;
-        bool in_quotes = false;
-        char *field_start = ptr;
-        
-        /* Simple CSV parser */
-        while (*ptr && field_count < 8)
-        {
-            if (*ptr == '"')
-            {
-                in_quotes = !in_quotes;
-            }
-            else if (*ptr == ',' && !in_quotes)
-            {
-                *ptr = '\0';
-                fields[field_count++] = field_start;
-                field_start = ptr + 1;
-            }
-            else if (*ptr == '\n' && !in_quotes)
-            {
-                *ptr = '\0';
-                fields[field_count++] = field_start;
-                break;
-            }
-            ptr++;
-        }
-        
-        /* Add last field if we haven't reached 8 fields */
-        if (field_count < 8 && field_start < ptr)
-        {
-            fields[field_count++] = field_start;
-        }
-        
-        /* Skip incomplete lines */
-        if (field_count != 8)
+        put_uncompressed_segment(rsinfo, "live", live, position);
+        fclose(live);
+    }
+
+    PG_RETURN_NULL();
+}
+
+
+/* One row of warden_log_segments() for a file that is not compressed; returns its last position */
+static int64
+put_uncompressed_segment(ReturnSetInfo *rsinfo, const char *name, FILE *fp, int64 position)
+{
+    WardenScan  scan;
+    struct stat st;
+    Datum       values[7];
+    bool        nulls[7];
+
+    /* Counting only: no tuplestore */
+    memset(&scan, 0, sizeof(scan));
+    scan_log_file(&scan, fp, position);
+
+    memset(nulls, false, sizeof(nulls));
+    values[0] = CStringGetTextDatum(name);
+    values[1] = Int64GetDatum(position);
+    values[2] = Int64GetDatum(scan.rows);
+    nulls[3] = scan.min_ts[0] == '\0';
+    values[3] = nulls[3] ? (Datum) 0 : CStringGetTextDatum(scan.min_ts);
+    nulls[4] = scan.max_ts[0] == '\0';
+    values[4] = nulls[4] ? (Datum) 0 : CStringGetTextDatum(scan.max_ts);
+    values[5] = Int64GetDatum(fstat(fileno(fp), &st) == 0 ? (int64) st.st_size : 0);
+    nulls[6] = true;
+    values[6] = (Datum) 0;
+    tuplestore_putvalues(rsinfo->setResult, rsinfo->setDesc, values, nulls);
+
+    return position + scan.rows;
+}
+
+
+/*
+ * Archives the live log and returns the rows archived: now, or with only_if_due once it
+ * reaches pg_warden.rotation_size or pg_warden.rotation_age. Writers never rotate the log,
+ * so the latter is meant to be called on a schedule. 0 if there was nothing to archive or
+ * another rotation is running.
+ */
+Datum
+warden_rotate_log(PG_FUNCTION_ARGS)
+{
+    bool    only_if_due = PG_NARGS() > 0 && PG_GETARG_BOOL(0);
+    int64   rows;
+
+    rows = rotate_live_log(only_if_due);
+
+    if (rows < 0)
+        ereport(ERROR,
+               (errcode(ERRCODE_IO_ERROR),
+                errmsg("could not rotate the pg_warden operation log"),
+                errhint("See the server log for the cause.")));
+
+    if (rows > 0)
+        log_operation_csv("ROTATE", NULL, "SUCCESS", NULL, "WARDEN ROTATE LOG");
+
+    PG_RETURN_INT64(rows);
+}
+
+
+/*
+ * Deletes the archived segments whose newest row is older than before_time and, if
+ * max_position is given, that end at or before it (e.g. what has been copied elsewhere).
+ * Returns the number of segments deleted. The live log is never touched.
+ */
+Datum
+warden_drop_segments(PG_FUNCTION_ARGS)
+{
+    WardenSegment   *segments;
+    WardenBase      base;
+    WardenBase      recorded;
+    char            *before;
+    bool            limited = !PG_ARGISNULL(1);
+    int64           max_position = limited ? PG_GETARG_INT64(1) : 0;
+    int             nsegments;
+    int             dropped = 0;
+    int             i;
+
+    if (PG_ARGISNULL(0))
+        ereport(ERROR,
+               (errcode(ERRCODE_NULL_VALUE_NOT_ALLOWED),
+                errmsg("before_time must not be null")));
+    before = text_to_cstring(PG_GETARG_TEXT_PP(0));
+
+    nsegments = load_segments(&segments);
+    load_base(&base, segments, nsegments);
+    /* Segments the base file does not count yet are what load_base moves it past */
+    if (read_base(&recorded) && recorded.first_position < base.first_position)
+        base.first_position = recorded.first_position;
+
+    for (i = 0; i < nsegments; i++)
+    {
+        WardenSegment *segment = &segments[i];
+        char file_name[MAXPGPATH];
+        char path[MAXPGPATH];
+
+        if (segment->first_position >= base.first_position)
             continue;
-        
-        /* Remove quotes from quoted fields */
-        for (i = 0; i < 8; i++)
-        {
-            char *field = fields[i];
-            int len = strlen(field);
-            if (len >= 2 && field[0] == '"' && field[len-1] == '"')
-            {
-                char *src;
-                char *dst;
-                
-                field[len-1] = '\0';
-                fields[i] = field + 1;
-                
-                /* Unescape double quotes */
-                src = fields[i];
-                dst = fields[i];
-                while (*src)
-                {
-                    if (src[0] == '"' && src[1] == '"')
-                    {
-                        *dst++ = '"';
-                        src += 2;
-                    }
-                    else
-                    {
-                        *dst++ = *src++;
-                    }
-                }
-                *dst = '\0';
-            }
-        }
-        
-        /* Populate values array (removed database_name) */
-        values[0] = CStringGetTextDatum(fields[0]); /* timestamp */
-        values[1] = CStringGetTextDatum(fields[1]); /* operation_type */
-        values[2] = CStringGetTextDatum(fields[2]); /* table_name */
-        values[3] = CStringGetTextDatum(fields[3]); /* user_name */
-        values[4] = Int32GetDatum(atoi(fields[4])); /* session_pid */
-        values[5] = CStringGetTextDatum(fields[5]); /* status */
-        
-        /* Handle NULL blocked_reason */
-        if (strlen(fields[6]) == 0)
-        {
-            nulls[6] = true;
-        }
-        else
+        /* A segment without rows has no time and goes with the others */
+        if (segment->max_ts[0] != '\0' && strcmp(segment->max_ts, before) >= 0)
+            continue;
+        if (limited && segment->first_position + segment->rows > max_position)
+            continue;
+
+        /* The index first: readers only see segments through it */
+        snprintf(file_name, sizeof(file_name), "%s.idx", segment->name);
+        archive_path(path, file_name);
+        if (unlink(path) != 0 && errno != ENOENT)
         {
-            nulls[6] = false;
-            values[6] = CStringGetTextDatum(fields[6]); /* blocked_reason */
+            elog(WARNING, "pg_warden: unable to remove %s: %m", path);
+            continue;
         }
-        
-        values[7] = CStringGetTextDatum(fields[7]); /* query_text */
-        
-        tuplestore_putvalues(tupstore, tupdesc, values, nulls);
+        snprintf(file_name, sizeof(file_name), "%s.csv.gz", segment->name);
+        archive_path(path, file_name);
+        if (unlink(path) != 0 && errno != ENOENT)
+            elog(WARNING, "pg_warden: unable to remove %s: %m", path);
+        dropped++;
     }
-    
-    fclose(fp);
-    
-    tuplestore_donestoring(tupstore);
-    MemoryContextSwitchTo(oldcontext);
-    
-    PG_RETURN_NULL();
+    pfree(segments);
+
+    if (dropped > 0)
+        log_operation_csv("ARCHIVE_DROP", NULL, "SUCCESS", NULL,
+                          psprintf("WARDEN DROP %d SEGMENTS BEFORE %s", dropped, before));
+
+    PG_RETURN_INT32(dropped);
 }
\ No newline at end of file